@@ -914,19 +914,28 @@ public class EdgeKey {
      * @return a key for the Datawave edge table
      */
     public Key encode() {
+        return encode(getEncodingVersion());
+    }
+    
+    /**
+     * @return the version in which {@link #encode()} encodes this key
+     */
+    EDGE_VERSION getEncodingVersion() {
         if (this.getDateType() == DATE_TYPE.OLD_EVENT) {
-            return encodeLegacyProtobufKey();
+            if (this.getFormat() == EDGE_FORMAT.STATS) {
+                return EDGE_VERSION.STATS_PROTOBUF;
+            } else if (this.getFormat() == EDGE_FORMAT.STANDARD) {
+                return EDGE_VERSION.PROTOBUF;
+            }
         } else {
             if (this.getFormat() == EDGE_FORMAT.STATS) {
-                return encode(EDGE_VERSION.DATE_STATS_PROTOBUF);
+                return EDGE_VERSION.DATE_STATS_PROTOBUF;
             } else if (this.getFormat() == EDGE_FORMAT.STANDARD) {
-                return encode(EDGE_VERSION.DATE_PROTOBUF);
-            } else {
-                // EDGE_FORMAT.UNKNOWN
-                throw new IllegalStateException("Can't encode unknown edge key format." + this);
+                return EDGE_VERSION.DATE_PROTOBUF;
             }
         }
-        
+        // EDGE_FORMAT.UNKNOWN
+        throw new IllegalStateException("Can't encode unknown edge key format." + this);
     }
     
     public Key encodeLegacyProtobufKey() {
@@ -0,0 +1,175 @@
+package datawave.edge.util;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.hadoop.io.Text;
+
+import static datawave.edge.util.EdgeKey.COL_SEPARATOR;
+import static datawave.edge.util.EdgeKey.COL_SUB_SEPARATOR;
+import static datawave.edge.util.EdgeKey.EDGE_FORMAT;
+import static datawave.edge.util.EdgeKey.EDGE_VERSION;
+import static datawave.edge.util.EdgeKey.STATS_TYPE;
+
+/**
+ * The counterpart of the {@link EdgeKeyDecoder}, producing the same keys as {@link EdgeKey#encode()}. The row, column family and column qualifier are written
+ * as UTF-8 into a single buffer which is reused from one key to the next, rather than being assembled from intermediate strings, so that the only allocation
+ * per key is the key itself.
+ *
+ * An encoder is not thread safe.
+ */
+public class EdgeKeyEncoder {
+    private static final String NULL = "null";
+    private static final String STATS_COLF = "STATS";
+    
+    // the pieces of the column family and qualifier, where a joined piece is written as first-second
+    private final String[] firstParts = new String[EDGE_VERSION.DATE_STATS_PROTOBUF.getTotalColPieces()];
+    private final String[] secondParts = new String[firstParts.length];
+    private final boolean[] joined = new boolean[firstParts.length];
+    
+    private byte[] buffer = new byte[256];
+    private int length = 0;
+    
+    /**
+     * Creates an edge table key from the various EdgeKey fields.
+     *
+     * @param edgeKey
+     *            the edge key
+     * @return a key for the Datawave edge table
+     */
+    public Key encode(EdgeKey edgeKey) {
+        return encode(edgeKey, edgeKey.getEncodingVersion());
+    }
+    
+    private Key encode(EdgeKey edgeKey, EDGE_VERSION version) {
+        length = 0;
+        
+        // row id
+        int rowOffset = length;
+        if (edgeKey.getFormat() == EDGE_FORMAT.STATS) {
+            append(edgeKey.getSourceData());
+        } else if (edgeKey.getFormat() == EDGE_FORMAT.STANDARD) {
+            append(edgeKey.getSourceData());
+            append('\0');
+            append(edgeKey.getSinkData());
+        } else {
+            throw new IllegalStateException("Invalid Edge Type encountered: " + edgeKey.getFormat());
+        }
+        int rowLength = length - rowOffset;
+        
+        // populate the pieces in the same order as EdgeKey.encode, as the indices of some versions overlap
+        int pieces = version.getTotalColPieces();
+        for (int i = 0; i < pieces; i++) {
+            set(i, NULL);
+        }
+        if (edgeKey.getFormat() == EDGE_FORMAT.STATS) {
+            set(0, STATS_COLF);
+            set(version.getStatsTypeIndex(), edgeKey.getStatsType().name());
+        }
+        set(version.getTypeIndex(), edgeKey.getType());
+        if (edgeKey.getFormat() == EDGE_FORMAT.STANDARD) {
+            set(version.getRelationshipIndex(), edgeKey.getSourceRelationship(), edgeKey.getSinkRelationship());
+        } else {
+            set(version.getRelationshipIndex(), edgeKey.getSourceRelationship());
+        }
+        if (edgeKey.getFormat() == EDGE_FORMAT.STANDARD || (edgeKey.getFormat() == EDGE_FORMAT.STATS && edgeKey.getStatsType() == STATS_TYPE.LINKS)) {
+            set(version.getCategoryIndex(), edgeKey.getSourceAttribute1(), edgeKey.getSinkAttribute1());
+        } else {
+            set(version.getCategoryIndex(), edgeKey.getSourceAttribute1());
+        }
+        set(version.getYMDIndex(), edgeKey.getYyyymmdd());
+        if (version.hasAttribute2()) {
+            set(version.getAttribute2Index(), edgeKey.getAttribute2());
+        }
+        if (version.hasAttribute3()) {
+            set(version.getAttribute3Index(), edgeKey.getAttribute3());
+        }
+        if (version.getDateTypeIndex() >= 0) {
+            set(version.getDateTypeIndex(), edgeKey.getDateType().toString());
+        }
+        
+        // serialize the colf
+        int colfOffset = length;
+        appendPieces(0, version.getNumColfPieces());
+        int colfLength = length - colfOffset;
+        
+        // serialize the colq
+        int colqOffset = length;
+        appendPieces(version.getNumColfPieces(), pieces);
+        int colqLength = length - colqOffset;
+        
+        Text colvis = edgeKey.getColvis();
+        Key key = new Key(buffer, rowOffset, rowLength, buffer, colfOffset, colfLength, buffer, colqOffset, colqLength, colvis.getBytes(), 0,
+                        colvis.getLength(), edgeKey.getTimestamp());
+        key.setDeleted(edgeKey.isDeleted());
+        return key;
+    }
+    
+    private void set(int index, String piece) {
+        firstParts[index] = piece;
+        joined[index] = false;
+    }
+    
+    private void set(int index, String first, String second) {
+        firstParts[index] = first;
+        secondParts[index] = second;
+        joined[index] = true;
+    }
+    
+    private void appendPieces(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (i > start) {
+                append(COL_SEPARATOR);
+            }
+            append(firstParts[i]);
+            if (joined[i]) {
+                append(COL_SUB_SEPARATOR);
+                append(secondParts[i]);
+            }
+        }
+    }
+    
+    /**
+     * Appends a string as UTF-8, writing "null" for a null string as a StringBuilder would, and replacing an unpaired surrogate with '?' as a Text would
+     */
+    private void append(String value) {
+        if (value == null) {
+            value = NULL;
+        }
+        ensureCapacity(length + value.length() * 3);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xc0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[length++] = (byte) (0xf0 | (codePoint >> 18));
+                    buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    buffer[length++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else {
+                    buffer[length++] = '?';
+                }
+            } else {
+                buffer[length++] = (byte) (0xe0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[length++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+    
+    private void append(char c) {
+        ensureCapacity(length + 1);
+        buffer[length++] = (byte) c;
+    }
+    
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            byte[] larger = new byte[Math.max(capacity, buffer.length * 2)];
+            System.arraycopy(buffer, 0, larger, 0, length);
+            buffer = larger;
+        }
+    }
+}
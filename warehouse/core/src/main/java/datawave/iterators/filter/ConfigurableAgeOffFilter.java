@@ -125,6 +125,10 @@ public class ConfigurableAgeOffFilter extends Filter implements OptionDescriber
     // this is a time after which we do not need to check any filters.
     protected long shortCircuitDateMillis;
     
+    // the latest cutoff of the default ttl and all of the filters, after which no filter would age off a key, and the filter list it was computed for
+    private long latestCutOffDateMillis = Long.MAX_VALUE;
+    private Collection<AppliedRule> latestCutOffFilterList = null;
+    
     protected String filename;
     
     protected static FileSystem fs = null;
@@ -168,6 +172,13 @@ public class ConfigurableAgeOffFilter extends Filter implements OptionDescriber
         if (timeStamp > this.shortCircuitDateMillis)
             return true;
         
+        // newer than the cutoff of every filter, so no need to find the filter that applies
+        if (this.latestCutOffFilterList != this.filterList) {
+            computeLatestCutOff();
+        }
+        if (timeStamp > this.latestCutOffDateMillis)
+            return true;
+        
         boolean acceptFlag = false;
         boolean filterRuleApplied = false;
         
@@ -191,6 +202,29 @@ public class ConfigurableAgeOffFilter extends Filter implements OptionDescriber
         
     }
     
+    /**
+     * Computes the latest cutoff of the default ttl and the filters, such that a key with a later timestamp would be accepted by whichever filter applies to it.
+     * If any filter does not age off by comparing the timestamp with a cutoff then there is no such time, and every key is passed to the filters.
+     */
+    private void computeLatestCutOff() {
+        long latestCutOff = this.cutOffDateMillis;
+        if (this.filterList != null) {
+            for (AppliedRule filter : this.filterList) {
+                Long filterCutOff = (filter == null ? null : filter.getLatestCutOffMilliseconds());
+                if (filterCutOff == null) {
+                    latestCutOff = Long.MAX_VALUE;
+                    break;
+                }
+                latestCutOff = Math.max(latestCutOff, filterCutOff);
+            }
+        }
+        this.latestCutOffDateMillis = latestCutOff;
+        this.latestCutOffFilterList = this.filterList;
+        if (log.isTraceEnabled()) {
+            log.trace("latestCutOffDateMillis as Date = " + new Date(latestCutOff));
+        }
+    }
+    
     @Override
     public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
         
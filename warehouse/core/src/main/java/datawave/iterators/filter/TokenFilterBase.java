@@ -133,6 +133,11 @@ public abstract class TokenFilterBase extends AppliedRule {
         return ruleApplied;
     }
     
+    @Override
+    public Long getLatestCutOffMilliseconds() {
+        return getPeriod().getCutOffMilliseconds();
+    }
+    
     @Override
     public String toString() {
         return this.getClass().getSimpleName() + " [patternStr=" + toString(patternBytes) + ", cutOffDateMillis=" + getPeriod().getCutOffMilliseconds() + "]";
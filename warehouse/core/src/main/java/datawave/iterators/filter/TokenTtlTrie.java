@@ -35,6 +35,21 @@ public final class TokenTtlTrie {
         return stateTTLs.length;
     }
     
+    /**
+     * Returns the shortest positive ttl that {@link #scan(byte[])} may return, or null if it never returns a positive ttl.
+     */
+    public Long getShortestPositiveTtl() {
+        Long shortest = null;
+        for (int state = 0; state < stateTTLs.length; state++) {
+            // a state is only returned by a scan if it has a priority, and its ttl is returned as a float
+            long ttl = (long) (float) stateTTLs[state];
+            if (statePriorities[state] < Integer.MAX_VALUE && ttl > 0 && (shortest == null || ttl < shortest)) {
+                shortest = ttl;
+            }
+        }
+        return shortest;
+    }
+    
     /**
      * Scan the specified string for tokens, returning the ttl of the best priority token found, or null if no tokens were found.
      */
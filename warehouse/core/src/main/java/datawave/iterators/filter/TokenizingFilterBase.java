@@ -113,6 +113,18 @@ public abstract class TokenizingFilterBase extends AppliedRule {
         return ruleApplied;
     }
     
+    @Override
+    public Long getLatestCutOffMilliseconds() {
+        // the shortest token ttl gives the latest cutoff, while tokens without a positive ttl use the cutoff of the rule
+        AgeOffPeriod period = getPeriod();
+        long latestCutOff = period.getCutOffMilliseconds();
+        Long shortestTtl = scanTrie.getShortestPositiveTtl();
+        if (shortestTtl != null) {
+            latestCutOff = Math.max(latestCutOff, period.getCutOffMilliseconds() - (shortestTtl - period.getTtl() * period.getTtlUnitsFactor()));
+        }
+        return latestCutOff;
+    }
+    
     private MERGE_MODE getMergeMode(FilterOptions options) {
         String isMergeStr = options.getOption(AgeOffConfigParams.IS_MERGE);
         if (null == isMergeStr) {
@@ -62,6 +62,16 @@ public abstract class AppliedRule implements FilterRule {
     
     public abstract boolean isFilterRuleApplied();
     
+    /**
+     * Returns the latest cutoff this rule compares the timestamp of a key with, such that the rule accepts every key with a later timestamp, whether or not the
+     * rule applies to the key. The {@code ConfigurableAgeOffFilter} accepts keys newer than the latest cutoff of all of its rules without evaluating them.
+     * 
+     * @return the latest cutoff in milliseconds, or null if the rule does not age off keys by comparing their timestamp with a cutoff
+     */
+    public Long getLatestCutOffMilliseconds() {
+        return null;
+    }
+    
     /*
      * (non-Javadoc)
      * 
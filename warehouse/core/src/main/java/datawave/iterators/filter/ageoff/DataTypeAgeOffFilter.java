@@ -289,4 +289,16 @@ public class DataTypeAgeOffFilter extends AppliedRule {
         return ruleApplied;
     }
     
+    @Override
+    public Long getLatestCutOffMilliseconds() {
+        if (dataTypeTimes == null) {
+            return null;
+        }
+        long latestCutOff = (getPeriod().getTtl() >= 0) ? getPeriod().getCutOffMilliseconds() : Long.MIN_VALUE;
+        for (Long cutOff : dataTypeTimes.values()) {
+            latestCutOff = Math.max(latestCutOff, cutOff);
+        }
+        return latestCutOff;
+    }
+    
 }
@@ -294,4 +294,16 @@ public class FieldAgeOffFilter extends AppliedRule {
         return ruleApplied;
     }
     
+    @Override
+    public Long getLatestCutOffMilliseconds() {
+        if (fieldTimes == null) {
+            return null;
+        }
+        long latestCutOff = Long.MIN_VALUE;
+        for (Long cutOff : fieldTimes.values()) {
+            latestCutOff = Math.max(latestCutOff, cutOff);
+        }
+        return latestCutOff;
+    }
+    
 }
@@ -106,6 +106,11 @@ public class MaximumAgeOffFilter extends AppliedRule {
         return ruleApplied;
     }
     
+    @Override
+    public Long getLatestCutOffMilliseconds() {
+        return getPeriod().getCutOffMilliseconds();
+    }
+    
     @Override
     public String toString() {
         return this.getClass().getSimpleName() + " [cutOffDateMillis=" + getPeriod().getCutOffMilliseconds() + "]";
@@ -103,6 +103,33 @@ public class EdgeKeyTest {
         assertEquals(refDateProtobuf, stdBuilder.build().encode());
     }
     
+    @Test
+    public void testEncoder() {
+        EdgeKeyEncoder encoder = new EdgeKeyEncoder();
+        assertEquals(refDateProtobuf, encoder.encode(refBuilder.build()));
+        
+        EdgeKeyBuilder builder = EdgeKey.newBuilder(refBuilder.build());
+        builder.setFormat(EdgeKey.EDGE_FORMAT.STATS).setStatsType(STATS_TYPE.DURATION);
+        assertEquals(refStatsDateProtobuf, encoder.encode(builder.build()));
+        builder.setDateType(EdgeKey.DATE_TYPE.OLD_EVENT);
+        assertEquals(refStatsProtobuf, encoder.encode(builder.build()));
+        builder.setStatsType(STATS_TYPE.LINKS).setDeleted(true);
+        assertEquals(builder.build().encode(), encoder.encode(builder.build()));
+        
+        // multi-byte, supplementary and unpaired surrogate characters, missing relationships, and a value larger than the initial buffer
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            large.append("\u00e9\u4e2d\uD83D\uDE00");
+        }
+        builder = EdgeKey.newBuilder(EdgeKey.EDGE_FORMAT.STANDARD).setSourceData("SOURCE\u0000\u00e9").setSinkData(large.toString())
+                        .setType("TYPE\ud800").setSourceRelationship("SOURCEREL").setSinkRelationship(null).setYyyymmdd("20180101")
+                        .setColvis(new Text("ALL")).setTimestamp(814l);
+        builder.setDateType(EdgeKey.DATE_TYPE.ACTIVITY_AND_EVENT);
+        EdgeKey edgeKey = builder.build();
+        assertEquals(edgeKey.encode(), encoder.encode(edgeKey));
+        assertEquals(refDateProtobuf, encoder.encode(refBuilder.build()));
+    }
+    
     @Test
     public void testClearFields() {
         EdgeKeyBuilder anotherBuilder = EdgeKey.newBuilder();
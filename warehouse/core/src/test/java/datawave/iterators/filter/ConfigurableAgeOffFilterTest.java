@@ -1,5 +1,6 @@
 package datawave.iterators.filter;
 
+import datawave.iterators.filter.ageoff.AgeOffPeriod;
 import datawave.iterators.filter.ageoff.AppliedRule;
 import datawave.iterators.filter.ageoff.FilterOptions;
 import org.apache.accumulo.core.conf.DefaultConfiguration;
@@ -166,6 +167,39 @@ public class ConfigurableAgeOffFilterTest extends EasyMockSupport {
         assertThat(filter.accept(lowBar, VALUE), is(false));
     }
     
+    @Test
+    public void testAcceptKeyValue_LatestCutOff() throws Exception {
+        ConfigurableAgeOffFilter filter = new ConfigurableAgeOffFilter();
+        Map<String,String> options = getOptionsMap(30, AgeOffTtlUnits.DAYS);
+        
+        // the rule ages off "foo" rows after 10 days, so keys newer than that are accepted without applying it
+        Collection<AppliedRule> rules = singleRowMatcher("foo", getOptionsMap(10, AgeOffTtlUnits.DAYS));
+        filter.initialize(getWrappedFilterWithRules(rules, source, options, env));
+        
+        assertThat(filter.accept(getKey("foo", daysAgo(5)), VALUE), is(true));
+        assertThat(filter.accept(getKey("foo", daysAgo(15)), VALUE), is(false));
+        assertThat(filter.accept(getKey("bar", daysAgo(15)), VALUE), is(true));
+        assertThat(filter.accept(getKey("bar", daysAgo(45)), VALUE), is(false));
+        
+        // a rule without a cutoff has to be applied to every key
+        rules.add(new AppliedRule() {
+            @Override
+            public boolean isFilterRuleApplied() {
+                return true;
+            }
+            
+            @Override
+            public boolean accept(AgeOffPeriod period, Key k, Value V) {
+                return false;
+            }
+        });
+        filter = new ConfigurableAgeOffFilter();
+        filter.initialize(getWrappedFilterWithRules(rules, source, options, env));
+        
+        assertThat(filter.accept(getKey("foo", daysAgo(5)), VALUE), is(true));
+        assertThat(filter.accept(getKey("bar", daysAgo(5)), VALUE), is(false));
+    }
+    
     @Test(expected = NullPointerException.class)
     public void testInitWithNoTtl() throws Exception {
         ConfigurableAgeOffFilter filter = new ConfigurableAgeOffFilter();
@@ -2,7 +2,9 @@ package datawave.ingest.mapreduce;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import datawave.data.normalizer.DateNormalizer;
 import datawave.ingest.data.RawRecordContainer;
 import datawave.ingest.data.Type;
@@ -44,6 +46,8 @@ import datawave.util.time.TraceStopwatch;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Value;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
 import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.CounterGroup;
 import org.apache.hadoop.mapreduce.Counters;
@@ -53,10 +57,13 @@ import org.apache.log4j.Logger;
 import org.apache.log4j.NDC;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -66,6 +73,10 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.Stack;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -78,9 +89,11 @@ import java.util.concurrent.TimeUnit;
  * is within the window, then the map will parse the Event into a map of field names and field values, the map method will call the process() method on each
  * DataTypeHandler implementation that has been configured for the Type of Event.
  *
- * This class no longer supports processing events in a multi-threaded fashion as that was proven to NOT be beneficial in the long run (i.e. The bulk of the
- * time is spent in the ContextWriter which is synchronized. Also multithreading mean potentially more memory use which we should already be maximizing per
- * machine in the hadoop map-reduce cluster.)
+ * By default events are processed serially. If EVENT_MAPPER_THREADS is set above one, then the field extraction and key generation for an event is done on a
+ * pool of worker threads, each with its own instances of the DataTypeHandlers. The keys generated for each event are still written to the ContextWriter and
+ * committed (or rolled back and sent to the error handlers) on the map thread, in the order the events were read. This only helps when the handlers are the
+ * bottleneck rather than the ContextWriter, and holds up to EVENT_MAPPER_MAX_PENDING events in memory. Events with fatal errors, events for
+ * ExtendedDataTypeHandlers (which write to the context themselves) and jobs with metrics enabled are always processed serially.
  *
  *
  *
@@ -127,6 +140,17 @@ public class EventMapper<K1,V1 extends RawRecordContainer,K2,V2> extends StatsDE
     
     public static final String ID_FILTER_FSTS = "ingest.event.mapper.id.filter.fsts";
     
+    /**
+     * The number of threads used to process events. One (the default) processes events serially on the map thread.
+     */
+    public static final String EVENT_MAPPER_THREADS = "ingest.event.mapper.threads";
+    
+    /**
+     * The number of events which may be processed or awaiting their commit at once when processing events on multiple threads. Defaults to four times the
+     * number of threads.
+     */
+    public static final String EVENT_MAPPER_MAX_PENDING = "ingest.event.mapper.max.pending.events";
+    
     protected Map<String,List<DataTypeHandler<K1>>> typeMap = new HashMap<>();
     
     /**
@@ -160,6 +184,13 @@ public class EventMapper<K1,V1 extends RawRecordContainer,K2,V2> extends StatsDE
     private MetricsService<K2,V2> metricsService;
     private ReusableMetricsLabels metricsLabels;
     
+    private ExecutorService eventExecutor = null;
+    private int maxPendingEvents = 0;
+    private final Deque<Future<ProcessedEvent>> pendingEvents = new ArrayDeque<>();
+    private final List<EventWorker> eventWorkers = Collections.synchronizedList(new ArrayList<>());
+    private ThreadLocal<EventWorker> eventWorker = null;
+    private final Object handlerSetupLock = new Object();
+    
     /**
      * Set up the datatype handlers
      */
@@ -275,6 +306,22 @@ public class EventMapper<K1,V1 extends RawRecordContainer,K2,V2> extends StatsDE
         
         offset = 0;
         
+        int threads = context.getConfiguration().getInt(EVENT_MAPPER_THREADS, 1);
+        if (threads > 1) {
+            if (metricsEnabled) {
+                log.warn("Metrics are enabled, ignoring " + EVENT_MAPPER_THREADS + " and processing events serially");
+            } else {
+                maxPendingEvents = Math.max(threads, context.getConfiguration().getInt(EVENT_MAPPER_MAX_PENDING, threads * 4));
+                eventExecutor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("EventMapper-%d").setDaemon(true).build());
+                eventWorker = ThreadLocal.withInitial(() -> {
+                    EventWorker worker = new EventWorker();
+                    eventWorkers.add(worker);
+                    return worker;
+                });
+                log.info("EventMapper processing events on " + threads + " threads with up to " + maxPendingEvents + " pending events");
+            }
+        }
+        
         if (log.isInfoEnabled()) {
             log.info("EventMapper configured. Bulk Ingest = true");
             log.info("EventMapper configured with the following filters: " + getDataTypeFilterClassNames());
@@ -303,52 +350,8 @@ public class EventMapper<K1,V1 extends RawRecordContainer,K2,V2> extends StatsDE
                 log.warn("Attempted to load configuration for a type that does not exist in the registry: " + typeStr);
             } else {
                 Type t = TypeRegistry.getType(typeStr);
-                String fieldValidators = context.getConfiguration().get(typeStr + FieldValidator.FIELD_VALIDATOR_NAMES);
-                
-                if (fieldValidators != null) {
-                    String[] validatorClasses = StringUtils.split(fieldValidators, ",");
-                    for (String validatorClass : validatorClasses) {
-                        try {
-                            Class<? extends FieldValidator> clazz = Class.forName(validatorClass).asSubclass(FieldValidator.class);
-                            FieldValidator validator = clazz.newInstance();
-                            validator.init(t, context.getConfiguration());
-                            validators.put(typeStr, validator);
-                        } catch (ClassNotFoundException e) {
-                            log.error("Error finding validator " + validatorClass, e);
-                        } catch (InstantiationException | IllegalAccessException e) {
-                            log.error("Error creating validator " + validatorClass, e);
-                        }
-                    }
-                }
-                
-                String[] handlerClassNames = t.getDefaultDataTypeHandlers();
-                
-                if (handlerClassNames != null) {
-                    for (String handlerClassName : handlerClassNames) {
-                        log.info("Configuring handler: " + handlerClassName);
-                        try {
-                            @SuppressWarnings("unchecked")
-                            Class<? extends DataTypeHandler<K1>> clazz = (Class<? extends DataTypeHandler<K1>>) Class.forName(handlerClassName);
-                            DataTypeHandler<K1> h = clazz.newInstance();
-                            // Create a counter initialized to zero for all handler types.
-                            getCounter(context, IngestOutput.ROWS_CREATED.name(), h.getClass().getSimpleName()).increment(0);
-                            // Trick here. Set the data.name parameter to type T, then call setup on the DataTypeHandler
-                            Configuration clone = new Configuration(context.getConfiguration());
-                            clone.set(DataTypeHelper.Properties.DATA_NAME, t.typeName());
-                            // Use the StandaloneReporter and StandaloneTaskAttemptContext for the Handlers. Because the StandaloneTaskAttemptContext
-                            // is a subclass of TaskInputOutputContext and TaskAttemptContext is not. We are using this to record the counters during
-                            // processing. We will need to add the counters in the StandaloneReporter to the Map.Context in the close call.
-                            // TaskAttemptContext newContext = new TaskAttemptContext(clone, context.getTaskAttemptID());
-                            StandaloneTaskAttemptContext<K1,V1,K2,V2> newContext = new StandaloneTaskAttemptContext<>(clone, reporter);
-                            h.setup(newContext);
-                            typeMap.get(typeStr).add(h);
-                        } catch (ClassNotFoundException e) {
-                            log.error("Error finding DataTypeHandler " + handlerClassName, e);
-                        } catch (InstantiationException | IllegalAccessException e) {
-                            log.error("Error creating DataTypeHandler " + handlerClassName, e);
-                        }
-                    }
-                }
+                validators.putAll(typeStr, createValidators(typeStr, t, context));
+                typeMap.get(typeStr).addAll(createHandlers(t, context));
             }
             log.info("EventMapper configured with the following handlers for " + typeStr + ": " + typeMap.get(typeStr));
         }
@@ -356,6 +359,83 @@ public class EventMapper<K1,V1 extends RawRecordContainer,K2,V2> extends StatsDE
         return typeMap.get(typeStr);
     }
     
+    /**
+     * Get the data type handlers for a given type name for the calling worker thread, creating them on first use
+     *
+     * @return the data type handlers
+     */
+    private List<DataTypeHandler<K1>> loadWorkerDataType(EventWorker worker, String typeStr, Context context) {
+        List<DataTypeHandler<K1>> handlers = worker.typeMap.get(typeStr);
+        if (handlers == null) {
+            handlers = new ArrayList<>();
+            if (TypeRegistry.getTypeNames().contains(typeStr)) {
+                Type t = TypeRegistry.getType(typeStr);
+                // handler setup is not necessarily safe to run concurrently
+                synchronized (handlerSetupLock) {
+                    worker.validators.putAll(typeStr, createValidators(typeStr, t, context));
+                    handlers.addAll(createHandlers(t, context));
+                }
+            }
+            worker.typeMap.put(typeStr, handlers);
+        }
+        return handlers;
+    }
+    
+    private List<FieldValidator> createValidators(String typeStr, Type t, Context context) {
+        List<FieldValidator> typeValidators = new ArrayList<>();
+        String fieldValidators = context.getConfiguration().get(typeStr + FieldValidator.FIELD_VALIDATOR_NAMES);
+        
+        if (fieldValidators != null) {
+            String[] validatorClasses = StringUtils.split(fieldValidators, ",");
+            for (String validatorClass : validatorClasses) {
+                try {
+                    Class<? extends FieldValidator> clazz = Class.forName(validatorClass).asSubclass(FieldValidator.class);
+                    FieldValidator validator = clazz.newInstance();
+                    validator.init(t, context.getConfiguration());
+                    typeValidators.add(validator);
+                } catch (ClassNotFoundException e) {
+                    log.error("Error finding validator " + validatorClass, e);
+                } catch (InstantiationException | IllegalAccessException e) {
+                    log.error("Error creating validator " + validatorClass, e);
+                }
+            }
+        }
+        return typeValidators;
+    }
+    
+    private List<DataTypeHandler<K1>> createHandlers(Type t, Context context) {
+        List<DataTypeHandler<K1>> handlers = new ArrayList<>();
+        String[] handlerClassNames = t.getDefaultDataTypeHandlers();
+        
+        if (handlerClassNames != null) {
+            for (String handlerClassName : handlerClassNames) {
+                log.info("Configuring handler: " + handlerClassName);
+                try {
+                    @SuppressWarnings("unchecked")
+                    Class<? extends DataTypeHandler<K1>> clazz = (Class<? extends DataTypeHandler<K1>>) Class.forName(handlerClassName);
+                    DataTypeHandler<K1> h = clazz.newInstance();
+                    // Create a counter initialized to zero for all handler types.
+                    getCounter(context, IngestOutput.ROWS_CREATED.name(), h.getClass().getSimpleName()).increment(0);
+                    // Trick here. Set the data.name parameter to type T, then call setup on the DataTypeHandler
+                    Configuration clone = new Configuration(context.getConfiguration());
+                    clone.set(DataTypeHelper.Properties.DATA_NAME, t.typeName());
+                    // Use the StandaloneReporter and StandaloneTaskAttemptContext for the Handlers. Because the StandaloneTaskAttemptContext
+                    // is a subclass of TaskInputOutputContext and TaskAttemptContext is not. We are using this to record the counters during
+                    // processing. We will need to add the counters in the StandaloneReporter to the Map.Context in the close call.
+                    // TaskAttemptContext newContext = new TaskAttemptContext(clone, context.getTaskAttemptID());
+                    StandaloneTaskAttemptContext<K1,V1,K2,V2> newContext = new StandaloneTaskAttemptContext<>(clone, reporter);
+                    h.setup(newContext);
+                    handlers.add(h);
+                } catch (ClassNotFoundException e) {
+                    log.error("Error finding DataTypeHandler " + handlerClassName, e);
+                } catch (InstantiationException | IllegalAccessException e) {
+                    log.error("Error creating DataTypeHandler " + handlerClassName, e);
+                }
+            }
+        }
+        return handlers;
+    }
+    
     private List<String> getDataTypeFilterClassNames() {
         
         SortedMap<Integer,String[]> priorityToFilters = new TreeMap<>();
@@ -492,49 +572,26 @@ public class EventMapper<K1,V1 extends RawRecordContainer,K2,V2> extends StatsDE
             context.progress();
         }
         
+        if (eventExecutor != null) {
+            if (!value.fatalError() && !handlers.isEmpty() && !hasExtendedHandler(handlers)) {
+                try {
+                    submitEvent(key, value, context);
+                } finally {
+                    if (reprocessedNDCPush) {
+                        NDC.pop();
+                    }
+                }
+                return;
+            }
+            // keep the commits in order by finishing the pending events before processing this one here
+            commitPendingEvents(0, context);
+        }
+        
         Multimap<String,NormalizedContentInterface> fields = HashMultimap.create();
         try {
             processEvent(key, value, handlers, fields, context);
         } catch (Exception e) {
-            // Rollback anything written for this event
-            contextWriter.rollback();
-            
-            // Fail job on constraint violations
-            if (e instanceof ConstraintChecker.ConstraintViolationException) {
-                throw ((RuntimeException) e);
-            }
-            
-            // ensure they know we are still working on it
-            context.progress();
-            
-            // log error
-            log.error("Runtime exception processing event", e);
-            
-            // now lets dump to the errors table
-            // first set the exception on the event if not a field normalization error in which case the fields contain the errors
-            if (!(e instanceof FieldNormalizationError)) {
-                value.setAuxData(e);
-            }
-            for (DataTypeHandler<K1> handler : loadDataType(TypeRegistry.ERROR_PREFIX, context)) {
-                if (log.isTraceEnabled())
-                    log.trace("executing handler: " + handler.getClass().getName());
-                try {
-                    executeHandler(key, value, fields, handler, context);
-                    context.progress();
-                } catch (Exception e2) {
-                    // This is a real bummer, we had a critical exception attempting to throw the event into the error table.
-                    // lets terminate this job
-                    log.error("Failed to process error data handlers for an event", e2);
-                    throw new IOException("Failed to process error data handlers for an event", e2);
-                }
-            }
-            
-            // now create some counters
-            getCounter(context, IngestProcess.RUNTIME_EXCEPTION).increment(1);
-            List<String> exceptions = getExceptionSynopsis(e);
-            for (String exception : exceptions) {
-                getCounter(context, IngestProcess.RUNTIME_EXCEPTION.name(), exception).increment(1);
-            }
+            handleEventError(key, value, fields, e, context);
         } finally {
             // Remove ORIG_FILE from NDC that was populated by reprocessing events from the error tables
             if (reprocessedNDCPush) {
@@ -559,6 +616,234 @@ public class EventMapper<K1,V1 extends RawRecordContainer,K2,V2> extends StatsDE
         }
     }
     
+    /**
+     * Rollback anything written for an event which failed processing, and send it to the error handlers instead
+     *
+     * @param key
+     *            The key of the map process
+     * @param value
+     *            The event
+     * @param fields
+     *            The fields of the event gathered before the failure
+     * @param e
+     *            The failure
+     * @param context
+     *            The context
+     */
+    private void handleEventError(K1 key, RawRecordContainer value, Multimap<String,NormalizedContentInterface> fields, Exception e, Context context)
+                    throws IOException, InterruptedException {
+        // Rollback anything written for this event
+        contextWriter.rollback();
+        
+        // Fail job on constraint violations
+        if (e instanceof ConstraintChecker.ConstraintViolationException) {
+            throw ((RuntimeException) e);
+        }
+        
+        // ensure they know we are still working on it
+        context.progress();
+        
+        // log error
+        log.error("Runtime exception processing event", e);
+        
+        // now lets dump to the errors table
+        // first set the exception on the event if not a field normalization error in which case the fields contain the errors
+        if (!(e instanceof FieldNormalizationError)) {
+            value.setAuxData(e);
+        }
+        for (DataTypeHandler<K1> handler : loadDataType(TypeRegistry.ERROR_PREFIX, context)) {
+            if (log.isTraceEnabled())
+                log.trace("executing handler: " + handler.getClass().getName());
+            try {
+                executeHandler(key, value, fields, handler, context);
+                context.progress();
+            } catch (Exception e2) {
+                // This is a real bummer, we had a critical exception attempting to throw the event into the error table.
+                // lets terminate this job
+                log.error("Failed to process error data handlers for an event", e2);
+                throw new IOException("Failed to process error data handlers for an event", e2);
+            }
+        }
+        
+        // now create some counters
+        getCounter(context, IngestProcess.RUNTIME_EXCEPTION).increment(1);
+        List<String> exceptions = getExceptionSynopsis(e);
+        for (String exception : exceptions) {
+            getCounter(context, IngestProcess.RUNTIME_EXCEPTION.name(), exception).increment(1);
+        }
+    }
+    
+    private boolean hasExtendedHandler(List<DataTypeHandler<K1>> handlers) {
+        for (DataTypeHandler<K1> handler : handlers) {
+            if (handler instanceof ExtendedDataTypeHandler) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Hand a copy of the event to the worker threads, as the record reader may reuse the key and event it passed to us. This waits on the commit of the oldest
+     * pending events if there are too many of them, and commits any others which are ready.
+     */
+    private void submitEvent(K1 key, V1 value, Context context) throws IOException, InterruptedException {
+        commitPendingEvents(maxPendingEvents - 1, context);
+        
+        @SuppressWarnings("unchecked")
+        K1 keyCopy = (key instanceof Writable ? (K1) WritableUtils.clone((Writable) key, context.getConfiguration()) : key);
+        ProcessedEvent event = new ProcessedEvent(keyCopy, value.copy(), NDC.peek(), offset);
+        pendingEvents.add(eventExecutor.submit(() -> processEventInWorker(event, context)));
+        offset++;
+        
+        while (!pendingEvents.isEmpty() && pendingEvents.peek().isDone()) {
+            commitEvent(pendingEvents.poll(), context);
+        }
+    }
+    
+    /**
+     * Wait on and commit the oldest pending events, in order, until no more than the given number are left pending
+     */
+    private void commitPendingEvents(int maxPending, Context context) throws IOException, InterruptedException {
+        while (pendingEvents.size() > maxPending) {
+            commitEvent(pendingEvents.poll(), context);
+        }
+    }
+    
+    /**
+     * Write the keys a worker generated for an event and commit them, or send the event to the error handlers if it failed. This is always called on the map
+     * thread.
+     */
+    private void commitEvent(Future<ProcessedEvent> future, Context context) throws IOException, InterruptedException {
+        ProcessedEvent event;
+        try {
+            event = future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to process an event", e.getCause());
+        }
+        
+        Exception error = event.error;
+        try {
+            if (error == null) {
+                try {
+                    for (Entry<DataTypeHandler<K1>,Multimap<BulkIngestKey,Value>> output : event.outputs) {
+                        Multimap<BulkIngestKey,Value> r = output.getValue();
+                        if (r == null) {
+                            getCounter(context, IngestInput.EVENT_FATAL_ERROR).increment(1);
+                            getCounter(context, IngestInput.EVENT_FATAL_ERROR.name(), "NullMultiMap").increment(1);
+                        } else {
+                            contextWriter.write(r, context);
+                            if (!r.isEmpty()) {
+                                getCounter(context, IngestOutput.ROWS_CREATED.name(), output.getKey().getClass().getSimpleName()).increment(r.size());
+                                getCounter(context, IngestOutput.ROWS_CREATED).increment(r.size());
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    error = e;
+                }
+            }
+            
+            // Add the counters the handlers updated on the worker thread to this context.
+            for (CounterGroup cg : event.reporter.getCounters()) {
+                for (Counter c : cg) {
+                    getCounter(context, cg.getName(), c.getName()).increment(c.getValue());
+                }
+            }
+            
+            if (error != null) {
+                handleEventError(event.key, event.value, event.fields, error, context);
+            }
+        } finally {
+            // cleanup the context writer
+            contextWriter.commit(context);
+            context.progress();
+        }
+        
+        getCounter(context, IngestOutput.EVENTS_PROCESSED.name(), event.value.getDataType().typeName().toUpperCase()).increment(1);
+    }
+    
+    /**
+     * Gather the fields and generate the keys for an event on a worker thread, using the handlers of that thread. Nothing is written to the context here.
+     */
+    private ProcessedEvent processEventInWorker(ProcessedEvent event, Context context) {
+        EventWorker worker = eventWorker.get();
+        RawRecordContainer value = event.value;
+        String typeName = value.getDataType().typeName();
+        
+        List<DataTypeHandler<K1>> handlers = new ArrayList<>();
+        handlers.addAll(loadWorkerDataType(worker, typeName, context));
+        handlers.addAll(loadWorkerDataType(worker, TypeRegistry.ALL_PREFIX, context));
+        
+        IngestHelperInterface previousHelper = null;
+        try {
+            for (DataTypeHandler<K1> handler : handlers) {
+                IngestHelperInterface thisHelper = handler.getHelper(value.getDataType());
+                if (thisHelper == null) {
+                    continue;
+                }
+                
+                if (null == previousHelper || !previousHelper.getClass().getName().equals(thisHelper.getClass().getName())) {
+                    event.fields.clear();
+                    Throwable e = null;
+                    for (Map.Entry<String,NormalizedContentInterface> entry : getFields(value, handler, event.seqFileName, event.offset).entries()) {
+                        // noinspection ThrowableResultOfMethodCallIgnored
+                        if (entry.getValue().getError() != null) {
+                            e = entry.getValue().getError();
+                        }
+                        event.fields.put(entry.getKey(), entry.getValue());
+                    }
+                    if (e != null) {
+                        throw new FieldNormalizationError("Failed getting all fields", e);
+                    }
+                    previousHelper = thisHelper;
+                }
+                
+                for (FieldValidator validator : worker.validators.get(value.getDataType().outputName())) {
+                    validator.validate(value, event.fields);
+                }
+                
+                Multimap<BulkIngestKey,Value> r = handler.processBulk(event.key, value, event.fields, event.reporter);
+                event.outputs.add(Maps.immutableEntry(handler, r));
+                
+                if (handler.getMetadata() != null) {
+                    handler.getMetadata().addEvent(thisHelper, value, event.fields, now.get());
+                }
+            }
+        } catch (Exception e) {
+            event.error = e;
+        }
+        return event;
+    }
+    
+    /**
+     * An event handed to the worker threads, along with what they made of it
+     */
+    private class ProcessedEvent {
+        private final K1 key;
+        private final RawRecordContainer value;
+        private final String seqFileName;
+        private final long offset;
+        private final Multimap<String,NormalizedContentInterface> fields = HashMultimap.create();
+        private final List<Entry<DataTypeHandler<K1>,Multimap<BulkIngestKey,Value>>> outputs = new ArrayList<>();
+        private final StandaloneStatusReporter reporter = new StandaloneStatusReporter();
+        private Exception error = null;
+        
+        private ProcessedEvent(K1 key, RawRecordContainer value, String seqFileName, long offset) {
+            this.key = key;
+            this.value = value;
+            this.seqFileName = seqFileName;
+            this.offset = offset;
+        }
+    }
+    
+    /**
+     * The handlers and validators of a worker thread
+     */
+    private class EventWorker {
+        private final Map<String,List<DataTypeHandler<K1>>> typeMap = new HashMap<>();
+        private final Multimap<String,FieldValidator> validators = ArrayListMultimap.create();
+    }
+    
     /**
      * Get an exception synopsis that is suitable as a counter. We want at a minimum the exception name and a useful location. A useful location is defined as
      * the highest location that is in the datawave.ingest package
@@ -612,8 +897,21 @@ public class EventMapper<K1,V1 extends RawRecordContainer,K2,V2> extends StatsDE
     @Override
     public void cleanup(Context context) throws IOException, InterruptedException {
         
+        // finish any events still being processed, and move the worker handlers in with ours for the metadata and close below
+        List<List<DataTypeHandler<K1>>> allHandlers = new ArrayList<>(typeMap.values());
+        if (eventExecutor != null) {
+            commitPendingEvents(0, context);
+            eventExecutor.shutdown();
+            eventExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            eventExecutor = null;
+            for (EventWorker worker : eventWorkers) {
+                allHandlers.addAll(worker.typeMap.values());
+            }
+            eventWorkers.clear();
+        }
+        
         // Write the metadata to the output
-        for (List<DataTypeHandler<K1>> handlers : typeMap.values()) {
+        for (List<DataTypeHandler<K1>> handlers : allHandlers) {
             for (DataTypeHandler<K1> h : handlers)
                 if (h.getMetadata() != null) {
                     try {
@@ -632,7 +930,7 @@ public class EventMapper<K1,V1 extends RawRecordContainer,K2,V2> extends StatsDE
         // cleanup the context writer
         contextWriter.cleanup(context);
         
-        for (List<DataTypeHandler<K1>> handlers : typeMap.values()) {
+        for (List<DataTypeHandler<K1>> handlers : allHandlers) {
             for (DataTypeHandler<K1> h : handlers)
                 h.close(context);
         }
@@ -738,6 +1036,11 @@ public class EventMapper<K1,V1 extends RawRecordContainer,K2,V2> extends StatsDE
     }
     
     public Multimap<String,NormalizedContentInterface> getFields(RawRecordContainer value, DataTypeHandler<K1> handler) throws Exception {
+        return getFields(value, handler, NDC.peek(), offset);
+    }
+    
+    private Multimap<String,NormalizedContentInterface> getFields(RawRecordContainer value, DataTypeHandler<K1> handler, String sourceFileName, long offset)
+                    throws Exception {
         Multimap<String,NormalizedContentInterface> newFields;
         // Parse the event into its field names and field values using the DataTypeHandler's BaseIngestHelper object.
         newFields = handler.getHelper(value.getDataType()).getEventFields(value);
@@ -772,7 +1075,7 @@ public class EventMapper<K1,V1 extends RawRecordContainer,K2,V2> extends StatsDE
         
         // place the sequence filename into the event
         if (createSequenceFileName) {
-            seqFileName = NDC.peek();
+            seqFileName = sourceFileName;
             
             if (trimSequenceFileName) {
                 seqFileName = StringUtils.substringAfterLast(seqFileName, "/");
@@ -17,7 +17,12 @@ public class TermFilter<T> implements Funnel<T> {
     
     @Override
     public void funnel(T from, PrimitiveSink into) {
-        into.putString(from.toString());
+        // a CharSequence hashes the same as the equivalent String, without having to create it
+        if (from instanceof CharSequence) {
+            into.putString((CharSequence) from);
+        } else {
+            into.putString(from.toString());
+        }
     }
     
 }
@@ -0,0 +1,126 @@
+package datawave.ingest.mapreduce.handler.edge;
+
+import datawave.ingest.mapreduce.handler.edge.define.EdgeDefinition;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The edge definitions of one data type, compiled once at setup for the ProtobufEdgeDataTypeHandler. The definitions are indexed by their source field name
+ * such that an event only visits the definitions whose source field it contains, and the groups of the source and sink field names, the enrichment type
+ * mappings and the blacklisted values of the data type are resolved up front instead of per event and per edge.
+ */
+class CompiledEdgeDefinitions {
+    
+    private final List<EdgeDefinition> edgeDefs;
+    private final int size;
+    
+    private final EdgeDefinition[] definitions;
+    private final String[] sourceGroups;
+    private final String[] sinkGroups;
+    
+    // the indices of the definitions by their source field name
+    private final Map<String,int[]> definitionsBySourceField = new HashMap<>();
+    
+    private final Map<String,String> enrichmentTypes;
+    private final Set<String> blacklistValues;
+    
+    // the definitions matching the current event, reused from one event to the next
+    private final BitSet matches;
+    
+    /**
+     * @param edgeDefs
+     *            the edge definitions of the data type
+     * @param groupOf
+     *            the function returning the group of a grouped field name, see ProtobufEdgeDataTypeHandler.getGroup
+     * @param enrichmentTypes
+     *            the enrichment type mappings of the data type, or null if it has none
+     * @param blacklistValues
+     *            the blacklisted values of the data type, or null if it has none
+     */
+    CompiledEdgeDefinitions(List<EdgeDefinition> edgeDefs, Function<String,String> groupOf, Map<String,String> enrichmentTypes,
+                    Set<String> blacklistValues) {
+        this.edgeDefs = edgeDefs;
+        this.size = edgeDefs.size();
+        this.definitions = edgeDefs.toArray(new EdgeDefinition[size]);
+        this.sourceGroups = new String[size];
+        this.sinkGroups = new String[size];
+        this.matches = new BitSet(size);
+        
+        Map<String,BitSet> bySourceField = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            EdgeDefinition edgeDef = definitions[i];
+            sourceGroups[i] = groupOf.apply(edgeDef.getSourceFieldName());
+            sinkGroups[i] = groupOf.apply(edgeDef.getSinkFieldName());
+            BitSet indices = bySourceField.get(edgeDef.getSourceFieldName());
+            if (indices == null) {
+                indices = new BitSet();
+                bySourceField.put(edgeDef.getSourceFieldName(), indices);
+            }
+            indices.set(i);
+        }
+        for (Map.Entry<String,BitSet> entry : bySourceField.entrySet()) {
+            definitionsBySourceField.put(entry.getKey(), entry.getValue().stream().toArray());
+        }
+        
+        this.enrichmentTypes = enrichmentTypes;
+        this.blacklistValues = (blacklistValues == null ? Collections.emptySet() : blacklistValues);
+    }
+    
+    /**
+     * @return true if these were compiled from the given definitions, and the definitions have not been added to or removed from since
+     */
+    boolean isCompiledFrom(List<EdgeDefinition> edgeDefs) {
+        return this.edgeDefs == edgeDefs && this.size == edgeDefs.size();
+    }
+    
+    /**
+     * Finds the definitions whose source and sink fields are both among the given field names.
+     *
+     * @param fieldNames
+     *            the grouped field names of an event
+     * @return the indices of the matching definitions, in definition order. The result is only valid until the next call.
+     */
+    BitSet match(Set<String> fieldNames) {
+        matches.clear();
+        for (String fieldName : fieldNames) {
+            int[] indices = definitionsBySourceField.get(fieldName);
+            if (indices != null) {
+                for (int index : indices) {
+                    if (fieldNames.contains(definitions[index].getSinkFieldName())) {
+                        matches.set(index);
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+    
+    EdgeDefinition getDefinition(int index) {
+        return definitions[index];
+    }
+    
+    String getSourceGroup(int index) {
+        return sourceGroups[index];
+    }
+    
+    String getSinkGroup(int index) {
+        return sinkGroups[index];
+    }
+    
+    /**
+     * @return the enrichment type mappings of the data type, or null if it has none
+     */
+    Map<String,String> getEnrichmentTypes() {
+        return enrichmentTypes;
+    }
+    
+    boolean isBlacklistValue(String value) {
+        return blacklistValues.contains(value);
+    }
+}
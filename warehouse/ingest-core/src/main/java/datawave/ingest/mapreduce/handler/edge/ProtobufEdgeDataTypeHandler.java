@@ -1,6 +1,5 @@
 package datawave.ingest.mapreduce.handler.edge;
 
-import com.google.common.base.Charsets;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.hash.BloomFilter;
@@ -13,6 +12,7 @@ import datawave.data.normalizer.DateNormalizer;
 import datawave.edge.util.EdgeKey;
 import datawave.edge.util.EdgeKey.EDGE_FORMAT;
 import datawave.edge.util.EdgeKey.STATS_TYPE;
+import datawave.edge.util.EdgeKeyEncoder;
 import datawave.ingest.data.RawRecordContainer;
 import datawave.ingest.data.Type;
 import datawave.ingest.data.TypeRegistry;
@@ -41,6 +41,7 @@ import datawave.metadata.protobuf.EdgeMetadata.MetadataValue;
 import datawave.metadata.protobuf.EdgeMetadata.MetadataValue.Metadata;
 import datawave.util.StringUtils;
 import datawave.util.time.DateHelper;
+import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.security.ColumnVisibility;
@@ -59,7 +60,9 @@ import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -118,6 +121,14 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
     
     private Map<String,Map<String,String>> edgeTypeLookup = new HashMap<>();
     
+    // the edge definitions compiled for event processing, by data type
+    private final Map<String,CompiledEdgeDefinitions> compiledEdges = new HashMap<>();
+    
+    // reused to encode the edge keys of this handler
+    private final EdgeKeyEncoder keyEncoder = new EdgeKeyEncoder();
+    
+    private static final HashFunction STATS_KEY_HASH = Hashing.murmur3_128();
+    
     private Map<String,Set<String>> blacklistFieldLookup = new HashMap<>();
     private Map<String,Set<String>> blacklistValueLookup = new HashMap<>();
     private boolean enableBlacklist = false;
@@ -347,6 +358,10 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
             sb.append(t).append(" ");
         }
         log.info(sb.toString());
+        
+        for (String dType : edges.keySet()) {
+            getCompiledEdges(dType);
+        }
         log.info("ProtobufEdgeDataTypeHandler configured.");
         
     }
@@ -363,6 +378,7 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
             // Else remove edges with a precondition
             removeEdgesWithPreconditions();
         }
+        compiledEdges.clear();
     }
     
     /**
@@ -417,6 +433,30 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
     
     public void setEdges(Map<String,EdgeDefinitionConfigurationHelper> edges) {
         this.edges = edges;
+        compiledEdges.clear();
+    }
+    
+    /**
+     * Get the edge definitions of a data type compiled for event processing, compiling them if they have not been, or if the definitions have changed since.
+     *
+     * @param typeName
+     *            a data type with edge definitions
+     * @return the compiled edge definitions
+     */
+    private CompiledEdgeDefinitions getCompiledEdges(String typeName) {
+        EdgeDefinitionConfigurationHelper edgeDefConfigs = edges.get(typeName);
+        List<EdgeDefinition> edgeDefs = (edgeDefConfigs == null ? Collections.<EdgeDefinition> emptyList() : edgeDefConfigs.getEdges());
+        CompiledEdgeDefinitions compiled = compiledEdges.get(typeName);
+        if (compiled == null || !compiled.isCompiledFrom(edgeDefs)) {
+            // perhaps there is no blacklist, which is fine
+            Set<String> blacklistValues = blacklistValueLookup.get(typeName);
+            if (blacklistValues == null) {
+                blacklistValues = blacklistValueLookup.get(EDGE_DEFAULT_DATA_TYPE);
+            }
+            compiled = new CompiledEdgeDefinitions(edgeDefs, this::getGroup, edgeTypeLookup.get(typeName), blacklistValues);
+            compiledEdges.put(typeName, compiled);
+        }
+        return compiled;
     }
     
     public Map<String,Set<String>> getBlacklistFieldLookup() {
@@ -437,16 +477,6 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
         return false;
     }
     
-    private boolean isBlacklistValue(String dataType, String fieldValue) {
-        if (blacklistValueLookup.containsKey(dataType)) {
-            return this.blacklistValueLookup.get(dataType).contains(fieldValue);
-        } else if (blacklistValueLookup.containsKey(EDGE_DEFAULT_DATA_TYPE)) {
-            // perhaps there is no blacklist, which is fine
-            return this.blacklistValueLookup.get(EDGE_DEFAULT_DATA_TYPE).contains(fieldValue);
-        }
-        return false;
-    }
-    
     // used so we don't write duplicate stats entries for events with multiple field values;
     protected Set<HashCode> activityLog = null;
     protected Set<HashCode> durationLog = null;
@@ -473,13 +503,12 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
         // get edge definitions for this event type
         Type dataType = event.getDataType();
         String typeName = dataType.typeName();
-        List<EdgeDefinition> edgeDefs = null;
         EdgeDefinitionConfigurationHelper edgeDefConfigs = null;
         if (!edges.containsKey(typeName)) {
             return edgesCreated; // short circuit, no edges defined for this type
         }
         edgeDefConfigs = edges.get(typeName);
-        edgeDefs = edgeDefConfigs.getEdges();
+        CompiledEdgeDefinitions compiled = getCompiledEdges(typeName);
         
         /**
          * If enabled, set the filtered context from the NormalizedContentInterface and create the script cache
@@ -572,9 +601,11 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
         }
         
         /*
-         * Create Edge Values from Edge Definitions
+         * Create Edge Values from the Edge Definitions whose source and sink fields the event contains
          */
-        for (EdgeDefinition edgeDef : edgeDefs) {
+        BitSet matches = compiled.match(depthFirstList.keySet());
+        for (int index = matches.nextSetBit(0); index >= 0; index = matches.nextSetBit(index + 1)) {
+            EdgeDefinition edgeDef = compiled.getDefinition(index);
             
             String jexlPreconditions = null;
             
@@ -616,15 +647,11 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
             Multimap<String,NormalizedContentInterface> mSource = null;
             Multimap<String,NormalizedContentInterface> mSink = null;
             
-            String sourceGroup = getGroup(edgeDef.getSourceFieldName());
-            String sinkGroup = getGroup(edgeDef.getSinkFieldName());
+            String sourceGroup = compiled.getSourceGroup(index);
+            String sinkGroup = compiled.getSinkGroup(index);
             
-            if (depthFirstList.containsKey(edgeDef.getSourceFieldName()) && depthFirstList.containsKey(edgeDef.getSinkFieldName())) {
-                mSource = depthFirstList.get(edgeDef.getSourceFieldName());
-                mSink = depthFirstList.get(edgeDef.getSinkFieldName());
-            } else {
-                continue;
-            }
+            mSource = depthFirstList.get(edgeDef.getSourceFieldName());
+            mSink = depthFirstList.get(edgeDef.getSinkFieldName());
             
             // bail if the event doesn't contain any values for the source or sink field
             if (null == mSource || null == mSink) {
@@ -736,10 +763,12 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
         }
         
         String typeName = event.getDataType().typeName();
+        CompiledEdgeDefinitions compiled = getCompiledEdges(typeName);
         
         // if the edgeDef is an enrichment definition, fill in the enrichedValue
         if (edgeDef.isEnrichmentEdge()) {
-            if (edgeTypeLookup.containsKey(typeName)) {
+            Map<String,String> enrichmentTypes = compiled.getEnrichmentTypes();
+            if (enrichmentTypes != null) {
                 // if the group is the same as the sink or source,
                 // then ensure we use the correct subgroup, otherwise we will enrich with the first value found
                 Collection<NormalizedContentInterface> ifaceEnrichs = normalizedFields.get(edgeDef.getEnrichmentField());
@@ -761,9 +790,10 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
                             // the value of the enrichment field is a edge type lookup
                             String enrichedIndex = ifaceEnrich.getIndexedFieldValue();
                             // if we know this enrichment mode, then use it
-                            if (edgeTypeLookup.get(typeName).containsKey(enrichedIndex)) {
+                            String enrichedValue = enrichmentTypes.get(enrichedIndex);
+                            if (enrichedValue != null) {
                                 edgeDataBundle.setEnrichedIndex(enrichedIndex); // required for eventMetadataRegistry
-                                edgeDataBundle.setEnrichedValue(edgeTypeLookup.get(typeName).get(enrichedIndex));
+                                edgeDataBundle.setEnrichedValue(enrichedValue);
                                 break;
                             }
                         }
@@ -795,8 +825,8 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
         }
         
         // check value blacklist
-        if (this.enableBlacklist && isBlacklistValue(typeName, edgeDataBundle.getSource().getValue(ValueType.INDEXED))
-                        || isBlacklistValue(typeName, edgeDataBundle.getSink().getValue(ValueType.INDEXED))) {
+        if (this.enableBlacklist && compiled.isBlacklistValue(edgeDataBundle.getSource().getValue(ValueType.INDEXED))
+                        || compiled.isBlacklistValue(edgeDataBundle.getSink().getValue(ValueType.INDEXED))) {
             return null;
         }
         
@@ -1056,7 +1086,7 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
                         .setTimestamp(timestamp).setDateType(date_type);
         builder.setDeleted(edgeValue.isDeleting());
         
-        return builder.build().encode();
+        return keyEncoder.encode(builder.build());
     }
     
     protected Key createStatsKey(STATS_TYPE statsType, EdgeDataBundle edgeValue, VertexValue vertex, String value, Text visibility, EdgeKey.DATE_TYPE date_type) {
@@ -1067,19 +1097,13 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
                         .setAttribute3(edgeValue.getEdgeAttribute3()).setAttribute2(edgeValue.getEdgeAttribute2()).setColvis(visibility)
                         .setTimestamp(edgeValue.getEventDate()).setDateType(date_type);
         builder.setDeleted(edgeValue.isDeleting());
-        Key key = builder.build().encode();
+        Key key = keyEncoder.encode(builder.build());
         boolean isNewKey = false;
         
         /**
          * compute 128bit hashcode for edge instead of storing the raw key value we store a 128bit hash value of the edge.
          */
-        HashFunction hf = Hashing.murmur3_128();
-        
-        /**
-         * of note. The google HashCode is a well defined object (equals and hashcode) and is immutable. it's safe for use in hashsets.
-         *
-         */
-        HashCode hcode = hf.newHasher().putString(key.toString() + key.hashCode(), Charsets.UTF_8).hash();
+        HashCode hcode = hashStatsKey(key);
         
         switch (statsType) {
             case ACTIVITY:
@@ -1120,6 +1144,22 @@ public class ProtobufEdgeDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> implements Exten
         }
     }
     
+    /**
+     * Hashes the parts of a key directly rather than its string form. Of note, the google HashCode is a well defined object (equals and hashcode) and is
+     * immutable. it's safe for use in hashsets.
+     */
+    private static HashCode hashStatsKey(Key key) {
+        ByteSequence row = key.getRowData();
+        ByteSequence cf = key.getColumnFamilyData();
+        ByteSequence cq = key.getColumnQualifierData();
+        ByteSequence cv = key.getColumnVisibilityData();
+        // the lengths separate the parts, such that the boundaries between them are part of the hash
+        return STATS_KEY_HASH.newHasher().putInt(row.length()).putBytes(row.getBackingArray(), row.offset(), row.length()).putInt(cf.length())
+                        .putBytes(cf.getBackingArray(), cf.offset(), cf.length()).putInt(cq.length()).putBytes(cq.getBackingArray(), cq.offset(), cq.length())
+                        .putInt(cv.length()).putBytes(cv.getBackingArray(), cv.offset(), cv.length()).putLong(key.getTimestamp())
+                        .putBoolean(key.isDeleted()).hash();
+    }
+    
     protected int writeKey(Key key, Value val, TaskInputOutputContext<KEYIN,? extends RawRecordContainer,KEYOUT,VALUEOUT> context,
                     ContextWriter<KEYOUT,VALUEOUT> contextWriter) throws IOException, InterruptedException {
         if (key == null)
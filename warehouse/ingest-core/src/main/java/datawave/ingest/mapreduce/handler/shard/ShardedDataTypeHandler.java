@@ -133,6 +133,8 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
                                                                                                                       // mapred.task.timeout) before n-grams
                                                                                                                       // will stop being added to a bloom filter
     public static final String SHARD_ININDEX_BLOOM_OPTIMUM_MAX_FILTER_SIZE = "shard.table.index.bloom.optimum.max.filter.size"; // Bytes
+    public static final String SHARD_ININDEX_BLOOM_STREAMING = "shard.table.index.bloom.streaming"; // size n-gram filters from a cardinality estimate and
+                                                                                                    // build them in bounded memory
     public static final String SHARD_STATS_TNAME = "shard.stats.table.name";
     public static final String SHARD_GIDX_TNAME = "shard.global.index.table.name";
     public static final String SHARD_GRIDX_TNAME = "shard.global.rindex.table.name";
@@ -182,6 +184,11 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
     private float bloomFilteringMemoryThreshold;
     private int bloomFilteringOptimumMaxFilterSize;
     private float bloomFilteringTimeoutThreshold;
+    private boolean bloomFilteringStreaming;
+    // the bloom filter of the last event, which is shared by all of its field index keys
+    private RawRecordContainer bloomFilterEvent = null;
+    private Multimap<String,NormalizedContentInterface> bloomFilterFields = null;
+    private Value bloomFilterValue = null;
     private Text shardTableName = null;
     private Text shardIndexTableName = null;
     private Text indexStatsTableName = null;
@@ -278,6 +285,7 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
             this.bloomFilteringMemoryThreshold = conf.getFloat(SHARD_ININDEX_BLOOM_MEMORY_THRESHOLD, 0.0f);
             this.bloomFilteringTimeoutThreshold = conf.getFloat(SHARD_ININDEX_BLOOM_TIMEOUT_THRESHOLD, 0.0f);
             this.bloomFilteringOptimumMaxFilterSize = conf.getInt(SHARD_ININDEX_BLOOM_OPTIMUM_MAX_FILTER_SIZE, -1);
+            this.bloomFilteringStreaming = conf.getBoolean(SHARD_ININDEX_BLOOM_STREAMING, false);
         }
         
         // Event key suppression
@@ -415,6 +423,11 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
     protected Multimap<BulkIngestKey,Value> createColumns(RawRecordContainer event, Multimap<String,NormalizedContentInterface> fields, StatusReporter reporter) {
         IngestHelperInterface helper = this.getHelper(event.getDataType());
         
+        // the event and fields instances may be reused, so never reuse a bloom filter across calls
+        this.bloomFilterEvent = null;
+        this.bloomFilterFields = null;
+        this.bloomFilterValue = null;
+        
         Multimap<BulkIngestKey,Value> values = HashMultimap.create();
         
         byte[] maskedVisibility = computeMaskedVisibility(event);
@@ -575,6 +588,9 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
     }
     
     /**
+     * Creates the bloom filter value of an event. The filter only depends on the event's fields, so it is created once per event and reused for each of its
+     * field index keys.
+     * 
      * @param event
      * @param fields
      * @param reporter
@@ -582,6 +598,9 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
     protected Value createBloomFilter(RawRecordContainer event, Multimap<String,NormalizedContentInterface> fields, StatusReporter reporter) {
         Value filterValue = DataTypeHandler.NULL_VALUE;
         if (this.bloomFiltersEnabled) {
+            if (event == this.bloomFilterEvent && fields == this.bloomFilterFields) {
+                return this.bloomFilterValue;
+            }
             
             try {
                 // Create and start the stopwatch
@@ -626,15 +645,32 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
                     if (null != creationTime) {
                         creationTime.increment(stopWatch.elapsed(TimeUnit.MILLISECONDS));
                     }
+                    
+                    final Counter expectedCounter = reporter.getCounter(MemberShipTest.class.getSimpleName(), "BloomFilterExpectedInsertions");
+                    if (null != expectedCounter) {
+                        expectedCounter.increment(result.getExpectedInsertions());
+                    }
+                    
+                    if (result.isTimedOut()) {
+                        final Counter timeoutCounter = reporter.getCounter(MemberShipTest.class.getSimpleName(), "BloomFilterTimeouts");
+                        if (null != timeoutCounter) {
+                            timeoutCounter.increment(1);
+                        }
+                    }
                 }
             } catch (Exception e) {
+                log.warn("Unable to create the bloom filter for event " + event.getId(), e);
                 if (null != reporter) {
                     final Counter errorCounter = reporter.getCounter(MemberShipTest.class.getSimpleName(), "BloomFilterError");
                     if (null != errorCounter) {
-                        errorCounter.increment(filterValue.getSize());
+                        errorCounter.increment(1);
                     }
                 }
             }
+            
+            this.bloomFilterEvent = event;
+            this.bloomFilterFields = fields;
+            this.bloomFilterValue = filterValue;
         }
         
         return filterValue;
@@ -1398,6 +1434,15 @@ public abstract class ShardedDataTypeHandler<KEYIN> extends StatsDEnabledDataTyp
         return this.bloomFiltersEnabled;
     }
     
+    /**
+     * Returns a value indicating whether or not n-gram bloom filters are sized from a cardinality estimate and built in bounded memory
+     * 
+     * @return true if n-gram bloom filters are built by streaming
+     */
+    public boolean getBloomFilteringStreaming() {
+        return this.bloomFilteringStreaming;
+    }
+    
     /**
      * Returns the minimum amount of available memory, expressed as a percentage, allowed for creating a complete bloom filter
      * 
@@ -0,0 +1,362 @@
+package datawave.ingest.mapreduce.handler.tokenize;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import datawave.ingest.data.tokenize.TokenSearch;
+import datawave.ingest.data.tokenize.TruncateAttribute;
+import datawave.ingest.mapreduce.handler.shard.content.ContentIndexCounters;
+import datawave.ingest.mapreduce.handler.tokenize.ExtendedContentIndexingColumnBasedHandler.TokenizerTimeoutException;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.log4j.Logger;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Tokenizes document content for the {@link ExtendedContentIndexingColumnBasedHandler}. Content larger than the chunk size is split into chunks at boundaries
+ * that no token spans, and the chunks are tokenized in parallel. The terms are then handed to the caller on its own thread in document order, with the same
+ * positions they would have had if the content was tokenized in one pass.
+ */
+public class ContentChunkTokenizer {
+    private static final Logger log = Logger.getLogger(ContentChunkTokenizer.class);
+    
+    // number of tokens between checks of the tokenization deadline
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+    
+    // interval at which progress is reported while waiting for a chunk
+    private static final long PROGRESS_INTERVAL_MSEC = 500;
+    
+    /**
+     * Receives the terms of the content in document order
+     */
+    public interface TermConsumer {
+        void accept(String term, int position) throws IOException, InterruptedException;
+    }
+    
+    private final Analyzer analyzer;
+    private final TokenSearch searchUtil;
+    private final Set<String> termTypeBlacklist;
+    private final int termLengthLimit;
+    private final int termLengthWarningLimit;
+    private final int chunkSize;
+    private final ExecutorService executor;
+    
+    /**
+     * @param analyzer
+     *            the analyzer used to tokenize the content, which must support concurrent use from multiple threads as Lucene analyzers do
+     * @param searchUtil
+     *            used to generate the synonyms of each token, or null to only use the tokens themselves
+     * @param termTypeBlacklist
+     *            token types which are not indexed
+     * @param termLengthLimit
+     *            tokens longer than this are dropped unless they are a FILE, URL or HTTP_REQUEST
+     * @param termLengthWarningLimit
+     *            tokens longer than this are logged
+     * @param chunkSize
+     *            the size in characters beyond which content is split into chunks
+     * @param threads
+     *            the number of threads tokenizing chunks, chunks are tokenized on the calling thread if less than 2
+     */
+    public ContentChunkTokenizer(Analyzer analyzer, TokenSearch searchUtil, Set<String> termTypeBlacklist, int termLengthLimit, int termLengthWarningLimit,
+                    int chunkSize, int threads) {
+        this.analyzer = analyzer;
+        this.searchUtil = searchUtil;
+        this.termTypeBlacklist = (termTypeBlacklist == null ? Collections.<String> emptySet() : termTypeBlacklist);
+        this.termLengthLimit = termLengthLimit;
+        this.termLengthWarningLimit = termLengthWarningLimit;
+        this.chunkSize = Math.max(1, chunkSize);
+        if (threads > 1) {
+            this.executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("content-tokenizer-%d").setDaemon(true).build());
+        } else {
+            this.executor = null;
+        }
+    }
+    
+    /**
+     * Tokenize the content and hand each term to the consumer
+     *
+     * @param content
+     *            the content to tokenize
+     * @param zone
+     *            the zone of the content, passed to the analyzer as the field name
+     * @param position
+     *            the position preceding the first token of the content
+     * @param timeoutMsec
+     *            the time allowed to tokenize the content
+     * @param counters
+     *            the counters to update
+     * @param reporter
+     *            used to report progress while waiting for chunks, may be null
+     * @param consumer
+     *            receives the terms
+     * @return the position of the last token of the content, including any trailing position increments
+     * @throws TokenizerTimeoutException
+     *             if the content could not be tokenized within the timeout
+     * @throws IOException
+     *             if the content could not be tokenized, or the consumer failed
+     * @throws InterruptedException
+     *             if interrupted
+     */
+    int tokenize(String content, String zone, int position, long timeoutMsec, ContentIndexCounters counters, StatusReporter reporter,
+                    TermConsumer consumer) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        long deadline = (timeoutMsec > Long.MAX_VALUE - start ? Long.MAX_VALUE : start + timeoutMsec);
+        
+        List<Integer> bounds = split(content, chunkSize);
+        if (executor == null || bounds.size() <= 2) {
+            for (int i = 1; i < bounds.size(); i++) {
+                Chunk chunk = tokenize(content, bounds.get(i - 1), bounds.get(i), zone, deadline);
+                position = chunk.emit(position, counters, reporter, consumer);
+            }
+            return position;
+        }
+        
+        List<Future<Chunk>> chunks = new ArrayList<>(bounds.size() - 1);
+        try {
+            for (int i = 1; i < bounds.size(); i++) {
+                final int chunkStart = bounds.get(i - 1);
+                final int chunkEnd = bounds.get(i);
+                chunks.add(executor.submit(new Callable<Chunk>() {
+                    @Override
+                    public Chunk call() throws IOException {
+                        return tokenize(content, chunkStart, chunkEnd, zone, deadline);
+                    }
+                }));
+            }
+            
+            // the terms are emitted in document order while the later chunks are still being tokenized
+            for (Future<Chunk> chunk : chunks) {
+                position = await(chunk, deadline, reporter).emit(position, counters, reporter, consumer);
+            }
+            return position;
+        } finally {
+            for (Future<Chunk> chunk : chunks) {
+                chunk.cancel(true);
+            }
+        }
+    }
+    
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Find the chunk boundaries of the content. Content is preferably split at a blank line, then at a line break, and then at a space or tab, within a
+     * quarter chunk past the chunk size. Failing that, the chunk is extended to the next whitespace character.
+     *
+     * @param content
+     *            the content
+     * @param chunkSize
+     *            the target chunk size
+     * @return the start of each chunk followed by the end of the content
+     */
+    static List<Integer> split(CharSequence content, int chunkSize) {
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        int length = content.length();
+        int start = 0;
+        while (length - start > chunkSize) {
+            int target = start + chunkSize;
+            int window = Math.min(length, target + Math.max(1, chunkSize / 4));
+            int end = find(content, target, window, true, true);
+            if (end < 0) {
+                end = find(content, target, window, true, false);
+            }
+            if (end < 0) {
+                end = find(content, target, length, false, false);
+            }
+            if (end < 0) {
+                break;
+            }
+            bounds.add(end);
+            start = end;
+        }
+        bounds.add(length);
+        return bounds;
+    }
+    
+    /**
+     * @return the index just past the first break found in [from, to), or -1
+     */
+    private static int find(CharSequence content, int from, int to, boolean lineBreak, boolean blankLine) {
+        for (int i = from; i < to; i++) {
+            char c = content.charAt(i);
+            if (c == '\n') {
+                if (!blankLine) {
+                    return i + 1;
+                }
+                // a blank line, allowing for carriage returns and trailing spaces
+                for (int j = i + 1; j < content.length() && Character.isWhitespace(content.charAt(j)); j++) {
+                    if (content.charAt(j) == '\n') {
+                        return j + 1;
+                    }
+                }
+            } else if (!lineBreak && Character.isWhitespace(c)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+    
+    private Chunk await(Future<Chunk> chunk, long deadline, StatusReporter reporter) throws IOException, InterruptedException {
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new TokenizerTimeoutException("Tokenization has exceeded the deadline, aborting");
+            }
+            try {
+                return chunk.get(Math.min(remaining, PROGRESS_INTERVAL_MSEC), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (reporter != null) {
+                    reporter.progress();
+                }
+            } catch (CancellationException e) {
+                throw new IOException("Tokenization of a chunk was cancelled", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Unable to tokenize a chunk", e.getCause());
+            }
+        }
+    }
+    
+    private Chunk tokenize(String content, int start, int end, String zone, long deadline) throws IOException {
+        Chunk chunk = new Chunk();
+        try (TokenStream tokenizer = analyzer.tokenStream(zone, new StringReader(content.substring(start, end)))) {
+            CharTermAttribute termAtt = tokenizer.addAttribute(CharTermAttribute.class);
+            TypeAttribute typeAtt = tokenizer.addAttribute(TypeAttribute.class);
+            PositionIncrementAttribute posIncrAtt = tokenizer.addAttribute(PositionIncrementAttribute.class);
+            TruncateAttribute truncAtt = (tokenizer.hasAttribute(TruncateAttribute.class) ? tokenizer.getAttribute(TruncateAttribute.class) : null);
+            tokenizer.reset();
+            
+            // the position increments of dropped tokens are carried to the next token, except for blank tokens which take up no position
+            int increment = 0;
+            while (tokenizer.incrementToken()) {
+                if (++chunk.processed % DEADLINE_CHECK_INTERVAL == 0) {
+                    if (System.currentTimeMillis() > deadline) {
+                        throw new TokenizerTimeoutException("Tokenization has exceeded the deadline, aborting");
+                    }
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new IOException("Interrupted while tokenizing");
+                    }
+                }
+                
+                String token = termAtt.toString();
+                if (StringUtils.isBlank(token)) {
+                    chunk.blank++;
+                    continue;
+                }
+                increment += posIncrAtt.getPositionIncrement();
+                String type = typeAtt.type();
+                if (type.startsWith("<") && type.endsWith(">")) {
+                    type = type.substring(1, type.length() - 1);
+                }
+                
+                int tlen = token.length();
+                if (tlen > termLengthLimit && !(type.equals("FILE") || type.equals("URL") || type.equals("HTTP_REQUEST"))) {
+                    chunk.excessiveLength++;
+                    continue;
+                }
+                if (tlen > termLengthWarningLimit) {
+                    log.warn("Encountered long term: " + tlen + " characters, '" + token + "'");
+                    chunk.lengthWarnings++;
+                }
+                if (truncAtt != null && truncAtt.isTruncated()) {
+                    chunk.truncated++;
+                }
+                if (termTypeBlacklist.contains(type)) {
+                    chunk.blacklisted++;
+                    continue;
+                }
+                
+                Collection<String> synonyms;
+                if (searchUtil != null) {
+                    synonyms = searchUtil.getSynonyms(new String[] {token, ""}, typeAtt.type(), true);
+                } else {
+                    synonyms = Collections.singletonList(token);
+                }
+                chunk.add(increment, synonyms);
+                increment = 0;
+            }
+            tokenizer.end();
+            chunk.trailingIncrement = increment + posIncrAtt.getPositionIncrement();
+        }
+        return chunk;
+    }
+    
+    /**
+     * The tokens of one chunk, with positions relative to the start of the chunk
+     */
+    private static class Chunk {
+        private int size = 0;
+        private int[] increments = new int[64];
+        // the exclusive end of the terms of each token
+        private int[] termEnds = new int[64];
+        private final List<String> terms = new ArrayList<>();
+        private int trailingIncrement = 0;
+        
+        private int processed = 0;
+        private int excessiveLength = 0;
+        private int lengthWarnings = 0;
+        private int truncated = 0;
+        private int blacklisted = 0;
+        private int blank = 0;
+        
+        private void add(int increment, Collection<String> synonyms) {
+            if (size == increments.length) {
+                increments = Arrays.copyOf(increments, size * 2);
+                termEnds = Arrays.copyOf(termEnds, size * 2);
+            }
+            terms.addAll(synonyms);
+            increments[size] = increment;
+            termEnds[size] = terms.size();
+            size++;
+        }
+        
+        private int emit(int position, ContentIndexCounters counters, StatusReporter reporter, TermConsumer consumer) throws IOException,
+                        InterruptedException {
+            int term = 0;
+            for (int i = 0; i < size; i++) {
+                position += increments[i];
+                counters.incrementValue(ContentIndexCounters.SYNONYMS_PROCESSED_COUNTER, termEnds[i] - term - 1, reporter);
+                for (; term < termEnds[i]; term++) {
+                    consumer.accept(terms.get(term), position);
+                }
+            }
+            
+            counters.incrementValue(ContentIndexCounters.ORIGINAL_PROCESSED_COUNTER, processed, reporter);
+            counters.incrementValue(ContentIndexCounters.EXCESSIVE_LENGTH_COUNTER, excessiveLength, reporter);
+            counters.incrementValue(ContentIndexCounters.LENGTH_WARNING_COUNTER, lengthWarnings, reporter);
+            counters.incrementValue(ContentIndexCounters.TRUNCATION_COUNTER, truncated, reporter);
+            counters.incrementValue(ContentIndexCounters.BLANK_TOKEN_COUNTER, blank, reporter);
+            if (blacklisted > 0) {
+                counters.incrementValue(ContentIndexCounters.TERM_TYPE_GROUP_NAME, "BLACKLISTED_BY_TYPE", blacklisted, reporter);
+            }
+            return position + trailingIncrement;
+        }
+    }
+}
@@ -594,7 +594,9 @@ public abstract class ContentIndexingColumnBasedHandler<KEYIN> extends AbstractC
         // Declare and create a bloom filter. If bloom filtering is enabled, an NGramsFactory
         // should have been created during setup. Otherwise, let the parent create it.
         final BloomFilterWrapper result;
-        if (null != this.bloomFilterUtil) {
+        if (null != this.bloomFilterUtil && getBloomFilteringStreaming()) {
+            result = this.bloomFilterUtil.newStreamingNGramBasedFilter(fields);
+        } else if (null != this.bloomFilterUtil) {
             result = this.bloomFilterUtil.newNGramBasedFilter(fields);
         } else {
             result = super.createBloomFilter(fields);
@@ -9,8 +9,9 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPOutputStream;
@@ -58,6 +59,7 @@ import org.apache.lucene.analysis.CharArraySet;
 import org.infinispan.commons.util.Base64;
 
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * <p>
@@ -119,6 +121,19 @@ public abstract class ExtendedContentIndexingColumnBasedHandler<KEYIN,KEYOUT,VAL
      * base64.dcolumn allows you to turn off base64 gzipped content and store gzipped bytes. If not set, base64 encoding is on by default.
      */
     public static final String OPT_BASE64 = "content.ingest.base64.dcolumn";
+    /*
+     * The number of threads writing documents to accumulo when not offline, the number of documents that may be queued for them before the mapper writes
+     * documents itself, and the number of seconds to wait for the queued documents to be written when the handler is closed.
+     */
+    public static final String OPT_DOC_WRITER_THREADS = "content.ingest.documents.writer.threads";
+    public static final String OPT_DOC_WRITER_QUEUE_SIZE = "content.ingest.documents.writer.queue.size";
+    public static final String OPT_DOC_WRITER_TIMEOUT = "content.ingest.documents.writer.timeout";
+    /*
+     * Content larger than the chunk size (in characters) is split at whitespace and the chunks are tokenized by this many threads. Chunked tokenization is
+     * disabled when the number of threads is 0.
+     */
+    public static final String OPT_TOKENIZER_CHUNK_THREADS = "content.ingest.tokenizer.chunk.threads";
+    public static final String OPT_TOKENIZER_CHUNK_SIZE = "content.ingest.tokenizer.chunk.size";
     
     private static final Logger log = Logger.getLogger(ExtendedContentIndexingColumnBasedHandler.class);
     
@@ -140,6 +155,9 @@ public abstract class ExtendedContentIndexingColumnBasedHandler<KEYIN,KEYOUT,VAL
     protected boolean disableDCol = false;
     protected ExecutorService docWriterService;
     protected BatchWriter docWriter;
+    protected long docWriterTimeout = 60;
+    
+    protected ContentChunkTokenizer chunkTokenizer = null;
     
     protected boolean tokenizerTimeWarned = false;
     
@@ -166,6 +184,7 @@ public abstract class ExtendedContentIndexingColumnBasedHandler<KEYIN,KEYOUT,VAL
         offlineDocProcessing = conf.getBoolean(OPT_OFFLINE, true);
         useBase64Encoding = conf.getBoolean(OPT_BASE64, true);
         disableDCol = conf.getBoolean(OPT_NO_D_COL, false);
+        docWriterTimeout = conf.getLong(OPT_DOC_WRITER_TIMEOUT, docWriterTimeout);
         
         if (disableDCol) {
             // set this to true so we don't spin up a thread we don't need...
@@ -174,7 +193,7 @@ public abstract class ExtendedContentIndexingColumnBasedHandler<KEYIN,KEYOUT,VAL
         }
         
         if (!offlineDocProcessing) {
-            docWriterService = Executors.newSingleThreadExecutor();
+            docWriterService = createDocWriterService(conf);
             try {
                 AccumuloHelper accumuloHelper = new AccumuloHelper();
                 accumuloHelper.setup(conf);
@@ -211,22 +230,63 @@ public abstract class ExtendedContentIndexingColumnBasedHandler<KEYIN,KEYOUT,VAL
         searchUtil = TokenSearch.Factory.newInstance(DefaultTokenSearch.class.getCanonicalName(), stopWords, false);
         tokenHelper.configureSearchUtil(searchUtil);
         
+        int chunkThreads = conf.getInt(OPT_TOKENIZER_CHUNK_THREADS, 0);
+        if (chunkThreads > 0) {
+            chunkTokenizer = createContentTokenizer(conf.getInt(OPT_TOKENIZER_CHUNK_SIZE, 262144), chunkThreads);
+            log.info("Tokenizing content in chunks with " + chunkThreads + " threads.");
+        } else {
+            chunkTokenizer = createContentTokenizer(Integer.MAX_VALUE, 0);
+        }
+        
         log.info("ExtendedContentIndexingColumnBasedHandler configured.");
     }
     
     /**
-     * This method will block until all of the documents have been written to Accumulo, or a timeout has been reached.
+     * Create the tokenizer used by {@link #tokenizeContent}. By default content is tokenized by the configured analyzer, with the configured synonyms, term
+     * type blacklist and term length limits.
+     * 
+     * @param chunkSize
+     *            the size in characters beyond which content is split into chunks
+     * @param threads
+     *            the number of threads tokenizing chunks, or 0 to tokenize content on the calling thread
+     * @return the content tokenizer
+     */
+    protected ContentChunkTokenizer createContentTokenizer(int chunkSize, int threads) {
+        return new ContentChunkTokenizer(tokenHelper.getAnalyzer(), tokenHelper.isSynonymGenerationEnabled() ? searchUtil : null, termTypeBlacklist,
+                        tokenHelper.getTermLengthLimit(), tokenHelper.getTermLengthWarningLimit(), chunkSize, threads);
+    }
+    
+    /**
+     * Create the service which writes documents to Accumulo. Documents are written by {@value #OPT_DOC_WRITER_THREADS} threads, and once
+     * {@value #OPT_DOC_WRITER_QUEUE_SIZE} documents are waiting the calling thread writes its documents itself, which keeps the pending documents from
+     * exhausting the heap.
      * 
-     * TODO make the timeout configurable
+     * @param conf
+     * @return the document writer service
+     */
+    protected ExecutorService createDocWriterService(Configuration conf) {
+        int threads = Math.max(1, conf.getInt(OPT_DOC_WRITER_THREADS, 1));
+        int queueSize = Math.max(1, conf.getInt(OPT_DOC_WRITER_QUEUE_SIZE, 1000));
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), new ThreadFactoryBuilder()
+                        .setNameFormat("doc-writer-%d").setDaemon(true).build(), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+    
+    /**
+     * This method will block until all of the documents have been written to Accumulo, or {@value #OPT_DOC_WRITER_TIMEOUT} seconds have passed.
      */
     @Override
     public void close(TaskAttemptContext context) {
         super.close(context);
+        if (chunkTokenizer != null) {
+            chunkTokenizer.shutdown();
+        }
         if (!offlineDocProcessing) {
             try {
                 log.info("Attempting to flush document writer.");
                 this.docWriterService.shutdown();
-                this.docWriterService.awaitTermination(1, TimeUnit.MINUTES);
+                if (!this.docWriterService.awaitTermination(docWriterTimeout, TimeUnit.SECONDS)) {
+                    log.warn("Documents were still being written after " + docWriterTimeout + " seconds, some may not have been written.");
+                }
                 this.docWriter.close();
             } catch (InterruptedException | MutationsRejectedException e) {
                 log.error("Unable to terminate document writing service!", e);
@@ -283,6 +343,70 @@ public abstract class ExtendedContentIndexingColumnBasedHandler<KEYIN,KEYOUT,VAL
     protected abstract long tokenizeEvent(RawRecordContainer event, TaskInputOutputContext<KEYIN,? extends RawRecordContainer,KEYOUT,VALUEOUT> context,
                     ContextWriter<KEYOUT,VALUEOUT> contextWriter, StatusReporter reporter) throws IOException, InterruptedException;
     
+    /**
+     * Tokenize the content of a zone and process each resulting term, and its synonyms, as {@link #processTermAndZone} would. When
+     * {@value #OPT_TOKENIZER_CHUNK_THREADS} is set, large content is split into chunks which are tokenized in parallel, while the terms are processed on this
+     * thread in document order with the positions they would have had if the content was tokenized as a whole. Otherwise the content is tokenized on this
+     * thread.
+     * 
+     * @param event
+     * @param content
+     * @param zone
+     * @param position
+     *            the position preceding the first token of the content
+     * @param alreadyIndexedTerms
+     * @param context
+     * @param contextWriter
+     * @param reporter
+     * @return the position of the last token of the content
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    protected int tokenizeContent(final RawRecordContainer event, String content, final String zone, int position, final BloomFilter alreadyIndexedTerms,
+                    final TaskInputOutputContext<KEYIN,? extends RawRecordContainer,KEYOUT,VALUEOUT> context,
+                    final ContextWriter<KEYOUT,VALUEOUT> contextWriter, final StatusReporter reporter) throws IOException, InterruptedException {
+        return tokenizeContent(content, zone, position, reporter, new ContentChunkTokenizer.TermConsumer() {
+            @Override
+            public void accept(String term, int termPosition) throws IOException, InterruptedException {
+                processTermAndZone(event, termPosition, new TermAndZone(term, zone), alreadyIndexedTerms, context, contextWriter, reporter);
+            }
+        });
+    }
+    
+    /**
+     * Tokenize the content of a zone with the tokenizer from {@link #createContentTokenizer}, handing each resulting term to the consumer on this thread in
+     * document order.
+     * 
+     * @param content
+     * @param zone
+     * @param position
+     *            the position preceding the first token of the content
+     * @param reporter
+     * @param consumer
+     *            receives each term and its position
+     * @return the position of the last token of the content
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    protected int tokenizeContent(String content, String zone, int position, StatusReporter reporter, ContentChunkTokenizer.TermConsumer consumer)
+                    throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        try {
+            position = chunkTokenizer.tokenize(content, zone, position, tokenHelper.getTokenizerTimeErrorThresholdMsec(), counters, reporter, consumer);
+        } catch (TokenizerTimeoutException e) {
+            counters.incrementValue(ContentIndexCounters.TOKENIZER_TIME_ERRORS, 1, reporter);
+            throw e;
+        }
+        
+        if (!tokenizerTimeWarned && System.currentTimeMillis() - start > tokenHelper.getTokenizerTimeWarnThresholdMsec()) {
+            log.warn("Tokenization of the " + zone + " zone of " + eventUid + " has exceeded the warning threshold "
+                            + tokenHelper.getTokenizerTimeWarnThresholdMsec() + " ms");
+            counters.incrementValue(ContentIndexCounters.TOKENIZER_TIME_WARNINGS, 1, reporter);
+            tokenizerTimeWarned = true;
+        }
+        return position;
+    }
+    
     /**
      * Process a term and zone by writting all applicable keys to the context.
      * 
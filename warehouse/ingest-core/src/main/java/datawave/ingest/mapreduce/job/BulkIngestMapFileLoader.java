@@ -2,6 +2,7 @@ package datawave.ingest.mapreduce.job;
 
 import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import datawave.ingest.data.TypeRegistry;
 import datawave.ingest.mapreduce.StandaloneStatusReporter;
 import datawave.util.cli.PasswordConverter;
@@ -15,6 +16,7 @@ import org.apache.accumulo.core.client.admin.TableOperations;
 import org.apache.accumulo.core.client.impl.ClientContext;
 import org.apache.accumulo.core.client.impl.Credentials;
 import org.apache.accumulo.core.client.impl.MasterClient;
+import org.apache.accumulo.core.client.impl.Tables;
 import org.apache.accumulo.core.client.security.tokens.PasswordToken;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.master.thrift.MasterClientService.Iface;
@@ -55,17 +57,28 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A processor whose job is to watch for completed Bulk Ingest jobs and bring the map files produced by them online in accumulo. This class attempts to bring
  * multiple map files online at once if many jobs have completed, and also attempts to throttle itself to prevent queuing up too many major compactions on the
  * various tablet servers.
+ * <p>
+ * Job directories are processed as a pipeline of stages: the map-file-watcher thread discovers job directories and takes ownership of them, the HDFS stage
+ * copies them to the destination file system if needed, the import stage brings the map files online, and the cleanup stage verifies the import and marks the
+ * source files loaded. Multiple job directories may be in flight at once (see -maxJobsInFlight), in which case the imports of all of them are scheduled together
+ * by table priority and the current major compaction load of each table, limiting the number of concurrent imports per table (see -maxTableImports). The time
+ * spent in each stage and the number of job directories in flight are recorded with the ingest metrics. Each job directory collects its metrics in its own
+ * reporter, which is written out when that job directory is finished, so the metrics of concurrent job directories are never mixed.
  */
 public final class BulkIngestMapFileLoader implements Runnable {
     private static Logger log = Logger.getLogger(BulkIngestMapFileLoader.class);
@@ -97,9 +110,17 @@ public final class BulkIngestMapFileLoader implements Runnable {
     private URI srcHdfs;
     private URI destHdfs;
     private String jobtracker;
-    private StandaloneStatusReporter reporter = new StandaloneStatusReporter();
     private volatile boolean running;
     private ExecutorService executor;
+    private int maxJobsInFlight;
+    private Semaphore jobSlots;
+    private AtomicInteger jobsInFlight = new AtomicInteger();
+    private ExecutorService hdfsStage;
+    private ExecutorService cleanupStage;
+    private TableImportScheduler importScheduler;
+    private volatile long lastOnlineTime = 0;
+    private volatile long lastLoadMessageTime = 0;
+    private AtomicInteger fsAccessFailures = new AtomicInteger();
     
     public static void main(String[] args) throws AccumuloSecurityException, IOException {
         
@@ -114,7 +135,7 @@ public final class BulkIngestMapFileLoader implements Runnable {
             log.error("usage: BulkIngestMapFileLoader hdfsWorkDir jobDirPattern instanceName zooKeepers username password "
                             + "[-sleepTime sleepTime] [-majcThreshold threshold] [-majcCheckInterval count] [-majcDelay majcDelay] "
                             + " [-seqFileHdfs seqFileSystemUri] [-srcHdfs srcFileSystemURI] [-destHdfs destFileSystemURI] [-jt jobTracker] "
-                            + "[-ingestMetricsDisabled] [-shutdownPort portNum] confFile [{confFile}]");
+                            + "[-maxJobsInFlight count] [-maxTableImports count] [-ingestMetricsDisabled] [-shutdownPort portNum] confFile [{confFile}]");
             System.exit(-1);
         }
         
@@ -122,6 +143,9 @@ public final class BulkIngestMapFileLoader implements Runnable {
         int numBulkAssignThreads = 4;
         // default the number of HDFS threads to 1
         int numHdfsThreads = 1;
+        // default to processing one job directory at a time
+        int maxJobsInFlight = 1;
+        int maxTableImports = 1;
         if (args.length > 6) {
             for (int i = 6; i < args.length; ++i) {
                 if ("-sleepTime".equalsIgnoreCase(args[i])) {
@@ -213,6 +237,28 @@ public final class BulkIngestMapFileLoader implements Runnable {
                         log.error("-numAssignThreads must be followed by the number of bulk import assignment threads", e);
                         System.exit(-2);
                     }
+                } else if ("-maxJobsInFlight".equalsIgnoreCase(args[i])) {
+                    if (i + 2 > args.length) {
+                        log.error("-maxJobsInFlight must be followed by the number of job directories to process concurrently");
+                        System.exit(-2);
+                    }
+                    try {
+                        maxJobsInFlight = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        log.error("-maxJobsInFlight must be followed by the number of job directories to process concurrently", e);
+                        System.exit(-2);
+                    }
+                } else if ("-maxTableImports".equalsIgnoreCase(args[i])) {
+                    if (i + 2 > args.length) {
+                        log.error("-maxTableImports must be followed by the number of concurrent bulk imports allowed per table");
+                        System.exit(-2);
+                    }
+                    try {
+                        maxTableImports = Integer.parseInt(args[++i]);
+                    } catch (NumberFormatException e) {
+                        log.error("-maxTableImports must be followed by the number of concurrent bulk imports allowed per table", e);
+                        System.exit(-2);
+                    }
                 } else if ("-seqFileHdfs".equalsIgnoreCase(args[i])) {
                     if (i + 2 > args.length) {
                         log.error("-seqFileHdfs must be followed a file system URI (e.g. hdfs://hostname:54310).");
@@ -303,6 +349,8 @@ public final class BulkIngestMapFileLoader implements Runnable {
         log.info("Using " + numBulkThreads + " bulk load threads");
         log.info("Using " + numHdfsThreads + " HDFS operation threads");
         log.info("Using " + numBulkAssignThreads + " bulk assign threads");
+        log.info("Processing a max of " + maxJobsInFlight + " job directories concurrently");
+        log.info("Running a max of " + maxTableImports + " concurrent bulk imports per table");
         log.info("Using " + seqFileHdfs + " as the file system containing the original sequence files");
         log.info("Using " + srcHdfs + " as the source file system");
         log.info("Using " + destHdfs + " as the destination file system");
@@ -336,7 +384,7 @@ public final class BulkIngestMapFileLoader implements Runnable {
         
         Credentials credentials = new Credentials(args[4], new PasswordToken(passwordStr));
         BulkIngestMapFileLoader processor = new BulkIngestMapFileLoader(workDir, jobDirPattern, instanceName, zooKeepers, credentials, seqFileHdfs, srcHdfs,
-                        destHdfs, jobtracker, tablePriorities, conf, SHUTDOWN_PORT, numHdfsThreads);
+                        destHdfs, jobtracker, tablePriorities, conf, SHUTDOWN_PORT, numHdfsThreads, numBulkThreads, maxJobsInFlight, maxTableImports);
         Thread t = new Thread(processor, "map-file-watcher");
         t.start();
     }
@@ -353,6 +401,13 @@ public final class BulkIngestMapFileLoader implements Runnable {
     
     public BulkIngestMapFileLoader(String workDir, String jobDirPattern, String instanceName, String zooKeepers, Credentials credentials, URI seqFileHdfs,
                     URI srcHdfs, URI destHdfs, String jobtracker, Map<String,Integer> tablePriorities, Configuration conf, int shutdownPort, int numHdfsThreads) {
+        this(workDir, jobDirPattern, instanceName, zooKeepers, credentials, seqFileHdfs, srcHdfs, destHdfs, jobtracker, tablePriorities, conf, shutdownPort,
+                        numHdfsThreads, 8, 1, 1);
+    }
+    
+    public BulkIngestMapFileLoader(String workDir, String jobDirPattern, String instanceName, String zooKeepers, Credentials credentials, URI seqFileHdfs,
+                    URI srcHdfs, URI destHdfs, String jobtracker, Map<String,Integer> tablePriorities, Configuration conf, int shutdownPort, int numHdfsThreads,
+                    int numBulkThreads, int maxJobsInFlight, int maxTableImports) {
         this.conf = conf;
         this.tablePriorities = tablePriorities;
         this.workDir = new Path(workDir);
@@ -366,6 +421,11 @@ public final class BulkIngestMapFileLoader implements Runnable {
         this.jobtracker = jobtracker;
         this.running = true;
         this.executor = Executors.newFixedThreadPool(numHdfsThreads > 0 ? numHdfsThreads : 1);
+        this.maxJobsInFlight = (maxJobsInFlight > 0 ? maxJobsInFlight : 1);
+        this.jobSlots = new Semaphore(this.maxJobsInFlight);
+        this.hdfsStage = Executors.newFixedThreadPool(this.maxJobsInFlight, new ThreadFactoryBuilder().setNameFormat("map-file-hdfs-%d").build());
+        this.cleanupStage = Executors.newFixedThreadPool(this.maxJobsInFlight, new ThreadFactoryBuilder().setNameFormat("map-file-cleanup-%d").build());
+        this.importScheduler = new TableImportScheduler(numBulkThreads, maxTableImports, tablePriorities);
         try {
             if (shutdownPort > 0) {
                 final ServerSocket serverSocket = new ServerSocket(shutdownPort);
@@ -383,9 +443,6 @@ public final class BulkIngestMapFileLoader implements Runnable {
     @Override
     public void run() {
         log.info("Starting process to monitor map files.");
-        long lastOnlineTime = 0;
-        long lastLoadMessageTime = 0;
-        int fsAccessFailures = 0;
         Path[] jobDirectories = new Path[0];
         int nextJobIndex = 0;
         try {
@@ -400,6 +457,8 @@ public final class BulkIngestMapFileLoader implements Runnable {
                     boolean logMessages = (loadMessageDelta > (5 * 60 * 1000));
                     if (logMessages) {
                         lastLoadMessageTime = System.currentTimeMillis();
+                        log.info(jobsInFlight.get() + " job directories in flight, " + importScheduler.getRunningCount() + " imports running, "
+                                        + importScheduler.getPendingCount() + " imports pending.");
                     }
                     if (!canBringMapFilesOnline(lastOnlineTime, logMessages)) {
                         if (logMessages) {
@@ -407,75 +466,26 @@ public final class BulkIngestMapFileLoader implements Runnable {
                         }
                         continue;
                     }
-                    List<Path> processedDirectories = new ArrayList<>();
+                    int startedDirectories = 0;
                     if (nextJobIndex >= jobDirectories.length) {
                         jobDirectories = getJobDirectories();
                         nextJobIndex = 0;
                     }
-                    if (jobDirectories.length > 0) {
-                        while (processedDirectories.size() < MAJC_CHECK_INTERVAL && jobDirectories.length > 0) {
-                            Path srcJobDirectory = jobDirectories[nextJobIndex++];
-                            if (!running)
-                                break;
-                            // take ownership of the job directory if we can
-                            if (takeOwnershipJobDirectory(srcJobDirectory)) {
-                                processedDirectories.add(srcJobDirectory);
-                                Path mapFilesDir = new Path(srcJobDirectory, "mapFiles");
-                                reporter.getCounter("MapFileLoader.StartTimes", srcJobDirectory.getName()).increment(System.currentTimeMillis());
-                                Path dstJobDirectory = srcJobDirectory;
-                                URI workingHdfs = srcHdfs;
-                                
-                                try {
-                                    log.info("Started processing " + mapFilesDir);
-                                    long start = System.currentTimeMillis();
-                                    
-                                    // copy the data if needed
-                                    dstJobDirectory = distCpDirectory(srcJobDirectory);
-                                    workingHdfs = destHdfs;
-                                    
-                                    // recreate the map files directory reference in case it moved filesystems
-                                    mapFilesDir = new Path(dstJobDirectory, "mapFiles");
-                                    
-                                    // now if we have a destination work directory, then move then move the files
-                                    bringMapFilesOnline(mapFilesDir);
-                                    
-                                    // ensure everything got loaded
-                                    verifyNothingLeftBehind(mapFilesDir);
-                                    
-                                    cleanUpJobDirectory(mapFilesDir);
-                                    long end = System.currentTimeMillis();
-                                    log.info("Finished processing " + mapFilesDir + ", duration (sec): " + ((end - start) / 1000));
-                                    
-                                    // now that we actually processed something, reset the last load message time to force a message on the next round
-                                    lastLoadMessageTime = 0;
-                                } catch (Exception e) {
-                                    log.error("Failed to process " + mapFilesDir, e);
-                                    boolean marked = markJobDirectoryFailed(workingHdfs, dstJobDirectory);
-                                    if (!marked) {
-                                        ++fsAccessFailures;
-                                        if (fsAccessFailures >= 3) {
-                                            log.error("Too many failures updating marker files.  Exiting...");
-                                            shutdown();
-                                        } else {
-                                            log.warn("Failed to mark " + dstJobDirectory + " as failed. Sleeping in case this was a transient failure.");
-                                            try {
-                                                Thread.sleep(FAILURE_SLEEP_TIME);
-                                            } catch (InterruptedException ie) {
-                                                log.warn("Interrupted while sleeping.", ie);
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                            if (nextJobIndex >= jobDirectories.length) {
-                                jobDirectories = getJobDirectories();
-                                nextJobIndex = 0;
-                            }
-                            
+                    while (startedDirectories < MAJC_CHECK_INTERVAL && jobDirectories.length > 0) {
+                        // wait for room in the pipeline before taking ownership of another job directory
+                        if (!acquireJobSlot())
+                            break;
+                        Path srcJobDirectory = jobDirectories[nextJobIndex++];
+                        // take ownership of the job directory if we can
+                        if (takeOwnershipJobDirectory(srcJobDirectory)) {
+                            startedDirectories++;
+                            startJob(srcJobDirectory);
+                        } else {
+                            jobSlots.release();
                         }
-                        if (!processedDirectories.isEmpty()) {
-                            writeStats(processedDirectories.toArray(new Path[processedDirectories.size()]));
-                            lastOnlineTime = System.currentTimeMillis();
+                        if (nextJobIndex >= jobDirectories.length) {
+                            jobDirectories = getJobDirectories();
+                            nextJobIndex = 0;
                         }
                     }
                 } catch (Exception e) {
@@ -483,12 +493,160 @@ public final class BulkIngestMapFileLoader implements Runnable {
                 }
             }
         } finally {
-            log.info("Shutting down executor service");
+            // let the job directories in flight finish before shutting down
+            log.info("Waiting for " + jobsInFlight.get() + " job directories in flight");
+            jobSlots.acquireUninterruptibly(maxJobsInFlight);
+            log.info("Shutting down executor services");
+            hdfsStage.shutdown();
+            cleanupStage.shutdown();
+            importScheduler.shutdown();
             executor.shutdown();
         }
         log.info("Bulk map file loader shutting down.");
     }
     
+    /**
+     * Wait for room in the pipeline for another job directory
+     *
+     * @return true if a job slot was acquired, false if we are shutting down
+     */
+    private boolean acquireJobSlot() {
+        try {
+            while (running) {
+                if (jobSlots.tryAcquire(1, TimeUnit.SECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while waiting for a job slot.", e);
+        }
+        return false;
+    }
+    
+    /**
+     * Start the pipeline for a job directory that we took ownership of. The job slot acquired for it is released once it is done.
+     */
+    private void startJob(Path srcJobDirectory) {
+        JobLoad job = new JobLoad(srcJobDirectory);
+        int inFlight = jobsInFlight.incrementAndGet();
+        incrementCounter(job.reporter, "MapFileLoader.StartTimes", srcJobDirectory.getName(), job.start);
+        incrementCounter(job.reporter, "MapFileLoader.JobsInFlight", srcJobDirectory.getName(), inFlight);
+        log.info("Started processing " + job.mapFilesDir + " (" + inFlight + " job directories in flight)");
+        try {
+            //@formatter:off
+            CompletableFuture.runAsync(() -> job.stage("MapFileLoader.HdfsStageTimes", job::prepare), hdfsStage)
+                .thenCompose(v -> job.importMapFiles())
+                .thenRunAsync(() -> job.stage("MapFileLoader.CleanupStageTimes", job::cleanUp), cleanupStage)
+                .whenCompleteAsync((v, t) -> finishJob(job, t), cleanupStage);
+            //@formatter:on
+        } catch (RuntimeException e) {
+            jobsInFlight.decrementAndGet();
+            jobSlots.release();
+            throw e;
+        }
+    }
+    
+    private void finishJob(JobLoad job, Throwable t) {
+        try {
+            if (t == null) {
+                log.info("Finished processing " + job.mapFilesDir + ", duration (sec): " + ((System.currentTimeMillis() - job.start) / 1000));
+                
+                // now that we actually processed something, reset the last load message time to force a message on the next round
+                lastLoadMessageTime = 0;
+            } else {
+                Throwable cause = (t instanceof CompletionException && t.getCause() != null) ? t.getCause() : t;
+                log.error("Failed to process " + job.mapFilesDir, cause);
+                boolean marked = markJobDirectoryFailed(job.workingHdfs, job.dstJobDirectory);
+                if (!marked) {
+                    if (fsAccessFailures.incrementAndGet() >= 3) {
+                        log.error("Too many failures updating marker files.  Exiting...");
+                        shutdown();
+                    } else {
+                        log.warn("Failed to mark " + job.dstJobDirectory + " as failed. Sleeping in case this was a transient failure.");
+                        try {
+                            Thread.sleep(FAILURE_SLEEP_TIME);
+                        } catch (InterruptedException ie) {
+                            log.warn("Interrupted while sleeping.", ie);
+                        }
+                    }
+                }
+            }
+            writeStats(job.reporter, new Path[] {job.srcJobDirectory});
+            lastOnlineTime = System.currentTimeMillis();
+        } catch (Exception e) {
+            log.error("Error: " + e.getMessage(), e);
+        } finally {
+            jobsInFlight.decrementAndGet();
+            jobSlots.release();
+        }
+    }
+    
+    /**
+     * A stage of the pipeline
+     */
+    private interface Stage {
+        void run() throws Exception;
+    }
+    
+    /**
+     * The state of a job directory as it moves through the pipeline
+     */
+    private class JobLoad {
+        private final Path srcJobDirectory;
+        private final long start = System.currentTimeMillis();
+        // the metrics of this job directory only, written out when it is finished
+        private final StandaloneStatusReporter reporter = new StandaloneStatusReporter();
+        private Path dstJobDirectory;
+        private URI workingHdfs = srcHdfs;
+        private Path mapFilesDir;
+        
+        private JobLoad(Path srcJobDirectory) {
+            this.srcJobDirectory = srcJobDirectory;
+            this.dstJobDirectory = srcJobDirectory;
+            this.mapFilesDir = new Path(srcJobDirectory, "mapFiles");
+        }
+        
+        private void prepare() throws Exception {
+            // copy the data if needed
+            dstJobDirectory = distCpDirectory(srcJobDirectory);
+            workingHdfs = destHdfs;
+            
+            // recreate the map files directory reference in case it moved filesystems
+            mapFilesDir = new Path(dstJobDirectory, "mapFiles");
+        }
+        
+        private CompletableFuture<Void> importMapFiles() {
+            long importStart = System.currentTimeMillis();
+            CompletableFuture<Void> imports;
+            try {
+                imports = startMapFileImports(mapFilesDir, reporter);
+            } catch (Exception e) {
+                imports = new CompletableFuture<>();
+                imports.completeExceptionally(e);
+            }
+            return imports.whenComplete((v, t) -> incrementCounter(reporter, "MapFileLoader.ImportStageTimes", srcJobDirectory.getName(),
+                            System.currentTimeMillis() - importStart));
+        }
+        
+        private void cleanUp() throws IOException {
+            // ensure everything got loaded
+            verifyNothingLeftBehind(mapFilesDir);
+            
+            cleanUpJobDirectory(mapFilesDir);
+        }
+        
+        private void stage(String counterGroup, Stage stage) {
+            long stageStart = System.currentTimeMillis();
+            try {
+                stage.run();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                incrementCounter(reporter, counterGroup, srcJobDirectory.getName(), System.currentTimeMillis() - stageStart);
+            }
+        }
+    }
+    
     protected void shutdown() {
         running = false;
     }
@@ -617,11 +775,20 @@ public final class BulkIngestMapFileLoader implements Runnable {
             client = MasterClient.getConnection(new ClientContext(instance, credentials, AccumuloConfiguration.getDefaultConfiguration()));
             MasterMonitorInfo mmi = client.getMasterStats(null, credentials.toThrift(instance));
             Map<String,TableInfo> tableStats = mmi.getTableMap();
+            Map<String,String> tableNames = Tables.getIdToNameMap(instance);
+            Map<String,Integer> tableLoads = new HashMap<>();
             
             for (java.util.Map.Entry<String,TableInfo> e : tableStats.entrySet()) {
-                majC += e.getValue().getMajors().getQueued();
-                majC += e.getValue().getMajors().getRunning();
+                int tableMajC = e.getValue().getMajors().getQueued() + e.getValue().getMajors().getRunning();
+                majC += tableMajC;
+                String tableName = tableNames.get(e.getKey());
+                if (tableName != null) {
+                    tableLoads.put(tableName, tableMajC);
+                }
             }
+            
+            // imports into the tables with the fewest compactions will be started first
+            importScheduler.setTableLoads(tableLoads);
         } catch (Exception e) {
             // Accumulo API changed, catch exception for now until we redeploy
             // accumulo on lightning.
@@ -667,6 +834,34 @@ public final class BulkIngestMapFileLoader implements Runnable {
      * tables for which map files are to be loaded. Under those directories should be "part-XXXXX" directories which in turn contain the map/index files.
      */
     public void bringMapFilesOnline(Path mapFilesDir) throws IOException, AccumuloException, AccumuloSecurityException, TableNotFoundException {
+        try {
+            startMapFileImports(mapFilesDir).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+    
+    /**
+     * Schedules the imports of all map files in {@code mapFilesDir}, see {@link #bringMapFilesOnline(Path)}. The tables are imported in the prioritized order,
+     * concurrently importing those with the same priority.
+     *
+     * @return a future which completes once all of the tables have been imported, or completes exceptionally if any of the imports failed
+     */
+    public CompletableFuture<Void> startMapFileImports(Path mapFilesDir) throws IOException, AccumuloException, AccumuloSecurityException {
+        return startMapFileImports(mapFilesDir, new StandaloneStatusReporter());
+    }
+    
+    /**
+     * Schedules the imports of all map files in {@code mapFilesDir}, see {@link #startMapFileImports(Path)}.
+     *
+     * @param reporter
+     *            the reporter of the job directory the map files belong to, which receives the import metrics
+     */
+    private CompletableFuture<Void> startMapFileImports(Path mapFilesDir, StandaloneStatusReporter reporter) throws IOException, AccumuloException,
+                    AccumuloSecurityException {
         log.info("Bringing all mapFiles under " + mapFilesDir + " online.");
         
         // By now the map files should be on the local filesystem
@@ -696,9 +891,9 @@ public final class BulkIngestMapFileLoader implements Runnable {
             }
         });
         
-        // now load the tables in the prioritized order, concurrently loading those with the same priority
+        // now group the tables in the prioritized order, the tables with the same priority will be loaded concurrently
+        List<List<ImportRunnable>> priorityGroups = new ArrayList<>();
         Integer priority = null;
-        Stack<ImportRunnable> imports = new Stack<>();
         Map<String,Path> tableNames = new HashMap<>();
         for (FileStatus stat : tableDirs) {
             Path tableDir = stat.getPath();
@@ -721,73 +916,63 @@ public final class BulkIngestMapFileLoader implements Runnable {
             tableNames.put(tableName, tableDir);
             
             Integer newPriority = tablePriorities.get(stat.getPath().getName());
-            if (!Objects.equal(priority, newPriority)) {
-                Exception e = null;
-                while (!imports.isEmpty()) {
-                    ImportRunnable importTask = imports.pop();
-                    try {
-                        importTask.waitForCompletion();
-                        if (e == null)
-                            e = importTask.getException();
-                    } catch (InterruptedException interrupted) {
-                        // this task was interrupted, wait for the others and then terminate
-                        if (e == null)
-                            e = interrupted;
-                    }
-                }
-                // if an exception occurred during processing, terminate
-                if (e != null)
-                    throw new IOException(e);
-                
-                priority = tablePriorities.get(stat.getPath().getName());
+            if (priorityGroups.isEmpty() || !Objects.equal(priority, newPriority)) {
+                priorityGroups.add(new ArrayList<>());
+                priority = newPriority;
             }
-            imports.push(startImport(mapFilesDir, tableName, tableDir, tops));
+            priorityGroups.get(priorityGroups.size() - 1).add(new ImportRunnable(mapFilesDir, tableName, tableDir, tops, reporter));
         }
         
-        Exception e = null;
-        while (!imports.isEmpty()) {
-            ImportRunnable importTask = imports.pop();
-            try {
-                importTask.waitForCompletion();
-                if (e == null)
-                    e = importTask.getException();
-            } catch (InterruptedException interrupted) {
-                // this task was interrupted, wait for the others and then terminate
-                if (e == null)
-                    e = interrupted;
-            }
+        CompletableFuture<Void> imports = CompletableFuture.completedFuture(null);
+        for (List<ImportRunnable> priorityGroup : priorityGroups) {
+            imports = imports.thenCompose(v -> runImports(priorityGroup));
         }
-        // if an exception occurred during processing, terminate
-        if (e != null)
-            throw new IOException(e);
+        return imports;
+    }
+    
+    /**
+     * Run a group of imports concurrently
+     *
+     * @return a future which completes once all of the imports have completed, exceptionally if any of them failed
+     */
+    private CompletableFuture<Void> runImports(List<ImportRunnable> imports) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[imports.size()];
+        for (int i = 0; i < futures.length; i++) {
+            ImportRunnable importTask = imports.get(i);
+            futures[i] = importScheduler.submit(importTask.tableName, importTask).thenAccept(
+                            waited -> incrementCounter(importTask.reporter, "MapFileLoader.ImportWaitTimes", importTask.tableName, waited));
+        }
+        return CompletableFuture.allOf(futures).thenRun(() -> {
+            // if an exception occurred during processing, terminate
+            for (ImportRunnable importTask : imports) {
+                if (importTask.getException() != null) {
+                    throw new CompletionException(new IOException(importTask.getException()));
+                }
+            }
+        });
     }
     
     public ImportRunnable startImport(Path mapFilesDir, String tableName, Path tableDir, TableOperations tops) {
-        ImportRunnable runnable = new ImportRunnable(mapFilesDir, tableName, tableDir, tops);
-        Thread thread = new Thread(runnable);
-        runnable.setThread(thread);
-        thread.start();
+        ImportRunnable runnable = new ImportRunnable(mapFilesDir, tableName, tableDir, tops, new StandaloneStatusReporter());
+        importScheduler.submit(tableName, runnable);
         return runnable;
     }
     
     public class ImportRunnable implements Runnable {
-        private boolean complete = false;
+        private volatile boolean complete = false;
         private String tableName;
         private Path tableDir;
         private TableOperations tops;
         private Path mapFilesDir;
+        private StandaloneStatusReporter reporter;
         private Exception exception = null;
-        private Thread thread = null;
         
-        private ImportRunnable(Path mapFilesDir, String tableName, Path tableDir, TableOperations tops) {
+        private ImportRunnable(Path mapFilesDir, String tableName, Path tableDir, TableOperations tops, StandaloneStatusReporter reporter) {
             this.tableName = tableName;
             this.tableDir = tableDir;
             this.tops = tops;
             this.mapFilesDir = mapFilesDir;
-        }
-        
-        private void setThread(Thread thread) {
-            this.thread = thread;
+            this.reporter = reporter;
         }
         
         public Exception getException() {
@@ -801,18 +986,13 @@ public final class BulkIngestMapFileLoader implements Runnable {
         public void waitForCompletion() throws InterruptedException {
             synchronized (this) {
                 while (!complete) {
-                    if (!thread.isAlive()) {
-                        throw new InterruptedException("This thread is no longer alive but yet the task is incomplete");
-                    }
-                    if (thread.isInterrupted()) {
-                        throw new InterruptedException("This thread has been interrupted");
-                    }
                     this.wait(10000);
                 }
             }
         }
         
         public void run() {
+            long start = System.currentTimeMillis();
             try {
                 // Ensure all of the files put just under tableDir....
                 collapseDirectory();
@@ -836,6 +1016,7 @@ public final class BulkIngestMapFileLoader implements Runnable {
                 log.error("Error importing files into table " + tableName + " from directory " + mapFilesDir, e);
                 this.exception = e;
             } finally {
+                incrementCounter(reporter, "MapFileLoader.ImportTimes", tableName, System.currentTimeMillis() - start);
                 this.complete = true;
                 synchronized (this) {
                     this.notifyAll();
@@ -1126,13 +1307,20 @@ public final class BulkIngestMapFileLoader implements Runnable {
         }
     }
     
-    private void writeStats(Path[] jobDirectories) throws IOException {
+    private static void incrementCounter(StandaloneStatusReporter reporter, String group, String name, long amount) {
+        // the imports of a job directory record their metrics concurrently
+        synchronized (reporter) {
+            reporter.getCounter(group, name).increment(amount);
+        }
+    }
+    
+    private synchronized void writeStats(StandaloneStatusReporter reporter, Path[] jobDirectories) throws IOException {
         if (!INGEST_METRICS) {
             log.info("ingest metrics disabled");
         } else {
             long now = System.currentTimeMillis();
             for (Path p : jobDirectories)
-                reporter.getCounter("MapFileLoader.EndTimes", p.getName()).increment(now);
+                incrementCounter(reporter, "MapFileLoader.EndTimes", p.getName(), now);
             // Write out the metrics.
             // We are going to serialize the counters into a file in HDFS.
             // The context was set in the processKeyValues method below, and should not be null. We'll guard against NPE anyway
@@ -1142,7 +1330,10 @@ public final class BulkIngestMapFileLoader implements Runnable {
             CompressionCodec cc = new GzipCodec();
             CompressionType ct = CompressionType.BLOCK;
             
-            Counters c = reporter.getCounters();
+            Counters c;
+            synchronized (reporter) {
+                c = reporter.getCounters();
+            }
             if (null != c && c.countCounters() > 0) {
                 // Serialize the counters to a file in HDFS.
                 Path src = new Path(File.createTempFile("MapFileLoader", ".metrics").getAbsolutePath());
@@ -1168,9 +1359,6 @@ public final class BulkIngestMapFileLoader implements Runnable {
                     // If an error occurs in the copy, then we will leave in the local metrics directory.
                     log.error("Error copying metrics file into HDFS, will remain in metrics directory.");
                 }
-                
-                // reset reporter so that old metrics don't persist over time
-                this.reporter = new StandaloneStatusReporter();
             }
         }
     }
@@ -17,6 +17,7 @@ import datawave.ingest.mapreduce.job.statsd.CounterStatsDClient;
 import datawave.ingest.mapreduce.job.statsd.CounterToStatsDConfiguration;
 import datawave.ingest.mapreduce.job.writer.AbstractContextWriter;
 import datawave.ingest.mapreduce.job.writer.AggregatingContextWriter;
+import datawave.ingest.mapreduce.job.writer.BatchedLiveContextWriter;
 import datawave.ingest.mapreduce.job.writer.BulkContextWriter;
 import datawave.ingest.mapreduce.job.writer.ChainedContextWriter;
 import datawave.ingest.mapreduce.job.writer.ContextWriter;
@@ -162,6 +163,7 @@ public class IngestJob implements Tool {
     protected boolean generateMarkerFile = true;
     protected String pipelineId = null;
     protected boolean outputMutations = false;
+    protected boolean batchedLiveWriter = false;
     protected boolean useMapOnly = false;
     protected boolean useCombiner = false;
     protected boolean useInlineCombiner = false;
@@ -233,7 +235,7 @@ public class IngestJob implements Tool {
         System.out.println("                     [-pipelineId id]");
         System.out.println("                     [-flagFile flagFile]");
         System.out.println("                     [-flagFilePattern flagFilePattern]");
-        System.out.println("                     [-outputMutations]");
+        System.out.println("                     [-outputMutations] [-batchedLiveWriter]");
         System.out.println("                     [-mapreduce.job.reduces=numReducers]");
         System.out.println("                     [-disableSpeculativeExecution] [-mapOnly] [-useCombiner] [-useInlineCombiner]");
         System.out.println("                     [-verboseCounters]");
@@ -602,6 +604,8 @@ public class IngestJob implements Tool {
                 generateMarkerFile = false;
             } else if (args[i].equals("-outputMutations")) {
                 outputMutations = true;
+            } else if (args[i].equals("-batchedLiveWriter")) {
+                batchedLiveWriter = true;
             } else if (args[i].equals("-mapOnly")) {
                 useMapOnly = true;
                 generateMarkerFile = false;
@@ -844,6 +848,9 @@ public class IngestJob implements Tool {
         
         // Setup the job output and reducer classes
         if (outputMutations) {
+            // The batched live context writer writes the mutations to Accumulo itself instead of passing them to the output format
+            Class<? extends LiveContextWriter> liveContextWriterClass = (batchedLiveWriter ? BatchedLiveContextWriter.class : LiveContextWriter.class);
+            
             job.setOutputKeyClass(Text.class);
             job.setOutputValueClass(Mutation.class);
             
@@ -871,7 +878,7 @@ public class IngestJob implements Tool {
                 
                 // Aggregating reducer will remove dupes for each reduce task and reset the reset timestamps
                 // The reducer will take care of translating from BulkIngestKeys to Mutations by using the LiveContextWriter
-                job.getConfiguration().setClass(BulkIngestKeyAggregatingReducer.CONTEXT_WRITER_CLASS, LiveContextWriter.class, ContextWriter.class);
+                job.getConfiguration().setClass(BulkIngestKeyAggregatingReducer.CONTEXT_WRITER_CLASS, liveContextWriterClass, ContextWriter.class);
                 job.getConfiguration().setBoolean(BulkIngestKeyAggregatingReducer.CONTEXT_WRITER_OUTPUT_TABLE_COUNTERS, tableCounters);
                 job.setReducerClass(BulkIngestKeyAggregatingReducer.class);
             } else {
@@ -890,7 +897,7 @@ public class IngestJob implements Tool {
                 }
                 
                 job.getConfiguration().setClass(TableCachingContextWriter.CONTEXT_WRITER_CLASS, AggregatingContextWriter.class, ContextWriter.class);
-                job.getConfiguration().setClass(AggregatingContextWriter.CONTEXT_WRITER_CLASS, LiveContextWriter.class, ContextWriter.class);
+                job.getConfiguration().setClass(AggregatingContextWriter.CONTEXT_WRITER_CLASS, liveContextWriterClass, ContextWriter.class);
             }
             
         } else {
@@ -0,0 +1,182 @@
+package datawave.ingest.mapreduce.job;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.log4j.Logger;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Schedules the bulk imports for all of the job directories that the BulkIngestMapFileLoader has in flight. Pending imports are started in order of their table
+ * priority, then by the current major compaction load of their table, and then in the order they were submitted. The number of imports running at once is
+ * limited overall and per destination table.
+ */
+class TableImportScheduler {
+    private static final Logger log = Logger.getLogger(TableImportScheduler.class);
+    
+    private final int maxImports;
+    private final int maxImportsPerTable;
+    private final Map<String,Integer> tablePriorities;
+    private final ExecutorService workers;
+    
+    // the number of queued and running major compactions per table name, as last reported by the master
+    private volatile Map<String,Integer> tableLoads = Collections.emptyMap();
+    
+    // guarded by this
+    private final TreeSet<PendingImport> pending = new TreeSet<>();
+    private final Map<String,Integer> running = new HashMap<>();
+    private int runningTotal = 0;
+    private long sequence = 0;
+    
+    TableImportScheduler(int maxImports, int maxImportsPerTable, Map<String,Integer> tablePriorities) {
+        this.maxImports = Math.max(1, maxImports);
+        this.maxImportsPerTable = Math.max(1, maxImportsPerTable);
+        this.tablePriorities = (tablePriorities == null ? Collections.<String,Integer> emptyMap() : tablePriorities);
+        this.workers = Executors.newFixedThreadPool(this.maxImports, new ThreadFactoryBuilder().setNameFormat("bulk-import-%d").setDaemon(true).build());
+    }
+    
+    /**
+     * Update the major compaction load per table, which is used to order the imports submitted from now on
+     *
+     * @param tableLoads
+     *            the queued and running major compactions per table name
+     */
+    void setTableLoads(Map<String,Integer> tableLoads) {
+        this.tableLoads = tableLoads;
+    }
+    
+    /**
+     * Submit an import into a table
+     *
+     * @param tableName
+     *            the destination table
+     * @param importTask
+     *            the import
+     * @return a future which completes with the time in ms the import waited to be started once it has run
+     */
+    synchronized CompletableFuture<Long> submit(String tableName, Runnable importTask) {
+        Integer load = tableLoads.get(tableName);
+        PendingImport pendingImport = new PendingImport(tableName, tablePriorities.get(tableName), (load == null ? 0 : load), sequence++, importTask);
+        pending.add(pendingImport);
+        dispatch();
+        return pendingImport.future;
+    }
+    
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+    
+    synchronized int getRunningCount() {
+        return runningTotal;
+    }
+    
+    void shutdown() {
+        workers.shutdown();
+    }
+    
+    /**
+     * Start as many of the pending imports as the limits allow, in priority order. Must be called while holding the lock on this.
+     */
+    private void dispatch() {
+        Iterator<PendingImport> it = pending.iterator();
+        while (runningTotal < maxImports && it.hasNext()) {
+            PendingImport pendingImport = it.next();
+            Integer tableRunning = running.get(pendingImport.tableName);
+            if (tableRunning != null && tableRunning >= maxImportsPerTable) {
+                continue;
+            }
+            it.remove();
+            running.put(pendingImport.tableName, (tableRunning == null ? 1 : tableRunning + 1));
+            runningTotal++;
+            try {
+                workers.execute(() -> run(pendingImport));
+            } catch (RejectedExecutionException e) {
+                log.error("Unable to start the import into " + pendingImport.tableName, e);
+                finished(pendingImport);
+                pendingImport.future.completeExceptionally(e);
+            }
+        }
+    }
+    
+    private void run(PendingImport pendingImport) {
+        long waited = System.currentTimeMillis() - pendingImport.submitted;
+        RuntimeException failure = null;
+        try {
+            pendingImport.importTask.run();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        synchronized (this) {
+            finished(pendingImport);
+            dispatch();
+        }
+        if (failure == null) {
+            pendingImport.future.complete(waited);
+        } else {
+            pendingImport.future.completeExceptionally(failure);
+        }
+    }
+    
+    private void finished(PendingImport pendingImport) {
+        int tableRunning = running.get(pendingImport.tableName) - 1;
+        if (tableRunning == 0) {
+            running.remove(pendingImport.tableName);
+        } else {
+            running.put(pendingImport.tableName, tableRunning);
+        }
+        runningTotal--;
+    }
+    
+    private static class PendingImport implements Comparable<PendingImport> {
+        private final String tableName;
+        private final Integer priority;
+        private final int load;
+        private final long sequence;
+        private final long submitted = System.currentTimeMillis();
+        private final Runnable importTask;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+        
+        private PendingImport(String tableName, Integer priority, int load, long sequence, Runnable importTask) {
+            this.tableName = tableName;
+            this.priority = priority;
+            this.load = load;
+            this.sequence = sequence;
+            this.importTask = importTask;
+        }
+        
+        @Override
+        public int compareTo(PendingImport o) {
+            // tables without a priority go last, as they do when loading a single job directory
+            if (priority == null) {
+                if (o.priority != null) {
+                    return 1;
+                }
+            } else if (o.priority == null) {
+                return -1;
+            } else if (!priority.equals(o.priority)) {
+                return priority.compareTo(o.priority);
+            }
+            if (load != o.load) {
+                return Integer.compare(load, o.load);
+            }
+            return Long.compare(sequence, o.sequence);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof PendingImport) && ((PendingImport) o).sequence == sequence;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Long.hashCode(sequence);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package datawave.ingest.mapreduce.job.writer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import datawave.ingest.data.config.ingest.AccumuloHelper;
+import datawave.ingest.mapreduce.job.BulkIngestKey;
+
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.MultiTableBatchWriter;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.log4j.Logger;
+
+import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A live context writer that writes the mutations directly to Accumulo through a MultiTableBatchWriter shared by all tables, instead of passing them to the
+ * context one key at a time. The flushed entries are grouped into one mutation per table and row across events, and once the batches reach a configured
+ * size each table's batch is handed to a background thread which adds it to the batch writer while the task moves on to the next events. The bytes handed
+ * off but not yet accepted by the batch writer are bounded; when the bound is reached the task waits for the background thread to catch up.
+ * <p>
+ * The number of mutations, batches and bytes written, the time spent adding batches to the batch writer, and the number and duration of the waits on the
+ * in-flight bound are reported as counters in the {@link #COUNTER_GROUP} group. A failure to write is rethrown by the next flush or at cleanup.
+ */
+public class BatchedLiveContextWriter extends LiveContextWriter {
+    
+    private static final Logger log = Logger.getLogger(BatchedLiveContextWriter.class);
+    
+    // The memory used by the batch writer to buffer mutations, in bytes
+    public static final String MAX_MEMORY = "ingest.live.writer.max.memory";
+    // The maximum time a mutation is buffered by the batch writer, in milliseconds
+    public static final String MAX_LATENCY = "ingest.live.writer.max.latency";
+    // The number of threads the batch writer uses to send mutations to the tablet servers
+    public static final String WRITE_THREADS = "ingest.live.writer.write.threads";
+    // The approximate bytes of keys and values grouped across events before the batches are handed to the background thread
+    public static final String BATCH_BYTES = "ingest.live.writer.batch.bytes";
+    // The maximum bytes of mutations handed to the background thread but not yet added to the batch writer
+    public static final String MAX_IN_FLIGHT_BYTES = "ingest.live.writer.max.in.flight.bytes";
+    
+    public static final long DEFAULT_MAX_MEMORY = 100000000L;
+    public static final long DEFAULT_MAX_LATENCY = 60000L;
+    public static final int DEFAULT_WRITE_THREADS = 10;
+    public static final long DEFAULT_BATCH_BYTES = 1048576L;
+    public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 50000000L;
+    
+    public static final String COUNTER_GROUP = "LiveContextWriter";
+    public static final String MUTATIONS_COUNTER = "Mutations";
+    public static final String BATCHES_COUNTER = "Batches";
+    public static final String BYTES_COUNTER = "Bytes";
+    public static final String WRITE_TIME_COUNTER = "Write Time (ms)";
+    public static final String BACKPRESSURE_WAITS_COUNTER = "Backpressure Waits";
+    public static final String BACKPRESSURE_TIME_COUNTER = "Backpressure Wait Time (ms)";
+    
+    private MultiTableBatchWriter writer = null;
+    private ExecutorService writerService = null;
+    private long batchBytes = DEFAULT_BATCH_BYTES;
+    private long maxInFlightBytes = DEFAULT_MAX_IN_FLIGHT_BYTES;
+    
+    // the mutations per table and row not yet handed to the background thread
+    private final Map<Text,Map<Text,Mutation>> pending = new LinkedHashMap<>();
+    private long pendingBytes = 0;
+    
+    // the bytes handed to the background thread and not yet added to the batch writer, guarded by itself
+    private final long[] inFlightBytes = new long[1];
+    
+    // the first failure of the background thread, rethrown on the task thread
+    private volatile Exception failure = null;
+    
+    // statistics gathered on either thread, and published as counter increments on the task thread
+    private final AtomicLong mutationCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong byteCount = new AtomicLong();
+    private final AtomicLong writeMillis = new AtomicLong();
+    private final AtomicLong backpressureWaits = new AtomicLong();
+    private final AtomicLong backpressureMillis = new AtomicLong();
+    
+    @Override
+    public void setup(Configuration conf, boolean outputTableCounters) throws IOException, InterruptedException {
+        super.setup(conf, outputTableCounters);
+        batchBytes = conf.getLong(BATCH_BYTES, DEFAULT_BATCH_BYTES);
+        maxInFlightBytes = conf.getLong(MAX_IN_FLIGHT_BYTES, DEFAULT_MAX_IN_FLIGHT_BYTES);
+        writer = createMultiTableBatchWriter(conf);
+        // a single thread keeps the batches in the order they were flushed, the batch writer's threads send them in parallel
+        writerService = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("live-context-writer-%d").setDaemon(true).build());
+    }
+    
+    /**
+     * Create the batch writer to which the mutations are written
+     *
+     * @param conf
+     *            the job configuration, including the Accumulo connection information
+     * @return the batch writer
+     * @throws IOException
+     *             if the batch writer cannot be created
+     */
+    protected MultiTableBatchWriter createMultiTableBatchWriter(Configuration conf) throws IOException {
+        BatchWriterConfig config = new BatchWriterConfig().setMaxMemory(conf.getLong(MAX_MEMORY, DEFAULT_MAX_MEMORY))
+                        .setMaxLatency(conf.getLong(MAX_LATENCY, DEFAULT_MAX_LATENCY), TimeUnit.MILLISECONDS)
+                        .setMaxWriteThreads(conf.getInt(WRITE_THREADS, DEFAULT_WRITE_THREADS));
+        try {
+            AccumuloHelper accumuloHelper = new AccumuloHelper();
+            accumuloHelper.setup(conf);
+            return accumuloHelper.getConnector().createMultiTableBatchWriter(config);
+        } catch (Exception e) {
+            throw new IOException("Unable to create a batch writer for live ingest", e);
+        }
+    }
+    
+    @Override
+    protected void flush(Multimap<BulkIngestKey,Value> entries, TaskInputOutputContext<?,?,Text,Mutation> context) throws IOException, InterruptedException {
+        checkFailure();
+        // group the keys into one mutation per table and row, across events until the batch is large enough to hand off
+        for (Map.Entry<BulkIngestKey,Value> entry : entries.entries()) {
+            Map<Text,Mutation> rowMutations = pending.get(entry.getKey().getTableName());
+            if (rowMutations == null) {
+                rowMutations = new HashMap<>();
+                pending.put(entry.getKey().getTableName(), rowMutations);
+            }
+            Key key = entry.getKey().getKey();
+            Text row = key.getRow();
+            Mutation m = rowMutations.get(row);
+            if (m == null) {
+                m = new Mutation(row);
+                rowMutations.put(row, m);
+            }
+            addToMutation(m, key, entry.getValue());
+            pendingBytes += key.getSize() + entry.getValue().getSize();
+        }
+        if (pendingBytes >= batchBytes) {
+            submitPending();
+        }
+        publishCounters(context);
+    }
+    
+    /**
+     * Hand the pending batches to the background thread, one per table
+     */
+    private void submitPending() throws InterruptedException {
+        for (Map.Entry<Text,Map<Text,Mutation>> table : pending.entrySet()) {
+            submit(table.getKey().toString(), table.getValue().values());
+        }
+        pending.clear();
+        pendingBytes = 0;
+    }
+    
+    /**
+     * Hand a table's batch to the background thread, first waiting while the in-flight bytes would exceed the maximum. A batch larger than the maximum is let
+     * through once nothing else is in flight.
+     */
+    private void submit(final String tableName, Collection<Mutation> mutations) throws InterruptedException {
+        final List<Mutation> batch = new ArrayList<>(mutations);
+        long size = 0;
+        for (Mutation m : batch) {
+            size += m.estimatedMemoryUsed();
+        }
+        final long batchBytes = size;
+        
+        synchronized (inFlightBytes) {
+            if (inFlightBytes[0] > 0 && inFlightBytes[0] + batchBytes > maxInFlightBytes) {
+                long start = System.currentTimeMillis();
+                while (inFlightBytes[0] > 0 && inFlightBytes[0] + batchBytes > maxInFlightBytes) {
+                    inFlightBytes.wait();
+                }
+                backpressureWaits.incrementAndGet();
+                backpressureMillis.addAndGet(System.currentTimeMillis() - start);
+            }
+            inFlightBytes[0] += batchBytes;
+        }
+        
+        writerService.execute(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                if (failure == null) {
+                    writer.getBatchWriter(tableName).addMutations(batch);
+                    mutationCount.addAndGet(batch.size());
+                    batchCount.incrementAndGet();
+                    byteCount.addAndGet(batchBytes);
+                }
+            } catch (Exception e) {
+                log.error("Failed to write " + batch.size() + " mutations to " + tableName, e);
+                failure = e;
+            } finally {
+                writeMillis.addAndGet(System.currentTimeMillis() - start);
+                synchronized (inFlightBytes) {
+                    inFlightBytes[0] -= batchBytes;
+                    inFlightBytes.notifyAll();
+                }
+            }
+        });
+    }
+    
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Failed to write mutations for live ingest", failure);
+        }
+    }
+    
+    /**
+     * Publish the statistics gathered since the last call as counter increments. Counters are only updated from the task thread.
+     */
+    private void publishCounters(TaskInputOutputContext<?,?,Text,Mutation> context) {
+        publish(context, MUTATIONS_COUNTER, mutationCount);
+        publish(context, BATCHES_COUNTER, batchCount);
+        publish(context, BYTES_COUNTER, byteCount);
+        publish(context, WRITE_TIME_COUNTER, writeMillis);
+        publish(context, BACKPRESSURE_WAITS_COUNTER, backpressureWaits);
+        publish(context, BACKPRESSURE_TIME_COUNTER, backpressureMillis);
+    }
+    
+    private void publish(TaskInputOutputContext<?,?,Text,Mutation> context, String counter, AtomicLong value) {
+        long increment = value.getAndSet(0);
+        if (increment != 0) {
+            getCounter(context, COUNTER_GROUP, counter).increment(increment);
+        }
+    }
+    
+    /**
+     * Flush the remaining entries, wait for the background thread to add them to the batch writer, and close the batch writer, which sends everything
+     * buffered to the tablet servers.
+     */
+    @Override
+    public void cleanup(TaskInputOutputContext<?,?,Text,Mutation> context) throws IOException, InterruptedException {
+        try {
+            commit(context);
+            submitPending();
+        } finally {
+            writerService.shutdown();
+            while (!writerService.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Waiting for live ingest mutations to be added to the batch writer");
+            }
+        }
+        try {
+            long start = System.currentTimeMillis();
+            writer.close();
+            writeMillis.addAndGet(System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        publishCounters(context);
+        checkFailure();
+        super.cleanup(context);
+    }
+}
@@ -44,12 +44,23 @@ public class LiveContextWriter extends AbstractContextWriter<Text,Mutation> {
      */
     protected Mutation getMutation(Key key, Value value) {
         Mutation m = new Mutation(key.getRow());
+        addToMutation(m, key, value);
+        return m;
+    }
+    
+    /**
+     * Add a key, value to a mutation for the key's row
+     * 
+     * @param m
+     * @param key
+     * @param value
+     */
+    protected void addToMutation(Mutation m, Key key, Value value) {
         if (key.isDeleted()) {
             m.putDelete(key.getColumnFamily(), key.getColumnQualifier(), new ColumnVisibility(key.getColumnVisibility()), key.getTimestamp());
         } else {
             m.put(key.getColumnFamily(), key.getColumnQualifier(), new ColumnVisibility(key.getColumnVisibility()), key.getTimestamp(), value);
         }
-        return m;
     }
     
 }
@@ -0,0 +1,312 @@
+package datawave.ingest.mapreduce.job.writer;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import datawave.ingest.mapreduce.job.BulkIngestKey;
+import datawave.ingest.mapreduce.job.reduce.BulkIngestKeyDedupeCombiner;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.hadoop.util.IndexedSortable;
+import org.apache.hadoop.util.QuickSort;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This is a caching context writer that buffers the entries for a table in their serialized form, bounded by bytes rather than by entry count. When the buffer
+ * for a table is full the entries are sorted, the entries with equal keys are combined using the configured table combiners (see
+ * BulkIngestKeyDedupeCombiner), and the resulting sorted run is passed on to the chained context writer. Like the TableCachingContextWriter, entries are buffered
+ * across calls to commit, which means that entries are combined across events.
+ * <p>
+ * Tables which are deduped by timestamp are not combined here as the combiner rewrites their timestamps, which must only be done once in the reducer. Their
+ * entries are still passed on sorted.
+ */
+public class SpillBufferContextWriter extends AbstractContextWriter<BulkIngestKey,Value> implements ChainedContextWriter<BulkIngestKey,Value> {
+    
+    // The property used to configure the next writer in the chain
+    public static final String CONTEXT_WRITER_CLASS = "ingest.spill.buffer.context.writer.class";
+    
+    // The property used to determine whether we are outputting mutations or keys such that a default chained context writer can be configured
+    public static final String MAPRED_OUTPUT_VALUE_CLASS = "mapreduce.job.output.value.class";
+    
+    // the tables to buffer will be configured by setting a <tablename>.table.context.writer.spill.buffer property where the value is the max size of the
+    // buffer in bytes
+    public static final String TABLES_TO_BUFFER_SUFFIX = ".table.context.writer.spill.buffer";
+    
+    // counters to keep track of how often the buffer for a table gets spilled, and how much the entries were reduced by doing so
+    public static final String SPILLED_BUFFER_COUNTER = "SPILL_BUFFER_FLUSHES";
+    public static final String SPILLED_BUFFER_INPUT = "SPILL_BUFFER_INPUT_ENTRIES";
+    public static final String SPILLED_BUFFER_OUTPUT = "SPILL_BUFFER_OUTPUT_ENTRIES";
+    
+    // This is the buffer configuration
+    private final Map<Text,Integer> tableBufferConf = new HashMap<>();
+    
+    // These are the buffers
+    private final Map<Text,SpillBuffer> buffers = new HashMap<>();
+    
+    // This is the combiner used to combine values, which writes directly to the chained context writer
+    private SpillCombiner combiner = new SpillCombiner();
+    
+    // The chained context writer
+    private ContextWriter<BulkIngestKey,Value> contextWriter;
+    
+    @Override
+    public void configureChainedContextWriter(Configuration conf, Class<? extends ContextWriter<BulkIngestKey,Value>> contextWriterClass) {
+        conf.setClass(CONTEXT_WRITER_CLASS, contextWriterClass, ContextWriter.class);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Override
+    public void setup(Configuration conf, boolean outputTableCounters) throws IOException, InterruptedException {
+        super.setup(conf, false);
+        
+        // get the tables to buffer configuration
+        for (Map.Entry<String,String> prop : conf) {
+            if (prop.getKey().endsWith(TABLES_TO_BUFFER_SUFFIX)) {
+                String tableName = prop.getKey().substring(0, prop.getKey().length() - TABLES_TO_BUFFER_SUFFIX.length());
+                int maxBufferSize = Integer.parseInt(prop.getValue());
+                tableBufferConf.put(new Text(tableName), maxBufferSize);
+            }
+        }
+        
+        // create and setup the chained context writer
+        Class<ContextWriter<BulkIngestKey,Value>> contextWriterClass = null;
+        if (Mutation.class.equals(conf.getClass(MAPRED_OUTPUT_VALUE_CLASS, null))) {
+            contextWriterClass = (Class<ContextWriter<BulkIngestKey,Value>>) conf.getClass(CONTEXT_WRITER_CLASS, LiveContextWriter.class, ContextWriter.class);
+        } else {
+            contextWriterClass = (Class<ContextWriter<BulkIngestKey,Value>>) conf.getClass(CONTEXT_WRITER_CLASS, BulkContextWriter.class, ContextWriter.class);
+        }
+        try {
+            contextWriter = contextWriterClass.newInstance();
+            contextWriter.setup(conf, outputTableCounters);
+        } catch (Exception e) {
+            throw new IOException("Failed to initialized " + contextWriterClass + " from property " + CONTEXT_WRITER_CLASS, e);
+        }
+        
+        // Configure the combiner
+        combiner.setup(conf);
+    }
+    
+    @Override
+    public void commit(TaskInputOutputContext<?,?,BulkIngestKey,Value> context) throws IOException, InterruptedException {
+        super.commit(context);
+        contextWriter.commit(context);
+    }
+    
+    @Override
+    protected void flush(Multimap<BulkIngestKey,Value> entries, TaskInputOutputContext<?,?,BulkIngestKey,Value> context) throws IOException,
+                    InterruptedException {
+        Multimap<BulkIngestKey,Value> residual = HashMultimap.create();
+        for (Map.Entry<BulkIngestKey,Value> entry : entries.entries()) {
+            Text tableName = entry.getKey().getTableName();
+            Integer maxBufferSize = tableBufferConf.get(tableName);
+            if (maxBufferSize != null) {
+                SpillBuffer buffer = buffers.get(tableName);
+                if (buffer == null) {
+                    buffer = new SpillBuffer();
+                    buffers.put(tableName, buffer);
+                }
+                buffer.add(entry.getKey(), entry.getValue());
+                if (buffer.size() >= maxBufferSize) {
+                    spill(tableName, buffer, context);
+                }
+            } else {
+                residual.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (!residual.isEmpty()) {
+            contextWriter.write(residual, context);
+        }
+    }
+    
+    @Override
+    public void rollback() throws IOException, InterruptedException {
+        super.rollback();
+        contextWriter.rollback();
+    }
+    
+    @Override
+    public void cleanup(TaskInputOutputContext<?,?,BulkIngestKey,Value> context) throws IOException, InterruptedException {
+        super.cleanup(context);
+        for (Map.Entry<Text,SpillBuffer> buffer : buffers.entrySet()) {
+            if (buffer.getValue().count() > 0) {
+                spill(buffer.getKey(), buffer.getValue(), context);
+            }
+        }
+        buffers.clear();
+        contextWriter.cleanup(context);
+    }
+    
+    /**
+     * Sort the buffer for a table, combine the entries with equal keys, and pass the resulting run on to the chained context writer
+     *
+     * @param tableName
+     * @param buffer
+     * @param context
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void spill(Text tableName, SpillBuffer buffer, TaskInputOutputContext<?,?,BulkIngestKey,Value> context) throws IOException,
+                    InterruptedException {
+        long input = buffer.count();
+        long output = 0;
+        boolean combine = !combiner.dedupesByTimestamp(tableName);
+        
+        buffer.sort();
+        List<Value> values = new ArrayList<>();
+        int i = 0;
+        while (i < buffer.count()) {
+            BulkIngestKey key = buffer.getKey(i);
+            values.add(buffer.getValue(i));
+            int j = i + 1;
+            for (; j < buffer.count() && buffer.compare(i, j) == 0; j++) {
+                values.add(buffer.getValue(j));
+            }
+            
+            if (combine && values.size() > 1) {
+                output += combiner.combine(key, values, context, contextWriter);
+            } else {
+                for (Value value : values) {
+                    contextWriter.write(key, value, context);
+                }
+                output += values.size();
+            }
+            values.clear();
+            i = j;
+        }
+        contextWriter.commit(context);
+        buffer.clear();
+        
+        getCounter(context, SPILLED_BUFFER_COUNTER, tableName.toString()).increment(1);
+        getCounter(context, SPILLED_BUFFER_INPUT, tableName.toString()).increment(input);
+        getCounter(context, SPILLED_BUFFER_OUTPUT, tableName.toString()).increment(output);
+    }
+    
+    /**
+     * The serialized entries for one table. Each entry is the serialized BulkIngestKey followed by the value length and bytes, such that the keys can be sorted
+     * in place using the raw comparator of the BulkIngestKey.
+     */
+    static class SpillBuffer implements IndexedSortable {
+        
+        private static final BulkIngestKey.Comparator comparator = new BulkIngestKey.Comparator();
+        
+        private final DataOutputBuffer data = new DataOutputBuffer();
+        private final DataInputBuffer in = new DataInputBuffer();
+        
+        // the offset and key length of each entry, in sorted order once sorted
+        private int[] offsets = new int[1024];
+        private int[] keyLengths = new int[1024];
+        private int count = 0;
+        
+        void add(BulkIngestKey key, Value value) throws IOException {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                keyLengths = Arrays.copyOf(keyLengths, count * 2);
+            }
+            int offset = data.getLength();
+            key.write(data);
+            offsets[count] = offset;
+            keyLengths[count] = data.getLength() - offset;
+            WritableUtils.writeVInt(data, value.getSize());
+            data.write(value.get(), 0, value.getSize());
+            count++;
+        }
+        
+        /**
+         * @return the number of bytes buffered
+         */
+        int size() {
+            return data.getLength();
+        }
+        
+        /**
+         * @return the number of entries buffered
+         */
+        int count() {
+            return count;
+        }
+        
+        void sort() {
+            new QuickSort().sort(this, 0, count);
+        }
+        
+        BulkIngestKey getKey(int i) throws IOException {
+            in.reset(data.getData(), offsets[i], keyLengths[i]);
+            BulkIngestKey key = new BulkIngestKey();
+            key.readFields(in);
+            return key;
+        }
+        
+        Value getValue(int i) throws IOException {
+            int start = offsets[i] + keyLengths[i];
+            in.reset(data.getData(), start, data.getLength() - start);
+            byte[] value = new byte[WritableUtils.readVInt(in)];
+            in.readFully(value);
+            return new Value(value, false);
+        }
+        
+        void clear() {
+            data.reset();
+            count = 0;
+        }
+        
+        @Override
+        public int compare(int i, int j) {
+            return comparator.compare(data.getData(), offsets[i], keyLengths[i], data.getData(), offsets[j], keyLengths[j]);
+        }
+        
+        @Override
+        public void swap(int i, int j) {
+            int offset = offsets[i];
+            int keyLength = keyLengths[i];
+            offsets[i] = offsets[j];
+            keyLengths[i] = keyLengths[j];
+            offsets[j] = offset;
+            keyLengths[j] = keyLength;
+        }
+    }
+    
+    /**
+     * The combiner, writing to the chained context writer. Writes are not committed per key as each spilled run is committed as a whole.
+     */
+    private static class SpillCombiner extends BulkIngestKeyDedupeCombiner<BulkIngestKey,Value> {
+        
+        private ContextWriter<BulkIngestKey,Value> writer;
+        private long written;
+        
+        @Override
+        protected void setupContextWriter(Configuration conf) throws IOException {
+            // the chained context writer is passed in with each combine
+        }
+        
+        boolean dedupesByTimestamp(Text table) {
+            return useAggregators(table) && TSDedupTables.contains(table) && !noTSDedupTables.contains(table);
+        }
+        
+        long combine(BulkIngestKey key, Collection<Value> values, TaskInputOutputContext<?,?,BulkIngestKey,Value> context,
+                        ContextWriter<BulkIngestKey,Value> writer) throws IOException, InterruptedException {
+            this.writer = writer;
+            this.written = 0;
+            doReduce(key, values, context);
+            return written;
+        }
+        
+        @Override
+        protected void writeBulkIngestKey(BulkIngestKey key, Value value, TaskInputOutputContext<?,?,BulkIngestKey,Value> ctx) throws IOException,
+                        InterruptedException {
+            writer.write(key, value, ctx);
+            written++;
+        }
+    }
+}
@@ -0,0 +1,569 @@
+package datawave.ingest.table.aggregator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.log4j.Logger;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Implementation of an Aggregator that aggregates objects of the type Uid.List, with the same semantics as the {@link GlobalIndexUidAggregator}. Instead of
+ * parsing each value into a Uid.List and collecting the UIDs into sets of strings, the UIDs are read directly from the serialized values into sorted sets of
+ * bytes which are reused across keys. The aggregate is written with a single pass over those sets, so the only allocation per key is the resulting value.
+ * <p>
+ * The resulting UID lists are written in sorted order rather than in hash order.
+ */
+public class SortedGlobalIndexUidAggregator extends PropogatingCombiner {
+    private static final Logger log = Logger.getLogger(SortedGlobalIndexUidAggregator.class);
+    
+    // the field numbers of the Uid.List message
+    private static final int IGNORE_FIELD = 1;
+    private static final int COUNT_FIELD = 2;
+    private static final int UID_FIELD = 3;
+    private static final int REMOVEDUID_FIELD = 4;
+    private static final int QUARANTINEUID_FIELD = 5;
+    
+    /**
+     * Maximum number of UIDs.
+     */
+    public static final int MAX = GlobalIndexUidAggregator.MAX;
+    
+    /**
+     * Maximum number of UIDs.
+     */
+    public int maxUids = MAX;
+    
+    /**
+     * Using a set so that duplicate UIDs are filtered out of the list. This might happen in the case of rows with masked fields that share a UID.
+     */
+    private final UidSet uids = new UidSet();
+    
+    /**
+     * List of UIDs to remove.
+     */
+    private final UidSet uidsToRemove = new UidSet();
+    
+    /**
+     * List of UIDs quarantined.
+     */
+    private final UidSet quarantinedIds = new UidSet();
+    
+    /**
+     * List of UIDs released from quarantine.
+     */
+    private final UidSet releasedUids = new UidSet();
+    
+    /**
+     * The reader over the serialized value currently being reduced.
+     */
+    private final UidListReader reader = new UidListReader();
+    
+    /**
+     * flag for whether or not we have seen ignore
+     */
+    private boolean seenIgnore = false;
+    
+    /**
+     * representative count.
+     */
+    private long count = 0;
+    
+    public SortedGlobalIndexUidAggregator(int max) {
+        this.maxUids = max;
+    }
+    
+    public SortedGlobalIndexUidAggregator() {
+        this.maxUids = MAX;
+    }
+    
+    @Override
+    public Value aggregate() {
+        boolean ignore = seenIgnore || count > maxUids;
+        if (ignore) {
+            // if we catch seenIgnore, then there is no need to propogate removals.
+            propogate = false;
+        } else {
+            // as a backup, we remove the intersection of the UID sets
+            uidsToRemove.removeAll(quarantinedIds);
+            uidsToRemove.removeAll(releasedUids);
+            quarantinedIds.removeAll(releasedUids);
+            
+            uids.removeAll(uidsToRemove);
+            uids.removeAll(quarantinedIds);
+            
+            if (!releasedUids.isEmpty()) {
+                if (log.isDebugEnabled())
+                    log.debug("Adding released UIDS");
+                uids.addAll(releasedUids);
+            }
+        }
+        
+        if (log.isDebugEnabled())
+            log.debug("Propogating: " + propogate);
+        
+        int size = CodedOutputStream.computeBoolSize(IGNORE_FIELD, ignore) + CodedOutputStream.computeUInt64Size(COUNT_FIELD, count);
+        if (!ignore) {
+            size += uids.serializedSize(UID_FIELD);
+        }
+        if (propogate) {
+            size += uidsToRemove.serializedSize(REMOVEDUID_FIELD) + quarantinedIds.serializedSize(QUARANTINEUID_FIELD);
+        }
+        
+        byte[] bytes = new byte[size];
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        try {
+            out.writeBool(IGNORE_FIELD, ignore);
+            out.writeUInt64(COUNT_FIELD, count);
+            if (!ignore) {
+                uids.writeTo(UID_FIELD, out);
+            }
+            if (propogate) {
+                uidsToRemove.writeTo(REMOVEDUID_FIELD, out);
+                quarantinedIds.writeTo(QUARANTINEUID_FIELD, out);
+            }
+            out.checkNoSpaceLeft();
+        } catch (IOException e) {
+            // cannot happen as the output array was sized exactly
+            throw new IllegalStateException("Failed to write Uid.List", e);
+        }
+        
+        if (log.isDebugEnabled())
+            log.debug("Building aggregate. Count is " + count + ", uids.size() is " + uids.size());
+        return new Value(bytes, false);
+    }
+    
+    /**
+     * Merges the values exactly as the {@link GlobalIndexUidAggregator#reduce(Key, Iterator)} does, processing the repeated fields of each value in the same
+     * order.
+     */
+    @Override
+    public Value reduce(Key key, Iterator<Value> iter) {
+        if (log.isTraceEnabled())
+            log.trace("has next ? " + iter.hasNext());
+        while (iter.hasNext()) {
+            
+            Value value = iter.next();
+            
+            try {
+                // the whole value is validated before collecting anything from it, as a value which fails to parse is skipped entirely
+                reader.reset(value.get(), 0, value.getSize());
+                mergeValue();
+            } catch (InvalidProtocolBufferException e) {
+                if (key.isDeleted()) {
+                    log.warn("Value passed to aggregator for a delete key was not of type Uid.List");
+                } else {
+                    log.error("Value passed to aggregator was not of type Uid.List", e);
+                }
+            }
+        }
+        return aggregate();
+    }
+    
+    /**
+     * Merge the value the reader was reset to into the current state
+     *
+     * @throws InvalidProtocolBufferException
+     */
+    private void mergeValue() throws InvalidProtocolBufferException {
+        long delta = reader.count;
+        
+        count += delta;
+        
+        if (reader.ignore) {
+            seenIgnore = true;
+            if (log.isDebugEnabled())
+                log.debug("SeenIgnore is true. Skipping collections");
+        }
+        
+        // if delta > 0, we are collecting the uid list in the protobuf into our object's uid list.
+        if (delta > 0) {
+            
+            reader.rewind();
+            while (reader.next(QUARANTINEUID_FIELD)) {
+                quarantinedIds.remove(reader.buffer, reader.offset, reader.length);
+                releasedUids.add(reader.buffer, reader.offset, reader.length);
+            }
+            
+            reader.rewind();
+            while (reader.next(UID_FIELD)) {
+                // check that a removal has not occurred, and add the UID iff we are under our MAX
+                if (!uidsToRemove.contains(reader.buffer, reader.offset, reader.length)
+                                && !quarantinedIds.contains(reader.buffer, reader.offset, reader.length) && uids.size() < maxUids) {
+                    uids.add(reader.buffer, reader.offset, reader.length);
+                }
+            }
+            
+            if (log.isDebugEnabled())
+                log.debug("Adding uids " + delta + " " + count);
+            
+            // if our delta is < 0, then we can remove, iff seenIgnore is false. If it is true, there is no need to proceed with removals
+        } else if (delta < 0 && !seenIgnore) {
+            
+            reader.rewind();
+            while (reader.next(REMOVEDUID_FIELD)) {
+                uidsToRemove.add(reader.buffer, reader.offset, reader.length);
+                uids.remove(reader.buffer, reader.offset, reader.length);
+            }
+            
+            reader.rewind();
+            while (reader.next(QUARANTINEUID_FIELD)) {
+                quarantinedIds.add(reader.buffer, reader.offset, reader.length);
+            }
+            
+            // for backwards compatability, the UID list of a value with a negative count is treated as removals
+            reader.rewind();
+            while (reader.next(UID_FIELD)) {
+                uidsToRemove.add(reader.buffer, reader.offset, reader.length);
+                uids.remove(reader.buffer, reader.offset, reader.length);
+            }
+        }
+    }
+    
+    @Override
+    public void reset() {
+        if (log.isDebugEnabled())
+            log.debug("Resetting SortedGlobalIndexUidAggregator");
+        count = 0;
+        seenIgnore = false;
+        uids.clear();
+        uidsToRemove.clear();
+        releasedUids.clear();
+        quarantinedIds.clear();
+    }
+    
+    /*
+     * (non-Javadoc)
+     *
+     * @see datawave.ingest.table.aggregator.PropogatingAggregator#propogateKey()
+     */
+    @Override
+    public boolean propogateKey() {
+        
+        // if seenIgnore is true and count > MAX, we keep propogate the key
+        if ((seenIgnore && count > maxUids) || !quarantinedIds.isEmpty())
+            return true;
+        
+        int remaining = uids.countNotIn(uidsToRemove);
+        
+        if (log.isDebugEnabled()) {
+            log.debug(count + " " + uids.size() + " " + uidsToRemove.size() + " " + remaining + " removing " + (count == 0 && remaining == 0));
+        }
+        
+        // if <= 0 and uids is empty, we can safely remove
+        return !(count <= 0 && remaining == 0);
+    }
+    
+    /**
+     * A sorted set of UIDs, held as the raw UTF-8 bytes appended to a single arena. The entries are kept sorted by their offsets and lengths into the arena;
+     * removed entries leave their bytes in the arena until the set is cleared.
+     */
+    static class UidSet {
+        
+        private byte[] data = new byte[1024];
+        private int used = 0;
+        
+        private int[] offsets = new int[64];
+        private int[] lengths = new int[64];
+        private int size = 0;
+        
+        int size() {
+            return size;
+        }
+        
+        boolean isEmpty() {
+            return size == 0;
+        }
+        
+        void clear() {
+            used = 0;
+            size = 0;
+        }
+        
+        boolean contains(byte[] b, int off, int len) {
+            return search(b, off, len) >= 0;
+        }
+        
+        /**
+         * @return true if the UID was not already in the set
+         */
+        boolean add(byte[] b, int off, int len) {
+            int index = search(b, off, len);
+            if (index >= 0) {
+                return false;
+            }
+            index = -(index + 1);
+            
+            if (used + len > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, used + len));
+            }
+            System.arraycopy(b, off, data, used, len);
+            
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            System.arraycopy(offsets, index, offsets, index + 1, size - index);
+            System.arraycopy(lengths, index, lengths, index + 1, size - index);
+            offsets[index] = used;
+            lengths[index] = len;
+            used += len;
+            size++;
+            return true;
+        }
+        
+        /**
+         * @return true if the UID was in the set
+         */
+        boolean remove(byte[] b, int off, int len) {
+            int index = search(b, off, len);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(offsets, index + 1, offsets, index, size - index - 1);
+            System.arraycopy(lengths, index + 1, lengths, index, size - index - 1);
+            size--;
+            return true;
+        }
+        
+        void addAll(UidSet other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.data, other.offsets[i], other.lengths[i]);
+            }
+        }
+        
+        /**
+         * Remove all of the UIDs in another set, walking both sorted sets once
+         */
+        void removeAll(UidSet other) {
+            if (size == 0 || other.size == 0) {
+                return;
+            }
+            int kept = 0;
+            int j = 0;
+            for (int i = 0; i < size; i++) {
+                int cmp = 1;
+                while (j < other.size && (cmp = compare(i, other, j)) > 0) {
+                    j++;
+                }
+                if (j == other.size || cmp != 0) {
+                    offsets[kept] = offsets[i];
+                    lengths[kept] = lengths[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+        
+        /**
+         * @return the number of UIDs in this set which are not in the other set
+         */
+        int countNotIn(UidSet other) {
+            int remaining = 0;
+            int j = 0;
+            for (int i = 0; i < size; i++) {
+                int cmp = 1;
+                while (j < other.size && (cmp = compare(i, other, j)) > 0) {
+                    j++;
+                }
+                if (j == other.size || cmp != 0) {
+                    remaining++;
+                }
+            }
+            return remaining;
+        }
+        
+        /**
+         * @return the number of bytes required to write this set as a repeated string field
+         */
+        int serializedSize(int field) {
+            int serialized = size * CodedOutputStream.computeTagSize(field);
+            for (int i = 0; i < size; i++) {
+                serialized += CodedOutputStream.computeRawVarint32Size(lengths[i]) + lengths[i];
+            }
+            return serialized;
+        }
+        
+        void writeTo(int field, CodedOutputStream out) throws IOException {
+            for (int i = 0; i < size; i++) {
+                out.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                out.writeRawVarint32(lengths[i]);
+                out.writeRawBytes(data, offsets[i], lengths[i]);
+            }
+        }
+        
+        private int compare(int i, UidSet other, int j) {
+            return WritableComparator.compareBytes(data, offsets[i], lengths[i], other.data, other.offsets[j], other.lengths[j]);
+        }
+        
+        /**
+         * @return the index of the UID, or (-(insertion point) - 1) if it is not in the set
+         */
+        private int search(byte[] b, int off, int len) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = WritableComparator.compareBytes(data, offsets[mid], lengths[mid], b, off, len);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+    
+    /**
+     * Reads a serialized Uid.List in place. The value is validated as a whole when reset, after which the entries of one repeated field at a time can be
+     * iterated over without copying them out of the value.
+     */
+    static class UidListReader {
+        
+        private static final int TAG_TYPE_BITS = 3;
+        private static final int TAG_TYPE_MASK = (1 << TAG_TYPE_BITS) - 1;
+        
+        private byte[] buffer;
+        private int start;
+        private int end;
+        private int pos;
+        
+        // the required fields of the value
+        private boolean ignore;
+        private long count;
+        
+        // the current entry of the repeated field being iterated over
+        private int offset;
+        private int length;
+        
+        /**
+         * Reset this reader to a new value, validating it and reading the required fields
+         *
+         * @param buffer
+         * @param offset
+         * @param length
+         * @throws InvalidProtocolBufferException
+         *             if the value is not a valid Uid.List
+         */
+        void reset(byte[] buffer, int offset, int length) throws InvalidProtocolBufferException {
+            this.buffer = buffer;
+            this.start = offset;
+            this.end = offset + length;
+            this.pos = offset;
+            
+            boolean hasIgnore = false;
+            boolean hasCount = false;
+            while (pos < end) {
+                int tag = readTag();
+                int field = tag >>> TAG_TYPE_BITS;
+                int wireType = tag & TAG_TYPE_MASK;
+                if (field == IGNORE_FIELD && wireType == WireFormat.WIRETYPE_VARINT) {
+                    ignore = readVarint32() != 0;
+                    hasIgnore = true;
+                } else if (field == COUNT_FIELD && wireType == WireFormat.WIRETYPE_VARINT) {
+                    count = readVarint64();
+                    hasCount = true;
+                } else {
+                    skipField(tag);
+                }
+            }
+            if (!hasIgnore || !hasCount) {
+                throw new InvalidProtocolBufferException("Message missing required fields: " + (hasIgnore ? "" : "IGNORE ") + (hasCount ? "" : "COUNT"));
+            }
+        }
+        
+        void rewind() {
+            pos = start;
+        }
+        
+        /**
+         * Advance to the next entry of a repeated string field
+         *
+         * @param field
+         * @return true if an entry was found, in which case its bytes are at offset and length within the buffer
+         * @throws InvalidProtocolBufferException
+         */
+        boolean next(int field) throws InvalidProtocolBufferException {
+            while (pos < end) {
+                int tag = readTag();
+                if ((tag >>> TAG_TYPE_BITS) == field && (tag & TAG_TYPE_MASK) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                    length = readVarint32();
+                    offset = pos;
+                    skip(length);
+                    return true;
+                }
+                skipField(tag);
+            }
+            return false;
+        }
+        
+        private int readTag() throws InvalidProtocolBufferException {
+            int tag = readVarint32();
+            if ((tag >>> TAG_TYPE_BITS) == 0) {
+                throw new InvalidProtocolBufferException("Protocol message contained an invalid tag (zero).");
+            }
+            return tag;
+        }
+        
+        private void skipField(int tag) throws InvalidProtocolBufferException {
+            switch (tag & TAG_TYPE_MASK) {
+                case WireFormat.WIRETYPE_VARINT:
+                    readVarint64();
+                    break;
+                case WireFormat.WIRETYPE_FIXED64:
+                    skip(8);
+                    break;
+                case WireFormat.WIRETYPE_LENGTH_DELIMITED:
+                    skip(readVarint32());
+                    break;
+                case WireFormat.WIRETYPE_START_GROUP:
+                    int endTag = (tag & ~TAG_TYPE_MASK) | WireFormat.WIRETYPE_END_GROUP;
+                    int groupTag;
+                    while ((groupTag = readTag()) != endTag) {
+                        skipField(groupTag);
+                    }
+                    break;
+                case WireFormat.WIRETYPE_FIXED32:
+                    skip(4);
+                    break;
+                default:
+                    throw new InvalidProtocolBufferException("Protocol message tag had invalid wire type.");
+            }
+        }
+        
+        private void skip(int bytes) throws InvalidProtocolBufferException {
+            if (bytes < 0 || bytes > end - pos) {
+                throw new InvalidProtocolBufferException("While parsing a protocol message, the input ended unexpectedly in the middle of a field.");
+            }
+            pos += bytes;
+        }
+        
+        private int readVarint32() throws InvalidProtocolBufferException {
+            return (int) readVarint64();
+        }
+        
+        private long readVarint64() throws InvalidProtocolBufferException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= end) {
+                    throw new InvalidProtocolBufferException("While parsing a protocol message, the input ended unexpectedly in the middle of a field.");
+                }
+                byte b = buffer[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new InvalidProtocolBufferException("CodedInputStream encountered a malformed varint.");
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Set;
 import datawave.ingest.mapreduce.handler.ExtendedDataTypeHandler;
 import datawave.ingest.mapreduce.handler.shard.ShardedDataTypeHandler;
 import datawave.ingest.table.aggregator.CombinerConfiguration;
+import datawave.ingest.table.aggregator.GlobalIndexUidAggregator;
 import datawave.ingest.table.balancer.ShardedTableTabletBalancer;
 import datawave.ingest.table.bloomfilter.ShardKeyFunctor;
 import datawave.ingest.table.bloomfilter.ShardIndexKeyFunctor;
@@ -32,6 +33,11 @@ public class ShardTableConfigHelper extends AbstractTableConfigHelper {
     public static final String SHARD_TABLE_BALANCER_CONFIG = "shard.table.balancer.class";
     protected String shardTableBalancerClass = SHARDED_TABLET_BALANCER_CLASS;
     
+    protected static final String GLOBAL_INDEX_UID_AGGREGATOR_CLASS = GlobalIndexUidAggregator.class.getName();
+    
+    public static final String GLOBAL_INDEX_UID_AGGREGATOR_CONFIG = "shard.global.index.uid.aggregator.class";
+    protected String globalIndexUidAggregatorClass = GLOBAL_INDEX_UID_AGGREGATOR_CLASS;
+    
     public static final String ENABLE_BLOOM_FILTERS = "shard.enable.bloom.filters";
     protected boolean enableBloomFilters = false;
     
@@ -79,6 +85,8 @@ public class ShardTableConfigHelper extends AbstractTableConfigHelper {
         
         shardTableBalancerClass = conf.get(SHARD_TABLE_BALANCER_CONFIG, SHARDED_TABLET_BALANCER_CLASS);
         
+        globalIndexUidAggregatorClass = conf.get(GLOBAL_INDEX_UID_AGGREGATOR_CONFIG, GLOBAL_INDEX_UID_AGGREGATOR_CLASS);
+        
         if (markingsSetupIteratorEnabled) {
             if (null == markingsSetupIteratorConfig || markingsSetupIteratorConfig.equals("")) {
                 throw new IllegalArgumentException("No '" + MARKINGS_SETUP_ITERATOR_CONFIG + "' Option Defined");
@@ -193,7 +201,7 @@ public class ShardTableConfigHelper extends AbstractTableConfigHelper {
             String stem = String.format("%s%s.%s", Property.TABLE_ITERATOR_PREFIX, scope.name(), "UIDAggregator");
             setPropertyIfNecessary(tableName, stem, "19,datawave.iterators.TotalAggregatingIterator", tops, log);
             stem += ".opt.";
-            setPropertyIfNecessary(tableName, stem + "*", "datawave.ingest.table.aggregator.GlobalIndexUidAggregator", tops, log);
+            setPropertyIfNecessary(tableName, stem + "*", globalIndexUidAggregatorClass, tops, log);
             
             if (markingsSetupIteratorEnabled) {
                 // we want the markings setup iterator init method to be called up front
@@ -216,7 +224,7 @@ public class ShardTableConfigHelper extends AbstractTableConfigHelper {
             String stem = String.format("%s%s.%s", Property.TABLE_ITERATOR_PREFIX, scope.name(), "UIDAggregator");
             setPropertyIfNecessary(tableName, stem, "19,datawave.iterators.TotalAggregatingIterator", tops, log);
             stem += ".opt.";
-            setPropertyIfNecessary(tableName, stem + "*", "datawave.ingest.table.aggregator.GlobalIndexUidAggregator", tops, log);
+            setPropertyIfNecessary(tableName, stem + "*", globalIndexUidAggregatorClass, tops, log);
             
             if (markingsSetupIteratorEnabled) {
                 // we want the markings setup iterator init method to be called up front
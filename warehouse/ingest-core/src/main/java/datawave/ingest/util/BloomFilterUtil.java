@@ -37,6 +37,7 @@ public class BloomFilterUtil {
     private final float minMemoryThreshold;
     private boolean missingHelperLogged;
     private int optimumFilterSize;
+    private StreamingNGramFilterBuilder streamingBuilder;
     
     /**
      * Protected constructor to discourage instantiation outside of package
@@ -322,6 +323,8 @@ public class BloomFilterUtil {
             result.setFieldValuesAppliedToFilter(totalAppliedValues - totalAppliedNGrams);
             result.setNGramsAppliedToFilter(totalAppliedNGrams);
             result.setNGramsPrunedFromFilter(totalPredictedNgrams - totalAppliedNGrams);
+            result.setExpectedInsertions(totalExpectedFilterAdditions);
+            result.setTimedOut(null != timeout);
         } else {
             result = this.newMultimapBasedFilter(fields);
         }
@@ -329,6 +332,33 @@ public class BloomFilterUtil {
         return result;
     }
     
+    /**
+     * Create a BloomFilter based on tokenized n-grams in bounded memory, sizing the filter from the estimated number of distinct n-grams rather than the
+     * predicted number of n-grams. The filter is limited by the optimum filter size, if set, and by the same resource thresholds and timeout as
+     * {@link #newNGramBasedFilter(Multimap)}, which prune the remaining n-grams rather than the whole filter.
+     * 
+     * @param fields
+     *            The original fields with which to generate n-grams (a.k.a. shingles)
+     * @return a wrapped BloomFilter based on tokenized n-grams
+     * 
+     * @see StreamingNGramFilterBuilder
+     */
+    public BloomFilterWrapper newStreamingNGramBasedFilter(final Multimap<String,NormalizedContentInterface> fields) {
+        if ((null == fields) || (null == this.helper)) {
+            return this.newNGramBasedFilter(fields);
+        }
+        
+        int maxAllowedInsertions = -1;
+        if (this.optimumFilterSize > EMPTY_FILTER_SIZE) {
+            maxAllowedInsertions = predictMaxFilterAdditions(this.optimumFilterSize);
+        }
+        if (null == this.streamingBuilder) {
+            this.streamingBuilder = new StreamingNGramFilterBuilder(this.helper, this.maxNGramLength, maxAllowedInsertions, this.maxAllowedExecutionTime,
+                            this.minMemoryThreshold, this.minDiskSpaceThreshold, this.minDiskSpacePath);
+        }
+        return this.streamingBuilder.build(fields);
+    }
+    
     /**
      * Approximates the maximum number of tokens that can be applied to a bloom filter based on a maximum optimum filter size. This value is assumed to include
      * n-grams and original field values.
@@ -448,6 +478,7 @@ public class BloomFilterUtil {
      */
     public void setMaxNGramLength(int maxNGramLength) {
         this.maxNGramLength = maxNGramLength;
+        this.streamingBuilder = null;
     }
     
     /**
@@ -460,5 +491,6 @@ public class BloomFilterUtil {
      */
     public void setOptimumFilterSize(int sizeInBytes) {
         this.optimumFilterSize = sizeInBytes;
+        this.streamingBuilder = null;
     }
 }
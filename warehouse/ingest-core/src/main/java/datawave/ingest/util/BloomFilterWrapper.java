@@ -7,10 +7,12 @@ import com.google.common.hash.BloomFilter;
  * field values.
  */
 public class BloomFilterWrapper {
+    private int expectedInsertions;
     private int fieldValuesApplied;
     private final BloomFilter<String> filter;
     private int ngramsApplied;
     private int ngramsPruned;
+    private boolean timedOut;
     
     /**
      * Constructor
@@ -37,6 +39,15 @@ public class BloomFilterWrapper {
         this.filter = filter;
     }
     
+    /**
+     * Returns the number of insertions the filter was sized for, if known
+     * 
+     * @return the number of insertions the filter was sized for, or 0 if unknown
+     */
+    public int getExpectedInsertions() {
+        return this.expectedInsertions;
+    }
+    
     /**
      * Returns the number of field values, if any, applied to the filter
      * 
@@ -81,6 +92,25 @@ public class BloomFilterWrapper {
         return this.ngramsPruned;
     }
     
+    /**
+     * Returns true if n-grams were excluded from the filter because creating it took too long
+     * 
+     * @return true if the filter creation timed out
+     */
+    public boolean isTimedOut() {
+        return this.timedOut;
+    }
+    
+    /**
+     * Sets the number of insertions the filter was sized for
+     * 
+     * @param expectedInsertions
+     *            the number of insertions the filter was sized for
+     */
+    public void setExpectedInsertions(int expectedInsertions) {
+        this.expectedInsertions = expectedInsertions;
+    }
+    
     /**
      * Sets the number of field values, if any, applied to the filter referenced by this instance
      * 
@@ -112,4 +142,14 @@ public class BloomFilterWrapper {
     public void setNGramsPrunedFromFilter(int numberOfExcludedNGrams) {
         this.ngramsPruned = numberOfExcludedNGrams;
     }
+    
+    /**
+     * Sets whether n-grams were excluded from the filter because creating it took too long
+     * 
+     * @param timedOut
+     *            true if the filter creation timed out
+     */
+    public void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
 }
@@ -0,0 +1,100 @@
+package datawave.ingest.util;
+
+import java.util.Arrays;
+
+/**
+ * A HyperLogLog sketch estimating the number of distinct 64-bit hashes offered to it within a few percent, using one byte per register. The hashes are
+ * expected to be well mixed, see {@link #mix(long)}.
+ */
+public class CardinalitySketch {
+    
+    public static final int DEFAULT_PRECISION = 12;
+    
+    private final int precision;
+    private final byte[] registers;
+    
+    /**
+     * Constructor
+     */
+    public CardinalitySketch() {
+        this(DEFAULT_PRECISION);
+    }
+    
+    /**
+     * Constructor
+     *
+     * @param precision
+     *            the number of hash bits used to select a register, between 4 and 16. The sketch uses 2^precision bytes, and its relative error is about 1.04 /
+     *            sqrt(2^precision).
+     */
+    public CardinalitySketch(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+    
+    /**
+     * Applies a hash to the sketch
+     *
+     * @param hash
+     *            a well mixed 64-bit hash
+     */
+    public void offer(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // the position of the first set bit after the index bits, with a sentinel bit bounding it
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+    
+    /**
+     * Returns the estimated number of distinct hashes offered to the sketch
+     *
+     * @return the estimated number of distinct hashes
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = (m == 16 ? 0.673 : (m == 32 ? 0.697 : (m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m))));
+        double estimate = alpha * m * m / sum;
+        
+        // linear counting is more accurate while many registers are still empty
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+    
+    /**
+     * Clears the sketch
+     */
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+    
+    /**
+     * Finalizes a hash such that every input bit affects every output bit (the MurmurHash3 64-bit finalizer)
+     *
+     * @param hash
+     *            a hash
+     * @return the mixed hash
+     */
+    public static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
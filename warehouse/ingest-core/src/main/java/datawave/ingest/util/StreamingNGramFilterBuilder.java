@@ -0,0 +1,284 @@
+package datawave.ingest.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import datawave.ingest.data.config.NormalizedContentInterface;
+import datawave.ingest.data.config.ingest.AbstractContentIngestHelper;
+import datawave.ingest.mapreduce.MemberShipTest;
+import datawave.ingest.mapreduce.TermFilter;
+
+import org.apache.log4j.Logger;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+
+import com.google.common.collect.Multimap;
+import com.google.common.hash.BloomFilter;
+
+/**
+ * Builds a bloom filter from field values and the n-grams of their tokenized content in bounded memory. Unlike {@link BloomFilterUtil#newNGramBasedFilter},
+ * which sizes the filter from the predicted number of n-grams and runs every n-gram through a stack of tokenization strategies, this builder makes two passes
+ * over the content:
+ * <ol>
+ * <li>The distinct field values and n-grams are counted with a {@link CardinalitySketch}, hashing each n-gram in place without creating it.</li>
+ * <li>A filter sized from that count, limited by the maximum allowed insertions, is filled with the field values and then with the n-grams, shortest first,
+ * each n-gram being read in place from its field value.</li>
+ * </ol>
+ * The n-grams are those the {@link NGramTokenizer} used by the {@link NGramTokenizationStrategy} creates, i.e. every run of 2 up to the maximum n-gram length
+ * characters. If the allowed insertions, the allowed time or the available memory or disk space run out, the remaining n-grams are pruned and the filter built
+ * so far is returned, so a large record still gets a filter covering its field values and its shorter n-grams.
+ */
+public class StreamingNGramFilterBuilder {
+    
+    // number of n-grams between checks of the time limit
+    private static final int DEADLINE_CHECK_INTERVAL = 4096;
+    
+    private static final long HASH_MULTIPLIER = 0x9e3779b97f4a7c15L;
+    
+    private final Logger log = Logger.getLogger(StreamingNGramFilterBuilder.class);
+    
+    private final AbstractContentIngestHelper helper;
+    private final int maxNGramLength;
+    private final int maxAllowedInsertions;
+    private final int timeoutMillis;
+    private final float minMemoryThreshold;
+    private final float minDiskSpaceThreshold;
+    private final String minDiskSpacePath;
+    private final CardinalitySketch sketch = new CardinalitySketch();
+    
+    /**
+     * Constructor
+     *
+     * @param helper
+     *            helper instance for content ingest, used to find the tokenized content of each field
+     * @param maxNGramLength
+     *            maximum number of characters in an n-gram
+     * @param maxAllowedInsertions
+     *            maximum number of field values and n-grams applied to a filter, or a non-positive value for no limit
+     * @param timeoutMillis
+     *            maximum allowed time in milliseconds to build a filter, or a non-positive value for no limit
+     * @param minMemoryThreshold
+     *            Minimum amount of available memory, expressed as a percentage, needed to apply n-grams
+     * @param minDiskSpaceThreshold
+     *            Minimum amount of available disk space, expressed as a percentage, needed to apply n-grams
+     * @param minDiskSpacePath
+     *            Path to check for available disk space
+     */
+    public StreamingNGramFilterBuilder(final AbstractContentIngestHelper helper, int maxNGramLength, int maxAllowedInsertions, int timeoutMillis,
+                    float minMemoryThreshold, float minDiskSpaceThreshold, final String minDiskSpacePath) {
+        this.helper = helper;
+        this.maxNGramLength = (maxNGramLength > 0) ? maxNGramLength : AbstractNGramTokenizationStrategy.DEFAULT_MAX_NGRAM_LENGTH;
+        this.maxAllowedInsertions = maxAllowedInsertions;
+        this.timeoutMillis = timeoutMillis;
+        this.minMemoryThreshold = minMemoryThreshold;
+        this.minDiskSpaceThreshold = minDiskSpaceThreshold;
+        this.minDiskSpacePath = minDiskSpacePath;
+    }
+    
+    /**
+     * Create a BloomFilter based on the field values and the n-grams of their tokenized content
+     *
+     * @param fields
+     *            the fields and their values with which to create a bloom filter
+     * @return a wrapped BloomFilter
+     */
+    public BloomFilterWrapper build(final Multimap<String,NormalizedContentInterface> fields) {
+        long deadline = (timeoutMillis > 0) ? System.currentTimeMillis() + timeoutMillis : Long.MAX_VALUE;
+        
+        // Find the tokenized content of the content indexed fields
+        final Set<String> tokenFieldNames = new LinkedHashSet<>();
+        final String tokenFieldNameDesignator = this.helper.getTokenFieldNameDesignator();
+        for (final NormalizedContentInterface nci : fields.values()) {
+            final String fieldName = nci.getIndexedFieldName();
+            if (helper.isContentIndexField(fieldName) || helper.isReverseContentIndexField(fieldName)) {
+                tokenFieldNames.add(fieldName + tokenFieldNameDesignator);
+            }
+        }
+        final List<String> tokenValues = new ArrayList<>();
+        int predictedNGrams = 0;
+        for (final String tokenFieldName : tokenFieldNames) {
+            for (final NormalizedContentInterface nci : fields.get(tokenFieldName)) {
+                final String value = nci.getIndexedFieldValue();
+                if (null != value && value.length() > 1) {
+                    tokenValues.add(value);
+                    predictedNGrams += BloomFilterUtil.predictNGramCount(value.codePointCount(0, value.length()), this.maxNGramLength);
+                }
+            }
+        }
+        
+        // First pass: count the distinct field values and n-grams
+        sketch.clear();
+        for (final NormalizedContentInterface nci : fields.values()) {
+            sketch.offer(hash(nci.getIndexedFieldValue()));
+        }
+        boolean timedOut = false;
+        for (int i = 0; i < tokenValues.size() && !timedOut; i++) {
+            sketchNGrams(tokenValues.get(i));
+            timedOut = System.currentTimeMillis() > deadline;
+        }
+        
+        int expectedInsertions = (int) Math.min(Integer.MAX_VALUE, Math.max(fields.size(), sketch.estimate()));
+        if (this.maxAllowedInsertions > 0 && expectedInsertions > this.maxAllowedInsertions) {
+            expectedInsertions = Math.max(fields.size(), this.maxAllowedInsertions);
+        }
+        
+        // Second pass: apply the field values, then the n-grams of each length across all of the values
+        // The filter is filled through a CharSequence view of each n-gram, which the TermFilter funnel hashes exactly as it would the equivalent String
+        final BloomFilter<CharSequence> filter = MemberShipTest.create(expectedInsertions);
+        for (final NormalizedContentInterface nci : fields.values()) {
+            filter.put(nci.getIndexedFieldValue());
+        }
+        
+        long ngramBudget = (this.maxAllowedInsertions > 0) ? Math.max(0, expectedInsertions - fields.size()) : Long.MAX_VALUE;
+        int appliedNGrams = 0;
+        final NGramView view = new NGramView();
+        lengths: for (int length = 2; length <= this.maxNGramLength && !timedOut; length++) {
+            if (!resourcesAvailable()) {
+                break;
+            }
+            boolean applied = false;
+            for (final String value : tokenValues) {
+                if (value.length() < length) {
+                    continue;
+                }
+                // Slide a window of length code points along the value
+                int start = 0;
+                int end = offsetByCodePoints(value, 0, length);
+                while (end >= 0) {
+                    if (appliedNGrams >= ngramBudget) {
+                        break lengths;
+                    }
+                    if (appliedNGrams % DEADLINE_CHECK_INTERVAL == DEADLINE_CHECK_INTERVAL - 1 && System.currentTimeMillis() > deadline) {
+                        timedOut = true;
+                        break lengths;
+                    }
+                    filter.put(view.set(value, start, end));
+                    appliedNGrams++;
+                    applied = true;
+                    if (end == value.length()) {
+                        break;
+                    }
+                    start += Character.charCount(value.codePointAt(start));
+                    end += Character.charCount(value.codePointAt(end));
+                }
+            }
+            if (!applied) {
+                // no value is long enough for any longer n-grams
+                break;
+            }
+        }
+        
+        if (timedOut) {
+            this.log.warn("Exceeded the maximum allowed time of " + this.timeoutMillis + " milliseconds to create NGrams. Only the n-grams applied so far "
+                            + "will be included in the bloom filter.");
+        }
+        
+        @SuppressWarnings("unchecked")
+        final BloomFilterWrapper result = new BloomFilterWrapper((BloomFilter<String>) (BloomFilter<?>) filter, fields.size());
+        result.setFieldValuesAppliedToFilter(fields.size());
+        result.setNGramsAppliedToFilter(appliedNGrams);
+        result.setNGramsPrunedFromFilter(Math.max(0, predictedNGrams - appliedNGrams));
+        result.setExpectedInsertions(expectedInsertions);
+        result.setTimedOut(timedOut);
+        return result;
+    }
+    
+    private boolean resourcesAvailable() {
+        if (this.minMemoryThreshold > 0 && !ResourceAvailabilityUtil.isMemoryAvailable(this.minMemoryThreshold)) {
+            this.log.warn("Available memory is less than " + (this.minMemoryThreshold * 100) + "% of capacity. "
+                            + "The remaining n-grams will not be included in the bloom filter.");
+            return false;
+        }
+        if (this.minDiskSpaceThreshold > 0 && !ResourceAvailabilityUtil.isDiskAvailable(this.minDiskSpacePath, this.minDiskSpaceThreshold)) {
+            this.log.warn("Available disk space is less than " + (this.minDiskSpaceThreshold * 100) + "% of capacity. "
+                            + "The remaining n-grams will not be included in the bloom filter.");
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Offers the hash of every n-gram of the value to the sketch, extending a rolling hash one character at a time from each starting code point
+     */
+    private void sketchNGrams(final String value) {
+        final int length = value.length();
+        for (int start = 0; start < length; start += Character.charCount(value.codePointAt(start))) {
+            long hash = 0;
+            int end = start;
+            for (int codePoints = 1; codePoints <= this.maxNGramLength && end < length; codePoints++) {
+                int next = end + Character.charCount(value.codePointAt(end));
+                for (; end < next; end++) {
+                    hash = (hash + value.charAt(end)) * HASH_MULTIPLIER;
+                }
+                if (codePoints > 1) {
+                    sketch.offer(CardinalitySketch.mix(hash ^ codePoints));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Hashes a field value as {@link #sketchNGrams} hashes an n-gram, such that a value equal to an n-gram is counted once
+     */
+    private static long hash(final String value) {
+        if (null == value) {
+            return 0;
+        }
+        long hash = 0;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash + value.charAt(i)) * HASH_MULTIPLIER;
+        }
+        return CardinalitySketch.mix(hash ^ value.codePointCount(0, value.length()));
+    }
+    
+    /**
+     * @return the index after the given number of code points from the start, or -1 if the value is not that long
+     */
+    private static int offsetByCodePoints(final String value, int start, int codePoints) {
+        int offset = start;
+        for (int i = 0; i < codePoints; i++) {
+            if (offset >= value.length()) {
+                return -1;
+            }
+            offset += Character.charCount(value.codePointAt(offset));
+        }
+        return offset;
+    }
+    
+    /**
+     * A reusable view of an n-gram within a field value, which lets the {@link TermFilter} funnel hash the n-gram without copying it
+     */
+    private static class NGramView implements CharSequence {
+        private String value;
+        private int start;
+        private int end;
+        
+        private NGramView set(final String value, int start, int end) {
+            this.value = value;
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+        
+        @Override
+        public int length() {
+            return end - start;
+        }
+        
+        @Override
+        public char charAt(int index) {
+            return value.charAt(start + index);
+        }
+        
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return value.subSequence(start + from, start + to);
+        }
+        
+        @Override
+        public String toString() {
+            return value.substring(start, end);
+        }
+    }
+}
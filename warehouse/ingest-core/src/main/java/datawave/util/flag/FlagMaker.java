@@ -74,6 +74,8 @@ public class FlagMaker implements Runnable, Observer, SizeValidator {
      * Directory cache will serve as a place holder the directories in HDFS that were created. This will cut down on the number of RPC calls tot he NameNode
      */
     private final Cache<Path,Path> directoryCache;
+    // listings of the input directories, only used for incremental discovery
+    private final InputFileInventory inventory;
     // Executor will be used for directory lookups
     private ExecutorService executor;
     private final FlagMakerConfig fmc;
@@ -103,6 +105,13 @@ public class FlagMaker implements Runnable, Observer, SizeValidator {
                 .concurrencyLevel(fmc.getMaxHdfsThreads())
                 .build();
         // @formatter:on
+        
+        if (fmc.isIncrementalDiscovery()) {
+            this.inventory = new InputFileInventory(fmc.getInventoryFile(), fmc.getInventoryMarginMilliSecs());
+            this.inventory.load();
+        } else {
+            this.inventory = null;
+        }
     }
     
     public static void main(String... args) throws Exception {
@@ -218,6 +227,9 @@ public class FlagMaker implements Runnable, Observer, SizeValidator {
     protected void processFlags() throws IOException {
         FileSystem fs = getHadoopFS();
         log.trace("Querying for files on {}", fs.getUri().toString());
+        if (inventory != null) {
+            inventory.beginScan();
+        }
         for (FlagDataTypeConfig fc : fmc.getFlagConfigs()) {
             long startTime = System.currentTimeMillis();
             String dataName = fc.getDataName();
@@ -230,10 +242,14 @@ public class FlagMaker implements Runnable, Observer, SizeValidator {
                 writeFlagFile(fc, fd.next(this));
             }
         }
+        if (inventory != null) {
+            inventory.endScan();
+        }
     }
     
     /**
-     * Adds all input files for the data type to the {@link FlagDistributor}.
+     * Adds all input files for the data type to the {@link FlagDistributor}. When using incremental discovery, only the input directories which changed since
+     * the last cycle are listed and the rest are taken from the inventory.
      * 
      * @param fc
      *            flag datatype configuration data
@@ -246,7 +262,7 @@ public class FlagMaker implements Runnable, Observer, SizeValidator {
         for (String folder : fc.getFolder()) {
             String folderPattern = folder + "/" + fmc.getFilePattern();
             log.debug("searching for " + fc.getDataName() + " files in " + folderPattern);
-            FileStatus[] files = fs.globStatus(new Path(folderPattern));
+            FileStatus[] files = (inventory == null ? fs.globStatus(new Path(folderPattern)) : inventory.globStatus(fs, folder, fmc.getFilePattern()));
             if (files == null || files.length == 0) {
                 continue;
             }
@@ -0,0 +1,318 @@
+package datawave.util.flag;
+
+import datawave.util.StringUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.GlobPattern;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.WritableUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the listings of the input directories searched by the {@link FlagMaker}, along with the name, size, block size and modification time of every entry
+ * in them, such that a directory is only listed again once its modification time changes. Input files are expected to be moved into place once complete
+ * (e.g. renamed from a ._COPYING_ file), which updates the modification time of their directory. A file that is appended to in place is not noticed until its
+ * directory changes.
+ * <p>
+ * A listing is not trusted until the margin has passed since the modification time of its directory, as the directory could have changed again within the
+ * resolution of that timestamp or the clock skew between this host and the file system. The listings can be saved to a local file so that a restart does not
+ * have to list every input directory again.
+ */
+class InputFileInventory {
+    
+    private static final Logger log = LoggerFactory.getLogger(InputFileInventory.class);
+    
+    private static final int MAGIC = 0x464d4931;
+    
+    private final File file;
+    private final long marginMillis;
+    // directory listings keyed by the qualified directory path
+    private final Map<String,Listing> listings = new HashMap<>();
+    private int scan = 0;
+    private boolean dirty = false;
+    private long listCount = 0;
+    
+    /**
+     * @param file
+     *            local file the inventory is saved to, or null to only keep it in memory
+     * @param marginMillis
+     *            time that must have passed since the modification of a directory before its listing is reused
+     */
+    InputFileInventory(String file, long marginMillis) {
+        this.file = (file == null ? null : new File(file));
+        this.marginMillis = marginMillis;
+    }
+    
+    /**
+     * Load the inventory saved by a previous run, if any. An unreadable inventory is discarded, which only means that every directory is listed again.
+     */
+    void load() {
+        if (file == null || !file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unexpected file format");
+            }
+            int count = WritableUtils.readVInt(in);
+            for (int i = 0; i < count; i++) {
+                String dir = WritableUtils.readString(in);
+                listings.put(dir, Listing.read(in));
+            }
+            log.info("Loaded the listings of {} input directories from {}", count, file);
+        } catch (IOException e) {
+            log.warn("Unable to load the input file inventory from " + file + ", all input directories will be listed", e);
+            listings.clear();
+        }
+    }
+    
+    /**
+     * Save the inventory, replacing the previously saved one once it has been completely written
+     *
+     * @throws IOException
+     *             if the inventory could not be written
+     */
+    void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Unable to create directory " + parent);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmp))))) {
+            out.writeInt(MAGIC);
+            WritableUtils.writeVInt(out, listings.size());
+            for (Map.Entry<String,Listing> entry : listings.entrySet()) {
+                WritableUtils.writeString(out, entry.getKey());
+                entry.getValue().write(out);
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Start a scan over the input directories. The listings of any directories not visited before the matching {@link #endScan()} are dropped.
+     */
+    void beginScan() {
+        scan++;
+    }
+    
+    /**
+     * Drop the listings of the directories that were not visited during this scan and save the inventory if it changed
+     */
+    void endScan() {
+        Iterator<Listing> it = listings.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().visitedInScan != scan) {
+                it.remove();
+                dirty = true;
+            }
+        }
+        if (dirty) {
+            try {
+                save();
+                dirty = false;
+            } catch (IOException e) {
+                log.warn("Unable to save the input file inventory to " + file, e);
+            }
+        }
+    }
+    
+    /**
+     * Find the entries matching the file pattern below a folder, as {@link FileSystem#globStatus(Path)} would for folder/filePattern. Only the directories
+     * which changed since they were last listed are listed again. A folder which contains a glob itself is always globbed.
+     *
+     * @param fs
+     *            the file system
+     * @param folder
+     *            the folder to search
+     * @param filePattern
+     *            the glob pattern to match relative to the folder
+     * @return the matching entries, never null
+     * @throws IOException
+     *             if a directory could not be listed
+     */
+    FileStatus[] globStatus(FileSystem fs, String folder, String filePattern) throws IOException {
+        List<Pattern> patterns = new ArrayList<>();
+        for (String component : StringUtils.split(filePattern, '/')) {
+            if (!component.isEmpty()) {
+                patterns.add(GlobPattern.compile(component));
+            }
+        }
+        if (patterns.isEmpty() || hasGlob(folder)) {
+            FileStatus[] files = fs.globStatus(new Path(folder + "/" + filePattern));
+            return (files == null ? new FileStatus[0] : files);
+        }
+        
+        List<FileStatus> files = new ArrayList<>();
+        collect(fs, fs.makeQualified(new Path(folder)), null, patterns, 0, files);
+        return files.toArray(new FileStatus[files.size()]);
+    }
+    
+    /**
+     * @return the number of directories listed since this inventory was created
+     */
+    long getListCount() {
+        return listCount;
+    }
+    
+    private static boolean hasGlob(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            switch (path.charAt(i)) {
+                case '*':
+                case '?':
+                case '[':
+                case '{':
+                case '\\':
+                    return true;
+                default:
+            }
+        }
+        return false;
+    }
+    
+    private void collect(FileSystem fs, Path dir, FileStatus status, List<Pattern> patterns, int depth, List<FileStatus> files) throws IOException {
+        Listing listing = list(fs, dir, status);
+        if (listing == null) {
+            return;
+        }
+        // the status of the subdirectories can be used as is when they were listed just now
+        boolean fresh = (listing.listedInScan == scan);
+        Pattern pattern = patterns.get(depth);
+        boolean last = (depth == patterns.size() - 1);
+        for (int i = 0; i < listing.names.length; i++) {
+            if (!pattern.matcher(listing.names[i]).matches()) {
+                continue;
+            }
+            if (last) {
+                files.add(listing.getStatus(dir, i));
+            } else if (listing.directories[i]) {
+                collect(fs, new Path(dir, listing.names[i]), (fresh ? listing.getStatus(dir, i) : null), patterns, depth + 1, files);
+            }
+        }
+    }
+    
+    private Listing list(FileSystem fs, Path dir, FileStatus status) throws IOException {
+        String key = dir.toString();
+        try {
+            if (status == null) {
+                status = fs.getFileStatus(dir);
+            }
+            if (!status.isDirectory()) {
+                return null;
+            }
+            Listing listing = listings.get(key);
+            if (listing == null || !listing.isCurrent(status.getModificationTime(), marginMillis)) {
+                long listedAt = System.currentTimeMillis();
+                listing = new Listing(status.getModificationTime(), listedAt, fs.listStatus(dir));
+                listing.listedInScan = scan;
+                listings.put(key, listing);
+                listCount++;
+                dirty = true;
+            }
+            listing.visitedInScan = scan;
+            return listing;
+        } catch (FileNotFoundException e) {
+            // the directory is gone, its listing is dropped at the end of the scan
+            return null;
+        }
+    }
+    
+    /**
+     * The entries of one directory, sorted by name
+     */
+    private static class Listing {
+        private final long modificationTime;
+        private final long listedAt;
+        private final String[] names;
+        private final boolean[] directories;
+        private final long[] lengths;
+        private final long[] blockSizes;
+        private final long[] modificationTimes;
+        
+        private int visitedInScan = 0;
+        private int listedInScan = -1;
+        
+        private Listing(long modificationTime, long listedAt, int size) {
+            this.modificationTime = modificationTime;
+            this.listedAt = listedAt;
+            this.names = new String[size];
+            this.directories = new boolean[size];
+            this.lengths = new long[size];
+            this.blockSizes = new long[size];
+            this.modificationTimes = new long[size];
+        }
+        
+        private Listing(long modificationTime, long listedAt, FileStatus[] children) {
+            this(modificationTime, listedAt, children.length);
+            Arrays.sort(children);
+            for (int i = 0; i < children.length; i++) {
+                names[i] = children[i].getPath().getName();
+                directories[i] = children[i].isDirectory();
+                lengths[i] = children[i].getLen();
+                blockSizes[i] = children[i].getBlockSize();
+                modificationTimes[i] = children[i].getModificationTime();
+            }
+        }
+        
+        private boolean isCurrent(long modificationTime, long marginMillis) {
+            return this.modificationTime == modificationTime && (listedAt - modificationTime) > marginMillis;
+        }
+        
+        private FileStatus getStatus(Path dir, int i) {
+            return new FileStatus(lengths[i], directories[i], 0, blockSizes[i], modificationTimes[i], new Path(dir, names[i]));
+        }
+        
+        private void write(DataOutputStream out) throws IOException {
+            WritableUtils.writeVLong(out, modificationTime);
+            WritableUtils.writeVLong(out, listedAt);
+            WritableUtils.writeVInt(out, names.length);
+            for (int i = 0; i < names.length; i++) {
+                WritableUtils.writeString(out, names[i]);
+                out.writeBoolean(directories[i]);
+                WritableUtils.writeVLong(out, lengths[i]);
+                WritableUtils.writeVLong(out, blockSizes[i]);
+                // entries tend to be modified shortly before their directory, which keeps the difference small
+                WritableUtils.writeVLong(out, modificationTime - modificationTimes[i]);
+            }
+        }
+        
+        private static Listing read(DataInputStream in) throws IOException {
+            long modificationTime = WritableUtils.readVLong(in);
+            long listedAt = WritableUtils.readVLong(in);
+            Listing listing = new Listing(modificationTime, listedAt, WritableUtils.readVInt(in));
+            for (int i = 0; i < listing.names.length; i++) {
+                listing.names[i] = WritableUtils.readString(in);
+                listing.directories[i] = in.readBoolean();
+                listing.lengths[i] = WritableUtils.readVLong(in);
+                listing.blockSizes[i] = WritableUtils.readVLong(in);
+                listing.modificationTimes[i] = modificationTime - WritableUtils.readVLong(in);
+            }
+            return listing;
+        }
+    }
+}
@@ -59,6 +59,12 @@ public class FlagMakerConfig {
     protected int directoryCacheSize = 2000;
     // directory cache timeout. Default is 2 Hours
     protected long directoryCacheTimeout = (2 * 60 * 60 * 1000);
+    // only list the input directories whose modification time changed since they were last listed
+    private boolean incrementalDiscovery = false;
+    // local file to save the listings of the input directories to when using incremental discovery. Default is to keep them in memory only.
+    private String inventoryFile;
+    // time that must pass since a directory was modified before its listing is reused. Default is 10 seconds
+    private long inventoryMarginMilliSecs = 10000L;
     
     public FlagDataTypeConfig getDefaultCfg() {
         return defaultCfg;
@@ -164,6 +170,30 @@ public class FlagMakerConfig {
         this.directoryCacheTimeout = directoryCacheTimeout;
     }
     
+    public boolean isIncrementalDiscovery() {
+        return incrementalDiscovery;
+    }
+    
+    public void setIncrementalDiscovery(boolean incrementalDiscovery) {
+        this.incrementalDiscovery = incrementalDiscovery;
+    }
+    
+    public String getInventoryFile() {
+        return inventoryFile;
+    }
+    
+    public void setInventoryFile(String inventoryFile) {
+        this.inventoryFile = inventoryFile;
+    }
+    
+    public long getInventoryMarginMilliSecs() {
+        return inventoryMarginMilliSecs;
+    }
+    
+    public void setInventoryMarginMilliSecs(long inventoryMarginMilliSecs) {
+        this.inventoryMarginMilliSecs = inventoryMarginMilliSecs;
+    }
+    
     public int getMaxFileLength() {
         return maxFileLength;
     }
@@ -277,6 +307,10 @@ public class FlagMakerConfig {
                             + ". Must be one of the following: simple|date|folderdate");
         }
         
+        if (this.inventoryMarginMilliSecs < 0) {
+            throw new IllegalArgumentException(prefix + "inventoryMarginMilliSecs cannot be negative");
+        }
+        
         for (FlagDataTypeConfig cfg : this.flagCfg) {
             if (cfg.getInputFormat() == null)
                 throw new IllegalArgumentException("Input Format Class must be specified for data type: " + cfg.getDataName());
@@ -352,6 +386,9 @@ public class FlagMakerConfig {
         result.append("maxHdfsThreads: " + this.getMaxHdfsThreads() + "\n");
         result.append("directoryCacheSize: " + this.getDirectoryCacheSize() + "\n");
         result.append("directoryCacheTimeout: " + this.getDirectoryCacheTimeout() + "\n");
+        result.append("incrementalDiscovery: " + this.isIncrementalDiscovery() + "\n");
+        result.append("inventoryFile: " + this.getInventoryFile() + "\n");
+        result.append("inventoryMarginMilliSecs: " + this.getInventoryMarginMilliSecs() + "\n");
         return result.toString();
     }
 }
@@ -12,6 +12,7 @@ import datawave.ingest.mapreduce.job.metrics.Metric;
 import datawave.ingest.mapreduce.job.metrics.MetricsConfiguration;
 import datawave.ingest.mapreduce.job.metrics.TestEventCountMetricsReceiver;
 import datawave.ingest.mapreduce.job.writer.ContextWriter;
+import datawave.ingest.metric.IngestOutput;
 import org.apache.accumulo.core.data.Value;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
@@ -27,7 +28,9 @@ import static org.easymock.EasyMock.*;
 import static org.junit.Assert.*;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class EventMapperTest {
     
@@ -39,6 +42,7 @@ public class EventMapperTest {
     
     private Configuration conf;
     private SimpleRawRecord record;
+    private StandaloneStatusReporter reporter;
     private EventMapper<LongWritable,RawRecordContainer,BulkIngestKey,Value> eventMapper;
     
     @Before
@@ -79,7 +83,8 @@ public class EventMapperTest {
         expect(mapContext.getInputSplit()).andReturn(null);
         expect(mapContext.getMapOutputValueClass()).andReturn(null);
         
-        StandaloneTaskAttemptContext standaloneContext = new StandaloneTaskAttemptContext(conf, new StandaloneStatusReporter());
+        reporter = new StandaloneStatusReporter();
+        StandaloneTaskAttemptContext standaloneContext = new StandaloneTaskAttemptContext(conf, reporter);
         expect(mapContext.getCounter(anyObject())).andDelegateTo(standaloneContext).anyTimes();
         expect(mapContext.getCounter(anyString(), anyString())).andDelegateTo(standaloneContext).anyTimes();
         
@@ -172,6 +177,33 @@ public class EventMapperTest {
         assertEquals(4, written.size());
     }
     
+    @Test
+    public void shouldProcessEventsOnMultipleThreads() throws IOException, InterruptedException {
+        conf.setInt(EventMapper.EVENT_MAPPER_THREADS, 4);
+        conf.setInt(EventMapper.EVENT_MAPPER_MAX_PENDING, 2);
+        eventMapper.setup(mapContext);
+        for (int i = 0; i < 10; i++) {
+            eventMapper.map(new LongWritable(i), record, mapContext);
+        }
+        eventMapper.cleanup(mapContext);
+        
+        Multimap<BulkIngestKey,Value> written = TestContextWriter.getWritten();
+        
+        // each event gets an ORIG_FILE with its own offset
+        Set<String> origFiles = new HashSet<>();
+        for (Map.Entry<BulkIngestKey,Value> entry : written.entries()) {
+            assertEquals(SimpleDataTypeHandler.TABLE, entry.getKey().getTableName());
+            if (entry.getKey().getKey().getColumnFamily().toString().equals(EventMapper.SEQUENCE_FILE_FIELDNAME)) {
+                origFiles.add(entry.getKey().getKey().getColumnQualifier().toString());
+            }
+        }
+        assertEquals(10, origFiles.size());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(origFiles.contains("|" + i));
+        }
+        assertEquals(10, reporter.getCounter(IngestOutput.EVENTS_PROCESSED.name(), "FILE").getValue());
+    }
+    
     private Map.Entry<BulkIngestKey,Value> getMetric(Multimap<BulkIngestKey,Value> written) {
         return getFieldEntry(written, Metric.EVENT_COUNT.toString());
     }
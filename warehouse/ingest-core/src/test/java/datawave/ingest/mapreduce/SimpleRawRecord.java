@@ -226,7 +226,21 @@ public class SimpleRawRecord implements RawRecordContainer, Writable {
     
     @Override
     public RawRecordContainer copy() {
-        throw new UnsupportedOperationException("Copy not yet implemented on " + this.getClass());
+        SimpleRawRecord copy = new SimpleRawRecord();
+        copy.securityMarkings = new TreeMap<>(securityMarkings);
+        copy.id = id;
+        copy.dataType = dataType;
+        copy.date = date;
+        copy.errors = errors;
+        copy.altIds = altIds;
+        copy.rawFileName = rawFileName;
+        copy.rawRecordNumber = rawRecordNumber;
+        copy.rawRecordTimestamp = rawRecordTimestamp;
+        copy.rawData = rawData;
+        copy.auxData = auxData;
+        copy.auxMap = (auxMap == null ? null : new HashMap<>(auxMap));
+        copy.visibility = visibility;
+        return copy;
     }
     
     @Override
@@ -0,0 +1,75 @@
+package datawave.ingest.mapreduce.handler.tokenize;
+
+import datawave.ingest.data.tokenize.StandardAnalyzer;
+import datawave.ingest.mapreduce.handler.shard.content.ContentIndexCounters;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class ContentChunkTokenizerTest {
+    
+    private static final String[] WORDS = {"the", "quick", "brown", "fox", "jumped", "over", "lazy", "dog", "http://www.example.com/path/to/file.html",
+            "john.doe@example.com", "192.168.0.1", "1,234.56", "a", "and", "supercalifragilisticexpialidocious"};
+    
+    @Test
+    public void testChunksAreTokenizedAsTheWhole() throws Exception {
+        String content = generate(200000);
+        
+        List<String> expected = tokenize(content, Integer.MAX_VALUE, 0);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected, tokenize(content, 4096, 4));
+        Assert.assertEquals(expected, tokenize(content, 4096, 0));
+    }
+    
+    @Test
+    public void testSplitAtWhitespace() {
+        String content = generate(50000);
+        List<Integer> bounds = ContentChunkTokenizer.split(content, 1000);
+        Assert.assertEquals(0, bounds.get(0).intValue());
+        Assert.assertEquals(content.length(), bounds.get(bounds.size() - 1).intValue());
+        Assert.assertTrue(bounds.size() > 40);
+        for (int i = 1; i < bounds.size() - 1; i++) {
+            int bound = bounds.get(i);
+            Assert.assertTrue(bound > bounds.get(i - 1));
+            Assert.assertTrue(Character.isWhitespace(content.charAt(bound - 1)));
+        }
+        
+        // content without any whitespace is not split
+        Assert.assertEquals(2, ContentChunkTokenizer.split(String.join("", Collections.nCopies(5000, "x")), 1000).size());
+    }
+    
+    @Test
+    public void testSplitPrefersBlankLines() {
+        String content = "aaaa bbbb\ncccc dddd\n\neeee ffff";
+        Assert.assertEquals(21, ContentChunkTokenizer.split(content, 16).get(1).intValue());
+        Assert.assertEquals(10, ContentChunkTokenizer.split(content, 8).get(1).intValue());
+    }
+    
+    private static String generate(int length) {
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder();
+        while (content.length() < length) {
+            content.append(WORDS[random.nextInt(WORDS.length)]);
+            int separator = random.nextInt(20);
+            content.append(separator == 0 ? "\n\n" : (separator < 3 ? "\n" : (separator < 5 ? ". " : " ")));
+        }
+        return content.toString();
+    }
+    
+    private static List<String> tokenize(String content, int chunkSize, int threads) throws Exception {
+        ContentChunkTokenizer tokenizer = new ContentChunkTokenizer(new StandardAnalyzer(), null, Collections.singleton("IP_ADDR"), 20, 10, chunkSize,
+                        threads);
+        try {
+            List<String> terms = new ArrayList<>();
+            int last = tokenizer.tokenize(content, "BODY", 0, 60000, new ContentIndexCounters(), null, (term, position) -> terms.add(position + ":" + term));
+            terms.add(String.valueOf(last));
+            return terms;
+        } finally {
+            tokenizer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package datawave.ingest.mapreduce.job;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TableImportSchedulerTest {
+    
+    @Test
+    public void testImportsAreStartedInPriorityThenLoadOrder() throws Exception {
+        Map<String,Integer> priorities = new HashMap<>();
+        priorities.put("shardIndex", 10);
+        priorities.put("shardReverseIndex", 10);
+        priorities.put("shard", 20);
+        priorities.put("blocker", 0);
+        TableImportScheduler scheduler = new TableImportScheduler(1, 1, priorities);
+        try {
+            Map<String,Integer> loads = new HashMap<>();
+            loads.put("shardIndex", 50);
+            loads.put("shardReverseIndex", 5);
+            scheduler.setTableLoads(loads);
+            
+            // occupy the only import thread so that the rest queue up
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Long> blocker = scheduler.submit("blocker", () -> await(release));
+            
+            List<String> started = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<Long>> imports = new ArrayList<>();
+            for (String table : new String[] {"unknown", "shard", "shardIndex", "shardReverseIndex"}) {
+                imports.add(scheduler.submit(table, () -> started.add(table)));
+            }
+            Assert.assertEquals(4, scheduler.getPendingCount());
+            Assert.assertEquals(1, scheduler.getRunningCount());
+            
+            release.countDown();
+            blocker.get(10, TimeUnit.SECONDS);
+            for (CompletableFuture<Long> future : imports) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            
+            Assert.assertEquals(Arrays.asList("shardReverseIndex", "shardIndex", "shard", "unknown"), started);
+            Assert.assertEquals(0, scheduler.getPendingCount());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+    
+    @Test
+    public void testImportsPerTableAreLimited() throws Exception {
+        TableImportScheduler scheduler = new TableImportScheduler(4, 1, null);
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            CountDownLatch otherTableStarted = new CountDownLatch(1);
+            
+            List<CompletableFuture<Long>> imports = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                imports.add(scheduler.submit("shard", () -> {
+                    int now = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(now, Math::max);
+                    // an import into another table is not held up by this one
+                    await(otherTableStarted);
+                    running.decrementAndGet();
+                }));
+            }
+            imports.add(scheduler.submit("shardIndex", otherTableStarted::countDown));
+            
+            for (CompletableFuture<Long> future : imports) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            Assert.assertEquals(1, maxRunning.get());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+    
+    @Test
+    public void testFailedImportCompletesExceptionally() throws Exception {
+        TableImportScheduler scheduler = new TableImportScheduler(1, 1, null);
+        try {
+            CompletableFuture<Long> failed = scheduler.submit("shard", () -> {
+                throw new IllegalStateException("import failed");
+            });
+            CompletableFuture<Long> next = scheduler.submit("shard", () -> {});
+            
+            next.get(10, TimeUnit.SECONDS);
+            Assert.assertTrue(failed.isCompletedExceptionally());
+            Assert.assertEquals(0, scheduler.getRunningCount());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
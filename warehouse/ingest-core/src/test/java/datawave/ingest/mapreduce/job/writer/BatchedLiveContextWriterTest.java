@@ -0,0 +1,128 @@
+package datawave.ingest.mapreduce.job.writer;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.ingest.mapreduce.StandaloneStatusReporter;
+import datawave.ingest.mapreduce.StandaloneTaskAttemptContext;
+import datawave.ingest.mapreduce.job.BulkIngestKey;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.MultiTableBatchWriter;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BatchedLiveContextWriterTest {
+    
+    private static final Text INDEX_TABLE = new Text("shardIndex");
+    private static final Text SHARD_TABLE = new Text("shard");
+    
+    private Connector connector;
+    private Configuration conf;
+    private StandaloneStatusReporter reporter;
+    private StandaloneTaskAttemptContext<?,?,Text,Mutation> context;
+    
+    @Before
+    public void setup() throws Exception {
+        connector = new InMemoryInstance(BatchedLiveContextWriterTest.class.getName()).getConnector("user", new PasswordToken("pass"));
+        connector.tableOperations().create(INDEX_TABLE.toString());
+        connector.tableOperations().create(SHARD_TABLE.toString());
+        conf = new Configuration();
+        reporter = new StandaloneStatusReporter();
+        context = new StandaloneTaskAttemptContext<>(conf, reporter);
+    }
+    
+    @Test
+    public void testMutationsAreGroupedAcrossEvents() throws Exception {
+        BatchedLiveContextWriter writer = new TestBatchedLiveContextWriter();
+        writer.setup(conf, false);
+        
+        for (int event = 0; event < 10; event++) {
+            writer.write(new BulkIngestKey(INDEX_TABLE, new Key("value", "FIELD", "20180101_1\u0000event" + event, 0L)), new Value(new byte[0]), context);
+            writer.write(new BulkIngestKey(SHARD_TABLE, new Key("20180101_1", "event" + event, "FIELD\u0000value", 0L)), new Value(new byte[0]), context);
+            writer.commit(context);
+        }
+        
+        // nothing is written until the batches are large enough or the writer is cleaned up
+        assertEquals(0, count(INDEX_TABLE));
+        assertEquals(0, counter(BatchedLiveContextWriter.MUTATIONS_COUNTER));
+        
+        writer.cleanup(context);
+        
+        assertEquals(10, count(INDEX_TABLE));
+        assertEquals(10, count(SHARD_TABLE));
+        // one mutation per table and row
+        assertEquals(2, counter(BatchedLiveContextWriter.MUTATIONS_COUNTER));
+        assertEquals(2, counter(BatchedLiveContextWriter.BATCHES_COUNTER));
+        assertTrue(counter(BatchedLiveContextWriter.BYTES_COUNTER) > 0);
+    }
+    
+    @Test
+    public void testInFlightBytesAreBounded() throws Exception {
+        conf.setLong(BatchedLiveContextWriter.BATCH_BYTES, 1);
+        conf.setLong(BatchedLiveContextWriter.MAX_IN_FLIGHT_BYTES, 1);
+        BatchedLiveContextWriter writer = new TestBatchedLiveContextWriter();
+        writer.setup(conf, false);
+        
+        for (int event = 0; event < 100; event++) {
+            writer.write(new BulkIngestKey(SHARD_TABLE, new Key("20180101_" + event, "event", "FIELD\u0000value", 0L)), new Value(new byte[0]), context);
+            writer.commit(context);
+        }
+        writer.cleanup(context);
+        
+        assertEquals(100, count(SHARD_TABLE));
+        assertEquals(100, counter(BatchedLiveContextWriter.MUTATIONS_COUNTER));
+        assertEquals(100, counter(BatchedLiveContextWriter.BATCHES_COUNTER));
+        // each batch waits for the previous one to be added to the batch writer, unless it was already done
+        assertTrue(counter(BatchedLiveContextWriter.BACKPRESSURE_WAITS_COUNTER) < 100);
+    }
+    
+    @Test
+    public void testDeletes() throws Exception {
+        BatchedLiveContextWriter writer = new TestBatchedLiveContextWriter();
+        writer.setup(conf, false);
+        writer.write(new BulkIngestKey(SHARD_TABLE, new Key("20180101_1", "event", "FIELD\u0000a", 1L)), new Value(new byte[0]), context);
+        writer.write(new BulkIngestKey(SHARD_TABLE, new Key("20180101_1", "event", "FIELD\u0000b", 1L)), new Value(new byte[0]), context);
+        writer.cleanup(context);
+        assertEquals(2, count(SHARD_TABLE));
+        
+        Key delete = new Key("20180101_1", "event", "FIELD\u0000a", 2L);
+        delete.setDeleted(true);
+        writer = new TestBatchedLiveContextWriter();
+        writer.setup(conf, false);
+        writer.write(new BulkIngestKey(SHARD_TABLE, delete), new Value(new byte[0]), context);
+        writer.cleanup(context);
+        assertEquals(1, count(SHARD_TABLE));
+    }
+    
+    private int count(Text table) throws Exception {
+        int count = 0;
+        Scanner scanner = connector.createScanner(table.toString(), new Authorizations());
+        for (Map.Entry<Key,Value> entry : scanner) {
+            count++;
+        }
+        return count;
+    }
+    
+    private long counter(String name) {
+        return reporter.getCounter(BatchedLiveContextWriter.COUNTER_GROUP, name).getValue();
+    }
+    
+    private class TestBatchedLiveContextWriter extends BatchedLiveContextWriter {
+        @Override
+        protected MultiTableBatchWriter createMultiTableBatchWriter(Configuration conf) {
+            return connector.createMultiTableBatchWriter(new BatchWriterConfig());
+        }
+    }
+}
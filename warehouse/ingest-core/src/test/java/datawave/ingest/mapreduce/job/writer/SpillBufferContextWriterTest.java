@@ -0,0 +1,150 @@
+package datawave.ingest.mapreduce.job.writer;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import datawave.ingest.mapreduce.StandaloneStatusReporter;
+import datawave.ingest.mapreduce.StandaloneTaskAttemptContext;
+import datawave.ingest.mapreduce.job.BulkIngestKey;
+import datawave.ingest.mapreduce.job.reduce.BulkIngestKeyDedupeCombiner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpillBufferContextWriterTest {
+    
+    private static final Text INDEX_TABLE = new Text("shardIndex");
+    private static final Text SHARD_TABLE = new Text("shard");
+    
+    private BulkIngestKey a = new BulkIngestKey(INDEX_TABLE, new Key("a", "FIELD", "20180101_1", 0L));
+    private BulkIngestKey b = new BulkIngestKey(INDEX_TABLE, new Key("b", "FIELD", "20180101_1", 0L));
+    private BulkIngestKey c = new BulkIngestKey(SHARD_TABLE, new Key("20180101_1", "fi\u0000FIELD", "a", 0L));
+    
+    private Configuration conf;
+    private StandaloneStatusReporter reporter;
+    private StandaloneTaskAttemptContext<?,?,BulkIngestKey,Value> context;
+    
+    @Before
+    public void setup() {
+        conf = new Configuration();
+        conf.setBoolean(BulkIngestKeyDedupeCombiner.USING_COMBINER, true);
+        conf.setClass(SpillBufferContextWriter.CONTEXT_WRITER_CLASS, ListContextWriter.class, ContextWriter.class);
+        reporter = new StandaloneStatusReporter();
+        context = new StandaloneTaskAttemptContext<>(conf, reporter);
+    }
+    
+    @Test
+    public void testSortedAndCombined() throws Exception {
+        conf.setInt(INDEX_TABLE + SpillBufferContextWriter.TABLES_TO_BUFFER_SUFFIX, 1024 * 1024);
+        SpillBufferContextWriter writer = new SpillBufferContextWriter();
+        writer.setup(conf, false);
+        
+        writer.write(b, new Value("1".getBytes()), context);
+        writer.write(a, new Value("1".getBytes()), context);
+        writer.commit(context);
+        writer.write(a, new Value("1".getBytes()), context);
+        writer.write(c, new Value("1".getBytes()), context);
+        writer.commit(context);
+        
+        // the unbuffered table is passed on at commit, the buffered table waits for the spill
+        assertEquals(1, ListContextWriter.written.size());
+        assertEquals(c, ListContextWriter.written.get(0).getKey());
+        
+        writer.cleanup(context);
+        
+        assertEquals(3, ListContextWriter.written.size());
+        assertEquals(a, ListContextWriter.written.get(1).getKey());
+        assertEquals(b, ListContextWriter.written.get(2).getKey());
+        assertEquals(1, reporter.getCounter(SpillBufferContextWriter.SPILLED_BUFFER_COUNTER, INDEX_TABLE.toString()).getValue());
+        assertEquals(3, reporter.getCounter(SpillBufferContextWriter.SPILLED_BUFFER_INPUT, INDEX_TABLE.toString()).getValue());
+        assertEquals(2, reporter.getCounter(SpillBufferContextWriter.SPILLED_BUFFER_OUTPUT, INDEX_TABLE.toString()).getValue());
+    }
+    
+    @Test
+    public void testRollbackIsNotBuffered() throws Exception {
+        conf.setInt(INDEX_TABLE + SpillBufferContextWriter.TABLES_TO_BUFFER_SUFFIX, 1024 * 1024);
+        SpillBufferContextWriter writer = new SpillBufferContextWriter();
+        writer.setup(conf, false);
+        
+        writer.write(a, new Value("1".getBytes()), context);
+        writer.rollback();
+        writer.write(b, new Value("1".getBytes()), context);
+        writer.commit(context);
+        writer.cleanup(context);
+        
+        assertEquals(1, ListContextWriter.written.size());
+        assertEquals(b, ListContextWriter.written.get(0).getKey());
+    }
+    
+    @Test
+    public void testSpillWhenFull() throws Exception {
+        conf.setInt(INDEX_TABLE + SpillBufferContextWriter.TABLES_TO_BUFFER_SUFFIX, 1);
+        SpillBufferContextWriter writer = new SpillBufferContextWriter();
+        writer.setup(conf, false);
+        
+        writer.write(a, new Value("1".getBytes()), context);
+        writer.commit(context);
+        writer.write(a, new Value("1".getBytes()), context);
+        writer.commit(context);
+        
+        assertEquals(2, ListContextWriter.written.size());
+        assertEquals(2, reporter.getCounter(SpillBufferContextWriter.SPILLED_BUFFER_COUNTER, INDEX_TABLE.toString()).getValue());
+        
+        writer.cleanup(context);
+        assertEquals(2, ListContextWriter.written.size());
+    }
+    
+    /**
+     * Keeps the committed entries in the order they were written
+     */
+    public static class ListContextWriter implements ContextWriter<BulkIngestKey,Value> {
+        
+        private static final List<Map.Entry<BulkIngestKey,Value>> written = new ArrayList<>();
+        
+        private final List<Map.Entry<BulkIngestKey,Value>> uncommitted = new ArrayList<>();
+        
+        public ListContextWriter() {
+            written.clear();
+        }
+        
+        @Override
+        public void setup(Configuration conf, boolean outputTableCounters) throws IOException, InterruptedException {}
+        
+        @Override
+        public void write(BulkIngestKey key, Value value, TaskInputOutputContext<?,?,BulkIngestKey,Value> context) throws IOException, InterruptedException {
+            uncommitted.add(Maps.immutableEntry(key, value));
+        }
+        
+        @Override
+        public void write(Multimap<BulkIngestKey,Value> entries, TaskInputOutputContext<?,?,BulkIngestKey,Value> context) throws IOException,
+                        InterruptedException {
+            uncommitted.addAll(entries.entries());
+        }
+        
+        @Override
+        public void commit(TaskInputOutputContext<?,?,BulkIngestKey,Value> context) throws IOException, InterruptedException {
+            written.addAll(uncommitted);
+            uncommitted.clear();
+        }
+        
+        @Override
+        public void rollback() throws IOException, InterruptedException {
+            uncommitted.clear();
+        }
+        
+        @Override
+        public void cleanup(TaskInputOutputContext<?,?,BulkIngestKey,Value> context) throws IOException, InterruptedException {
+            commit(context);
+        }
+    }
+}
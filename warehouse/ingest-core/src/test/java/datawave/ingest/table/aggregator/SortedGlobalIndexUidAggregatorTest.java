@@ -0,0 +1,145 @@
+package datawave.ingest.table.aggregator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import datawave.ingest.protobuf.Uid;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class SortedGlobalIndexUidAggregatorTest {
+    
+    private static Value toValue(boolean ignore, long count, List<String> uids, List<String> removed, List<String> quarantined) {
+        Uid.List.Builder b = Uid.List.newBuilder();
+        b.setIGNORE(ignore);
+        b.setCOUNT(count);
+        b.addAllUID(uids);
+        b.addAllREMOVEDUID(removed);
+        b.addAllQUARANTINEUID(quarantined);
+        return new Value(b.build().toByteArray());
+    }
+    
+    private static Value toValue(long count, String... uids) {
+        return toValue(false, count, Lists.newArrayList(uids), new ArrayList<String>(), new ArrayList<String>());
+    }
+    
+    private static List<String> randomUids(Random random, int max) {
+        List<String> uids = new ArrayList<>();
+        int n = random.nextInt(max + 1);
+        for (int i = 0; i < n; i++) {
+            // draw from a small space such that the UIDs overlap across values
+            uids.add("uid" + random.nextInt(40));
+        }
+        return uids;
+    }
+    
+    private static void assertSameResult(Value expected, Value actual) throws Exception {
+        Uid.List e = Uid.List.parseFrom(expected.get());
+        Uid.List a = Uid.List.parseFrom(actual.get());
+        assertEquals(e.getIGNORE(), a.getIGNORE());
+        assertEquals(e.getCOUNT(), a.getCOUNT());
+        assertEquals(e.getUIDCount(), a.getUIDCount());
+        assertEquals(new HashSet<>(e.getUIDList()), new HashSet<>(a.getUIDList()));
+        assertEquals(new HashSet<>(e.getREMOVEDUIDList()), new HashSet<>(a.getREMOVEDUIDList()));
+        assertEquals(new HashSet<>(e.getQUARANTINEUIDList()), new HashSet<>(a.getQUARANTINEUIDList()));
+    }
+    
+    @Test
+    public void testEquivalentToGlobalIndexUidAggregator() throws Exception {
+        Random random = new Random(8675309);
+        for (int max : new int[] {5, GlobalIndexUidAggregator.MAX}) {
+            GlobalIndexUidAggregator expected = new GlobalIndexUidAggregator(max);
+            SortedGlobalIndexUidAggregator actual = new SortedGlobalIndexUidAggregator(max);
+            for (int trial = 0; trial < 2000; trial++) {
+                List<Value> values = new ArrayList<>();
+                int n = 1 + random.nextInt(8);
+                for (int i = 0; i < n; i++) {
+                    long count = random.nextInt(7) - 3;
+                    boolean ignore = random.nextInt(20) == 0;
+                    values.add(toValue(ignore, count, randomUids(random, 6), randomUids(random, 3), randomUids(random, 2)));
+                }
+                if (random.nextInt(10) == 0) {
+                    values.add(random.nextInt(values.size() + 1), new Value("not a protobuf".getBytes()));
+                }
+                
+                // the aggregators are reused across keys as they would be by the iterators
+                expected.reset();
+                actual.reset();
+                boolean propogate = random.nextBoolean();
+                expected.setPropogate(propogate);
+                actual.setPropogate(propogate);
+                
+                Key key = new Key("row");
+                assertSameResult(expected.reduce(key, values.iterator()), actual.reduce(key, values.iterator()));
+                assertEquals(expected.propogateKey(), actual.propogateKey());
+            }
+        }
+    }
+    
+    @Test
+    public void testUidsAreSorted() throws Exception {
+        SortedGlobalIndexUidAggregator agg = new SortedGlobalIndexUidAggregator();
+        agg.reset();
+        Value result = agg.reduce(new Key("key"), Lists.newArrayList(toValue(2, "c", "a"), toValue(2, "b", "a")).iterator());
+        Uid.List list = Uid.List.parseFrom(result.get());
+        assertEquals(4, list.getCOUNT());
+        assertEquals(Lists.newArrayList("a", "b", "c"), list.getUIDList());
+    }
+    
+    @Test
+    public void testRemoval() throws Exception {
+        SortedGlobalIndexUidAggregator agg = new SortedGlobalIndexUidAggregator();
+        agg.reset();
+        Value result = agg.reduce(new Key("key"), Lists.newArrayList(toValue(1, "a"), toValue(-1, "a")).iterator());
+        Uid.List list = Uid.List.parseFrom(result.get());
+        assertEquals(0, list.getCOUNT());
+        assertEquals(0, list.getUIDCount());
+        assertEquals(Lists.newArrayList("a"), list.getREMOVEDUIDList());
+        assertFalse(agg.propogateKey());
+    }
+    
+    @Test
+    public void testUnknownFieldsAreSkipped() throws Exception {
+        // a value with a trailing unknown varint field (6) and length delimited field (7)
+        byte[] known = toValue(1, "a").get();
+        byte[] bytes = new byte[known.length + 5];
+        System.arraycopy(known, 0, bytes, 0, known.length);
+        bytes[known.length] = (6 << 3);
+        bytes[known.length + 1] = 1;
+        bytes[known.length + 2] = (7 << 3) | 2;
+        bytes[known.length + 3] = 1;
+        bytes[known.length + 4] = 'z';
+        
+        SortedGlobalIndexUidAggregator agg = new SortedGlobalIndexUidAggregator();
+        agg.reset();
+        Value result = agg.reduce(new Key("key"), Lists.newArrayList(new Value(bytes), toValue(1, "b")).iterator());
+        Uid.List list = Uid.List.parseFrom(result.get());
+        assertEquals(2, list.getCOUNT());
+        assertEquals(Lists.newArrayList("a", "b"), list.getUIDList());
+        assertTrue(agg.propogateKey());
+    }
+    
+    @Test
+    public void testTruncatedValueIsSkipped() throws Exception {
+        byte[] bytes = toValue(1, "abcdef").get();
+        byte[] truncated = new byte[bytes.length - 2];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        
+        SortedGlobalIndexUidAggregator agg = new SortedGlobalIndexUidAggregator();
+        agg.reset();
+        Value result = agg.reduce(new Key("key"), Lists.newArrayList(new Value(truncated), toValue(1, "b")).iterator());
+        Uid.List list = Uid.List.parseFrom(result.get());
+        assertEquals(1, list.getCOUNT());
+        assertEquals(Lists.newArrayList("b"), list.getUIDList());
+    }
+}
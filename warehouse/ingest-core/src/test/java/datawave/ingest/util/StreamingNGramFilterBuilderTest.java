@@ -0,0 +1,133 @@
+package datawave.ingest.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import datawave.ingest.data.config.NormalizedContentInterface;
+import datawave.ingest.data.config.NormalizedFieldAndValue;
+import datawave.ingest.data.config.ingest.AbstractContentIngestHelper;
+
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+
+public class StreamingNGramFilterBuilderTest {
+    
+    private AbstractContentIngestHelper helper;
+    
+    @Before
+    public void setup() {
+        helper = EasyMock.createMock(AbstractContentIngestHelper.class);
+        EasyMock.expect(helper.getTokenFieldNameDesignator()).andReturn("_TOKEN").anyTimes();
+        EasyMock.expect(helper.isContentIndexField(EasyMock.anyObject(String.class))).andAnswer(() -> "BODY".equals(EasyMock.getCurrentArguments()[0]))
+                        .anyTimes();
+        EasyMock.expect(helper.isReverseContentIndexField(EasyMock.anyObject(String.class))).andReturn(false).anyTimes();
+        EasyMock.replay(helper);
+    }
+    
+    @Test
+    public void testAllNGramsApplied() throws Exception {
+        String body = "The quick brown fox jumped over the lazy dog \uD83D\uDE00 twice";
+        Multimap<String,NormalizedContentInterface> fields = fields(body, "ABC");
+        
+        BloomFilterWrapper result = new StreamingNGramFilterBuilder(helper, 10, -1, -1, 0f, 0f, ResourceAvailabilityUtil.ROOT_PATH).build(fields);
+        
+        Set<String> ngrams = ngrams(body, 10);
+        for (String ngram : ngrams) {
+            assertTrue(ngram, result.getFilter().mightContain(ngram));
+        }
+        assertTrue(result.getFilter().mightContain(body));
+        assertTrue(result.getFilter().mightContain("ABC"));
+        assertEquals(3, result.getFieldValuesAppliedToFilter());
+        assertEquals(0, result.getNGramsPrunedFromFilter());
+        assertFalse(result.isTimedOut());
+        
+        // the filter is sized for the distinct n-grams, within the error of the estimate
+        int distinct = ngrams.size() + 2;
+        assertTrue(result.getExpectedInsertions() > distinct * 0.9);
+        assertTrue(result.getExpectedInsertions() < distinct * 1.1);
+    }
+    
+    @Test
+    public void testRepetitiveContentIsSizedByDistinctNGrams() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            body.append("lorem ipsum dolor sit amet ");
+        }
+        BloomFilterWrapper result = new StreamingNGramFilterBuilder(helper, 25, -1, -1, 0f, 0f, ResourceAvailabilityUtil.ROOT_PATH).build(fields(
+                        body.toString(), "ABC"));
+        
+        int distinct = ngrams(body.toString(), 25).size() + 2;
+        assertTrue(result.getExpectedInsertions() < distinct * 1.1);
+        assertTrue(result.getExpectedInsertions() < BloomFilterUtil.predictNGramCount(body.toString(), 25) / 100);
+    }
+    
+    @Test
+    public void testShorterNGramsAreKeptWhenLimited() throws Exception {
+        Random random = new Random(7);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            body.append((char) ('a' + random.nextInt(26)));
+        }
+        int maxAllowed = 20000;
+        BloomFilterWrapper result = new StreamingNGramFilterBuilder(helper, 25, maxAllowed, -1, 0f, 0f, ResourceAvailabilityUtil.ROOT_PATH).build(fields(
+                        body.toString(), "ABC"));
+        
+        assertEquals(maxAllowed, result.getExpectedInsertions());
+        assertEquals(maxAllowed - 3, result.getNGramsAppliedToFilter());
+        assertTrue(result.getNGramsPrunedFromFilter() > 0);
+        for (String ngram : ngrams(body.toString(), 3)) {
+            assertTrue(ngram, result.getFilter().mightContain(ngram));
+        }
+    }
+    
+    @Test
+    public void testSketchEstimate() {
+        CardinalitySketch sketch = new CardinalitySketch();
+        assertEquals(0, sketch.estimate());
+        for (long i = 0; i < 100000; i++) {
+            sketch.offer(CardinalitySketch.mix(i));
+            sketch.offer(CardinalitySketch.mix(i));
+        }
+        assertTrue(Math.abs(sketch.estimate() - 100000) < 5000);
+        
+        sketch.clear();
+        for (long i = 0; i < 100; i++) {
+            sketch.offer(CardinalitySketch.mix(i));
+        }
+        assertTrue(Math.abs(sketch.estimate() - 100) < 5);
+    }
+    
+    private static Multimap<String,NormalizedContentInterface> fields(String body, String other) {
+        Multimap<String,NormalizedContentInterface> fields = HashMultimap.create();
+        fields.put("BODY", new NormalizedFieldAndValue("BODY", body));
+        fields.put("BODY_TOKEN", new NormalizedFieldAndValue("BODY_TOKEN", body));
+        fields.put("OTHER", new NormalizedFieldAndValue("OTHER", other));
+        return fields;
+    }
+    
+    private static Set<String> ngrams(String value, int maxNGramLength) throws Exception {
+        Set<String> ngrams = new HashSet<>();
+        try (NGramTokenizer tokenizer = new NGramTokenizer(2, maxNGramLength)) {
+            tokenizer.setReader(new StringReader(value));
+            CharTermAttribute term = tokenizer.addAttribute(CharTermAttribute.class);
+            tokenizer.reset();
+            while (tokenizer.incrementToken()) {
+                ngrams.add(term.toString());
+            }
+            tokenizer.end();
+        }
+        return ngrams;
+    }
+}
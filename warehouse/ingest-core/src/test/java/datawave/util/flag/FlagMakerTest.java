@@ -151,6 +151,31 @@ public class FlagMakerTest extends AbstractFlagConfig {
         assertEquals(0, cleanCnt);
     }
     
+    /**
+     * Test of processFlags method using incremental discovery of the input files
+     */
+    @Test
+    public void testProcessFlagsIncremental() throws Exception {
+        log.info("-----  testProcessFlagsIncremental  -----");
+        File f = setUpFlagDir();
+        File inventoryFile = new File(fmc.getBaseHDFSDir(), "inventory.gz");
+        fmc.setIncrementalDiscovery(true);
+        fmc.setInventoryFile(inventoryFile.getPath());
+        // two days, 5 files each day, two folders in fmc = 20 flags
+        createTestFiles(2, 5);
+        FlagMaker instance = new TestWrappedFlagMaker(fmc);
+        instance.processFlags();
+        assertEquals("Incorrect files.  Expected 2 but got " + f.listFiles().length + ": " + Arrays.toString(f.listFiles()), 2, f.listFiles().length);
+        assertTrue(inventoryFile.exists());
+        
+        // the files moved to flagged are not found again, the new ones are
+        instance.processFlags();
+        assertEquals("Incorrect files.  Expected 2 but got " + f.listFiles().length + ": " + Arrays.toString(f.listFiles()), 2, f.listFiles().length);
+        createTestFiles(2, 5);
+        instance.processFlags();
+        assertEquals("Incorrect files.  Expected 4 but got " + f.listFiles().length + ": " + Arrays.toString(f.listFiles()), 4, f.listFiles().length);
+    }
+    
     /**
      * Test of time stamps of the flag files
      */
@@ -0,0 +1,157 @@
+package datawave.util.flag;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InputFileInventoryTest {
+    
+    private static final String BASE_DIR = "target/test/inventory";
+    private static final String FOLDER = BASE_DIR + "/foo";
+    private static final String FILE_PATTERN = "2*/*/*/[0-9a-zA-Z]*[0-9a-zA-Z]";
+    private static final String INVENTORY_FILE = BASE_DIR + "/inventory.gz";
+    
+    private FileSystem fs;
+    private long modified;
+    
+    @Before
+    public void setUp() throws Exception {
+        File base = new File(BASE_DIR);
+        if (base.exists()) {
+            FileUtils.deleteDirectory(base);
+        }
+        fs = FileSystem.getLocal(new Configuration());
+        // keep the modification times well in the past such that the listings are trusted
+        modified = System.currentTimeMillis() - 3600000L;
+        for (int day = 1; day <= 3; day++) {
+            for (int i = 0; i < 4; i++) {
+                createFile("2013/01/0" + day, "file" + i);
+            }
+            createFile("2013/01/0" + day, "file.tmp._COPYING_");
+        }
+        touch(modified, "2013/01/01", "2013/01/02", "2013/01/03", "2013/01", "2013", "");
+    }
+    
+    @Test
+    public void testMatchesGlobStatus() throws Exception {
+        InputFileInventory inventory = new InputFileInventory(null, 0);
+        inventory.beginScan();
+        assertEquals(paths(fs.globStatus(new Path(FOLDER + "/" + FILE_PATTERN))), paths(inventory.globStatus(fs, FOLDER, FILE_PATTERN)));
+        inventory.endScan();
+        // the folder, year, month and three day directories
+        assertEquals(6, inventory.getListCount());
+        
+        assertEquals(0, inventory.globStatus(fs, BASE_DIR + "/missing", FILE_PATTERN).length);
+    }
+    
+    @Test
+    public void testOnlyChangedDirectoriesAreListed() throws Exception {
+        InputFileInventory inventory = new InputFileInventory(null, 0);
+        inventory.beginScan();
+        assertEquals(12, inventory.globStatus(fs, FOLDER, FILE_PATTERN).length);
+        inventory.endScan();
+        long listed = inventory.getListCount();
+        
+        inventory.beginScan();
+        assertEquals(12, inventory.globStatus(fs, FOLDER, FILE_PATTERN).length);
+        inventory.endScan();
+        assertEquals(listed, inventory.getListCount());
+        
+        createFile("2013/01/02", "added");
+        touch(modified + 1000, "2013/01/02");
+        inventory.beginScan();
+        Set<String> found = paths(inventory.globStatus(fs, FOLDER, FILE_PATTERN));
+        inventory.endScan();
+        assertEquals(13, found.size());
+        assertTrue(found.contains(fs.makeQualified(new Path(FOLDER + "/2013/01/02/added")).toString()));
+        // only the directory the file was added to, its parents did not change
+        assertEquals(listed + 1, inventory.getListCount());
+        
+        FileUtils.deleteDirectory(new File(FOLDER + "/2013/01/03"));
+        touch(modified + 2000, "2013/01");
+        inventory.beginScan();
+        assertEquals(9, inventory.globStatus(fs, FOLDER, FILE_PATTERN).length);
+        inventory.endScan();
+        // only the month directory, the remaining days did not change
+        assertEquals(listed + 2, inventory.getListCount());
+    }
+    
+    @Test
+    public void testRecentlyModifiedDirectoriesAreListedAgain() throws Exception {
+        InputFileInventory inventory = new InputFileInventory(null, 3600000L * 2);
+        inventory.beginScan();
+        inventory.globStatus(fs, FOLDER, FILE_PATTERN);
+        inventory.endScan();
+        long listed = inventory.getListCount();
+        
+        inventory.beginScan();
+        inventory.globStatus(fs, FOLDER, FILE_PATTERN);
+        inventory.endScan();
+        assertEquals(listed * 2, inventory.getListCount());
+    }
+    
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        InputFileInventory inventory = new InputFileInventory(INVENTORY_FILE, 0);
+        inventory.beginScan();
+        Set<String> expected = paths(inventory.globStatus(fs, FOLDER, FILE_PATTERN));
+        inventory.endScan();
+        assertTrue(new File(INVENTORY_FILE).exists());
+        
+        InputFileInventory loaded = new InputFileInventory(INVENTORY_FILE, 0);
+        loaded.load();
+        loaded.beginScan();
+        FileStatus[] files = loaded.globStatus(fs, FOLDER, FILE_PATTERN);
+        loaded.endScan();
+        assertEquals(0, loaded.getListCount());
+        assertEquals(expected, paths(files));
+        for (FileStatus file : files) {
+            FileStatus actual = fs.getFileStatus(file.getPath());
+            assertEquals(actual.getLen(), file.getLen());
+            assertEquals(actual.getModificationTime(), file.getModificationTime());
+        }
+    }
+    
+    @Test
+    public void testUnreadableInventoryIsIgnored() throws Exception {
+        FileUtils.writeStringToFile(new File(INVENTORY_FILE), "not an inventory");
+        InputFileInventory inventory = new InputFileInventory(INVENTORY_FILE, 0);
+        inventory.load();
+        inventory.beginScan();
+        assertEquals(12, inventory.globStatus(fs, FOLDER, FILE_PATTERN).length);
+        inventory.endScan();
+        assertEquals(6, inventory.getListCount());
+    }
+    
+    private void createFile(String dir, String name) throws IOException {
+        File file = new File(FOLDER + "/" + dir + "/" + name);
+        FileUtils.writeStringToFile(file, name);
+        file.setLastModified(modified);
+    }
+    
+    private void touch(long time, String... dirs) {
+        for (String dir : dirs) {
+            assertTrue(new File(FOLDER + "/" + dir).setLastModified(time));
+        }
+    }
+    
+    private static Set<String> paths(FileStatus[] files) {
+        Set<String> paths = new TreeSet<>();
+        for (FileStatus file : files) {
+            paths.add(file.getPath().toString());
+        }
+        return paths;
+    }
+}
@@ -2,10 +2,8 @@ package datawave.ingest.wikipedia;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.StringReader;
 import java.util.Arrays;
 import java.util.Set;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPOutputStream;
 
@@ -24,6 +22,7 @@ import datawave.ingest.mapreduce.handler.shard.ShardedDataTypeHandler;
 import datawave.ingest.mapreduce.handler.shard.content.BoundedOffsetQueue.OffsetList;
 import datawave.ingest.mapreduce.handler.shard.content.ContentIndexCounters;
 import datawave.ingest.mapreduce.handler.shard.content.TermAndZone;
+import datawave.ingest.mapreduce.handler.tokenize.ContentChunkTokenizer;
 import datawave.ingest.mapreduce.handler.tokenize.ExtendedContentIndexingColumnBasedHandler;
 import datawave.ingest.mapreduce.job.BulkIngestKey;
 import datawave.ingest.mapreduce.job.writer.ContextWriter;
@@ -44,7 +43,7 @@ import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 import org.apache.hadoop.util.bloom.BloomFilter;
 import org.apache.log4j.Logger;
-import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.wikipedia.WikipediaTokenizer;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
@@ -100,7 +99,7 @@ public class WikipediaDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> extends ExtendedCon
         this.counters = new ContentIndexCounters();
         disableDCol = conf.getBoolean(OPT_NO_D_COL, disableDCol);
         
-        docWriterService = Executors.newSingleThreadExecutor();
+        docWriterService = createDocWriterService(conf);
         try {
             AccumuloHelper accumuloHelper = new AccumuloHelper();
             accumuloHelper.setup(conf);
@@ -128,6 +127,20 @@ public class WikipediaDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> extends ExtendedCon
         }
     }
     
+    /**
+     * Wikipedia markup is tokenized by the {@link WikipediaTokenizer}, without synonyms and without the term type blacklist or term length limits of the
+     * configured analyzer.
+     */
+    @Override
+    protected ContentChunkTokenizer createContentTokenizer(int chunkSize, int threads) {
+        return new ContentChunkTokenizer(new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                return new TokenStreamComponents(new WikipediaTokenizer());
+            }
+        }, null, null, Integer.MAX_VALUE, Integer.MAX_VALUE, chunkSize, threads);
+    }
+    
     @Override
     public long process(KEYIN key, RawRecordContainer event, Multimap<String,NormalizedContentInterface> eventFields,
                     TaskInputOutputContext<KEYIN,? extends RawRecordContainer,KEYOUT,VALUEOUT> context, ContextWriter<KEYOUT,VALUEOUT> contextWriter)
@@ -203,11 +216,10 @@ public class WikipediaDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> extends ExtendedCon
         return count;
     }
     
-    protected long tokenizeTextNode(String content, RawRecordContainer event, byte[] visibility,
-                    TaskInputOutputContext<KEYIN,? extends RawRecordContainer,KEYOUT,VALUEOUT> context, ContextWriter<KEYOUT,VALUEOUT> contextWriter,
-                    String fieldName, String fieldNameToken, StatusReporter reporter) throws IOException, InterruptedException {
-        
-        StringReader contentReader = new StringReader(content);
+    protected long tokenizeTextNode(String content, final RawRecordContainer event, byte[] visibility,
+                    final TaskInputOutputContext<KEYIN,? extends RawRecordContainer,KEYOUT,VALUEOUT> context,
+                    final ContextWriter<KEYOUT,VALUEOUT> contextWriter, final String fieldName, final String fieldNameToken, final StatusReporter reporter)
+                    throws IOException, InterruptedException {
         
         int position = 0;
         try {
@@ -239,29 +251,18 @@ public class WikipediaDataTypeHandler<KEYIN,KEYOUT,VALUEOUT> extends ExtendedCon
                 }
             }
             
-            WikipediaTokenizer wikiTokenizer = new WikipediaTokenizer();
-            wikiTokenizer.setReader(contentReader);
-            CharTermAttribute termAttr = wikiTokenizer.addAttribute(CharTermAttribute.class);
-            wikiTokenizer.reset();
-            
-            while (wikiTokenizer.incrementToken()) {
-                String term = termAttr.toString();
-                
-                // getting the next token can take a long time depending on the compexity of the data...
-                // so lets report progress to hadoop on each round
-                if (context != null)
-                    context.progress();
-                
-                if (StringUtils.isBlank(term)) {
-                    context.getCounter("Tokenization", "Blank tokens (null, empty, or whitespace)").increment(1l);
-                    continue;
+            // blank tokens are skipped without taking a position, so the positions number the terms from 0 and the last position is one less than the count
+            position = tokenizeContent(content, fieldName, -1, reporter, new ContentChunkTokenizer.TermConsumer() {
+                @Override
+                public void accept(String term, int termPosition) throws IOException, InterruptedException {
+                    // processing the terms can take a long time depending on the compexity of the data...
+                    // so lets report progress to hadoop on each round
+                    if (context != null)
+                        context.progress();
+                    
+                    processTerm(event, termPosition, term, null, context, contextWriter, fieldName, fieldNameToken, reporter);
                 }
-                
-                processTerm(event, position, term, null, context, contextWriter, fieldName, fieldNameToken, reporter);
-                
-                // Get the word position for this term
-                position++;
-            }
+            }) + 1;
             
             // now flush out the offset queue
             if (tokenOffsetCache != null) {
@@ -1,6 +1,7 @@
 package datawave.ingest.wikipedia;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -11,11 +12,15 @@ import datawave.ingest.mapreduce.job.BulkIngestKey;
 import datawave.ingest.mapreduce.job.writer.AbstractContextWriter;
 import datawave.ingest.mapreduce.StandaloneStatusReporter;
 import datawave.ingest.mapreduce.StandaloneTaskAttemptContext;
+import datawave.ingest.mapreduce.handler.tokenize.ExtendedContentIndexingColumnBasedHandler;
 
 import datawave.util.TableName;
 import org.apache.accumulo.core.data.Value;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
 import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -150,4 +155,66 @@ public class WikipediaDataTypeHandlerTest extends WikipediaTestBed {
         Assert.assertEquals(22799 + numberOfDatawaveMetadataEntries + numberOfLoadDateEntries, results.size());
     }
     
+    @Test
+    public void testChunkedTokenization() throws Exception {
+        long inputDate = System.currentTimeMillis();
+        Multimap<BulkIngestKey,Value> serial = processRecords(0, inputDate);
+        Multimap<BulkIngestKey,Value> chunked = processRecords(4, inputDate);
+        
+        // the keys and term frequencies written must not depend on how the content was tokenized
+        for (String table : Arrays.asList(TableName.SHARD, TableName.SHARD_INDEX, TableName.SHARD_RINDEX)) {
+            Multimap<BulkIngestKey,Value> expected = getTable(serial, table);
+            Assert.assertFalse(expected.isEmpty());
+            Assert.assertEquals(table, expected, getTable(chunked, table));
+        }
+    }
+    
+    private Multimap<BulkIngestKey,Value> processRecords(int chunkThreads, long inputDate) throws Exception {
+        conf.setInt(ExtendedContentIndexingColumnBasedHandler.OPT_TOKENIZER_CHUNK_THREADS, chunkThreads);
+        // small enough to split the revision text of the second record into many chunks
+        conf.setInt(ExtendedContentIndexingColumnBasedHandler.OPT_TOKENIZER_CHUNK_SIZE, 256);
+        TaskAttemptContext chunkCtx = new TaskAttemptContextImpl(conf, new TaskAttemptID());
+        
+        WikipediaRecordReader reader = new WikipediaRecordReader();
+        reader.initialize(split, chunkCtx);
+        reader.setInputDate(inputDate);
+        
+        WikipediaDataTypeHandler<Text,BulkIngestKey,Value> chunkHandler = new WikipediaDataTypeHandler<>();
+        chunkHandler.setup(chunkCtx);
+        
+        WikipediaIngestHelper helper = new WikipediaIngestHelper();
+        helper.setup(conf);
+        
+        MyCachingContextWriter contextWriter = new MyCachingContextWriter();
+        StandaloneTaskAttemptContext<Text,RawRecordContainer,BulkIngestKey,Value> context = new StandaloneTaskAttemptContext<>(conf,
+                        new StandaloneStatusReporter());
+        int records = 0;
+        try {
+            while (reader.nextKeyValue()) {
+                RawRecordContainer e = reader.getEvent();
+                Multimap<String,NormalizedContentInterface> eventFields = helper.getEventFields(e);
+                Multimap<String,NormalizedContentInterface> virtualFields = ((VirtualIngest) helper).getVirtualFields(eventFields);
+                for (Entry<String,NormalizedContentInterface> v : virtualFields.entries()) {
+                    eventFields.put(v.getKey(), v.getValue());
+                }
+                chunkHandler.process(new Text(Integer.toString(++records)), e, eventFields, context, contextWriter);
+            }
+        } finally {
+            contextWriter.commit(context);
+            chunkHandler.close(context);
+            reader.close();
+        }
+        Assert.assertEquals(2, records);
+        return contextWriter.getCache();
+    }
+    
+    private static Multimap<BulkIngestKey,Value> getTable(Multimap<BulkIngestKey,Value> results, String table) {
+        Multimap<BulkIngestKey,Value> tableResults = HashMultimap.create();
+        for (Map.Entry<BulkIngestKey,Value> entry : results.entries()) {
+            if (table.equals(entry.getKey().getTableName().toString())) {
+                tableResults.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return tableResults;
+    }
 }
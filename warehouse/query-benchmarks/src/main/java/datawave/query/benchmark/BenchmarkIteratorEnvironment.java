@@ -0,0 +1,68 @@
+package datawave.query.benchmark;
+
+import org.apache.accumulo.core.client.SampleNotPresentException;
+import org.apache.accumulo.core.client.sample.SamplerConfiguration;
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.IteratorUtil;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.security.Authorizations;
+
+/**
+ * A minimal scan time iterator environment used when a QueryIterator is driven directly rather than through a scanner.
+ */
+public class BenchmarkIteratorEnvironment implements IteratorEnvironment {
+    
+    private final Authorizations authorizations;
+    
+    public BenchmarkIteratorEnvironment(Authorizations authorizations) {
+        this.authorizations = authorizations;
+    }
+    
+    @Override
+    public SortedKeyValueIterator<Key,Value> reserveMapFileReader(String mapFileName) {
+        throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public AccumuloConfiguration getConfig() {
+        return AccumuloConfiguration.getDefaultConfiguration();
+    }
+    
+    @Override
+    public IteratorUtil.IteratorScope getIteratorScope() {
+        return IteratorUtil.IteratorScope.scan;
+    }
+    
+    @Override
+    public boolean isFullMajorCompaction() {
+        return false;
+    }
+    
+    @Override
+    public void registerSideChannel(SortedKeyValueIterator<Key,Value> iter) {
+        throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public Authorizations getAuthorizations() {
+        return authorizations;
+    }
+    
+    @Override
+    public boolean isSamplingEnabled() {
+        return false;
+    }
+    
+    @Override
+    public SamplerConfiguration getSamplerConfiguration() {
+        return null;
+    }
+    
+    @Override
+    public IteratorEnvironment cloneWithSamplingEnabled() {
+        throw new SampleNotPresentException();
+    }
+}
@@ -0,0 +1,60 @@
+package datawave.query.benchmark;
+
+import static datawave.query.benchmark.SyntheticShard.HIGH_CARD_FIELD;
+import static datawave.query.benchmark.SyntheticShard.LOW_CARD_FIELD;
+import static datawave.query.benchmark.SyntheticShard.PHRASE;
+import static datawave.query.benchmark.SyntheticShard.TF_FIELD;
+import static datawave.query.benchmark.SyntheticShard.UNINDEXED_FIELD;
+import static datawave.query.benchmark.SyntheticShard.highCardValue;
+import static datawave.query.benchmark.SyntheticShard.lowCardValue;
+
+/**
+ * The query shapes exercised by the benchmarks. Each shape stresses a different part of the QueryIterator evaluation path against a {@link SyntheticShard}.
+ */
+public enum BenchmarkQuery {
+    
+    /** a single field index term, exercises the index iterator and document aggregation */
+    SINGLE_TERM(LOW_CARD_FIELD + " == '" + lowCardValue(1) + "'"),
+    
+    /** an intersection of a selective and an unselective term, exercises the AndIterator */
+    INTERSECTION(LOW_CARD_FIELD + " == '" + lowCardValue(1) + "' && " + HIGH_CARD_FIELD + " == '" + highCardValue(1) + "'"),
+    
+    /** a union of two terms, exercises the OrIterator */
+    UNION(LOW_CARD_FIELD + " == '" + lowCardValue(1) + "' || " + HIGH_CARD_FIELD + " == '" + highCardValue(1) + "'"),
+    
+    /** an indexed term filtered by an unindexed term, exercises jexl evaluation of the event */
+    EVENT_FILTER(LOW_CARD_FIELD + " == '" + lowCardValue(1) + "' && " + UNINDEXED_FIELD + " == 'u1'"),
+    
+    /** a negated term, exercises the AndIterator with a negated child */
+    NEGATION(LOW_CARD_FIELD + " == '" + lowCardValue(1) + "' && !(" + UNINDEXED_FIELD + " == 'u1')"),
+    
+    /**
+     * a phrase against a tokenized field, in the form the planner expands a content function into, exercises the term frequency lookup and content function
+     * evaluation
+     */
+    TERM_FREQUENCY(TF_FIELD + " == '" + PHRASE[0] + "' && " + TF_FIELD + " == '" + PHRASE[1] + "' && content:phrase(" + TF_FIELD + ", termOffsetMap, '"
+                    + PHRASE[0] + "', '" + PHRASE[1] + "')", true);
+    
+    private final String query;
+    private final boolean termFrequenciesRequired;
+    
+    BenchmarkQuery(String query) {
+        this(query, false);
+    }
+    
+    BenchmarkQuery(String query, boolean termFrequenciesRequired) {
+        this.query = query;
+        this.termFrequenciesRequired = termFrequenciesRequired;
+    }
+    
+    public String getQuery() {
+        return query;
+    }
+    
+    /**
+     * @return true if the query contains a content function, which requires the term offsets to be gathered before evaluation
+     */
+    public boolean isTermFrequenciesRequired() {
+        return termFrequenciesRequired;
+    }
+}
@@ -0,0 +1,90 @@
+package datawave.query.benchmark;
+
+import datawave.ingest.protobuf.Uid;
+import datawave.ingest.table.aggregator.GlobalIndexUidAggregator;
+import datawave.ingest.table.aggregator.PropogatingCombiner;
+import datawave.ingest.table.aggregator.SortedGlobalIndexUidAggregator;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the GlobalIndexUidAggregator against the SortedGlobalIndexUidAggregator, merging the Uid.List values of one global index key the way a compaction
+ * or the ingest combiner would. Each value carries a few UIDs, and a fraction of the values are removals. The allocation rate reported by the GC profiler is
+ * the main point of comparison.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class GlobalIndexUidAggregatorBenchmark {
+    
+    public enum Aggregator {
+        HASHED, SORTED
+    }
+    
+    @Param({"HASHED", "SORTED"})
+    public Aggregator aggregator;
+    
+    @Param({"4", "64"})
+    public int valuesPerKey;
+    
+    @Param({"2"})
+    public int uidsPerValue;
+    
+    @Param({"10"})
+    public int removalPercent;
+    
+    private final Key key = new Key("term", "FIELD", "20190101_0\u0000datatype");
+    private PropogatingCombiner combiner;
+    private List<Value> values;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        combiner = (aggregator == Aggregator.SORTED ? new SortedGlobalIndexUidAggregator() : new GlobalIndexUidAggregator());
+        
+        Random random = new Random(0);
+        List<String> added = new ArrayList<>();
+        values = new ArrayList<>(valuesPerKey);
+        for (int i = 0; i < valuesPerKey; i++) {
+            Uid.List.Builder builder = Uid.List.newBuilder().setIGNORE(false);
+            if (!added.isEmpty() && random.nextInt(100) < removalPercent) {
+                builder.setCOUNT(-1);
+                builder.addREMOVEDUID(added.get(random.nextInt(added.size())));
+            } else {
+                builder.setCOUNT(uidsPerValue);
+                for (int j = 0; j < uidsPerValue; j++) {
+                    String uid = UUID.randomUUID().toString();
+                    added.add(uid);
+                    builder.addUID(uid);
+                }
+            }
+            values.add(new Value(builder.build().toByteArray()));
+        }
+    }
+    
+    @Benchmark
+    public Value reduce() {
+        combiner.reset();
+        return combiner.reduce(key, values.iterator());
+    }
+}
@@ -0,0 +1,83 @@
+package datawave.query.benchmark;
+
+import datawave.query.iterator.QueryIterator;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the latency of a single QueryIterator.next() call (including getTopKey/getTopValue) against a synthetic shard. The sample time mode reports the
+ * latency distribution, including the p99. When the shard is exhausted the iterator is rebuilt and re-seeked within the sampled call, so prefer large shards
+ * to keep that cost out of the reported percentiles.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class QueryIteratorNextBenchmark {
+    
+    @Param({"100000"})
+    public int documents;
+    
+    @Param({"100", "10000"})
+    public int fieldCardinality;
+    
+    @Param({"10"})
+    public int tokensPerDocument;
+    
+    @Param({"SINGLE_TERM", "INTERSECTION", "UNION", "EVENT_FILTER", "NEGATION", "TERM_FREQUENCY"})
+    public BenchmarkQuery query;
+    
+    @Param({"true"})
+    public boolean serialPipeline;
+    
+    private SyntheticShard shard;
+    private QueryIterator iterator;
+    private Range range;
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        shard = new SyntheticShard(documents, fieldCardinality, tokensPerDocument);
+        range = new Range(SyntheticShard.ROW);
+        reseek();
+    }
+    
+    private void reseek() throws IOException {
+        iterator = new QueryIterator();
+        iterator.init(shard.createSource(), QueryIteratorOptions.build(shard, query, serialPipeline),
+                        new BenchmarkIteratorEnvironment(shard.getAuthorizations()));
+        iterator.seek(range, Collections.emptyList(), false);
+        if (!iterator.hasTop()) {
+            throw new IllegalStateException("Query " + query + " returned no documents from the synthetic shard");
+        }
+    }
+    
+    @Benchmark
+    public Key next(Blackhole blackhole) throws IOException {
+        if (!iterator.hasTop()) {
+            reseek();
+        }
+        Key key = iterator.getTopKey();
+        blackhole.consume(iterator.getTopValue());
+        iterator.next();
+        return key;
+    }
+}
@@ -0,0 +1,43 @@
+package datawave.query.benchmark;
+
+import datawave.query.iterator.QueryOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the option map handed to the QueryIterator by the planner, reduced to what is needed to evaluate a {@link BenchmarkQuery} against a
+ * {@link SyntheticShard}.
+ */
+public class QueryIteratorOptions {
+    
+    private QueryIteratorOptions() {}
+    
+    /**
+     * @param shard
+     *            the shard being queried
+     * @param query
+     *            the query to evaluate
+     * @param serialPipeline
+     *            whether to force the serial evaluation pipeline
+     * @return the iterator options
+     */
+    public static Map<String,String> build(SyntheticShard shard, BenchmarkQuery query, boolean serialPipeline) {
+        Map<String,String> options = new HashMap<>();
+        options.put(QueryOptions.QUERY, query.getQuery());
+        options.put(QueryOptions.QUERY_ID, "benchmark-" + query.name());
+        options.put(QueryOptions.TYPE_METADATA, shard.getTypeMetadata().toString());
+        options.put(QueryOptions.INDEXED_FIELDS, SyntheticShard.INDEXED_FIELDS);
+        options.put(QueryOptions.NON_INDEXED_DATATYPES, SyntheticShard.DATATYPE + ':' + SyntheticShard.UNINDEXED_FIELD);
+        options.put(QueryOptions.INDEX_ONLY_FIELDS, SyntheticShard.INDEX_ONLY_FIELDS);
+        options.put(QueryOptions.TERM_FREQUENCY_FIELDS, SyntheticShard.TF_FIELD);
+        options.put(QueryOptions.CONTENT_EXPANSION_FIELDS, SyntheticShard.TF_FIELD);
+        options.put(QueryOptions.TERM_FREQUENCIES_REQUIRED, Boolean.toString(query.isTermFrequenciesRequired()));
+        options.put(QueryOptions.ALLOW_FIELD_INDEX_EVALUATION, "true");
+        options.put(QueryOptions.ALLOW_TERM_FREQUENCY_LOOKUP, "true");
+        options.put(QueryOptions.SERIAL_EVALUATION_PIPELINE, Boolean.toString(serialPipeline));
+        options.put(QueryOptions.START_TIME, Long.toString(SyntheticShard.EVENT_TIME - 1));
+        options.put(QueryOptions.END_TIME, Long.toString(SyntheticShard.EVENT_TIME + 1));
+        return options;
+    }
+}
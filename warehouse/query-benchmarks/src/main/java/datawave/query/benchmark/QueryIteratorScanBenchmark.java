@@ -0,0 +1,96 @@
+package datawave.query.benchmark;
+
+import datawave.query.iterator.QueryIterator;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end to end QueryIterator throughput through the scan time iterator stack of an in memory instance. The {@link DocumentCounter} auxiliary counter
+ * reports the number of documents returned per second alongside the number of full shard scans per second. When run through {@link BenchmarkRunner}, the
+ * allocation rate is reported by the GC profiler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class QueryIteratorScanBenchmark {
+    
+    @Param({"10000", "100000"})
+    public int documents;
+    
+    @Param({"100", "10000"})
+    public int fieldCardinality;
+    
+    @Param({"10"})
+    public int tokensPerDocument;
+    
+    @Param({"SINGLE_TERM", "INTERSECTION", "UNION", "EVENT_FILTER", "NEGATION", "TERM_FREQUENCY"})
+    public BenchmarkQuery query;
+    
+    @Param({"true", "false"})
+    public boolean serialPipeline;
+    
+    private SyntheticShard shard;
+    private Connector connector;
+    private IteratorSetting setting;
+    
+    /**
+     * Counts the documents returned by each scan so that JMH reports a documents per second rate in addition to the scan rate.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class DocumentCounter {
+        public long documents;
+        
+        @Setup(Level.Iteration)
+        public void reset() {
+            documents = 0;
+        }
+    }
+    
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        shard = new SyntheticShard(documents, fieldCardinality, tokensPerDocument);
+        connector = shard.loadInMemoryInstance();
+        setting = new IteratorSetting(100, "query", QueryIterator.class);
+        setting.addOptions(QueryIteratorOptions.build(shard, query, serialPipeline));
+    }
+    
+    @Benchmark
+    public void scanShard(DocumentCounter counter, Blackhole blackhole) throws Exception {
+        Scanner scanner = connector.createScanner(SyntheticShard.TABLE_NAME, shard.getAuthorizations());
+        try {
+            scanner.setRange(new Range(SyntheticShard.ROW));
+            scanner.addScanIterator(setting);
+            for (Map.Entry<Key,Value> entry : scanner) {
+                blackhole.consume(entry);
+                counter.documents++;
+            }
+        } finally {
+            scanner.close();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package datawave.query.benchmark;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import datawave.ingest.protobuf.TermWeight;
+import datawave.query.Constants;
+import datawave.query.util.TypeMetadata;
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.TableExistsException;
+import org.apache.accumulo.core.client.TableNotFoundException;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.hadoop.io.Text;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Builds a single synthetic shard containing event, field index and term frequency keys laid out exactly as ingest would write them into the shard table.
+ * The shard is materialized both as a sorted map (so that a QueryIterator may be driven directly) and inside an {@link InMemoryInstance} (so that a
+ * QueryIterator may be driven through a real scanner and iterator stack).
+ * <p>
+ * The generated documents contain the following fields:
+ * <ul>
+ * <li>{@link #HIGH_CARD_FIELD}: indexed, one of {@code fieldCardinality} values</li>
+ * <li>{@link #LOW_CARD_FIELD}: indexed, one of ten values</li>
+ * <li>{@link #UNINDEXED_FIELD}: not indexed, one of ten values</li>
+ * <li>{@link #TF_FIELD}: index only and tokenized, {@code tokensPerDocument} tokens drawn from {@code fieldCardinality} tokens, with the offsets of each token
+ * in its term frequency key. Every {@link #PHRASE_INTERVAL}th document also contains the phrase {@link #PHRASE} at a random position.</li>
+ * </ul>
+ * Values are generated from a fixed seed so that every fork of a benchmark sees the same shard.
+ */
+public class SyntheticShard {
+    
+    public static final String TABLE_NAME = "shard";
+    public static final String ROW = "20190101_0";
+    public static final String DATATYPE = "benchmark";
+    
+    public static final String HIGH_CARD_FIELD = "HIGH_CARD_FIELD";
+    public static final String LOW_CARD_FIELD = "LOW_CARD_FIELD";
+    public static final String UNINDEXED_FIELD = "UNINDEXED_FIELD";
+    public static final String TF_FIELD = "TF_FIELD";
+    
+    public static final String INDEXED_FIELDS = HIGH_CARD_FIELD + ',' + LOW_CARD_FIELD + ',' + TF_FIELD;
+    public static final String INDEX_ONLY_FIELDS = TF_FIELD;
+    
+    public static final String[] PHRASE = {token(0), token(1)};
+    public static final int PHRASE_INTERVAL = 10;
+    
+    public static final long EVENT_TIME = 1546300800000L;
+    
+    private static final String NORMALIZER = "datawave.data.type.LcNoDiacriticsType";
+    private static final long SEED = 0xDA7AL;
+    private static final Value EMPTY_VALUE = new Value(new byte[0]);
+    
+    private final int documents;
+    private final int fieldCardinality;
+    private final int tokensPerDocument;
+    private final SortedMap<Key,Value> data = new TreeMap<>();
+    
+    private InMemoryInstance instance;
+    
+    /**
+     * @param documents
+     *            the number of events to generate in the shard
+     * @param fieldCardinality
+     *            the number of distinct values for the high cardinality and term frequency fields
+     * @param tokensPerDocument
+     *            the number of term frequency tokens generated per document
+     */
+    public SyntheticShard(int documents, int fieldCardinality, int tokensPerDocument) {
+        this.documents = documents;
+        this.fieldCardinality = fieldCardinality;
+        this.tokensPerDocument = tokensPerDocument;
+        generate();
+    }
+    
+    private void generate() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < documents; i++) {
+            String uid = uid(i);
+            
+            addIndexedField(HIGH_CARD_FIELD, highCardValue(random.nextInt(fieldCardinality)), uid);
+            addIndexedField(LOW_CARD_FIELD, lowCardValue(random.nextInt(10)), uid);
+            addEvent(UNINDEXED_FIELD, "u" + random.nextInt(10), uid);
+            
+            int phraseOffset = -1;
+            if (i % PHRASE_INTERVAL == 0 && tokensPerDocument >= PHRASE.length) {
+                phraseOffset = random.nextInt(tokensPerDocument - PHRASE.length + 1);
+            }
+            
+            // like ingest, a tokenized field has no event key, and a term frequency key per distinct token holding all of its offsets
+            Map<String,TermWeight.Info.Builder> offsets = new HashMap<>();
+            for (int t = 0; t < tokensPerDocument; t++) {
+                String token;
+                if (phraseOffset >= 0 && t >= phraseOffset && t < phraseOffset + PHRASE.length) {
+                    token = PHRASE[t - phraseOffset];
+                } else {
+                    token = token(random.nextInt(fieldCardinality));
+                }
+                offsets.computeIfAbsent(token, k -> TermWeight.Info.newBuilder()).addTermOffset(t);
+            }
+            for (Map.Entry<String,TermWeight.Info.Builder> entry : offsets.entrySet()) {
+                addTokenizedField(TF_FIELD, entry.getKey(), entry.getValue().build(), uid);
+            }
+        }
+    }
+    
+    private void addTokenizedField(String field, String token, TermWeight.Info offsets, String uid) {
+        put(new Key(ROW, "fi" + Constants.NULL + field, token + Constants.NULL + DATATYPE + Constants.NULL + uid, EVENT_TIME));
+        data.put(new Key(ROW, "tf", DATATYPE + Constants.NULL + uid + Constants.NULL + token + Constants.NULL + field, EVENT_TIME),
+                        new Value(offsets.toByteArray()));
+    }
+    
+    private void addIndexedField(String field, String value, String uid) {
+        addEvent(field, value, uid);
+        put(new Key(ROW, "fi" + Constants.NULL + field, value + Constants.NULL + DATATYPE + Constants.NULL + uid, EVENT_TIME));
+    }
+    
+    private void addEvent(String field, String value, String uid) {
+        put(new Key(ROW, DATATYPE + Constants.NULL + uid, field + Constants.NULL + value, EVENT_TIME));
+    }
+    
+    private void put(Key key) {
+        data.put(key, EMPTY_VALUE);
+    }
+    
+    /**
+     * Load the generated keys into a shard table inside an in memory instance, creating the instance on first use.
+     *
+     * @return a connector to the in memory instance
+     */
+    public Connector loadInMemoryInstance() throws AccumuloException, AccumuloSecurityException, TableExistsException, TableNotFoundException {
+        if (instance == null) {
+            instance = new InMemoryInstance(SyntheticShard.class.getName() + '-' + documents + '-' + fieldCardinality + '-' + tokensPerDocument);
+        }
+        Connector connector = instance.getConnector("root", new PasswordToken(new byte[0]));
+        if (!connector.tableOperations().exists(TABLE_NAME)) {
+            connector.tableOperations().create(TABLE_NAME);
+            BatchWriter writer = connector.createBatchWriter(TABLE_NAME, new BatchWriterConfig());
+            try {
+                Mutation mutation = null;
+                Text currentFamily = null;
+                for (Map.Entry<Key,Value> entry : data.entrySet()) {
+                    Key key = entry.getKey();
+                    // a single shard means a single row, however a mutation per column family keeps each mutation a reasonable size
+                    if (mutation == null || !key.getColumnFamily().equals(currentFamily)) {
+                        if (mutation != null) {
+                            writer.addMutation(mutation);
+                        }
+                        mutation = new Mutation(key.getRow());
+                        currentFamily = key.getColumnFamily();
+                    }
+                    mutation.put(key.getColumnFamily(), key.getColumnQualifier(), new ColumnVisibility(key.getColumnVisibility()), key.getTimestamp(),
+                                    entry.getValue());
+                }
+                if (mutation != null) {
+                    writer.addMutation(mutation);
+                }
+            } finally {
+                writer.close();
+            }
+        }
+        return connector;
+    }
+    
+    /**
+     * @return a fresh source iterator over the generated keys, suitable for passing to {@code QueryIterator.init}
+     */
+    public SortedKeyValueIterator<Key,Value> createSource() {
+        return new SortedMapIterator(data);
+    }
+    
+    public TypeMetadata getTypeMetadata() {
+        TypeMetadata typeMetadata = new TypeMetadata();
+        typeMetadata.put(HIGH_CARD_FIELD, DATATYPE, NORMALIZER);
+        typeMetadata.put(LOW_CARD_FIELD, DATATYPE, NORMALIZER);
+        typeMetadata.put(TF_FIELD, DATATYPE, NORMALIZER);
+        return typeMetadata;
+    }
+    
+    public Authorizations getAuthorizations() {
+        return Authorizations.EMPTY;
+    }
+    
+    public int getDocuments() {
+        return documents;
+    }
+    
+    public int getKeyCount() {
+        return data.size();
+    }
+    
+    public static String uid(int document) {
+        // mimic the shape of a datawave hash uid
+        int hash = document * 0x9E3779B1;
+        return String.format("%08x.%08x.%08x", hash, Integer.reverse(hash), document);
+    }
+    
+    public static String highCardValue(int index) {
+        return "h" + index;
+    }
+    
+    public static String lowCardValue(int index) {
+        return "l" + index;
+    }
+    
+    public static String token(int index) {
+        return "t" + index;
+    }
+}
@@ -2,18 +2,24 @@ package datawave.core.iterators;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.common.collect.Multimap;
+import com.google.common.hash.Hashing;
 import datawave.query.composite.CompositeSeeker.FieldIndexCompositeSeeker;
 import datawave.core.iterators.querylock.QueryLock;
 import datawave.query.Constants;
 import datawave.query.composite.CompositeMetadata;
+import datawave.query.iterator.filter.FieldIndexKeyDataTypeFilter;
 import datawave.query.iterator.profile.QuerySpan;
 import datawave.query.iterator.profile.QuerySpanCollector;
 import datawave.query.iterator.profile.SourceTrackingIterator;
 import datawave.query.predicate.TimeFilter;
 import datawave.query.util.TypeMetadata;
 import datawave.query.util.sortedset.HdfsBackedSortedSet;
+import datawave.query.util.sortedset.KeyValueRecordSerializer;
 import datawave.query.util.sortedset.KeyValueSerializable;
+import datawave.query.util.sortedset.MappedFileBackedSortedSet;
+import datawave.query.util.sortedset.PersistableSortedSet;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.PartialKey;
@@ -23,6 +29,7 @@ import org.apache.accumulo.core.iterators.IterationInterruptedException;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.WrappingIterator;
+import org.apache.accumulo.core.security.Authorizations;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
@@ -30,9 +37,12 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.Text;
 import org.apache.log4j.Logger;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -48,10 +58,11 @@ import java.util.stream.Collectors;
 
 /**
  * The Ivarator base class
- *
+ * 
  * An iterator for the Datawave shard table, it searches FieldIndex keys and returns Event keys (its topKey must be an Event key).
  * 
- * This version will cache the values in an underlying HDFS file backed sorted set before returning the first top key.
+ * This version will cache the values in an underlying HDFS file backed sorted set before returning the first top key. When mapped spill is enabled and the
+ * ivarator cache dir is on the local file system, the set is instead spilled to memory mapped sorted runs (see MappedFileBackedSortedSet).
  * 
  * FieldIndex keys: fi\0{fieldName}:{fieldValue}\0datatype\0uid
  * 
@@ -75,6 +86,9 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
         private long scanThreshold = 10000;
         private int hdfsBackedSetBufferSize = 10000;
         private int maxOpenFiles = 100;
+        private boolean resultCache = false;
+        private boolean mappedSpill = false;
+        private Authorizations authorizations;
         private boolean sortedUIDs = true;
         protected QuerySpanCollector querySpanCollector = null;
         protected volatile boolean collectTimingDetails = false;
@@ -146,6 +160,21 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
             return self();
         }
         
+        public B withResultCache(boolean resultCache) {
+            this.resultCache = resultCache;
+            return self();
+        }
+        
+        public B withMappedSpill(boolean mappedSpill) {
+            this.mappedSpill = mappedSpill;
+            return self();
+        }
+        
+        public B withAuthorizations(Authorizations authorizations) {
+            this.authorizations = authorizations;
+            return self();
+        }
+        
         public B withFileSystem(FileSystem fs) {
             this.fs = fs;
             return self();
@@ -199,6 +228,8 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
     public static final String NULL_BYTE = Constants.NULL_BYTE_STRING;
     public static final String ONE_BYTE = "\u0001";
     public static final PartialKey DEFAULT_RETURN_KEY_TYPE = PartialKey.ROW_COLFAM;
+    // the scheme of ivarator cache dirs that may be spilled to memory mapped files
+    public static final String LOCAL_FILE_SCHEME = "file";
     // This iterator should have no seek column families. This is because all filtering is done by the bounding FI ranges,
     // the timefilter, and the datatype filters.
     // We do not want the underlying iterators to filter keys so that we can check the bounds in this iterator as quickly
@@ -249,6 +280,18 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
     // the max number of files to open simultaneously during a merge source
     private final int maxOpenFiles;
     
+    // share completed fills with other queries through the tserver wide result cache
+    private boolean resultCache = false;
+    
+    // spill to memory mapped sorted runs rather than the hdfs backed sorted set when the cache dir is on the local file system
+    private boolean mappedSpill = false;
+    
+    // the authorizations of the scan, which scope the cached results
+    private Authorizations authorizations = null;
+    
+    // the latest field index timestamp scanned by the current fill
+    private final AtomicLong latestFiTimestamp = new AtomicLong(Long.MIN_VALUE);
+    
     // the current top key
     private Key topKey = null;
     // the current top value
@@ -262,8 +305,10 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
     // an fiSource used when not doing sorted UIDs
     private SortedKeyValueIterator<Key,Value> fiSource = null;
     
-    // the hdfs backed sorted set
-    private HdfsBackedSortedSet<KeyValueSerializable> set = null;
+    // the hdfs (or local mapped file) backed sorted set
+    private PersistableSortedSet<KeyValueSerializable> set = null;
+    // did we create the set, as opposed to sharing the set of the iterator we were copied from
+    private boolean createdSet = false;
     // a thread safe wrapper around the sorted set used by the scan threads
     private SortedSet<KeyValueSerializable> threadSafeSet = null;
     // the iterator (merge sort) of key values once the sorted set has been filled
@@ -335,6 +380,9 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
                         builder.hdfsBackedSetBufferSize, builder.maxRangeSplit, builder.maxOpenFiles, builder.fs, builder.uniqueDir, builder.queryLock,
                         builder.allowDirReuse, builder.returnKeyType, builder.sortedUIDs, builder.compositeMetadata, builder.compositeSeekThreshold,
                         builder.typeMetadata);
+        this.resultCache = builder.resultCache;
+        this.mappedSpill = builder.mappedSpill;
+        this.authorizations = builder.authorizations;
     }
     
     @SuppressWarnings("hiding")
@@ -400,6 +448,9 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
         this.scanTimeout = other.scanTimeout;
         this.hdfsBackedSetBufferSize = other.hdfsBackedSetBufferSize;
         this.maxOpenFiles = other.maxOpenFiles;
+        this.resultCache = other.resultCache;
+        this.mappedSpill = other.mappedSpill;
+        this.authorizations = other.authorizations;
         
         this.set = other.set;
         this.keyValues = other.keyValues;
@@ -611,7 +662,7 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
     /**
      * From a field index key, this builds row=shardId, cf=datatype\0UID, cq=fieldname\0fieldvalue Note: in the non-sorted case we need to include the COLQUAL
      * to maintain the position in the FI for reseeking purposes
-     *
+     * 
      * @param key
      * @return Key(shardId, datatype\0UID)
      */
@@ -742,19 +793,35 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
     
     private void fillSortedSets() throws IOException {
         String sourceRow = this.fiRow.toString();
+        
+        // another query may have already filled this row
+        String resultCacheKey = getResultCacheKey();
+        if (resultCacheKey != null) {
+            List<KeyValueSerializable> cached = IvaratorResultCache.instance().get(sourceRow, resultCacheKey);
+            if (cached != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Using " + cached.size() + " cached results for " + sourceRow + " in " + this);
+                }
+                this.keyValues = cached.iterator();
+                moveToNextRow();
+                return;
+            }
+        }
+        
         setupRowBasedHdfsBackedSet(sourceRow);
+        latestFiTimestamp.set(Long.MIN_VALUE);
         
-        // for each range, fork off a runnable
-        List<Future<?>> futures = new ArrayList<>(boundingFiRanges.size());
+        // fork off a runnable per range (and at least one per allowed range split), each of which takes ranges from the queue and splits the
+        // ranges other runnables are still working on once the queue is empty
+        WorkStealingRangeQueue queue = new WorkStealingRangeQueue(boundingFiRanges);
+        int workers = Math.max(boundingFiRanges.size(), maxRangeSplit);
+        List<Future<?>> futures = new ArrayList<>(workers);
         if (log.isDebugEnabled()) {
-            log.debug("Processing " + boundingFiRanges + " for " + this);
+            log.debug("Processing " + boundingFiRanges + " with " + workers + " workers for " + this);
         }
         
-        for (Range range : boundingFiRanges) {
-            if (log.isTraceEnabled()) {
-                log.trace("range -> " + range);
-            }
-            futures.add(fillSet(range));
+        for (int i = 0; i < workers; i++) {
+            futures.add(fillSets(queue));
         }
         
         boolean failed = false;
@@ -789,6 +856,23 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
             throw new IvaratorException("Failed to complete ivarator cache: " + result, exception);
         }
         
+        if (log.isDebugEnabled()) {
+            log.debug("Filled " + boundingFiRanges.size() + " ranges with " + queue.getSteals() + " steals for " + this);
+        }
+        
+        // share the results if the fill completed and they never left memory
+        if (resultCacheKey != null && !this.setControl.isCancelledQuery()) {
+            if (this.set != null && !this.set.hasPersistedData()) {
+                List<KeyValueSerializable> results;
+                synchronized (this.threadSafeSet) {
+                    results = new ArrayList<>(this.threadSafeSet);
+                }
+                IvaratorResultCache.instance().put(sourceRow, resultCacheKey, results, latestFiTimestamp.get());
+            } else {
+                IvaratorResultCache.instance().observe(sourceRow, latestFiTimestamp.get());
+            }
+        }
+        
         // now reset the current source to the next viable range
         moveToNextRow();
     }
@@ -872,7 +956,7 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
     
     /**
      * Get a source copy. If the source is setup as a ThreadLocalPooledSource, then no copy is needed.
-     *
+     * 
      * @param force
      *            a deepcopy. This is needed if a separate copy is needed within the same thread (i.e. ThreadLocalPooledSource is not enough)
      * @return a source
@@ -924,136 +1008,177 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
     }
     
     /**
-     * This method will asynchronously fill the set with matches from within the specified bounding FI range.
+     * This method will asynchronously fill the set with matches from the bounding FI ranges taken from the queue, until the queue has no range left to hand
+     * out.
      * 
-     * @param boundingFiRange
+     * @param queue
      * @return the Future
      */
-    protected Future<?> fillSet(final Range boundingFiRange) {
+    protected Future<?> fillSets(final WorkStealingRangeQueue queue) {
         
         // create runnable
         Runnable runnable = () -> {
-            if (log.isDebugEnabled()) {
-                log.debug("Starting fillSet(" + boundingFiRange + ')');
-            }
-            int scanned = 0;
-            int matched = 0;
             QuerySpan querySpan = null;
             SortedKeyValueIterator<Key,Value> source = null;
-            Key nextSeekKey = null;
-            int nextCount = 0;
+            WorkStealingRangeQueue.Split split = null;
             try {
-                source = getSourceCopy(false);
-                if (collectTimingDetails && source instanceof SourceTrackingIterator) {
-                    querySpan = ((SourceTrackingIterator) source).getQuerySpan();
+                while (!DatawaveFieldIndexCachingIteratorJexl.this.setControl.isCancelledQuery() && (split = queue.take()) != null) {
+                    if (source == null) {
+                        source = getSourceCopy(false);
+                        if (collectTimingDetails && source instanceof SourceTrackingIterator) {
+                            querySpan = ((SourceTrackingIterator) source).getQuerySpan();
+                        }
+                    }
+                    long start = System.currentTimeMillis();
+                    try {
+                        fillSet(source, split);
+                    } finally {
+                        queue.done(split);
+                    }
+                    // track the progress of each split
+                    if (querySpan != null) {
+                        querySpan.addStageTimer(QuerySpan.Stage.IvaratorFill, System.currentTimeMillis() - start);
+                    }
+                }
+            } catch (Exception e) {
+                // throw the exception up which will be available via the Future
+                log.error("Failed to complete fillSet(" + (split == null ? null : split.getRange()) + ")", e);
+                throw new RuntimeException(e);
+            } finally {
+                releaseSource(source);
+                if (collectTimingDetails && querySpanCollector != null && querySpan != null) {
+                    querySpanCollector.addQuerySpan(querySpan);
                 }
+            }
+        };
+        
+        return IteratorThreadPoolManager.executeIvarator(runnable, DatawaveFieldIndexCachingIteratorJexl.this + " in " + boundingFiRanges);
+        
+    }
+    
+    /**
+     * Fill the set with matches from within a bounding FI range, stopping early if another thread takes over the rest of the range.
+     * 
+     * @param source
+     * @param split
+     * @throws IOException
+     */
+    private void fillSet(SortedKeyValueIterator<Key,Value> source, WorkStealingRangeQueue.Split split) throws IOException {
+        Range boundingFiRange = split.getRange();
+        if (log.isDebugEnabled()) {
+            log.debug("Starting fillSet(" + boundingFiRange + ')');
+        }
+        int scanned = 0;
+        int matched = 0;
+        Key nextSeekKey = null;
+        int nextCount = 0;
+        long latestTimestamp = Long.MIN_VALUE;
+        try {
+            // seek the source to a range covering the entire row....the bounding box will dictate the actual scan
+            source.seek(boundingFiRange, EMPTY_CFS, false);
+            scanned++;
+            DatawaveFieldIndexCachingIteratorJexl.this.scannedKeys.incrementAndGet();
+            
+            // if this is a range iterator, build the composite-safe Fi range
+            Range compositeSafeFiRange = (this instanceof DatawaveFieldIndexRangeIteratorJexl) ? ((DatawaveFieldIndexRangeIteratorJexl) this)
+                            .buildCompositeSafeFiRange(fiRow, fiName, fieldValue) : null;
+            
+            while (source.hasTop()) {
+                checkTiming();
                 
-                // seek the source to a range covering the entire row....the bounding box will dictate the actual scan
-                source.seek(boundingFiRange, EMPTY_CFS, false);
-                scanned++;
-                DatawaveFieldIndexCachingIteratorJexl.this.scannedKeys.incrementAndGet();
+                Key top = source.getTopKey();
                 
-                // if this is a range iterator, build the composite-safe Fi range
-                Range compositeSafeFiRange = (this instanceof DatawaveFieldIndexRangeIteratorJexl) ? ((DatawaveFieldIndexRangeIteratorJexl) this)
-                                .buildCompositeSafeFiRange(fiRow, fiName, fieldValue) : null;
+                // stop once we reach the part of the range another thread has taken over
+                if (split.isPastEnd(top)) {
+                    break;
+                }
+                split.scanned(top);
+                latestTimestamp = Math.max(latestTimestamp, top.getTimestamp());
                 
-                while (source.hasTop()) {
-                    checkTiming();
+                // if we are setup for composite seeking, seek if we are out of range
+                if (compositeSeeker != null && compositeSafeFiRange != null) {
+                    String colQual = top.getColumnQualifier().toString();
+                    String ingestType = colQual.substring(colQual.indexOf('\0') + 1, colQual.lastIndexOf('\0'));
+                    String colFam = top.getColumnFamily().toString();
+                    String fieldName = colFam.substring(colFam.indexOf('\0') + 1);
                     
-                    Key top = source.getTopKey();
+                    Collection<String> componentFields = null;
+                    String separator = null;
+                    Multimap<String,String> compositeToFieldMap = compositeMetadata.getCompositeFieldMapByType().get(ingestType);
+                    Map<String,String> compositeSeparatorMap = compositeMetadata.getCompositeFieldSeparatorsByType().get(ingestType);
+                    if (compositeToFieldMap != null && compositeSeparatorMap != null) {
+                        componentFields = compositeToFieldMap.get(fieldName);
+                        separator = compositeSeparatorMap.get(fieldName);
+                    }
                     
-                    // if we are setup for composite seeking, seek if we are out of range
-                    if (compositeSeeker != null && compositeSafeFiRange != null) {
-                        String colQual = top.getColumnQualifier().toString();
-                        String ingestType = colQual.substring(colQual.indexOf('\0') + 1, colQual.lastIndexOf('\0'));
-                        String colFam = top.getColumnFamily().toString();
-                        String fieldName = colFam.substring(colFam.indexOf('\0') + 1);
+                    if (componentFields != null && separator != null && !compositeSeeker.isKeyInRange(top, compositeSafeFiRange, separator)) {
+                        boolean shouldSeek = false;
                         
-                        Collection<String> componentFields = null;
-                        String separator = null;
-                        Multimap<String,String> compositeToFieldMap = compositeMetadata.getCompositeFieldMapByType().get(ingestType);
-                        Map<String,String> compositeSeparatorMap = compositeMetadata.getCompositeFieldSeparatorsByType().get(ingestType);
-                        if (compositeToFieldMap != null && compositeSeparatorMap != null) {
-                            componentFields = compositeToFieldMap.get(fieldName);
-                            separator = compositeSeparatorMap.get(fieldName);
+                        // top key precedes nextSeekKey
+                        if (nextSeekKey != null && top.compareTo(nextSeekKey) < 0) {
+                            // if we hit the seek threshold, seek
+                            if (nextCount >= compositeSeekThreshold)
+                                shouldSeek = true;
                         }
-                        
-                        if (componentFields != null && separator != null && !compositeSeeker.isKeyInRange(top, compositeSafeFiRange, separator)) {
-                            boolean shouldSeek = false;
+                        // top key exceeds nextSeekKey, or nextSeekKey unset
+                        else {
+                            nextCount = 0;
+                            nextSeekKey = null;
                             
-                            // top key precedes nextSeekKey
-                            if (nextSeekKey != null && top.compareTo(nextSeekKey) < 0) {
-                                // if we hit the seek threshold, seek
+                            // get a new seek key
+                            Key newStartKey = compositeSeeker.nextSeekKey(new ArrayList<>(componentFields), top, compositeSafeFiRange, separator);
+                            if (newStartKey != boundingFiRange.getStartKey() && newStartKey.compareTo(boundingFiRange.getStartKey()) > 0
+                                            && newStartKey.compareTo(boundingFiRange.getEndKey()) <= 0) {
+                                nextSeekKey = newStartKey;
+                                
+                                // if we hit the seek threshold (i.e. if it is set to 0), seek
                                 if (nextCount >= compositeSeekThreshold)
                                     shouldSeek = true;
                             }
-                            // top key exceeds nextSeekKey, or nextSeekKey unset
-                            else {
-                                nextCount = 0;
-                                nextSeekKey = null;
-                                
-                                // get a new seek key
-                                Key newStartKey = compositeSeeker.nextSeekKey(new ArrayList<>(componentFields), top, compositeSafeFiRange, separator);
-                                if (newStartKey != boundingFiRange.getStartKey() && newStartKey.compareTo(boundingFiRange.getStartKey()) > 0
-                                                && newStartKey.compareTo(boundingFiRange.getEndKey()) <= 0) {
-                                    nextSeekKey = newStartKey;
-                                    
-                                    // if we hit the seek threshold (i.e. if it is set to 0), seek
-                                    if (nextCount >= compositeSeekThreshold)
-                                        shouldSeek = true;
-                                }
-                            }
-                            
-                            if (shouldSeek) {
-                                source.seek(new Range(nextSeekKey, boundingFiRange.isStartKeyInclusive(), boundingFiRange.getEndKey(), boundingFiRange
-                                                .isEndKeyInclusive()), EMPTY_CFS, false);
-                                
-                                // reset next count and seek key
-                                nextSeekKey = null;
-                                nextCount = 0;
-                            } else {
-                                nextCount++;
-                                source.next();
-                            }
+                        }
+                        
+                        if (shouldSeek) {
+                            source.seek(new Range(nextSeekKey, boundingFiRange.isStartKeyInclusive(), boundingFiRange.getEndKey(), boundingFiRange
+                                            .isEndKeyInclusive()), EMPTY_CFS, false);
                             
-                            scanned++;
-                            continue;
+                            // reset next count and seek key
+                            nextSeekKey = null;
+                            nextCount = 0;
+                        } else {
+                            nextCount++;
+                            source.next();
                         }
+                        
+                        scanned++;
+                        continue;
                     }
-                    
-                    // terminate if timed out or cancelled
-                    if (DatawaveFieldIndexCachingIteratorJexl.this.setControl.isCancelledQuery()) {
-                        break;
-                    }
-                    
-                    if (addKey(top, source.getTopValue())) {
-                        matched++;
-                    }
-                    
-                    source.next();
-                    scanned++;
-                    DatawaveFieldIndexCachingIteratorJexl.this.scannedKeys.incrementAndGet();
                 }
-            } catch (Exception e) {
-                // throw the exception up which will be available via the Future
-                log.error("Failed to complete fillSet(" + boundingFiRange + ")", e);
-                throw new RuntimeException(e);
-            } finally {
-                releaseSource(source);
-                if (log.isDebugEnabled()) {
-                    StringBuilder builder = new StringBuilder();
-                    builder.append("Matched ").append(matched).append(" out of ").append(scanned).append(" for ").append(boundingFiRange).append(": ")
-                                    .append(DatawaveFieldIndexCachingIteratorJexl.this);
-                    log.debug(builder.toString());
+                
+                // terminate if timed out or cancelled
+                if (DatawaveFieldIndexCachingIteratorJexl.this.setControl.isCancelledQuery()) {
+                    break;
                 }
-                if (collectTimingDetails && querySpanCollector != null && querySpan != null) {
-                    querySpanCollector.addQuerySpan(querySpan);
+                
+                if (addKey(top, source.getTopValue())) {
+                    matched++;
                 }
+                
+                source.next();
+                scanned++;
+                DatawaveFieldIndexCachingIteratorJexl.this.scannedKeys.incrementAndGet();
             }
-        };
-        
-        return IteratorThreadPoolManager.executeIvarator(runnable, DatawaveFieldIndexCachingIteratorJexl.this + " in " + boundingFiRange);
-        
+        } finally {
+            latestFiTimestamp.accumulateAndGet(latestTimestamp, Math::max);
+            if (log.isDebugEnabled()) {
+                StringBuilder builder = new StringBuilder();
+                builder.append("Matched ").append(matched).append(" out of ").append(scanned).append(" for ").append(boundingFiRange);
+                if (split.getStopKey() != null) {
+                    builder.append(" up to ").append(split.getStopKey());
+                }
+                builder.append(": ").append(DatawaveFieldIndexCachingIteratorJexl.this);
+                log.debug(builder.toString());
+            }
+        }
     }
     
     private static void releaseSource(SortedKeyValueIterator source) {
@@ -1084,9 +1209,25 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
     protected void clearRowBasedHdfsBackedSet() throws IOException {
         this.keyValues = null;
         this.currentRow = null;
+        closeSet();
         this.set = null;
     }
     
+    /**
+     * Release what the current set holds beyond the heap, i.e. the memory mappings of a mapped file backed set, rather than waiting for it to be garbage
+     * collected. Only the iterator that created the set closes it.
+     */
+    private void closeSet() {
+        if (this.createdSet && this.set instanceof Closeable) {
+            try {
+                ((Closeable) this.set).close();
+            } catch (IOException e) {
+                log.warn("Failed to close " + this.set, e);
+            }
+        }
+        this.createdSet = false;
+    }
+    
     /**
      * This will setup the set for the specified range. This will attempt to reuse precomputed and persisted sets if we are allowed to.
      * 
@@ -1116,7 +1257,15 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
                 this.createdRowDir = false;
             }
             
-            this.set = new HdfsBackedSortedSet<>(null, hdfsBackedSetBufferSize, fs, rowDir, maxOpenFiles);
+            closeSet();
+            // when enabled, a cache dir on the local file system is spilled to memory mapped runs instead of going through the hadoop file system
+            if (mappedSpill && LOCAL_FILE_SCHEME.equals(this.fs.getUri().getScheme())) {
+                this.set = new MappedFileBackedSortedSet<>(null, new KeyValueRecordSerializer(), hdfsBackedSetBufferSize, new File(rowDir.toUri().getPath()),
+                                maxOpenFiles);
+            } else {
+                this.set = new HdfsBackedSortedSet<>(null, hdfsBackedSetBufferSize, fs, rowDir, maxOpenFiles);
+            }
+            this.createdSet = true;
             this.threadSafeSet = Collections.synchronizedSortedSet(this.set);
             this.currentRow = row;
             this.setControl.takeOwnership(row, this);
@@ -1136,6 +1285,55 @@ public abstract class DatawaveFieldIndexCachingIteratorJexl extends WrappingIter
         }
     }
     
+    /**
+     * Get the key under which the results of filling the current row are shared with other queries. This covers everything that determines which keys end up
+     * in the set for a row: the expression being matched, the filters, the key type returned and the authorizations of the scan. The range seeked is not part
+     * of the key, as a fill always covers the whole row and the results are only limited to the range seeked as they are returned.
+     * 
+     * @return the key, or null if the results cannot be shared
+     */
+    protected String getResultCacheKey() {
+        if (!resultCache || !sortedUIDs || authorizations == null) {
+            return null;
+        }
+        String expression = getResultCacheExpression();
+        if (expression == null) {
+            return null;
+        }
+        
+        // only filters that describe themselves can be part of the key
+        String datatypes;
+        if (datatypeFilter == null) {
+            datatypes = "";
+        } else if (datatypeFilter instanceof FieldIndexKeyDataTypeFilter || datatypeFilter.equals(Predicates.alwaysTrue())) {
+            datatypes = datatypeFilter.toString();
+        } else {
+            return null;
+        }
+        
+        List<String> auths = new ArrayList<>();
+        for (byte[] auth : authorizations.getAuthorizations()) {
+            auths.add(new String(auth, StandardCharsets.UTF_8));
+        }
+        Collections.sort(auths);
+        String authsHash = Hashing.sha256().hashString(auths.toString(), StandardCharsets.UTF_8).toString();
+        
+        StringBuilder builder = new StringBuilder();
+        builder.append(expression).append(NULL_BYTE).append(datatypes).append(NULL_BYTE).append(timeFilter).append(NULL_BYTE).append(returnKeyType)
+                        .append(NULL_BYTE).append(authsHash);
+        return builder.toString();
+    }
+    
+    /**
+     * Get a description of the expression this ivarator matches, for use in the result cache key. This must be complete enough that two ivarators on the same
+     * field with the same description match the same keys.
+     * 
+     * @return the description, or null if the results of this ivarator cannot be shared
+     */
+    protected String getResultCacheExpression() {
+        return toString();
+    }
+    
     /**
      * Build the bounding FI ranges. Normally this returns only one range, but it could return multiple (@see DatawaveFieldIndexRegex/Range/ListIteratorJexl
      * superclasses). If multiple are returned, then they must be sorted. These ranges are expected to be exclusively in the field index!
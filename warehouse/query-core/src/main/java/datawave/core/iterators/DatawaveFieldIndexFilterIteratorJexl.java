@@ -77,6 +77,12 @@ public class DatawaveFieldIndexFilterIteratorJexl extends DatawaveFieldIndexRang
         return builder.toString();
     }
     
+    @Override
+    protected String getResultCacheExpression() {
+        // the filter does not describe what it matches
+        return null;
+    }
+    
     /**
      * Unlike the super class's buildBoundingFiRanges, we want the same bounding range even if we are negated. negation in this case only refers to the supplied
      * filter.
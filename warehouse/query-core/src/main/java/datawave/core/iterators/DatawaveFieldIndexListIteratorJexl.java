@@ -1,5 +1,9 @@
 package datawave.core.iterators;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import datawave.query.Constants;
 import datawave.query.jexl.DatawaveArithmetic;
 import org.apache.accumulo.core.data.Key;
@@ -23,13 +27,13 @@ import org.apache.lucene.util.packed.PackedInts;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.SortedSet;
+import java.util.concurrent.ExecutionException;
 
 /**
  * 
@@ -105,6 +109,15 @@ public class DatawaveFieldIndexListIteratorJexl extends DatawaveFieldIndexCachin
         return builder.toString();
     }
     
+    @Override
+    protected String getResultCacheExpression() {
+        // an FST does not describe itself, and the caller may not have kept its location
+        if (fst != null) {
+            return null;
+        }
+        return "DatawaveFieldIndexListIteratorJexl{fName=" + getFieldName() + ", values=" + values + ", negated=" + isNegated() + "}";
+    }
+    
     @Override
     protected List<Range> buildBoundingFiRanges(Text rowId, Text fiName, Text fieldValue) {
         if (fst != null || isNegated()) {
@@ -191,22 +204,24 @@ public class DatawaveFieldIndexListIteratorJexl extends DatawaveFieldIndexCachin
         return fstBuilder.finish();
     }
     
-    /** Utility class to load one instance of any FST per classloader */
+    /**
+     * Utility class to load one instance of any FST per classloader. The FSTs are keyed by their URI and weakly held, such that the scan sessions of a tablet
+     * server share an FST while any of them use it, and it may be collected once none do.
+     */
     public static class FSTManager {
-        static final Map<Path,FST<Object>> fstCache = new HashMap<>();
+        static final Cache<URI,FST<Object>> fstCache = CacheBuilder.newBuilder().weakValues().build();
         
-        public static synchronized FST<Object> get(Path fstfile, String compressedCodec, FileSystem fs) throws IOException {
+        public static FST<Object> get(Path fstfile, String compressedCodec, FileSystem fs) throws IOException {
             if (fstfile == null)
                 throw new NullPointerException("input fst key was null");
-            FST<Object> fst = fstCache.get(fstfile);
-            if (fst != null) {
-                return fst;
-            }
             
-            // Attempt to load fst from HDFS
-            fst = loadFSTFromFile(fstfile, compressedCodec, fs);
-            fstCache.put(fstfile, fst);
-            return fst;
+            // Attempt to load fst from HDFS, once for any number of concurrent callers
+            try {
+                return fstCache.get(fstfile.toUri(), () -> loadFSTFromFile(fstfile, compressedCodec, fs));
+            } catch (ExecutionException | UncheckedExecutionException e) {
+                Throwables.propagateIfPossible(e.getCause(), IOException.class);
+                throw new IOException("Unable to load fst " + fstfile, e.getCause());
+            }
         }
         
         public static FST<Object> loadFSTFromFile(Path filename, String compressionCodec, FileSystem fs) throws IOException {
@@ -231,20 +246,24 @@ public class DatawaveFieldIndexListIteratorJexl extends DatawaveFieldIndexCachin
             }
             
             InputStream fis = fs.open(filename);
-            if (codec != null) {
-                fis = codec.createInputStream(fis);
+            try {
+                if (codec != null) {
+                    fis = codec.createInputStream(fis);
+                }
+                NoOutputs outputs = NoOutputs.getSingleton();
+                DataInput di = new InputStreamDataInput(fis);
+                return new FST<>(di, outputs);
+            } finally {
+                fis.close();
             }
-            NoOutputs outputs = NoOutputs.getSingleton();
-            DataInput di = new InputStreamDataInput(fis);
-            return new FST<>(di, outputs);
         }
         
-        public static synchronized void clear(String file) {
-            fstCache.remove(file);
+        public static void clear(String file) {
+            fstCache.invalidate(new Path(file).toUri());
         }
         
-        public static synchronized void clear() {
-            fstCache.clear();
+        public static void clear() {
+            fstCache.invalidateAll();
         }
     }
 }
@@ -115,6 +115,11 @@ public class DatawaveFieldIndexRangeIteratorJexl extends DatawaveFieldIndexCachi
         return builder.toString();
     }
     
+    @Override
+    protected String getResultCacheExpression() {
+        return toString() + (subRanges == null ? "" : subRanges.toString());
+    }
+    
     @Override
     protected List<Range> buildBoundingFiRanges(Text rowId, Text fiName, Text fieldValue) {
         if (subRanges != null && !subRanges.isEmpty()) {
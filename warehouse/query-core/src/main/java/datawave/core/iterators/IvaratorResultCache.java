@@ -0,0 +1,236 @@
+package datawave.core.iterators;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.server.client.HdfsZooInstance;
+import org.apache.accumulo.server.conf.ServerConfigurationFactory;
+import org.apache.log4j.Logger;
+
+import datawave.query.util.sortedset.KeyValueSerializable;
+
+/**
+ * A tablet server wide cache of completed ivarator fills, shared across queries. Entries are keyed by shard and by a key describing everything that
+ * determines the contents of a fill (field, normalized expression, datatype and time filters, return key type and an authorizations hash), and are evicted
+ * least recently used first once the cache holds more than its configured number of bytes.
+ * <p>
+ * An iterator can see neither the files of a tablet nor when it was last compacted, so a hit cannot be checked against the current field index. Instead an
+ * entry is invalidated once a later fill on the same shard observes a field index key newer than anything the shard had seen when the entry was filled, and
+ * every entry expires after a maximum age. The default age is short, bounding how long data loaded with older timestamps, or deleted, may go unseen by a query
+ * served from the cache. The latest timestamp of a shard is only kept while the shard has entries in the cache, so the shards tracked are bounded by the
+ * entries held.
+ */
+public class IvaratorResultCache {
+    private static final Logger log = Logger.getLogger(IvaratorResultCache.class);
+    private static final String IVARATOR_RESULT_CACHE_BYTES_PROP = "tserver.datawave.ivarator.result.cache.bytes";
+    private static final String IVARATOR_RESULT_CACHE_AGE_PROP = "tserver.datawave.ivarator.result.cache.age";
+    private static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    private static final long DEFAULT_MAX_AGE = 30L * 1000;
+    // rough per entry overhead of a KeyValueSerializable, its Key and its arrays
+    private static final long ENTRY_OVERHEAD = 128;
+    
+    private static final Object instanceSemaphore = new Object();
+    private static volatile IvaratorResultCache instance;
+    
+    private final long maxBytes;
+    private final long maxAge;
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    
+    private final LinkedHashMap<String,Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String,Shard> shards = new HashMap<>();
+    
+    IvaratorResultCache(long maxBytes, long maxAge) {
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAge;
+    }
+    
+    public static IvaratorResultCache instance() {
+        if (instance == null) {
+            synchronized (instanceSemaphore) {
+                if (instance == null) {
+                    instance = create();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    private static IvaratorResultCache create() {
+        long maxBytes = DEFAULT_MAX_BYTES;
+        long maxAge = DEFAULT_MAX_AGE;
+        try {
+            AccumuloConfiguration conf = new ServerConfigurationFactory(HdfsZooInstance.getInstance()).getConfiguration();
+            Map<String,String> properties = new TreeMap<>();
+            conf.getProperties(properties, new AccumuloConfiguration.PrefixFilter("tserver.datawave.ivarator.result.cache."));
+            if (properties.containsKey(IVARATOR_RESULT_CACHE_BYTES_PROP)) {
+                maxBytes = Long.parseLong(properties.get(IVARATOR_RESULT_CACHE_BYTES_PROP));
+            }
+            if (properties.containsKey(IVARATOR_RESULT_CACHE_AGE_PROP)) {
+                maxAge = Long.parseLong(properties.get(IVARATOR_RESULT_CACHE_AGE_PROP));
+            }
+        } catch (Throwable e) {
+            log.error("Unable to get the accumulo configuration, using default ivarator result cache size (" + DEFAULT_MAX_BYTES + " bytes)");
+        }
+        return new IvaratorResultCache(maxBytes, maxAge);
+    }
+    
+    /**
+     * Get the results of a previous fill
+     * 
+     * @param shard
+     *            the shard (row) that was filled
+     * @param key
+     *            the key describing the fill
+     * @return the sorted results, or null if there is no valid entry
+     */
+    public synchronized List<KeyValueSerializable> get(String shard, String key) {
+        String cacheKey = shard + '\0' + key;
+        Entry entry = entries.get(cacheKey);
+        if (entry != null && !isValid(shard, entry)) {
+            remove(cacheKey);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.results;
+    }
+    
+    /**
+     * Cache the results of a completed fill. Results too large to be worth holding are dropped.
+     * 
+     * @param shard
+     *            the shard (row) that was filled
+     * @param key
+     *            the key describing the fill
+     * @param results
+     *            the sorted results, which must no longer be modified
+     * @param latestTimestamp
+     *            the latest field index timestamp scanned by the fill
+     */
+    public synchronized void put(String shard, String key, List<KeyValueSerializable> results, long latestTimestamp) {
+        observe(shard, latestTimestamp);
+        long size = sizeOf(key, results);
+        if (size > maxBytes / 4) {
+            if (log.isDebugEnabled()) {
+                log.debug("Not caching " + results.size() + " results (" + size + " bytes) for " + key);
+            }
+            return;
+        }
+        String cacheKey = shard + '\0' + key;
+        remove(cacheKey);
+        Shard state = shards.computeIfAbsent(shard, s -> new Shard());
+        state.timestamp = Math.max(state.timestamp, latestTimestamp);
+        state.entries++;
+        entries.put(cacheKey, new Entry(shard, Collections.unmodifiableList(results), size, state.timestamp, System.currentTimeMillis()));
+        bytes += size;
+        
+        // evict the least recently used entries until we are back under the limit
+        Iterator<Map.Entry<String,Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Entry evicted = it.next().getValue();
+            it.remove();
+            removed(evicted);
+        }
+    }
+    
+    /**
+     * Record the latest field index timestamp seen on a shard, invalidating any entry filled before data that new was seen. Nothing is recorded for a shard
+     * without entries, as there is nothing to invalidate.
+     * 
+     * @param shard
+     * @param timestamp
+     */
+    public synchronized void observe(String shard, long timestamp) {
+        Shard state = shards.get(shard);
+        if (state != null) {
+            state.timestamp = Math.max(state.timestamp, timestamp);
+        }
+    }
+    
+    public synchronized long getBytes() {
+        return bytes;
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    public synchronized long getHits() {
+        return hits;
+    }
+    
+    public synchronized long getMisses() {
+        return misses;
+    }
+    
+    /**
+     * @return the number of shards whose latest timestamp is tracked
+     */
+    synchronized int getShardCount() {
+        return shards.size();
+    }
+    
+    private boolean isValid(String shard, Entry entry) {
+        if (System.currentTimeMillis() - entry.created > maxAge) {
+            return false;
+        }
+        Shard state = shards.get(shard);
+        return state == null || state.timestamp <= entry.shardTimestamp;
+    }
+    
+    private void remove(String cacheKey) {
+        Entry entry = entries.remove(cacheKey);
+        if (entry != null) {
+            removed(entry);
+        }
+    }
+    
+    private void removed(Entry entry) {
+        bytes -= entry.size;
+        // forget the shard along with its last entry
+        Shard state = shards.get(entry.shard);
+        if (state != null && --state.entries == 0) {
+            shards.remove(entry.shard);
+        }
+    }
+    
+    private static long sizeOf(String key, List<KeyValueSerializable> results) {
+        long size = ENTRY_OVERHEAD + 2L * key.length();
+        for (KeyValueSerializable kv : results) {
+            size += ENTRY_OVERHEAD + kv.key.getSize() + (kv.value == null ? 0 : kv.value.length);
+        }
+        return size;
+    }
+    
+    private static class Shard {
+        private long timestamp = Long.MIN_VALUE;
+        private int entries = 0;
+    }
+    
+    private static class Entry {
+        private final String shard;
+        private final List<KeyValueSerializable> results;
+        private final long size;
+        private final long shardTimestamp;
+        private final long created;
+        
+        private Entry(String shard, List<KeyValueSerializable> results, long size, long shardTimestamp, long created) {
+            this.shard = shard;
+            this.results = results;
+            this.size = size;
+            this.shardTimestamp = shardTimestamp;
+            this.created = created;
+        }
+    }
+}
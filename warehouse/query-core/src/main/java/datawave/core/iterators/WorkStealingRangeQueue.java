@@ -0,0 +1,164 @@
+package datawave.core.iterators;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.log4j.Logger;
+
+/**
+ * The bounding FI ranges of an ivarator fill, shared by the fill threads. A thread takes the next pending range, and once there are none left it steals the
+ * upper half of whatever is left of the busiest range still being scanned. This way the fill is not capped by the slowest of the initial static splits.
+ */
+class WorkStealingRangeQueue {
+    private static final Logger log = Logger.getLogger(WorkStealingRangeQueue.class);
+    
+    private final Deque<Split> pending = new ArrayDeque<>();
+    private final List<Split> active = new ArrayList<>();
+    private int steals = 0;
+    
+    WorkStealingRangeQueue(Collection<Range> ranges) {
+        for (Range range : ranges) {
+            pending.add(new Split(range));
+        }
+    }
+    
+    /**
+     * Take the next range to scan, splitting one that is being scanned if none are pending
+     * 
+     * @return the split, or null if there is nothing left that can be handed out
+     */
+    synchronized Split take() {
+        Split split = pending.poll();
+        if (split == null) {
+            split = steal();
+        }
+        if (split != null) {
+            active.add(split);
+        }
+        return split;
+    }
+    
+    /**
+     * Mark a split taken from this queue as done
+     * 
+     * @param split
+     */
+    synchronized void done(Split split) {
+        active.remove(split);
+    }
+    
+    synchronized int getSteals() {
+        return steals;
+    }
+    
+    private Split steal() {
+        // try the busiest splits first, they are the most likely to be the long pole
+        List<Split> candidates = new ArrayList<>(active);
+        candidates.sort((a, b) -> Long.compare(b.scanned, a.scanned));
+        for (Split victim : candidates) {
+            Split stolen = victim.split();
+            if (stolen != null) {
+                steals++;
+                if (log.isDebugEnabled()) {
+                    log.debug("Split " + stolen.getRange() + " from " + victim.getRange() + " after " + victim.scanned + " keys");
+                }
+                return stolen;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * A range being filled by one thread. The upper bound may be lowered by another thread stealing the rest of the range; the owner must stop at the first key
+     * that is not before {@link #getStopKey()}.
+     */
+    static class Split {
+        private final Range range;
+        private volatile Key stopKey = null;
+        private volatile Key lastKey = null;
+        private volatile long scanned = 0;
+        
+        Split(Range range) {
+            this.range = range;
+        }
+        
+        /**
+         * @return the range this split was created with, the source is seeked to this
+         */
+        Range getRange() {
+            return range;
+        }
+        
+        /**
+         * @return the exclusive key at which this split now ends, or null if it ends with its range
+         */
+        Key getStopKey() {
+            return stopKey;
+        }
+        
+        /**
+         * @param key
+         * @return true if the key is past the end of this split
+         */
+        boolean isPastEnd(Key key) {
+            Key stop = stopKey;
+            return stop != null && key.compareTo(stop) >= 0;
+        }
+        
+        /**
+         * Record progress by the owning thread
+         * 
+         * @param key
+         *            the last key scanned
+         */
+        void scanned(Key key) {
+            lastKey = key;
+            scanned++;
+        }
+        
+        long getScanned() {
+            return scanned;
+        }
+        
+        /**
+         * Give away the upper half of what is left of this split. Only called with the queue lock held, so splits of the same split do not race each other.
+         * 
+         * @return the stolen split, or null if what is left cannot be split
+         */
+        private Split split() {
+            Key last = lastKey;
+            Key stop = stopKey;
+            Key endKey = (stop == null ? range.getEndKey() : stop);
+            boolean endKeyInclusive = (stop == null && range.isEndKeyInclusive());
+            Range remaining;
+            try {
+                if (last == null) {
+                    remaining = new Range(range.getStartKey(), range.isStartKeyInclusive(), endKey, endKeyInclusive);
+                } else {
+                    remaining = new Range(last, false, endKey, endKeyInclusive);
+                }
+            } catch (IllegalArgumentException e) {
+                // the owner has already reached the end
+                return null;
+            }
+            
+            List<Range> halves = new RangeSplitter(remaining, 2);
+            if (halves.size() < 2) {
+                return null;
+            }
+            Key mid = halves.get(1).getStartKey();
+            if ((last != null && mid.compareTo(last) <= 0) || (endKey != null && mid.compareTo(endKey) >= 0)) {
+                return null;
+            }
+            
+            // the owner stops before mid and the thief starts at mid, so a key the owner scanned past mid before noticing is added to the set twice at worst
+            this.stopKey = mid;
+            return new Split(new Range(mid, true, endKey, endKeyInclusive));
+        }
+    }
+}
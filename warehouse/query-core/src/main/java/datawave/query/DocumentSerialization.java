@@ -10,12 +10,14 @@ import java.util.zip.DeflaterOutputStream;
 import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
+import datawave.query.function.deserializer.CompactDocumentDeserializer;
 import datawave.query.function.deserializer.DocumentDeserializer;
 import datawave.query.function.serializer.KryoDocumentSerializer;
 import datawave.query.exceptions.InvalidDocumentHeader;
 import datawave.query.exceptions.NoSuchDeserializerException;
 import datawave.query.function.deserializer.KryoDocumentDeserializer;
 import datawave.query.function.deserializer.WritableDocumentDeserializer;
+import datawave.query.function.serializer.CompactDocumentSerializer;
 import datawave.query.function.serializer.DocumentSerializer;
 import datawave.query.function.serializer.WritableDocumentSerializer;
 import datawave.webservice.query.Query;
@@ -31,7 +33,7 @@ import datawave.webservice.query.exception.QueryException;
 public class DocumentSerialization {
     
     public enum ReturnType {
-        writable, kryo, tostring, noop
+        writable, kryo, tostring, noop, compact
     }
     
     public static final ReturnType DEFAULT_RETURN_TYPE = ReturnType.kryo;
@@ -67,6 +69,8 @@ public class DocumentSerialization {
             return new KryoDocumentDeserializer();
         } else if (ReturnType.writable.equals(rt)) {
             return new WritableDocumentDeserializer();
+        } else if (ReturnType.compact.equals(rt)) {
+            return new CompactDocumentDeserializer();
         } else {
             QueryException qe = new QueryException(DatawaveErrorCode.DESERIALIZER_CREATE_ERROR);
             throw new NoSuchDeserializerException(qe);
@@ -82,6 +86,8 @@ public class DocumentSerialization {
             return new KryoDocumentSerializer();
         } else if (ReturnType.writable.equals(rt)) {
             return new WritableDocumentSerializer(false);
+        } else if (ReturnType.compact.equals(rt)) {
+            return new CompactDocumentSerializer();
         } else {
             QueryException qe = new QueryException(DatawaveErrorCode.DESERIALIZER_CREATE_ERROR);
             throw new NoSuchDeserializerException(qe);
@@ -0,0 +1,265 @@
+package datawave.query.attributes;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * The field name to Attribute map behind a {@link Document}. Field names are held in a sorted array with the attributes in a parallel array, so iteration is in
+ * field name order as it was with a TreeMap, but without a tree node per field.
+ * <p>
+ * A document is aggregated from keys that are already sorted by field name, so most puts land after the last field and are appended. Any other put is a binary
+ * search and an array shift, which for the few hundred fields of a large document is still cheaper than a tree node. Field names are interned when first added
+ * so that the documents built from a tablet share a single copy of each name.
+ */
+class ArrayAttributeMap extends AbstractMap<String,Attribute<? extends Comparable<?>>> implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private static final Interner<String> FIELD_NAMES = Interners.newWeakInterner();
+    
+    private static final int DEFAULT_CAPACITY = 8;
+    
+    private String[] keys;
+    private Attribute<? extends Comparable<?>>[] values;
+    private int size = 0;
+    private transient int modCount = 0;
+    private transient EntrySet entrySet;
+    
+    ArrayAttributeMap() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    @SuppressWarnings("unchecked")
+    ArrayAttributeMap(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.keys = new String[capacity];
+        this.values = new Attribute[capacity];
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * @return the number of fields this map can hold before it has to grow
+     */
+    int capacity() {
+        return keys.length;
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+    
+    @Override
+    public Attribute<? extends Comparable<?>> get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+    
+    @Override
+    public Attribute<? extends Comparable<?>> put(String key, Attribute<? extends Comparable<?>> value) {
+        Objects.requireNonNull(key);
+        int index;
+        if (size == 0 || keys[size - 1].compareTo(key) < 0) {
+            index = -(size + 1);
+        } else {
+            index = Arrays.binarySearch(keys, 0, size, key);
+        }
+        
+        if (index >= 0) {
+            Attribute<? extends Comparable<?>> previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+        
+        insert(-(index + 1), FIELD_NAMES.intern(key), value);
+        return null;
+    }
+    
+    @Override
+    public Attribute<? extends Comparable<?>> remove(Object key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        Attribute<? extends Comparable<?>> previous = values[index];
+        removeAt(index);
+        return previous;
+    }
+    
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        modCount++;
+    }
+    
+    @Override
+    public Set<Entry<String,Attribute<? extends Comparable<?>>>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+    
+    private int indexOf(Object key) {
+        if (size == 0 || !(key instanceof String)) {
+            return -1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+    
+    private void insert(int index, String key, Attribute<? extends Comparable<?>> value) {
+        if (size == keys.length) {
+            int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        if (index < size) {
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(values, index, values, index + 1, size - index);
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        modCount++;
+    }
+    
+    private void removeAt(int index) {
+        int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(keys, index + 1, keys, index, moved);
+            System.arraycopy(values, index + 1, values, index, moved);
+        }
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        modCount++;
+    }
+    
+    private class EntrySet extends AbstractSet<Entry<String,Attribute<? extends Comparable<?>>>> {
+        
+        @Override
+        public Iterator<Entry<String,Attribute<? extends Comparable<?>>>> iterator() {
+            return new EntryIterator();
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+        
+        @Override
+        public void clear() {
+            ArrayAttributeMap.this.clear();
+        }
+    }
+    
+    private class EntryIterator implements Iterator<Entry<String,Attribute<? extends Comparable<?>>>> {
+        private int next = 0;
+        private int last = -1;
+        private int expectedModCount = modCount;
+        
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+        
+        @Override
+        public Entry<String,Attribute<? extends Comparable<?>>> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            return new FieldEntry(last);
+        }
+        
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+    
+    /**
+     * An entry for the field at an index. Writes go through to the map for as long as the map is not structurally modified.
+     */
+    private class FieldEntry implements Entry<String,Attribute<? extends Comparable<?>>> {
+        private final int index;
+        private final String key;
+        private Attribute<? extends Comparable<?>> value;
+        
+        FieldEntry(int index) {
+            this.index = index;
+            this.key = keys[index];
+            this.value = values[index];
+        }
+        
+        @Override
+        public String getKey() {
+            return key;
+        }
+        
+        @Override
+        public Attribute<? extends Comparable<?>> getValue() {
+            return value;
+        }
+        
+        @Override
+        public Attribute<? extends Comparable<?>> setValue(Attribute<? extends Comparable<?>> value) {
+            Attribute<? extends Comparable<?>> previous = this.value;
+            this.value = value;
+            values[index] = value;
+            return previous;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?,?> other = (Map.Entry<?,?>) o;
+            return Objects.equals(getKey(), other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+        
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -27,8 +27,8 @@ public class Attributes extends AttributeBag<Attributes> implements Serializable
     
     private static final long serialVersionUID = 1L;
     private static final Logger log = Logger.getLogger(Attributes.class);
-    private Set<Attribute<? extends Comparable<?>>> attributes;
-    private int _count = 0;
+    Set<Attribute<? extends Comparable<?>>> attributes;
+    int _count = 0;
     // cache the size in bytes as it can be expensive to compute on the fly if we have many attributes
     private long _bytes = super.sizeInBytes(16) + 16 + 48;
     private static final long ONE_DAY_MS = 1000l * 60 * 60 * 24;
@@ -36,7 +36,7 @@ public class Attributes extends AttributeBag<Attributes> implements Serializable
     /**
      * Should sizes of documents be tracked
      */
-    private boolean trackSizes;
+    boolean trackSizes;
     
     public MarkingFunctions getMarkingFunctions() {
         return MarkingFunctions.Factory.createMarkingFunctions();
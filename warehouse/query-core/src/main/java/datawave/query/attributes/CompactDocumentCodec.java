@@ -0,0 +1,372 @@
+package datawave.query.attributes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import datawave.data.type.NoOpType;
+import datawave.data.type.Type;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.apache.log4j.Logger;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * A versioned, compact binary encoding of a {@link Document}.
+ * <p>
+ * The Writable and Kryo encodings write the fully qualified class name of every Attribute and resolve it through reflection on read. This codec instead
+ * writes a small integer id from a fixed table of the known Attribute types, falling back to the class name only for types that are not registered. Field
+ * names, datawave Type class names and column visibilities are written once per Document and then referenced by their index in a dictionary that is rebuilt
+ * as the Document is read, and all counts and lengths are written as varints. Every encoded Document is self-contained, so values may be decoded in any order.
+ * <p>
+ * Registered type ids are part of the wire format: new types may only be appended to the table, and any change to the layout of an entry must bump
+ * {@link #VERSION}.
+ * <p>
+ * Instances are not thread safe.
+ */
+public class CompactDocumentCodec {
+    private static final Logger log = Logger.getLogger(CompactDocumentCodec.class);
+    
+    public static final byte VERSION = 1;
+    
+    // registered attribute type ids, append only
+    private static final int DOCUMENT = 0;
+    private static final int METADATA = 1;
+    private static final int TIMING_METADATA = 2;
+    private static final int ATTRIBUTES = 3;
+    private static final int TYPE_ATTRIBUTE = 4;
+    private static final int CONTENT = 5;
+    private static final int DIACRITIC_CONTENT = 6;
+    private static final int DATE_CONTENT = 7;
+    private static final int NUMERIC = 8;
+    private static final int DOCUMENT_KEY = 9;
+    private static final int CARDINALITY = 10;
+    private static final int GEO_POINT = 11;
+    private static final int GEOMETRY = 12;
+    private static final int IP_ADDRESS = 13;
+    private static final int LATITUDE = 14;
+    private static final int LONGITUDE = 15;
+    private static final int PRE_NORMALIZED_ATTRIBUTE = 16;
+    
+    // an attribute type that is not registered, identified by its class name
+    private static final int BY_NAME = 63;
+    
+    private static final Map<Class<?>,Integer> TYPE_IDS = new IdentityHashMap<>();
+    private static final List<Supplier<Attribute<?>>> FACTORIES = new ArrayList<>();
+    
+    static {
+        register(DOCUMENT, Document.class, Document::new);
+        register(METADATA, Metadata.class, Metadata::new);
+        register(TIMING_METADATA, TimingMetadata.class, TimingMetadata::new);
+        register(ATTRIBUTES, Attributes.class, Attributes::new);
+        register(TYPE_ATTRIBUTE, TypeAttribute.class, TypeAttribute::new);
+        register(CONTENT, Content.class, Content::new);
+        register(DIACRITIC_CONTENT, DiacriticContent.class, DiacriticContent::new);
+        register(DATE_CONTENT, DateContent.class, DateContent::new);
+        register(NUMERIC, Numeric.class, Numeric::new);
+        register(DOCUMENT_KEY, DocumentKey.class, DocumentKey::new);
+        register(CARDINALITY, Cardinality.class, Cardinality::new);
+        register(GEO_POINT, GeoPoint.class, GeoPoint::new);
+        register(GEOMETRY, Geometry.class, Geometry::new);
+        register(IP_ADDRESS, IpAddress.class, IpAddress::new);
+        register(LATITUDE, Latitude.class, Latitude::new);
+        register(LONGITUDE, Longitude.class, Longitude::new);
+        register(PRE_NORMALIZED_ATTRIBUTE, PreNormalizedAttribute.class, PreNormalizedAttribute::new);
+    }
+    
+    private static void register(int id, Class<?> clazz, Supplier<Attribute<?>> factory) {
+        if (id != FACTORIES.size()) {
+            throw new IllegalStateException("Attribute type ids must be registered in order: " + clazz.getName());
+        }
+        TYPE_IDS.put(clazz, id);
+        FACTORIES.add(factory);
+    }
+    
+    // class lookups are shared across all codecs, the set of attribute and datawave type classes is small
+    private static final Map<String,Class<?>> CLASSES = new ConcurrentHashMap<>();
+    
+    // the leaf attributes that are not specialized here still serialize themselves through their Kryo methods
+    private final Kryo kryo = new Kryo();
+    
+    /**
+     * Write the Document to the output.
+     *
+     * @param document
+     *            the document
+     * @param output
+     *            the output
+     * @param reducedResponse
+     *            whether to drop attribute visibilities and timestamps
+     */
+    public void write(Document document, Output output, boolean reducedResponse) {
+        output.writeByte(VERSION);
+        output.writeBoolean(reducedResponse);
+        new Writer(output, reducedResponse).writeAttribute(document);
+    }
+    
+    /**
+     * Read a Document written by {@link #write(Document, Output, boolean)}.
+     *
+     * @param input
+     *            the input
+     * @return the document
+     */
+    public Document read(Input input) {
+        byte version = input.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported compact document version: " + version);
+        }
+        boolean reducedResponse = input.readBoolean();
+        Attribute<?> attribute = new Reader(input, reducedResponse).readAttribute();
+        if (!(attribute instanceof Document)) {
+            throw new IllegalArgumentException("Expected a Document but found " + attribute.getClass().getName());
+        }
+        return (Document) attribute;
+    }
+    
+    private static Class<?> classForName(String className) throws ClassNotFoundException {
+        Class<?> clazz = CLASSES.get(className);
+        if (clazz == null) {
+            clazz = Class.forName(className);
+            CLASSES.put(className, clazz);
+        }
+        return clazz;
+    }
+    
+    private class Writer {
+        private final Output output;
+        private final boolean reducedResponse;
+        private final Map<String,Integer> strings = new HashMap<>();
+        private final Map<ByteSequence,Integer> visibilities = new HashMap<>();
+        
+        Writer(Output output, boolean reducedResponse) {
+            this.output = output;
+            this.reducedResponse = reducedResponse;
+        }
+        
+        void writeAttribute(Attribute<?> attribute) {
+            Integer typeId = TYPE_IDS.get(attribute.getClass());
+            if (typeId == null) {
+                output.writeInt(BY_NAME, true);
+                writeString(attribute.getClass().getName());
+                attribute.write(kryo, output, reducedResponse);
+                return;
+            }
+            
+            output.writeInt(typeId, true);
+            switch (typeId) {
+                case DOCUMENT:
+                case METADATA:
+                case TIMING_METADATA:
+                    writeDocument((Document) attribute);
+                    break;
+                case ATTRIBUTES:
+                    writeAttributes((Attributes) attribute);
+                    break;
+                case TYPE_ATTRIBUTE:
+                    writeTypeAttribute((TypeAttribute<?>) attribute);
+                    break;
+                default:
+                    attribute.write(kryo, output, reducedResponse);
+            }
+        }
+        
+        private void writeDocument(Document document) {
+            output.writeInt(document._count, true);
+            output.writeBoolean(document.trackSizes);
+            output.writeLong(document._bytes, true);
+            output.writeInt(document.dict.size(), true);
+            for (Map.Entry<String,Attribute<? extends Comparable<?>>> entry : document.dict.entrySet()) {
+                writeString(entry.getKey());
+                writeAttribute(entry.getValue());
+            }
+            output.writeLong(document.shardTimestamp);
+        }
+        
+        private void writeAttributes(Attributes attributes) {
+            output.writeInt(attributes._count, true);
+            output.writeBoolean(attributes.trackSizes);
+            output.writeInt(attributes.attributes.size(), true);
+            for (Attribute<?> attribute : attributes.attributes) {
+                writeAttribute(attribute);
+            }
+        }
+        
+        private void writeTypeAttribute(TypeAttribute<?> attribute) {
+            Type<?> type = attribute.getType();
+            writeString(type.getClass().getName());
+            if (!reducedResponse) {
+                // read the visibility bytes straight from the key, getColumnVisibility() would parse them
+                output.writeBoolean(attribute.isMetadataSet());
+                if (attribute.isMetadataSet()) {
+                    writeVisibility(attribute.metadata.getColumnVisibilityData());
+                    output.writeLong(attribute.metadata.getTimestamp(), false);
+                }
+            }
+            output.writeString(type.getDelegateAsString());
+        }
+        
+        private void writeString(String value) {
+            Integer id = strings.get(value);
+            if (id == null) {
+                id = strings.size();
+                strings.put(value, id);
+                output.writeInt(id, true);
+                output.writeString(value);
+            } else {
+                output.writeInt(id, true);
+            }
+        }
+        
+        private void writeVisibility(ByteSequence visibility) {
+            Integer id = visibilities.get(visibility);
+            if (id == null) {
+                id = visibilities.size();
+                visibilities.put(visibility, id);
+                output.writeInt(id, true);
+                output.writeInt(visibility.length(), true);
+                output.writeBytes(visibility.getBackingArray(), visibility.offset(), visibility.length());
+            } else {
+                output.writeInt(id, true);
+            }
+        }
+    }
+    
+    private class Reader {
+        private final Input input;
+        private final boolean reducedResponse;
+        private final List<String> strings = new ArrayList<>();
+        private final List<ColumnVisibility> visibilities = new ArrayList<>();
+        
+        Reader(Input input, boolean reducedResponse) {
+            this.input = input;
+            this.reducedResponse = reducedResponse;
+        }
+        
+        Attribute<?> readAttribute() {
+            int typeId = input.readInt(true);
+            if (typeId == BY_NAME) {
+                Attribute<?> attribute = newAttribute(readString());
+                attribute.read(kryo, input);
+                return attribute;
+            } else if (typeId >= FACTORIES.size()) {
+                throw new IllegalArgumentException("Unknown attribute type id: " + typeId);
+            }
+            
+            Attribute<?> attribute = FACTORIES.get(typeId).get();
+            switch (typeId) {
+                case DOCUMENT:
+                case METADATA:
+                case TIMING_METADATA:
+                    readDocument((Document) attribute);
+                    break;
+                case ATTRIBUTES:
+                    readAttributes((Attributes) attribute);
+                    break;
+                case TYPE_ATTRIBUTE:
+                    attribute = readTypeAttribute();
+                    break;
+                default:
+                    attribute.read(kryo, input);
+            }
+            return attribute;
+        }
+        
+        private void readDocument(Document document) {
+            document._count = input.readInt(true);
+            document.trackSizes = input.readBoolean();
+            document._bytes = input.readLong(true);
+            int numAttrs = input.readInt(true);
+            document.dict = new ArrayAttributeMap(numAttrs);
+            for (int i = 0; i < numAttrs; i++) {
+                String fieldName = readString();
+                document.dict.put(fieldName, readAttribute());
+            }
+            document.shardTimestamp = input.readLong();
+            document.invalidateMetadata();
+        }
+        
+        private void readAttributes(Attributes attributes) {
+            attributes._count = input.readInt(true);
+            attributes.trackSizes = input.readBoolean();
+            int numAttrs = input.readInt(true);
+            for (int i = 0; i < numAttrs; i++) {
+                attributes.attributes.add(readAttribute());
+            }
+            attributes.invalidateMetadata();
+        }
+        
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private TypeAttribute<?> readTypeAttribute() {
+            String typeName = readString();
+            ColumnVisibility visibility = null;
+            long timestamp = -1;
+            if (!reducedResponse && input.readBoolean()) {
+                visibility = readVisibility();
+                timestamp = input.readLong(false);
+            }
+            String delegate = input.readString();
+            
+            Type<?> type;
+            try {
+                type = (Type<?>) classForName(typeName).newInstance();
+                type.setDelegateFromString(delegate);
+            } catch (Exception e) {
+                // as with the other encodings, do not fail the query over a value that can not be restored as its declared type
+                log.warn("Was unable to make a " + typeName + " to contain a delegate created from input:" + delegate + "  Making a NoOpType instead.");
+                type = new NoOpType();
+                type.setDelegateFromString(delegate);
+            }
+            
+            TypeAttribute<?> attribute = new TypeAttribute(type, null, true);
+            if (visibility != null) {
+                attribute.setMetadata(visibility, timestamp);
+            }
+            return attribute;
+        }
+        
+        private Attribute<?> newAttribute(String className) {
+            try {
+                Class<?> clazz = classForName(className);
+                if (!Attribute.class.isAssignableFrom(clazz)) {
+                    throw new ClassCastException("Found class that was not an instance of Attribute");
+                }
+                return (Attribute<?>) clazz.newInstance();
+            } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        
+        private String readString() {
+            int id = input.readInt(true);
+            if (id == strings.size()) {
+                String value = input.readString();
+                strings.add(value);
+                return value;
+            } else if (id > strings.size()) {
+                throw new IllegalArgumentException("Unknown string reference: " + id);
+            }
+            return strings.get(id);
+        }
+        
+        private ColumnVisibility readVisibility() {
+            int id = input.readInt(true);
+            if (id == visibilities.size()) {
+                ColumnVisibility visibility = new ColumnVisibility(input.readBytes(input.readInt(true)));
+                visibilities.add(visibility);
+                return visibility;
+            } else if (id > visibilities.size()) {
+                throw new IllegalArgumentException("Unknown visibility reference: " + id);
+            }
+            return visibilities.get(id);
+        }
+    }
+}
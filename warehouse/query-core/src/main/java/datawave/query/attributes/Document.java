@@ -34,7 +34,6 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.TreeMap;
 
 public class Document extends AttributeBag<Document> implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -43,14 +42,14 @@ public class Document extends AttributeBag<Document> implements Serializable {
     
     public static final String DOCKEY_FIELD_NAME = "RECORD_ID";
     
-    private int _count = 0;
+    int _count = 0;
     long _bytes = 0;
-    TreeMap<String,Attribute<? extends Comparable<?>>> dict;
+    ArrayAttributeMap dict;
     
     /**
      * should sizes of the documents be tracked
      */
-    private boolean trackSizes;
+    boolean trackSizes;
     
     private static final long ONE_DAY_MS = 1000l * 60 * 60 * 24;
     
@@ -76,7 +75,7 @@ public class Document extends AttributeBag<Document> implements Serializable {
     
     public Document(Key key, boolean toKeep, boolean trackSizes) {
         super(key, toKeep);
-        dict = new TreeMap<>();
+        dict = new ArrayAttributeMap();
         this.trackSizes = trackSizes;
     }
     
@@ -105,7 +104,7 @@ public class Document extends AttributeBag<Document> implements Serializable {
         return Collections.unmodifiableMap(this.dict);
     }
     
-    private TreeMap<String,Attribute<? extends Comparable<?>>> _getDictionary() {
+    private ArrayAttributeMap _getDictionary() {
         return dict;
     }
     
@@ -465,10 +464,10 @@ public class Document extends AttributeBag<Document> implements Serializable {
     @Override
     public long sizeInBytes() {
         if (trackSizes) {
-            return super.sizeInBytes(40) + _bytes + (this.dict.size() * 24) + 40;
+            return super.sizeInBytes(40) + _bytes + (this.dict.capacity() * 8) + 56;
             // 32 for local members
-            // 24 for TreeMap.Entry overhead, and members
-            // 56 for TreeMap members and overhead
+            // 8 per field slot for the field name and attribute references
+            // 56 for the map members and the two array headers
         } else {
             return 1;
         }
@@ -552,7 +551,7 @@ public class Document extends AttributeBag<Document> implements Serializable {
         
         int numAttrs = WritableUtils.readVInt(in);
         
-        this.dict = new TreeMap<>();
+        this.dict = new ArrayAttributeMap(numAttrs);
         
         for (int i = 0; i < numAttrs; i++) {
             // Get the fieldName
@@ -602,8 +601,8 @@ public class Document extends AttributeBag<Document> implements Serializable {
         } else if (size() > o.size()) {
             return 1;
         } else {
-            TreeMap<String,Attribute<? extends Comparable<?>>> map1 = _getDictionary();
-            TreeMap<String,Attribute<? extends Comparable<?>>> map2 = o._getDictionary();
+            ArrayAttributeMap map1 = _getDictionary();
+            ArrayAttributeMap map2 = o._getDictionary();
             Iterator<Entry<String,Attribute<? extends Comparable<?>>>> iter1 = map1.entrySet().iterator();
             Iterator<Entry<String,Attribute<? extends Comparable<?>>>> iter2 = map2.entrySet().iterator();
             
@@ -784,7 +783,7 @@ public class Document extends AttributeBag<Document> implements Serializable {
         
         int numAttrs = input.readInt(true);
         
-        this.dict = new TreeMap<>();
+        this.dict = new ArrayAttributeMap(numAttrs);
         
         for (int i = 0; i < numAttrs; i++) {
             // Get the fieldName
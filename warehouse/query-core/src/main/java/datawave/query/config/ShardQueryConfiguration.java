@@ -209,6 +209,10 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private boolean rawTypes = false;
     // Used to choose how "selective" a term is (indexStats)
     private double minSelectivity = -1.0;
+    // Used to order conjunctions by the estimated cost of their terms (term counts and indexStats), and to delay costly terms
+    private boolean costBasedPlanning = false;
+    // Terms estimated to cost more than this multiple of the cheapest indexed term in their conjunction are delayed. 0 or less disables delaying.
+    private double costBasedDelayRatio = 1000.0;
     // Used to add the event datatype to the event as an event field.
     private boolean includeDataTypeAsField = false;
     // Used to add the event RECORD_ID to the event as an event field
@@ -272,8 +276,19 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
     private int maxFieldIndexRangeSplit = 11;
     private int ivaratorMaxOpenFiles = 100;
     private int maxIvaratorSources = 33;
+    // share completed ivarator results across queries through the tablet server result cache
+    private boolean ivaratorResultCacheEnabled = false;
+    // spill ivarators with a local (file://) cache dir to memory mapped sorted runs rather than streaming them through the hadoop file system
+    private boolean ivaratorMappedSpillEnabled = false;
+    // scan the global index for each term concurrently and ahead of the range stream instead of on demand
+    private boolean pipelinedIndexLookup = false;
+    // run scanner sessions on threads shared across queries, limiting the concurrent scans against the instance
+    private boolean sharedSessionExecutors = false;
+    private int maxConcurrentSessionScans = 1000;
     private int maxEvaluationPipelines = 25;
     private int maxPipelineCachedResults = 25;
+    // return evaluated documents in completion order when UIDs are not sorted
+    private boolean unorderedEvaluationPipeline = false;
     private boolean expandAllTerms = false;
     // Adding the ability to pre-cache the query model for performance sake. If this is null
     // then the query model will be pulled from the MetadataHelper
@@ -403,6 +418,8 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setFailOutsideValidDateRange(other.isFailOutsideValidDateRange());
         this.setRawTypes(other.isRawTypes());
         this.setMinSelectivity(other.getMinSelectivity());
+        this.setCostBasedPlanning(other.isCostBasedPlanning());
+        this.setCostBasedDelayRatio(other.getCostBasedDelayRatio());
         this.setIncludeDataTypeAsField(other.getIncludeDataTypeAsField());
         this.setIncludeRecordId(other.getIncludeRecordId());
         this.setIncludeHierarchyFields(other.getIncludeHierarchyFields());
@@ -444,8 +461,14 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.setMaxFieldIndexRangeSplit(other.getMaxFieldIndexRangeSplit());
         this.setIvaratorMaxOpenFiles(other.getIvaratorMaxOpenFiles());
         this.setMaxIvaratorSources(other.getMaxIvaratorSources());
+        this.setIvaratorResultCacheEnabled(other.isIvaratorResultCacheEnabled());
+        this.setIvaratorMappedSpillEnabled(other.isIvaratorMappedSpillEnabled());
+        this.setPipelinedIndexLookup(other.isPipelinedIndexLookup());
+        this.setSharedSessionExecutors(other.isSharedSessionExecutors());
+        this.setMaxConcurrentSessionScans(other.getMaxConcurrentSessionScans());
         this.setMaxEvaluationPipelines(other.getMaxEvaluationPipelines());
         this.setMaxPipelineCachedResults(other.getMaxPipelineCachedResults());
+        this.setUnorderedEvaluationPipeline(other.isUnorderedEvaluationPipeline());
         this.setExpandAllTerms(other.isExpandAllTerms());
         this.setQueryModel(null == other.getQueryModel() ? null : new QueryModel(other.getQueryModel()));
         this.setModelName(other.getModelName());
@@ -1188,6 +1211,46 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.maxIvaratorSources = maxIvaratorSources;
     }
     
+    public boolean isIvaratorResultCacheEnabled() {
+        return ivaratorResultCacheEnabled;
+    }
+    
+    public void setIvaratorResultCacheEnabled(boolean ivaratorResultCacheEnabled) {
+        this.ivaratorResultCacheEnabled = ivaratorResultCacheEnabled;
+    }
+    
+    public boolean isIvaratorMappedSpillEnabled() {
+        return ivaratorMappedSpillEnabled;
+    }
+    
+    public void setIvaratorMappedSpillEnabled(boolean ivaratorMappedSpillEnabled) {
+        this.ivaratorMappedSpillEnabled = ivaratorMappedSpillEnabled;
+    }
+    
+    public boolean isPipelinedIndexLookup() {
+        return pipelinedIndexLookup;
+    }
+    
+    public void setPipelinedIndexLookup(boolean pipelinedIndexLookup) {
+        this.pipelinedIndexLookup = pipelinedIndexLookup;
+    }
+    
+    public boolean isSharedSessionExecutors() {
+        return sharedSessionExecutors;
+    }
+    
+    public void setSharedSessionExecutors(boolean sharedSessionExecutors) {
+        this.sharedSessionExecutors = sharedSessionExecutors;
+    }
+    
+    public int getMaxConcurrentSessionScans() {
+        return maxConcurrentSessionScans;
+    }
+    
+    public void setMaxConcurrentSessionScans(int maxConcurrentSessionScans) {
+        this.maxConcurrentSessionScans = maxConcurrentSessionScans;
+    }
+    
     public int getMaxEvaluationPipelines() {
         return maxEvaluationPipelines;
     }
@@ -1204,6 +1267,14 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.maxPipelineCachedResults = maxCachedResults;
     }
     
+    public boolean isUnorderedEvaluationPipeline() {
+        return unorderedEvaluationPipeline;
+    }
+    
+    public void setUnorderedEvaluationPipeline(boolean unorderedEvaluationPipeline) {
+        this.unorderedEvaluationPipeline = unorderedEvaluationPipeline;
+    }
+    
     public boolean isExpandAllTerms() {
         return expandAllTerms;
     }
@@ -1463,6 +1534,22 @@ public class ShardQueryConfiguration extends GenericQueryConfiguration implement
         this.minSelectivity = minSelectivity;
     }
     
+    public boolean isCostBasedPlanning() {
+        return costBasedPlanning;
+    }
+    
+    public void setCostBasedPlanning(boolean costBasedPlanning) {
+        this.costBasedPlanning = costBasedPlanning;
+    }
+    
+    public double getCostBasedDelayRatio() {
+        return costBasedDelayRatio;
+    }
+    
+    public void setCostBasedDelayRatio(double costBasedDelayRatio) {
+        this.costBasedDelayRatio = costBasedDelayRatio;
+    }
+    
     /**
      * Checks for non-null, sane values for the configured values
      *
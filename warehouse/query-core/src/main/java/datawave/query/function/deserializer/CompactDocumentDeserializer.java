@@ -0,0 +1,30 @@
+package datawave.query.function.deserializer;
+
+import java.io.InputStream;
+import java.io.Serializable;
+
+import datawave.query.attributes.CompactDocumentCodec;
+import datawave.query.attributes.Document;
+
+import com.esotericsoftware.kryo.io.Input;
+
+/**
+ * Transform bytes in the compact binary encoding of {@link CompactDocumentCodec} back into a Document. Ordering of Attributes is <b>not</b> guaranteed across
+ * serialization.
+ */
+public class CompactDocumentDeserializer extends DocumentDeserializer implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    final transient CompactDocumentCodec codec = new CompactDocumentCodec();
+    
+    @Override
+    public Document deserialize(InputStream data) {
+        Input input = new Input(data);
+        Document document = codec.read(input);
+        
+        input.close();
+        
+        return document;
+    }
+    
+}
@@ -0,0 +1,37 @@
+package datawave.query.function.serializer;
+
+import datawave.query.attributes.CompactDocumentCodec;
+import datawave.query.attributes.Document;
+
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Transform the Document into the compact binary encoding of {@link CompactDocumentCodec}. Ordering of Attributes is <b>not</b> guaranteed across
+ * serialization.
+ */
+public class CompactDocumentSerializer extends DocumentSerializer {
+    final CompactDocumentCodec codec = new CompactDocumentCodec();
+    final Output output = new Output(4096, -1);
+    
+    public CompactDocumentSerializer() {
+        this(false, false);
+    }
+    
+    public CompactDocumentSerializer(boolean reducedResponse) {
+        this(reducedResponse, false);
+    }
+    
+    public CompactDocumentSerializer(boolean reducedResponse, boolean compress) {
+        super(reducedResponse, compress);
+    }
+    
+    @Override
+    public byte[] serialize(Document doc) {
+        output.clear();
+        
+        codec.write(doc, output, reducedResponse);
+        
+        return output.toBytes();
+    }
+    
+}
@@ -151,7 +151,15 @@ public class RangeStream extends BaseVisitor implements CloseableIterable<QueryP
         executor = Executors.newFixedThreadPool(maxLookup);
         runnables = new LinkedBlockingDeque<>();
         int executeLookupMin = (int) Math.max(maxLookup / 2, 1);
-        streamExecutor = new ThreadPoolExecutor(executeLookupMin, maxLookup, 100, TimeUnit.MILLISECONDS, runnables);
+        if (config.isPipelinedIndexLookup()) {
+            // the queue is unbounded so the pool never grows past its core threads. pipelined scans hand their thread back after each batch, so let every
+            // lookup thread take part and time out when idle
+            ThreadPoolExecutor lookupExecutor = new ThreadPoolExecutor(maxLookup, maxLookup, 100, TimeUnit.MILLISECONDS, runnables);
+            lookupExecutor.allowCoreThreadTimeOut(true);
+            streamExecutor = lookupExecutor;
+        } else {
+            streamExecutor = new ThreadPoolExecutor(executeLookupMin, maxLookup, 100, TimeUnit.MILLISECONDS, runnables);
+        }
         fieldDataTypes = config.getQueryFieldsDatatypes();
         collapseUids = config.getCollapseUids();
         try {
@@ -468,6 +476,7 @@ public class RangeStream extends BaseVisitor implements CloseableIterable<QueryP
                                     config.getQuery(), config.getShardsPerDayThreshold());
                     scanSession.setMaxResults(config.getMaxIndexBatchSize());
                     scanSession.setExecutor(streamExecutor);
+                    scanSession.setPipelined(config.isPipelinedIndexLookup());
                     
                     if (log.isTraceEnabled()) {
                         log.trace("Provided new object " + scanSession.hashCode());
@@ -493,6 +502,8 @@ public class RangeStream extends BaseVisitor implements CloseableIterable<QueryP
                     options.addScanIterator(QueryScannerHelper.getQueryInfoIterator(config.getQuery(), false, queryString));
                     
                     scanSession.setRanges(Collections.singleton(rangeForTerm(literal, fieldName, config))).setOptions(options);
+                    // when pipelined, start scanning this term now rather than when the intersection first asks for it
+                    scanSession.prefetch();
                     
                     itr = Iterators.transform(scanSession, new EntryParser(node, fieldName, literal, indexOnlyFields));
                     
@@ -503,6 +514,7 @@ public class RangeStream extends BaseVisitor implements CloseableIterable<QueryP
                                     config.getShardsPerDayThreshold());
                     scanSession.setMaxResults(config.getMaxIndexBatchSize());
                     scanSession.setExecutor(streamExecutor);
+                    scanSession.setPipelined(config.isPipelinedIndexLookup());
                     
                     if (log.isTraceEnabled()) {
                         log.trace("Provided new object " + scanSession.hashCode());
@@ -519,6 +531,8 @@ public class RangeStream extends BaseVisitor implements CloseableIterable<QueryP
                     options.addScanIterator(QueryScannerHelper.getQueryInfoIterator(config.getQuery(), false, queryString));
                     
                     scanSession.setRanges(Collections.singleton(rangeForTerm(literal, fieldName, config))).setOptions(options);
+                    // when pipelined, start scanning this term now rather than when the intersection first asks for it
+                    scanSession.prefetch();
                     
                     itr = Iterators.transform(scanSession, new EntryParser(node, fieldName, literal, indexOnlyFields));
                 }
@@ -32,7 +32,10 @@ import datawave.query.function.LimitFields;
 import datawave.query.function.MaskedValueFilterFactory;
 import datawave.query.function.MaskedValueFilterInterface;
 import datawave.query.function.RemoveGroupingContext;
+import datawave.query.function.deserializer.CompactDocumentDeserializer;
+import datawave.query.function.deserializer.DocumentDeserializer;
 import datawave.query.function.deserializer.KryoDocumentDeserializer;
+import datawave.query.function.serializer.CompactDocumentSerializer;
 import datawave.query.function.serializer.KryoDocumentSerializer;
 import datawave.query.function.serializer.ToStringDocumentSerializer;
 import datawave.query.function.serializer.WritableDocumentSerializer;
@@ -365,10 +368,12 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
             }
             
             // Create the pipeline iterator for document aggregation and
-            // evaluation within a thread pool
+            // evaluation within a thread pool. Results may only be returned out of document order
+            // when the keys are made unique and ordered by the ResultCountingIterator below
+            boolean unorderedPipeline = isUnorderedEvaluationPipeline() && !sortedUIDs && documentRange == null;
             PipelineIterator pipelineIter = PipelineFactory.createIterator(this.seekKeySource, getMaxEvaluationPipelines(), getMaxPipelineCachedResults(),
-                            getSerialPipelineRequest(), querySpanCollector, trackingSpan, this, sourceForDeepCopies.deepCopy(myEnvironment), myEnvironment,
-                            yield, yieldThresholdMs);
+                            getSerialPipelineRequest(), unorderedPipeline, querySpanCollector, trackingSpan, this, sourceForDeepCopies.deepCopy(myEnvironment),
+                            myEnvironment, yield, yieldThresholdMs);
             
             pipelineIter.setCollectTimingDetails(collectTimingDetails);
             // TODO pipelineIter.setStatsdHostAndPort(statsdHostAndPort);
@@ -412,6 +417,9 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
             } else if (this.getReturnType() == ReturnType.writable) {
                 // Use the Writable interface to serialize the Document
                 this.serializedDocuments = Iterators.transform(pipelineDocuments, new WritableDocumentSerializer(isReducedResponse()));
+            } else if (this.getReturnType() == ReturnType.compact) {
+                // Serialize the Document using the compact binary encoding
+                this.serializedDocuments = Iterators.transform(pipelineDocuments, new CompactDocumentSerializer(isReducedResponse(), isCompressResults()));
             } else if (this.getReturnType() == ReturnType.tostring) {
                 // Just return a toString() representation of the document
                 this.serializedDocuments = Iterators.transform(pipelineDocuments, new ToStringDocumentSerializer(isReducedResponse()));
@@ -420,7 +428,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
             }
             
             if (log.isTraceEnabled()) {
-                KryoDocumentDeserializer dser = new KryoDocumentDeserializer();
+                DocumentDeserializer dser = this.getReturnType() == ReturnType.compact ? new CompactDocumentDeserializer() : new KryoDocumentDeserializer();
                 this.serializedDocuments = Iterators.filter(this.serializedDocuments, keyValueEntry -> {
                     log.trace("after serializing, keyValueEntry:" + dser.apply(keyValueEntry));
                     return true;
@@ -444,7 +452,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
                                 this.getReturnType(), this.isReducedResponse(), this.isCompressResults(), this.yield);
             }
             if (log.isTraceEnabled()) {
-                KryoDocumentDeserializer dser = new KryoDocumentDeserializer();
+                DocumentDeserializer dser = this.getReturnType() == ReturnType.compact ? new CompactDocumentDeserializer() : new KryoDocumentDeserializer();
                 this.serializedDocuments = Iterators.filter(this.serializedDocuments, keyValueEntry -> {
                     log.debug("finally, considering:" + dser.apply(keyValueEntry));
                     return true;
@@ -1300,6 +1308,7 @@ public class QueryIterator extends QueryOptions implements YieldingKeyValueItera
                         .setIvaratorCacheScanPersistThreshold(this.getIvaratorCacheScanPersistThreshold())
                         .setIvaratorCacheScanTimeout(this.getIvaratorCacheScanTimeout()).setMaxRangeSplit(this.getMaxIndexRangeSplit())
                         .setIvaratorMaxOpenFiles(this.getIvaratorMaxOpenFiles()).setIvaratorSources(this, this.getMaxIvaratorSources())
+                        .setIvaratorResultCacheEnabled(this.isIvaratorResultCacheEnabled()).setIvaratorMappedSpillEnabled(this.isIvaratorMappedSpillEnabled())
                         .setIncludes(indexedFields).setTermFrequencyFields(this.getTermFrequencyFields()).setIsQueryFullySatisfied(isQueryFullySatisfied)
                         .setSortedUIDs(sortedUIDs).limit(documentRange).disableIndexOnly(disableFiEval).limit(this.sourceLimit)
                         .setCollectTimingDetails(this.collectTimingDetails).setQuerySpanCollector(this.querySpanCollector)
@@ -202,6 +202,10 @@ public class QueryOptions implements OptionDescriber {
     
     public static final String MAX_IVARATOR_SOURCES = "max.ivarator.sources";
     
+    public static final String IVARATOR_RESULT_CACHE = "ivarator.result.cache";
+    
+    public static final String IVARATOR_MAPPED_SPILL = "ivarator.mapped.spill";
+    
     public static final String COMPRESS_SERVER_SIDE_RESULTS = "compress.server.side.results";
     
     public static final String MAX_EVALUATION_PIPELINES = "max.evaluation.pipelines";
@@ -210,6 +214,8 @@ public class QueryOptions implements OptionDescriber {
     
     public static final String MAX_PIPELINE_CACHED_RESULTS = "max.pipeline.cached.results";
     
+    public static final String UNORDERED_EVALUATION_PIPELINE = "unordered.evaluation.pipeline";
+    
     public static final String BATCHED_QUERY = "query.iterator.batch";
     
     public static final String BATCHED_QUERY_RANGE_PREFIX = "query.iterator.batch.range.";
@@ -308,6 +314,12 @@ public class QueryOptions implements OptionDescriber {
     
     protected int maxIvaratorSources = 33;
     
+    // reuse ivarator results that another query already computed on this tablet server
+    protected boolean ivaratorResultCacheEnabled = false;
+    
+    // spill ivarators with a local cache dir to memory mapped sorted runs instead of the hdfs backed sorted set
+    protected boolean ivaratorMappedSpillEnabled = false;
+    
     protected long yieldThresholdMs = Long.MAX_VALUE;
     
     protected Predicate<Key> fieldIndexKeyDataTypeFilter = KeyIdentity.Function;
@@ -340,6 +352,9 @@ public class QueryOptions implements OptionDescriber {
     
     protected boolean serialEvaluationPipeline = false;
     
+    // return evaluated documents in the order they complete; only honored when the results are not required to be sorted
+    protected boolean unorderedEvaluationPipeline = false;
+    
     protected Queue<Entry<Range,String>> batchStack;
     
     protected TypeMetadataProvider typeMetadataProvider;
@@ -425,6 +440,8 @@ public class QueryOptions implements OptionDescriber {
         this.maxIndexRangeSplit = other.maxIndexRangeSplit;
         this.ivaratorMaxOpenFiles = other.ivaratorMaxOpenFiles;
         this.maxIvaratorSources = other.maxIvaratorSources;
+        this.ivaratorResultCacheEnabled = other.ivaratorResultCacheEnabled;
+        this.ivaratorMappedSpillEnabled = other.ivaratorMappedSpillEnabled;
         
         this.yieldThresholdMs = other.yieldThresholdMs;
         
@@ -463,6 +480,7 @@ public class QueryOptions implements OptionDescriber {
         this.batchedQueries = other.batchedQueries;
         this.batchStack = other.batchStack;
         this.maxEvaluationPipelines = other.maxEvaluationPipelines;
+        this.unorderedEvaluationPipeline = other.unorderedEvaluationPipeline;
         
         this.dateIndexTimeTravel = other.dateIndexTimeTravel;
         
@@ -881,6 +899,22 @@ public class QueryOptions implements OptionDescriber {
         this.maxIvaratorSources = maxIvaratorSources;
     }
     
+    public boolean isIvaratorResultCacheEnabled() {
+        return ivaratorResultCacheEnabled;
+    }
+    
+    public void setIvaratorResultCacheEnabled(boolean ivaratorResultCacheEnabled) {
+        this.ivaratorResultCacheEnabled = ivaratorResultCacheEnabled;
+    }
+    
+    public boolean isIvaratorMappedSpillEnabled() {
+        return ivaratorMappedSpillEnabled;
+    }
+    
+    public void setIvaratorMappedSpillEnabled(boolean ivaratorMappedSpillEnabled) {
+        this.ivaratorMappedSpillEnabled = ivaratorMappedSpillEnabled;
+    }
+    
     public boolean isCompressResults() {
         return compressResults;
     }
@@ -1036,12 +1070,18 @@ public class QueryOptions implements OptionDescriber {
                         "The maximum number of files that can be opened at one time during a merge sort.  If more that this number of files are created, then compactions will occur");
         options.put(MAX_IVARATOR_SOURCES,
                         " The maximum number of sources to use for ivarators across all ivarated terms within the query.  Note the thread pool size is controlled via an accumulo property.");
+        options.put(IVARATOR_RESULT_CACHE,
+                        "Whether ivarator results may be shared with other queries through the tablet server result cache.  Default is false.  The cache size is controlled via an accumulo property.");
+        options.put(IVARATOR_MAPPED_SPILL,
+                        "Whether ivarators whose cache dir is on the local file system spill to memory mapped sorted runs instead of the hdfs backed sorted set.  Default is false.");
         options.put(YIELD_THRESHOLD_MS,
                         "The threshold in milliseconds that the query iterator will evaluate consecutive documents to false before yielding the scan.");
         options.put(COMPRESS_SERVER_SIDE_RESULTS, "GZIP compress the serialized Documents before returning to the webserver");
         options.put(MAX_EVALUATION_PIPELINES, "The max number of evaluation pipelines");
         options.put(SERIAL_EVALUATION_PIPELINE, "Forces us to use the serial pipeline. Allows us to still have a single thread for evaluation");
         options.put(MAX_PIPELINE_CACHED_RESULTS, "The max number of non-null evaluated results to cache beyond the evaluation pipelines in queue");
+        options.put(UNORDERED_EVALUATION_PIPELINE,
+                        "Return evaluated documents in the order the evaluations complete instead of document order. Only honored when UIDs are not sorted");
         options.put(DATE_INDEX_TIME_TRAVEL, "Whether the shards from before the event should be gathered from the dateIndex");
         
         options.put(SORTED_UIDS,
@@ -1416,6 +1456,14 @@ public class QueryOptions implements OptionDescriber {
             this.setMaxIvaratorSources(Integer.parseInt(options.get(MAX_IVARATOR_SOURCES)));
         }
         
+        if (options.containsKey(IVARATOR_RESULT_CACHE)) {
+            this.setIvaratorResultCacheEnabled(Boolean.parseBoolean(options.get(IVARATOR_RESULT_CACHE)));
+        }
+        
+        if (options.containsKey(IVARATOR_MAPPED_SPILL)) {
+            this.setIvaratorMappedSpillEnabled(Boolean.parseBoolean(options.get(IVARATOR_MAPPED_SPILL)));
+        }
+        
         if (options.containsKey(YIELD_THRESHOLD_MS)) {
             this.setYieldThresholdMs(Long.parseLong(options.get(YIELD_THRESHOLD_MS)));
         }
@@ -1436,6 +1484,10 @@ public class QueryOptions implements OptionDescriber {
             this.setMaxPipelineCachedResults(Integer.parseInt(options.get(MAX_PIPELINE_CACHED_RESULTS)));
         }
         
+        if (options.containsKey(UNORDERED_EVALUATION_PIPELINE)) {
+            this.setUnorderedEvaluationPipeline(Boolean.parseBoolean(options.get(UNORDERED_EVALUATION_PIPELINE)));
+        }
+        
         if (options.containsKey(TERM_FREQUENCIES_REQUIRED)) {
             this.setTermFrequenciesRequired(Boolean.parseBoolean(options.get(TERM_FREQUENCIES_REQUIRED)));
         }
@@ -1823,6 +1875,14 @@ public class QueryOptions implements OptionDescriber {
         this.maxPipelineCachedResults = maxCachedResults;
     }
     
+    public boolean isUnorderedEvaluationPipeline() {
+        return unorderedEvaluationPipeline;
+    }
+    
+    public void setUnorderedEvaluationPipeline(boolean unorderedEvaluationPipeline) {
+        this.unorderedEvaluationPipeline = unorderedEvaluationPipeline;
+    }
+    
     public String getStatsdHostAndPort() {
         return statsdHostAndPort;
     }
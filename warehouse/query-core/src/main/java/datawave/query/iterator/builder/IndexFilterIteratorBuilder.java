@@ -76,10 +76,11 @@ public class IndexFilterIteratorBuilder extends IvaratorBuilder implements Itera
                                 .withTimeFilter(timeFilter).withDatatypeFilter(datatypeFilter).negated(false)
                                 .withScanThreshold(ivaratorCacheScanPersistThreshold).withScanTimeout(ivaratorCacheScanTimeout)
                                 .withHdfsBackedSetBufferSize(ivaratorCacheBufferSize).withMaxRangeSplit(maxRangeSplit).withMaxOpenFiles(ivaratorMaxOpenFiles)
+                                .withResultCache(ivaratorResultCacheEnabled).withAuthorizations(ivaratorAuthorizations)
                                 .withFileSystem(hdfsFileSystem).withUniqueDir(new Path(hdfsCacheURI)).withQueryLock(queryLock).allowDirResuse(true)
                                 .withReturnKeyType(PartialKey.ROW_COLFAM_COLQUAL_COLVIS_TIME).withSortedUUIDs(sortedUIDs)
                                 .withCompositeMetadata(compositeMetadata).withCompositeSeekThreshold(compositeSeekThreshold).withTypeMetadata(typeMetadata)
-                                .build();
+                                .withMappedSpill(ivaratorMappedSpillEnabled).build();
                 
                 if (collectTimingDetails) {
                     rangeIterator.setCollectTimingDetails(true);
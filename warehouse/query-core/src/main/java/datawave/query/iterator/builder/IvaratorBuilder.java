@@ -3,6 +3,7 @@ package datawave.query.iterator.builder;
 import datawave.core.iterators.querylock.QueryLock;
 import datawave.query.composite.CompositeMetadata;
 import datawave.query.iterator.profile.QuerySpanCollector;
+import org.apache.accumulo.core.security.Authorizations;
 import org.apache.hadoop.fs.FileSystem;
 
 /**
@@ -19,6 +20,9 @@ public abstract class IvaratorBuilder extends IndexIteratorBuilder {
     protected int ivaratorCacheBufferSize = 10000;
     protected int maxRangeSplit = 11;
     protected int ivaratorMaxOpenFiles = 100;
+    protected boolean ivaratorResultCacheEnabled = false;
+    protected boolean ivaratorMappedSpillEnabled = false;
+    protected Authorizations ivaratorAuthorizations = null;
     protected boolean collectTimingDetails = false;
     protected QuerySpanCollector querySpanCollector = null;
     protected CompositeMetadata compositeMetadata;
@@ -96,6 +100,30 @@ public abstract class IvaratorBuilder extends IndexIteratorBuilder {
         this.ivaratorMaxOpenFiles = ivaratorMaxOpenFiles;
     }
     
+    public boolean isIvaratorResultCacheEnabled() {
+        return ivaratorResultCacheEnabled;
+    }
+    
+    public void setIvaratorResultCacheEnabled(boolean ivaratorResultCacheEnabled) {
+        this.ivaratorResultCacheEnabled = ivaratorResultCacheEnabled;
+    }
+    
+    public boolean isIvaratorMappedSpillEnabled() {
+        return ivaratorMappedSpillEnabled;
+    }
+    
+    public void setIvaratorMappedSpillEnabled(boolean ivaratorMappedSpillEnabled) {
+        this.ivaratorMappedSpillEnabled = ivaratorMappedSpillEnabled;
+    }
+    
+    public Authorizations getIvaratorAuthorizations() {
+        return ivaratorAuthorizations;
+    }
+    
+    public void setIvaratorAuthorizations(Authorizations ivaratorAuthorizations) {
+        this.ivaratorAuthorizations = ivaratorAuthorizations;
+    }
+    
     public void setCollectTimingDetails(boolean collectTimingDetails) {
         this.collectTimingDetails = collectTimingDetails;
     }
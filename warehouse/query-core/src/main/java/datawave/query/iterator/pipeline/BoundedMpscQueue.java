@@ -0,0 +1,106 @@
+package datawave.query.iterator.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free, multi-producer single-consumer queue backed by a power of two sized ring buffer. Producers claim a slot by advancing the producer index
+ * with a CAS and then publish the element into the slot. The single consumer reads slots in order, spinning briefly if a producer has claimed a slot but not
+ * yet published into it.
+ * <p>
+ * Only one thread may call {@link #poll()} at a time; any number of threads may call {@link #offer(Object)}. An offer publishes its element with a volatile
+ * store, so a producer that reads a volatile field after offering is guaranteed to see any value the consumer wrote to that field before polling and finding
+ * the queue empty.
+ *
+ * @param <E>
+ *            the element type
+ */
+public class BoundedMpscQueue<E> {
+    
+    private final AtomicReferenceArray<E> buffer;
+    private final int mask;
+    private final int capacity;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+    
+    /**
+     * @param requestedCapacity
+     *            the minimum capacity of the queue, rounded up to the next power of two
+     */
+    public BoundedMpscQueue(int requestedCapacity) {
+        if (requestedCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + requestedCapacity);
+        }
+        this.capacity = requestedCapacity == 1 ? 1 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+    }
+    
+    /**
+     * Add an element to the tail of the queue.
+     *
+     * @param element
+     *            the element, must be non-null
+     * @return true if the element was added, false if the queue was full
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("Null elements are not supported");
+        }
+        long consumed = consumerIndex.get();
+        long produced;
+        do {
+            produced = producerIndex.get();
+            if (produced - consumed >= capacity) {
+                // refresh our view of the consumer before declaring the queue full
+                consumed = consumerIndex.get();
+                if (produced - consumed >= capacity) {
+                    return false;
+                }
+            }
+        } while (!producerIndex.compareAndSet(produced, produced + 1));
+        // publish with a volatile store rather than lazySet: callers commonly read a volatile flag (e.g. a parked consumer) right after offering,
+        // and an ordered store may be reordered after that load, letting the producer miss the waiter while the consumer misses the element
+        buffer.set(offset(produced), element);
+        return true;
+    }
+    
+    /**
+     * Remove the element at the head of the queue. Must only be called by the single consumer thread.
+     *
+     * @return the head element, or null if the queue is empty
+     */
+    public E poll() {
+        long consumed = consumerIndex.get();
+        int offset = offset(consumed);
+        E element = buffer.get(offset);
+        if (element == null) {
+            if (consumed == producerIndex.get()) {
+                return null;
+            }
+            // a producer has claimed this slot but has not yet published the element
+            do {
+                element = buffer.get(offset);
+            } while (element == null);
+        }
+        buffer.lazySet(offset, null);
+        consumerIndex.lazySet(consumed + 1);
+        return element;
+    }
+    
+    public boolean isEmpty() {
+        return consumerIndex.get() == producerIndex.get();
+    }
+    
+    public int size() {
+        return (int) (producerIndex.get() - consumerIndex.get());
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    private int offset(long index) {
+        return (int) index & mask;
+    }
+}
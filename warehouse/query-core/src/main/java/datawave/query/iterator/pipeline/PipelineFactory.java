@@ -38,7 +38,43 @@ public class PipelineFactory {
     public static PipelineIterator createIterator(NestedIterator<Key> documents, int maxPipelines, int maxCachedResults, boolean requestSerialPipeline,
                     QuerySpanCollector querySpanCollector, QuerySpan querySpan, QueryIterator sourceIterator,
                     SortedKeyValueIterator<Key,Value> sourceForDeepCopy, IteratorEnvironment env, YieldCallback<Key> yield, long yieldThresholdMs) {
-        if (maxPipelines > 1 && !requestSerialPipeline) {
+        return createIterator(documents, maxPipelines, maxCachedResults, requestSerialPipeline, false, querySpanCollector, querySpan, sourceIterator,
+                        sourceForDeepCopy, env, yield, yieldThresholdMs);
+    }
+    
+    /**
+     * Create a pipeline iterator.
+     * 
+     * @param documents
+     *            Document Iterator.
+     * @param maxPipelines
+     *            maximum number of requested pipelines.
+     * @param maxCachedResults
+     *            maximum cached results.
+     * @param requestSerialPipeline
+     *            request for a serial pipeline. In the future this choice may not be honored
+     * @param requestUnorderedPipeline
+     *            request for results to be returned in the order the evaluations complete. Only honored for a parallel pipeline, and only valid when the
+     *            caller does not require the results in document order
+     * @param querySpanCollector
+     *            query span collector
+     * @param querySpan
+     *            query span
+     * @param sourceIterator
+     *            source iterator.
+     * @param sourceForDeepCopy
+     *            source used for deep copies.
+     * @param env
+     *            iterator environment
+     * @return
+     */
+    public static PipelineIterator createIterator(NestedIterator<Key> documents, int maxPipelines, int maxCachedResults, boolean requestSerialPipeline,
+                    boolean requestUnorderedPipeline, QuerySpanCollector querySpanCollector, QuerySpan querySpan, QueryIterator sourceIterator,
+                    SortedKeyValueIterator<Key,Value> sourceForDeepCopy, IteratorEnvironment env, YieldCallback<Key> yield, long yieldThresholdMs) {
+        if (maxPipelines > 1 && !requestSerialPipeline && requestUnorderedPipeline) {
+            return new UnorderedPipelineIterator(documents, maxPipelines, maxCachedResults, querySpanCollector, querySpan, sourceIterator, sourceForDeepCopy,
+                            env, yield, yieldThresholdMs);
+        } else if (maxPipelines > 1 && !requestSerialPipeline) {
             return new PipelineIterator(documents, maxPipelines, maxCachedResults, querySpanCollector, querySpan, sourceIterator, sourceForDeepCopy, env,
                             yield, yieldThresholdMs);
         } else {
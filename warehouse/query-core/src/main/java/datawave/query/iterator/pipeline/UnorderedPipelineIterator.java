@@ -0,0 +1,379 @@
+package datawave.query.iterator.pipeline;
+
+import datawave.core.iterators.IteratorThreadPoolManager;
+import datawave.query.attributes.Document;
+import datawave.query.iterator.NestedIterator;
+import datawave.query.iterator.NestedQuery;
+import datawave.query.iterator.NestedQueryIterator;
+import datawave.query.iterator.QueryIterator;
+import datawave.query.iterator.profile.QuerySpan;
+import datawave.query.iterator.profile.QuerySpanCollector;
+import datawave.query.util.Tuple2;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IterationInterruptedException;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.YieldCallback;
+import org.apache.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A pipeline iterator that returns evaluation results in the order in which the evaluations complete rather than in document order. Each evaluation pushes its
+ * pipeline onto a bounded lock-free queue when it finishes, so a single slow evaluation no longer holds back the results of the evaluations queued behind it.
+ * <p>
+ * Because documents are returned out of order, this iterator must only be used when the keys returned to the client do not need to be sorted, i.e. when the
+ * {@link datawave.query.iterator.ResultCountingIterator} is applied (unsorted UIDs over a non document specific range). When yielding, the yield position is
+ * the highest document key for which every document before it has been evaluated and returned. Documents beyond that position that were already returned
+ * will be evaluated again after the yield, and are expected to be removed by the deduping on the client side.
+ */
+public class UnorderedPipelineIterator extends PipelineIterator {
+    
+    private static final Logger log = Logger.getLogger(UnorderedPipelineIterator.class);
+    
+    // completed evaluations, pushed by the evaluation threads and consumed by the thread calling hasNext/next
+    protected final BoundedMpscQueue<Completion> completions;
+    // the in flight evaluations by sequence number
+    protected final Map<Long,Tuple2<Future<?>,Pipeline>> inFlight;
+    // document keys of evaluations that completed before some evaluation ahead of them, by sequence number
+    protected final Map<Long,Key> retired = new HashMap<>();
+    protected long nextSequence = 0;
+    protected long nextSequenceToRetire = 0;
+    // the thread currently waiting for a completion, if any
+    protected volatile Thread waiter = null;
+    
+    public UnorderedPipelineIterator(NestedIterator<Key> documents, int maxPipelines, int maxCachedResults, QuerySpanCollector querySpanCollector,
+                    QuerySpan querySpan, QueryIterator sourceIterator, SortedKeyValueIterator<Key,Value> sourceForDeepCopy, IteratorEnvironment env,
+                    YieldCallback<Key> yieldCallback, long yieldThresholdMs) {
+        super(documents, maxPipelines, maxCachedResults, querySpanCollector, querySpan, sourceIterator, sourceForDeepCopy, env, yieldCallback, yieldThresholdMs);
+        this.completions = new BoundedMpscQueue<>(maxPipelines);
+        this.inFlight = new HashMap<>(maxPipelines * 2);
+    }
+    
+    @Override
+    public boolean hasNext() {
+        // if we had already yielded, then leave gracefully
+        if (yield != null && yield.hasYielded()) {
+            return false;
+        }
+        
+        Entry<Key,Document> next = getNext(false);
+        if (log.isTraceEnabled()) {
+            log.trace("QueryIterator.hasNext() -> " + (next == null ? null : next.getKey()));
+        }
+        return (next != null);
+    }
+    
+    @Override
+    public Entry<Key,Document> next() {
+        // if we had already yielded, then leave gracefully
+        if (yield != null && yield.hasYielded()) {
+            return null;
+        }
+        
+        Entry<Key,Document> next = getNext(true);
+        if (log.isTraceEnabled()) {
+            log.trace("QueryIterator.next() -> " + (next == null ? null : next.getKey()));
+        }
+        return next;
+    }
+    
+    /**
+     * Get the next non-null result in completion order.
+     *
+     * @param remove
+     *            whether to remove the result
+     * @return the next non-null entry. null if there are no more entries to get.
+     */
+    private Entry<Key,Document> getNext(boolean remove) {
+        try {
+            // cache the next non-null result if we do not already have one
+            if (results.isEmpty()) {
+                cacheNextResult();
+            }
+            
+            // flush any completed results to the results queue
+            flushCompletedResults();
+            
+            if (log.isTraceEnabled()) {
+                log.trace("getNext(" + remove + ") in flight: " + inFlight.size() + " cached: " + results.size());
+            }
+            
+            // get/remove and return the next result, null if we are done
+            if (results.isEmpty()) {
+                return null;
+            }
+            return remove ? results.poll() : results.peek();
+        } catch (Exception e) {
+            // cancel out existing executions
+            cancel();
+            
+            // if we yielded, then leave gracefully
+            if (yield != null && yield.hasYielded()) {
+                return null;
+            }
+            
+            log.error("Failed to retrieve evaluation pipeline result", e);
+            throw new RuntimeException("Failed to retrieve evaluation pipeline result", e);
+        }
+    }
+    
+    /**
+     * Wait for completed evaluations until we get one that is non-null, yielding if the yield threshold passes first
+     *
+     * @throws ExecutionException
+     * @throws InterruptedException
+     */
+    private void cacheNextResult() throws InterruptedException, ExecutionException {
+        Entry<Key,Document> result = null;
+        
+        long startMs = System.currentTimeMillis();
+        while (!inFlight.isEmpty() && result == null) {
+            Completion completion;
+            // we must have at least evaluated one thing in order to yield, otherwise we will have not progressed at all
+            if (yield != null && lastKeyEvaluated != null) {
+                long delta = System.currentTimeMillis() - startMs;
+                completion = (delta > yieldThresholdMs) ? null : take(yieldThresholdMs - delta);
+                if (completion == null) {
+                    yield.yield(lastKeyEvaluated);
+                    if (log.isDebugEnabled())
+                        log.debug("Yielding at " + lastKeyEvaluated);
+                    throw new IterationInterruptedException("Yielding at " + lastKeyEvaluated);
+                }
+            } else {
+                completion = take(Long.MAX_VALUE);
+            }
+            result = complete(completion);
+        }
+    }
+    
+    /**
+     * flush the evaluations that have already completed up to the max number of cached results
+     *
+     * @throws ExecutionException
+     */
+    private void flushCompletedResults() throws ExecutionException {
+        while (!inFlight.isEmpty() && results.size() < this.maxResults) {
+            Completion completion = completions.poll();
+            if (completion == null) {
+                break;
+            }
+            complete(completion);
+        }
+    }
+    
+    /**
+     * Wait for the next completed evaluation.
+     *
+     * @param waitMs
+     *            the maximum time to wait, Long.MAX_VALUE to wait indefinitely
+     * @return the completed evaluation, null if none completed within the wait time
+     * @throws InterruptedException
+     */
+    private Completion take(long waitMs) throws InterruptedException {
+        Completion completion = completions.poll();
+        if (completion != null) {
+            return completion;
+        }
+        
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(waitMs);
+        boolean timed = waitNanos < TimeUnit.DAYS.toNanos(365);
+        long deadline = System.nanoTime() + (timed ? waitNanos : 0);
+        long start = System.currentTimeMillis();
+        
+        waiter = Thread.currentThread();
+        try {
+            // re-check after publishing ourselves as the waiter so that we cannot miss a wakeup: the completing thread publishes its completion with a
+            // volatile store before reading the waiter, so either it sees us here or we see its completion
+            while ((completion = completions.poll()) == null) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (timed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                } else {
+                    LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+                }
+            }
+        } finally {
+            waiter = null;
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Waited " + (System.currentTimeMillis() - start) + "ms for the next of " + inFlight.size() + " evaluations to complete");
+        }
+        return completion;
+    }
+    
+    /**
+     * Process a completed evaluation: return its pipeline to the pool, start a new evaluation in its place, and queue the result.
+     *
+     * @param completion
+     *            the completed evaluation
+     * @return the evaluation result, null if the document did not evaluate to a result
+     * @throws ExecutionException
+     *             if the evaluation failed
+     */
+    private Entry<Key,Document> complete(Completion completion) throws ExecutionException {
+        Tuple2<Future<?>,Pipeline> evaluation = inFlight.remove(completion.sequence);
+        if (evaluation == null) {
+            // a late completion from an evaluation that was cancelled
+            return null;
+        }
+        
+        Pipeline pipeline = evaluation.second();
+        Entry<Key,Document> result;
+        try {
+            Key docKey = pipeline.getSource().getKey();
+            if (completion.error != null) {
+                log.error("Failed evaluating " + docKey + "; cancelling remaining evaluations and flushing results", completion.error);
+                throw new ExecutionException(completion.error);
+            }
+            
+            result = pipeline.getResult();
+            
+            if (log.isTraceEnabled()) {
+                log.trace("Result from " + docKey + " was " + (result == null ? "empty" : "successful"));
+            }
+            
+            retire(completion.sequence, docKey);
+        } finally {
+            // return the pipeline for reuse
+            pipelines.checkIn(pipeline);
+        }
+        
+        // start a new evaluation if we can
+        if (docSource.hasNext()) {
+            Key keySource = docSource.next();
+            NestedQuery<Key> nestedQuery = null;
+            if (docSource instanceof NestedQueryIterator) {
+                nestedQuery = ((NestedQueryIterator) this.docSource).getNestedQuery();
+            }
+            
+            evaluate(keySource, docSource.document(), nestedQuery);
+            if (collectTimingDetails) {
+                querySpanCollector.addQuerySpan(querySpan);
+            }
+        }
+        
+        // put the result into the queue if non-null
+        if (result != null) {
+            results.add(result);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Record that the evaluation with the specified sequence number has completed, and advance the last evaluated key past every evaluation that has completed
+     * in document order.
+     */
+    private void retire(long sequence, Key docKey) {
+        retired.put(sequence, docKey);
+        Key key;
+        while ((key = retired.remove(nextSequenceToRetire)) != null) {
+            lastKeyEvaluated = key;
+            nextSequenceToRetire++;
+        }
+    }
+    
+    /**
+     * Cancel all of the in flight evaluations
+     */
+    private void cancel() {
+        for (Tuple2<Future<?>,Pipeline> evaluation : inFlight.values()) {
+            evaluation.first().cancel(true);
+            pipelines.checkIn(evaluation.second());
+        }
+        inFlight.clear();
+        while (completions.poll() != null) {
+            // drain any completions that raced with the cancel
+        }
+        results.clear();
+    }
+    
+    @Override
+    public void startPipeline() {
+        // start up to maxPipeline pipelines
+        int maxPipelines = pipelines.maxPipelines;
+        NestedQuery<Key> nestedQuery = null;
+        boolean isNested = docSource instanceof NestedQueryIterator;
+        
+        for (int i = 0; i < maxPipelines && this.docSource.hasNext(); i++) {
+            Key keySource = this.docSource.next();
+            if (isNested) {
+                nestedQuery = ((NestedQueryIterator) this.docSource).getNestedQuery();
+            }
+            evaluate(keySource, this.docSource.document(), nestedQuery);
+        }
+    }
+    
+    private void evaluate(Key key, Document document, NestedQuery<Key> nestedQuery) {
+        if (log.isTraceEnabled()) {
+            log.trace("Adding evaluation of " + key + " to pipeline");
+        }
+        Pipeline pipeline = pipelines.checkOut(key, document, nestedQuery);
+        long sequence = nextSequence++;
+        
+        // completions are only consumed on this thread, so registering the evaluation after submitting it is safe
+        Future<?> future = IteratorThreadPoolManager.executeEvaluation(new CompletingEvaluation(sequence, pipeline), pipeline.toString());
+        inFlight.put(sequence, new Tuple2<>(future, pipeline));
+    }
+    
+    /**
+     * Runs a pipeline and pushes it onto the completion queue when done, whether or not the evaluation succeeded.
+     */
+    private class CompletingEvaluation implements Runnable {
+        private final long sequence;
+        private final Pipeline pipeline;
+        
+        CompletingEvaluation(long sequence, Pipeline pipeline) {
+            this.sequence = sequence;
+            this.pipeline = pipeline;
+        }
+        
+        @Override
+        public void run() {
+            Throwable error = null;
+            try {
+                pipeline.run();
+            } catch (Throwable t) {
+                error = t;
+            } finally {
+                if (!completions.offer(new Completion(sequence, error))) {
+                    // cannot happen as there are never more evaluations in flight than the queue capacity
+                    log.error("Completion queue full, dropping completion of evaluation " + sequence);
+                }
+                // must be read after the offer; the offer is a volatile store so this load cannot be reordered ahead of it
+                Thread toWake = waiter;
+                if (toWake != null) {
+                    LockSupport.unpark(toWake);
+                }
+            }
+        }
+    }
+    
+    /**
+     * A completed evaluation
+     */
+    protected static class Completion {
+        final long sequence;
+        final Throwable error;
+        
+        Completion(long sequence, Throwable error) {
+            this.sequence = sequence;
+            this.error = error;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.collect.Iterators;
 import datawave.query.DocumentSerialization;
 import datawave.query.attributes.Document;
 import datawave.query.function.LogTiming;
+import datawave.query.function.serializer.CompactDocumentSerializer;
 import datawave.query.function.serializer.KryoDocumentSerializer;
 import datawave.query.function.serializer.ToStringDocumentSerializer;
 import datawave.query.function.serializer.WritableDocumentSerializer;
@@ -99,6 +100,9 @@ public class FinalDocumentTrackingIterator implements Iterator<Map.Entry<Key,Val
         } else if (returnType == DocumentSerialization.ReturnType.writable) {
             // Use the Writable interface to serialize the Document
             serializedDocuments = Iterators.transform(emptyDocumentIterator, new WritableDocumentSerializer(isReducedResponse));
+        } else if (returnType == DocumentSerialization.ReturnType.compact) {
+            // Serialize the Document using the compact binary encoding
+            serializedDocuments = Iterators.transform(emptyDocumentIterator, new CompactDocumentSerializer(isReducedResponse, isCompressResults));
         } else if (returnType == DocumentSerialization.ReturnType.tostring) {
             // Just return a toString() representation of the document
             serializedDocuments = Iterators.transform(emptyDocumentIterator, new ToStringDocumentSerializer(isReducedResponse));
@@ -50,7 +50,8 @@ public class QuerySpan {
         KeyAdjudicator,
         DocumentMetadata,
         LimitFields,
-        RemoveGroupingContext
+        RemoveGroupingContext,
+        IvaratorFill
     };
     
     public QuerySpan(QueryStatsDClient client) {
@@ -276,46 +276,15 @@ public abstract class DatawaveArithmetic extends JexlArithmetic {
      * @return test result.
      */
     public boolean fstMatch(FST fst, Object right) {
-        right = normalizedValues(right);
-        
-        if (right instanceof Set) {
-            Set<Object> set = (Set<Object>) right;
-            
-            for (Object o : set) {
-                if (o != null) {
-                    try {
-                        if (matchesFst(o, fst))
-                            return true;
-                    } catch (IOException e) {
-                        if (log.isTraceEnabled()) {
-                            log.trace("Failed to evaluate " + right.toString() + " against the FST.");
-                        }
-                    }
-                }
-            }
-        } else {
-            if (right != null) {
-                try {
-                    if (matchesFst(right, fst))
-                        return true;
-                } catch (IOException e) {
-                    if (log.isTraceEnabled()) {
-                        log.trace("Failed to evaluate " + right.toString() + " against the FST.");
-                    }
-                }
-            }
-        }
-        
-        return false;
+        return new FstMatcher(fst).matches(right);
     }
     
     public static boolean matchesFst(Object object, FST fst) throws IOException {
         final IntsRefBuilder irBuilder = new IntsRefBuilder();
         Util.toUTF16(object.toString(), irBuilder);
         final IntsRef ints = irBuilder.get();
-        synchronized (fst) {
-            return Util.get(fst, ints) != null;
-        }
+        // lookups only read the fst, so it may be shared without synchronizing on it
+        return Util.get(fst, ints) != null;
     }
     
     /**
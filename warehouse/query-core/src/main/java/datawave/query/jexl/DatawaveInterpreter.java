@@ -19,6 +19,7 @@ import org.apache.commons.jexl2.parser.ASTFunctionNode;
 import org.apache.commons.jexl2.parser.ASTGENode;
 import org.apache.commons.jexl2.parser.ASTGTNode;
 import org.apache.commons.jexl2.parser.ASTIdentifier;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
 import org.apache.commons.jexl2.parser.ASTLENode;
 import org.apache.commons.jexl2.parser.ASTLTNode;
 import org.apache.commons.jexl2.parser.ASTMethodNode;
@@ -49,6 +50,10 @@ public class DatawaveInterpreter extends Interpreter {
     
     protected Map<TreeHashNode,Object> resultMap;
     
+    // the plan of the script being interpreted and the results of its slots, or null when the nodes are identified by their tree hash
+    private JexlEvaluationPlan plan;
+    private Object[] planResults;
+    
     private static final Logger log = Logger.getLogger(DatawaveInterpreter.class);
     
     public DatawaveInterpreter(JexlEngine jexl, JexlContext aContext, boolean strictFlag, boolean silentFlag) {
@@ -56,6 +61,22 @@ public class DatawaveInterpreter extends Interpreter {
         resultMap = Maps.newHashMap();
     }
     
+    /**
+     * Interprets a script using its precomputed evaluation plan, identifying the nodes whose results are reused by their slot in the plan.
+     * 
+     * @param script
+     *            the script
+     * @param plan
+     *            the evaluation plan of the script
+     * @return the result of the script
+     */
+    public Object interpret(ASTJexlScript script, JexlEvaluationPlan plan) {
+        this.plan = plan;
+        this.planResults = new Object[plan.size()];
+        setFrame(script.createFrame((Object[]) null));
+        return interpret(script);
+    }
+    
     /**
      * This convenience method can be used to interpret the result of the script.execute() result which calls the interpret method below.
      * 
@@ -81,9 +102,9 @@ public class DatawaveInterpreter extends Interpreter {
     
     @Override
     public Object visit(ASTFunctionNode node, Object data) {
-        TreeHashNode hash = TreeHashVisitor.getNodeHash(node);
+        Object key = getResultKey(node);
         
-        Object result = resultMap.get(hash);
+        Object result = getResult(key);
         if (null != result) {
             return result;
         }
@@ -103,11 +124,11 @@ public class DatawaveInterpreter extends Interpreter {
         // if the function stands alone, then it needs to return ag boolean
         // if the function is paired with a method that is called on its results (like 'size') then the
         // actual results must be returned.
-        if (hasSiblings(node)) {
-            resultMap.put(hash, result);
+        if (plan != null ? plan.returnsCollection(node) : hasSiblings(node)) {
+            putResult(key, result);
             return result;
         }
-        resultMap.put(hash, result instanceof Collection ? !((Collection) result).isEmpty() : result);
+        putResult(key, result instanceof Collection ? !((Collection) result).isEmpty() : result);
         return result instanceof Collection ? !((Collection) result).isEmpty() : result;
     }
     
@@ -129,28 +150,86 @@ public class DatawaveInterpreter extends Interpreter {
     
     @Override
     public Object visit(ASTEQNode node, Object data) {
-        TreeHashNode hash = TreeHashVisitor.getNodeHash(node);
+        Object key = getResultKey(node);
         
-        Object result = resultMap.get(hash);
+        Object result = getResult(key);
         if (null != result)
             return result;
-        result = super.visit(node, data);
-        resultMap.put(hash, result);
+        result = evaluateTerm(node, data);
+        if (null == result)
+            result = super.visit(node, data);
+        putResult(key, result);
         return result;
     }
     
     @Override
     public Object visit(ASTERNode node, Object data) {
-        TreeHashNode hash = TreeHashVisitor.getNodeHash(node);
+        Object key = getResultKey(node);
         
-        Object result = resultMap.get(hash);
+        Object result = getResult(key);
         if (null != result)
             return result;
-        result = super.visit(node, data);
-        resultMap.put(hash, result);
+        result = evaluateTerm(node, data);
+        if (null == result)
+            result = super.visit(node, data);
+        putResult(key, result);
         return result;
     }
     
+    /**
+     * Evaluates a term with the evaluator the plan compiled for it
+     * 
+     * @param node
+     *            an equality or regex node
+     * @param data
+     *            the object the node is evaluated against, null for the context
+     * @return the result, or null if the node has to be interpreted
+     */
+    private Object evaluateTerm(JexlNode node, Object data) {
+        if (plan == null || data != null) {
+            return null;
+        }
+        TermEvaluator evaluator = plan.getEvaluator(node);
+        if (evaluator == null) {
+            return null;
+        }
+        try {
+            return evaluator.evaluate(getContext(), arithmetic);
+        } catch (ArithmeticException xrt) {
+            throw new JexlException(node, evaluator.getOperator() + " error", xrt);
+        }
+    }
+    
+    /**
+     * @param node
+     *            an equality, regex or function node
+     * @return the slot of the node in the plan, or the tree hash of the node when interpreting without a plan
+     */
+    private Object getResultKey(JexlNode node) {
+        if (plan != null) {
+            Integer slot = plan.getSlot(node);
+            if (slot != null) {
+                return slot;
+            }
+        }
+        return TreeHashVisitor.getNodeHash(node);
+    }
+    
+    private Object getResult(Object key) {
+        if (key instanceof Integer) {
+            return planResults[(Integer) key];
+        }
+        return resultMap.get(key);
+    }
+    
+    private void putResult(Object key, Object result) {
+        if (key instanceof Integer) {
+            planResults[(Integer) key] = result;
+        } else {
+            resultMap.put((TreeHashNode) key, result);
+        }
+    }
+    
     /**
      * unused because hasSiblings should cover every case with the size method, plus other methods
      * 
@@ -383,7 +462,7 @@ public class DatawaveInterpreter extends Interpreter {
      * @param node
      * @return
      */
-    private boolean hasSiblings(ASTFunctionNode node) {
+    static boolean hasSiblings(ASTFunctionNode node) {
         
         JexlNode parent = node.jjtGetParent();
         
@@ -442,22 +521,22 @@ public class DatawaveInterpreter extends Interpreter {
         
         Set evaluation = new HashSet<>();
         
-        // check for value matches
+        // check for value matches, looking up the normalized values rather than comparing them with every value in the list
         if (evalValues != null && !evalValues.isEmpty()) {
             for (Object contextValue : contextValues) {
-                for (String evalValue : evalValues) {
-                    if (arithmetic.equals(contextValue, evalValue)) {
-                        evaluation.add(contextValue);
-                        break;
-                    }
+                String evalValue = getMatchingValue(evalValues, contextValue);
+                // the arithmetic still compares the match, such that it may record the hit
+                if (evalValue != null && arithmetic.equals(contextValue, evalValue)) {
+                    evaluation.add(contextValue);
                 }
             }
         }
         
         // check for FST matches
-        else if (evalFst != null && arithmetic instanceof DatawaveArithmetic) {
+        else if (evalFst != null) {
+            FstMatcher matcher = new FstMatcher(evalFst);
             for (Object contextValue : contextValues) {
-                if (((DatawaveArithmetic) arithmetic).fstMatch(evalFst, contextValue)) {
+                if (matcher.matches(contextValue)) {
                     evaluation.add(contextValue);
                     break;
                 }
@@ -484,4 +563,28 @@ public class DatawaveInterpreter extends Interpreter {
         
         return evaluation;
     }
+    
+    /**
+     * @param evalValues
+     *            the normalized values of an exceeded or threshold marker
+     * @param contextValue
+     *            an attribute value, or a collection of them
+     * @return the value in the list which equals the normalized value, or the normalized value of any value in the collection, or null if there is none
+     */
+    private static String getMatchingValue(Set<String> evalValues, Object contextValue) {
+        if (contextValue instanceof Collection) {
+            for (Object o : (Collection<?>) contextValue) {
+                String evalValue = getMatchingValue(evalValues, o);
+                if (evalValue != null) {
+                    return evalValue;
+                }
+            }
+            return null;
+        }
+        Object normalized = ValueTuple.getNormalizedValue(contextValue);
+        if (normalized != null && evalValues.contains(normalized.toString())) {
+            return normalized.toString();
+        }
+        return null;
+    }
 }
@@ -2,11 +2,11 @@ package datawave.query.jexl;
 
 import java.util.Map;
 
-import org.apache.commons.jexl2.Interpreter;
 import org.apache.commons.jexl2.JexlArithmetic;
 import org.apache.commons.jexl2.JexlContext;
 import org.apache.commons.jexl2.JexlEngine;
 import org.apache.commons.jexl2.JexlInfo;
+import org.apache.commons.jexl2.Script;
 import org.apache.commons.jexl2.introspection.Uberspect;
 import org.apache.commons.jexl2.parser.ASTJexlScript;
 import org.apache.commons.logging.Log;
@@ -31,10 +31,18 @@ public class DatawaveJexlEngine extends JexlEngine {
     }
     
     @Override
-    protected Interpreter createInterpreter(JexlContext context, boolean strictFlag, boolean silentFlag) {
+    protected DatawaveInterpreter createInterpreter(JexlContext context, boolean strictFlag, boolean silentFlag) {
         return new DatawaveInterpreter(this, context, strictFlag, silentFlag);
     }
     
+    /**
+     * Creates a {@link DatawaveJexlScript}, which computes its evaluation plan once instead of on every execution.
+     */
+    @Override
+    protected Script createScript(ASTJexlScript tree, String text) {
+        return new DatawaveJexlScript(this, text, tree);
+    }
+    
     public ASTJexlScript parse(CharSequence expression) {
         return super.parse(expression, null, null);
     }
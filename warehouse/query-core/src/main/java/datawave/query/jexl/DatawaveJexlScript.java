@@ -0,0 +1,35 @@
+package datawave.query.jexl;
+
+import org.apache.commons.jexl2.ExpressionImpl;
+import org.apache.commons.jexl2.JexlContext;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+
+/**
+ * A script created by the {@link DatawaveJexlEngine}, which computes its {@link JexlEvaluationPlan} once such that each execution, typically one per document,
+ * interprets the script without first having to identify its nodes, and evaluates its comparisons of fields with literals without visiting them.
+ */
+public class DatawaveJexlScript extends ExpressionImpl {
+    
+    private final DatawaveJexlEngine engine;
+    private final JexlEvaluationPlan plan;
+    
+    protected DatawaveJexlScript(DatawaveJexlEngine engine, String expression, ASTJexlScript script) {
+        super(engine, expression, script);
+        this.engine = engine;
+        this.plan = JexlEvaluationPlan.compile(script);
+    }
+    
+    public JexlEvaluationPlan getPlan() {
+        return plan;
+    }
+    
+    public ASTJexlScript getScript() {
+        return script;
+    }
+    
+    @Override
+    public Object execute(JexlContext context) {
+        DatawaveInterpreter interpreter = engine.createInterpreter(context, engine.isStrict(), engine.isSilent());
+        return interpreter.interpret(script, plan);
+    }
+}
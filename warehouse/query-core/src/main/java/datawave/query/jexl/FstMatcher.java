@@ -0,0 +1,63 @@
+package datawave.query.jexl;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import datawave.query.attributes.ValueTuple;
+
+import org.apache.log4j.Logger;
+import org.apache.lucene.util.IntsRefBuilder;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.Util;
+
+/**
+ * Matches the values of document attributes against an FST of normalized values, such as the FST the planner writes for a list of values that exceeded the
+ * OR threshold. Each attribute's normalized value is looked up in the FST directly, without collecting the normalized values into a set first. Lookups only
+ * read the FST, so one FST may be shared by the matchers of any number of scan sessions, while the buffer a value is encoded into belongs to the matcher.
+ */
+public class FstMatcher {
+    
+    private static final Logger log = Logger.getLogger(FstMatcher.class);
+    
+    private final FST<?> fst;
+    private final IntsRefBuilder scratch = new IntsRefBuilder();
+    
+    public FstMatcher(FST<?> fst) {
+        this.fst = fst;
+    }
+    
+    /**
+     * @param value
+     *            an attribute value, or a collection of them
+     * @return true if the normalized value, or the normalized value of any value in the collection, is in the FST
+     */
+    public boolean matches(Object value) {
+        if (value instanceof Collection) {
+            for (Object o : (Collection<?>) value) {
+                if (matches(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        Object normalized = ValueTuple.getNormalizedValue(value);
+        return normalized != null && accepts(normalized.toString());
+    }
+    
+    /**
+     * @param value
+     *            a normalized value
+     * @return true if the value is in the FST
+     */
+    public boolean accepts(String value) {
+        Util.toUTF16(value, scratch);
+        try {
+            return Util.get(fst, scratch.get()) != null;
+        } catch (IOException e) {
+            if (log.isTraceEnabled()) {
+                log.trace("Failed to evaluate " + value + " against the FST.");
+            }
+            return false;
+        }
+    }
+}
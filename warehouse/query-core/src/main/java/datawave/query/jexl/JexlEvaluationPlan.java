@@ -0,0 +1,113 @@
+package datawave.query.jexl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import datawave.query.jexl.nodes.TreeHashNode;
+import datawave.query.jexl.visitors.TreeHashVisitor;
+
+import org.apache.commons.jexl2.parser.ASTEQNode;
+import org.apache.commons.jexl2.parser.ASTERNode;
+import org.apache.commons.jexl2.parser.ASTFunctionNode;
+import org.apache.commons.jexl2.parser.JexlNode;
+
+/**
+ * The evaluation plan of a script, computed once when the script is created rather than for every document the script is evaluated against. Each node whose
+ * result the {@link DatawaveInterpreter} reuses (equality, regex and function nodes) is given a slot, identical subtrees sharing the same slot, such that the
+ * interpreter keeps its results in an array instead of hashing the tree of each node it visits. Whether a function node returns its collection of hits, rather
+ * than a boolean, is computed here as well.
+ * <p>
+ * Equality and regex nodes comparing a field with a literal are also compiled into a {@link TermEvaluator}, which the interpreter runs instead of visiting the
+ * nodes of the term. The boolean operators, functions and every other node are still interpreted, as their results may be collections of hits which the
+ * {@link DatawaveInterpreter} merges in ways specific to each operator.
+ */
+public class JexlEvaluationPlan {
+    
+    private final Map<JexlNode,Integer> slots;
+    private final Set<JexlNode> collectionFunctions;
+    private final Map<JexlNode,TermEvaluator> evaluators;
+    private final int size;
+    
+    private JexlEvaluationPlan(Map<JexlNode,Integer> slots, Set<JexlNode> collectionFunctions, Map<JexlNode,TermEvaluator> evaluators, int size) {
+        this.slots = slots;
+        this.collectionFunctions = collectionFunctions;
+        this.evaluators = evaluators;
+        this.size = size;
+    }
+    
+    /**
+     * Computes the plan of a script
+     *
+     * @param root
+     *            the root of the script
+     * @return the plan
+     */
+    public static JexlEvaluationPlan compile(JexlNode root) {
+        Map<JexlNode,Integer> slots = new IdentityHashMap<>();
+        Set<JexlNode> collectionFunctions = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<JexlNode,TermEvaluator> evaluators = new IdentityHashMap<>();
+        Map<TreeHashNode,Integer> hashSlots = new HashMap<>();
+        compile(root, slots, collectionFunctions, evaluators, hashSlots);
+        return new JexlEvaluationPlan(slots, collectionFunctions, evaluators, hashSlots.size());
+    }
+    
+    private static void compile(JexlNode node, Map<JexlNode,Integer> slots, Set<JexlNode> collectionFunctions, Map<JexlNode,TermEvaluator> evaluators,
+                    Map<TreeHashNode,Integer> hashSlots) {
+        if (node instanceof ASTEQNode || node instanceof ASTERNode || node instanceof ASTFunctionNode) {
+            TreeHashNode hash = TreeHashVisitor.getNodeHash(node);
+            Integer slot = hashSlots.get(hash);
+            if (slot == null) {
+                slot = hashSlots.size();
+                hashSlots.put(hash, slot);
+            }
+            slots.put(node, slot);
+            if (node instanceof ASTFunctionNode && DatawaveInterpreter.hasSiblings((ASTFunctionNode) node)) {
+                collectionFunctions.add(node);
+            }
+            TermEvaluator evaluator = TermEvaluator.compile(node);
+            if (evaluator != null) {
+                evaluators.put(node, evaluator);
+            }
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            compile(node.jjtGetChild(i), slots, collectionFunctions, evaluators, hashSlots);
+        }
+    }
+    
+    /**
+     * @param node
+     *            a node of the script
+     * @return the slot of the node, or null if the node was not given one
+     */
+    public Integer getSlot(JexlNode node) {
+        return slots.get(node);
+    }
+    
+    /**
+     * @param node
+     *            a function node of the script
+     * @return true if the function returns its collection of hits for a method called on them, false if it returns whether there were any
+     */
+    public boolean returnsCollection(ASTFunctionNode node) {
+        return collectionFunctions.contains(node);
+    }
+    
+    /**
+     * @param node
+     *            a node of the script
+     * @return the evaluator compiled for the node, or null if the node has to be interpreted
+     */
+    public TermEvaluator getEvaluator(JexlNode node) {
+        return evaluators.get(node);
+    }
+    
+    /**
+     * @return the number of slots
+     */
+    public int size() {
+        return size;
+    }
+}
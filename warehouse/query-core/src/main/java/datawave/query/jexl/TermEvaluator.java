@@ -0,0 +1,135 @@
+package datawave.query.jexl;
+
+import org.apache.commons.jexl2.JexlArithmetic;
+import org.apache.commons.jexl2.JexlContext;
+import org.apache.commons.jexl2.parser.ASTEQNode;
+import org.apache.commons.jexl2.parser.ASTERNode;
+import org.apache.commons.jexl2.parser.ASTIdentifier;
+import org.apache.commons.jexl2.parser.ASTNumberLiteral;
+import org.apache.commons.jexl2.parser.ASTReference;
+import org.apache.commons.jexl2.parser.ASTReferenceExpression;
+import org.apache.commons.jexl2.parser.ASTStringLiteral;
+import org.apache.commons.jexl2.parser.JexlNode;
+
+/**
+ * Evaluates a term comparing a field with a literal, such as {@code FOO == 'bar'} or {@code FOO =~ 'ba.*'}, without visiting the nodes of the term. The field
+ * name and the literal are resolved when the {@link JexlEvaluationPlan} is computed, so evaluating the term for a document is a lookup of the field in the
+ * context followed by the same {@link JexlArithmetic} call the interpreter makes, which is where a {@link HitListArithmetic} records its hits.
+ */
+public abstract class TermEvaluator {
+    
+    protected final String field;
+    protected final Object literal;
+    
+    protected TermEvaluator(String field, Object literal) {
+        this.field = field;
+        this.literal = literal;
+    }
+    
+    /**
+     * Compiles the evaluator of a term
+     *
+     * @param node
+     *            an equality or regex node
+     * @return the evaluator, or null if the node is not a comparison of a field with a literal
+     */
+    public static TermEvaluator compile(JexlNode node) {
+        // subclasses of the nodes mark special cases, leave those to the interpreter
+        if (node.jjtGetNumChildren() != 2 || (node.getClass() != ASTEQNode.class && node.getClass() != ASTERNode.class)) {
+            return null;
+        }
+        JexlNode identifier = dereference(node.jjtGetChild(0));
+        if (!(identifier instanceof ASTIdentifier) || ((ASTIdentifier) identifier).getRegister() >= 0) {
+            return null;
+        }
+        
+        JexlNode value = node.jjtGetChild(1);
+        Object literal;
+        if (value instanceof ASTStringLiteral) {
+            literal = value.image;
+        } else if (value instanceof ASTNumberLiteral && node instanceof ASTEQNode) {
+            literal = ((ASTNumberLiteral) value).getLiteral();
+        } else {
+            return null;
+        }
+        
+        if (node instanceof ASTEQNode) {
+            return new Equality(identifier.image, literal);
+        }
+        return new Regex(identifier.image, literal);
+    }
+    
+    private static JexlNode dereference(JexlNode node) {
+        while (node.jjtGetNumChildren() == 1 && (node instanceof ASTReference || node instanceof ASTReferenceExpression)) {
+            node = node.jjtGetChild(0);
+        }
+        return node;
+    }
+    
+    /**
+     * Evaluates the term
+     *
+     * @param context
+     *            the context of the document
+     * @param arithmetic
+     *            the arithmetic of the interpreter
+     * @return the result, or null if the field is not in the context, in which case the term is left to the interpreter to resolve the unknown variable
+     * @throws ArithmeticException
+     *             if the arithmetic fails to compare the values
+     */
+    public Object evaluate(JexlContext context, JexlArithmetic arithmetic) {
+        Object value = context.get(field);
+        if (value == null) {
+            return null;
+        }
+        return compare(arithmetic, value) ? Boolean.TRUE : Boolean.FALSE;
+    }
+    
+    protected abstract boolean compare(JexlArithmetic arithmetic, Object value);
+    
+    /**
+     * @return the operator of the term, for error messages
+     */
+    public abstract String getOperator();
+    
+    public String getField() {
+        return field;
+    }
+    
+    @Override
+    public String toString() {
+        return field + ' ' + getOperator() + ' ' + literal;
+    }
+    
+    static class Equality extends TermEvaluator {
+        Equality(String field, Object literal) {
+            super(field, literal);
+        }
+        
+        @Override
+        protected boolean compare(JexlArithmetic arithmetic, Object value) {
+            return arithmetic.equals(value, literal);
+        }
+        
+        @Override
+        public String getOperator() {
+            return "==";
+        }
+    }
+    
+    static class Regex extends TermEvaluator {
+        Regex(String field, Object literal) {
+            super(field, literal);
+        }
+        
+        @Override
+        protected boolean compare(JexlArithmetic arithmetic, Object value) {
+            return arithmetic.matches(value, literal);
+        }
+        
+        @Override
+        public String getOperator() {
+            return "=~";
+        }
+    }
+}
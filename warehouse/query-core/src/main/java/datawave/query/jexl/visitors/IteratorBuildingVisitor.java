@@ -62,6 +62,7 @@ import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.IteratorEnvironment;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.security.Authorizations;
 import org.apache.commons.jexl2.JexlArithmetic;
 import org.apache.commons.jexl2.JexlContext;
 import org.apache.commons.jexl2.Script;
@@ -142,6 +143,8 @@ public class IteratorBuildingVisitor extends BaseVisitor {
     protected int ivaratorCacheBufferSize = 10000;
     protected int maxRangeSplit = 11;
     protected int ivaratorMaxOpenFiles = 100;
+    protected boolean ivaratorResultCacheEnabled = false;
+    protected boolean ivaratorMappedSpillEnabled = false;
     protected SourcePool ivaratorSources = null;
     protected SortedKeyValueIterator<Key,Value> ivaratorSource = null;
     protected int ivaratorCount = 0;
@@ -1009,6 +1012,20 @@ public class IteratorBuildingVisitor extends BaseVisitor {
         return true;
     }
     
+    /**
+     * Get the authorizations of the scan, which scope the ivarator results shared across queries
+     * 
+     * @return the authorizations, or null if the environment cannot provide them
+     */
+    private Authorizations getScanAuthorizations() {
+        try {
+            return (env == null ? null : env.getAuthorizations());
+        } catch (UnsupportedOperationException e) {
+            log.warn("Unable to get the scan authorizations, not caching ivarator results", e);
+            return null;
+        }
+    }
+    
     /**
      * Create a cache directory path for a specified regex node. If alternatives have been specified, then random alternatives will be attempted until one is
      * found that can be written to.
@@ -1322,6 +1339,11 @@ public class IteratorBuildingVisitor extends BaseVisitor {
         builder.setIvaratorCacheScanTimeout(ivaratorCacheScanTimeout);
         builder.setMaxRangeSplit(maxRangeSplit);
         builder.setIvaratorMaxOpenFiles(ivaratorMaxOpenFiles);
+        builder.setIvaratorResultCacheEnabled(ivaratorResultCacheEnabled);
+        builder.setIvaratorMappedSpillEnabled(ivaratorMappedSpillEnabled);
+        if (ivaratorResultCacheEnabled) {
+            builder.setIvaratorAuthorizations(getScanAuthorizations());
+        }
         builder.setCollectTimingDetails(collectTimingDetails);
         builder.setQuerySpanCollector(querySpanCollector);
         builder.setSortedUIDs(sortedUIDs);
@@ -1544,6 +1566,16 @@ public class IteratorBuildingVisitor extends BaseVisitor {
         return this;
     }
     
+    public IteratorBuildingVisitor setIvaratorResultCacheEnabled(boolean ivaratorResultCacheEnabled) {
+        this.ivaratorResultCacheEnabled = ivaratorResultCacheEnabled;
+        return this;
+    }
+    
+    public IteratorBuildingVisitor setIvaratorMappedSpillEnabled(boolean ivaratorMappedSpillEnabled) {
+        this.ivaratorMappedSpillEnabled = ivaratorMappedSpillEnabled;
+        return this;
+    }
+    
     public IteratorBuildingVisitor setIvaratorSources(SourceFactory sourceFactory, int maxIvaratorSources) {
         this.ivaratorSources = new SourcePool(sourceFactory, maxIvaratorSources);
         this.ivaratorSource = new ThreadLocalPooledSource<>(ivaratorSources);
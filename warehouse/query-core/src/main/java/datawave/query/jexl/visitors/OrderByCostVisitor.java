@@ -0,0 +1,169 @@
+package datawave.query.jexl.visitors;
+
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.jexl.JexlASTHelper;
+import datawave.query.jexl.nodes.QueryPropertyMarker;
+import datawave.query.planner.pushdown.Cost;
+import datawave.query.planner.pushdown.CostEstimator;
+import datawave.query.tables.ScannerFactory;
+import datawave.query.util.MetadataHelper;
+import org.apache.commons.jexl2.parser.ASTAndNode;
+import org.apache.commons.jexl2.parser.ASTDelayedPredicate;
+import org.apache.commons.jexl2.parser.ASTEQNode;
+import org.apache.commons.jexl2.parser.ASTReference;
+import org.apache.commons.jexl2.parser.ASTReferenceExpression;
+import org.apache.commons.jexl2.parser.JexlNode;
+import org.apache.commons.jexl2.parser.JexlNodes;
+import org.apache.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Visitor meant to order the children of each conjunction by their estimated cost, cheapest first, so the global index lookup and the evaluation of the
+ * conjunction start with the most selective terms. Terms estimated to cost more than {@link ShardQueryConfiguration#getCostBasedDelayRatio()} times the
+ * cheapest indexed term of their conjunction are delayed, so that they are evaluated against the event instead of looked up in the index.
+ * <p>
+ * Costs come from the {@link CostEstimator}, which narrows the field counts down to the term using the term counts and the index stats. Terms that cannot be
+ * costed (e.g. bounded ranges, markers and functions) are left at the end of the conjunction in their original order.
+ */
+public class OrderByCostVisitor extends BaseVisitor {
+    
+    private static final Logger log = Logger.getLogger(OrderByCostVisitor.class);
+    
+    protected ShardQueryConfiguration config;
+    protected CostEstimator costAnalysis;
+    protected Set<String> nonEventFields;
+    
+    public OrderByCostVisitor(ShardQueryConfiguration config, ScannerFactory scannerFactory, MetadataHelper helper, Set<String> nonEventFields) {
+        this.config = config;
+        this.costAnalysis = new CostEstimator(config, scannerFactory, helper);
+        this.nonEventFields = (nonEventFields == null ? Collections.emptySet() : nonEventFields);
+    }
+    
+    public static <T extends JexlNode> T order(T queryTree, ShardQueryConfiguration config, ScannerFactory scannerFactory, MetadataHelper helper,
+                    Set<String> nonEventFields) {
+        OrderByCostVisitor visitor = new OrderByCostVisitor(config, scannerFactory, helper, nonEventFields);
+        queryTree.jjtAccept(visitor, null);
+        return queryTree;
+    }
+    
+    @Override
+    public Object visit(ASTReferenceExpression node, Object data) {
+        // do not reorder anything within a marker
+        if (!QueryPropertyMarker.instanceOf(node, null)) {
+            return super.visit(node, data);
+        }
+        return data;
+    }
+    
+    @Override
+    public Object visit(ASTReference node, Object data) {
+        // do not reorder anything within a marker
+        if (!QueryPropertyMarker.instanceOf(node, null)) {
+            return super.visit(node, data);
+        }
+        return data;
+    }
+    
+    @Override
+    public Object visit(ASTAndNode node, Object data) {
+        if (QueryPropertyMarker.instanceOf(node, null)) {
+            return data;
+        }
+        
+        // order the nested conjunctions first
+        super.visit(node, data);
+        
+        JexlNode[] children = Arrays.copyOf(JexlNodes.children(node), node.jjtGetNumChildren());
+        Map<JexlNode,Long> costs = new IdentityHashMap<>();
+        for (JexlNode child : children) {
+            costs.put(child, getCost(child));
+        }
+        
+        Arrays.sort(children, Comparator.comparingLong(costs::get));
+        if (!Arrays.equals(children, JexlNodes.children(node))) {
+            JexlNodes.children(node, children);
+        }
+        
+        if (log.isDebugEnabled()) {
+            for (JexlNode child : children) {
+                log.debug("Estimated cost of " + costs.get(child) + " for " + JexlStringBuildingVisitor.buildQuery(child));
+            }
+        }
+        
+        if (config.getCostBasedDelayRatio() > 0) {
+            delayCostlyTerms(children, costs);
+        }
+        
+        return data;
+    }
+    
+    /**
+     * Delay the EQ nodes that are much more costly than the cheapest indexed EQ node, which is left to drive the conjunction from the index
+     * 
+     * @param children
+     *            the children of the conjunction, cheapest first
+     * @param costs
+     *            the estimated cost of each child
+     */
+    protected void delayCostlyTerms(JexlNode[] children, Map<JexlNode,Long> costs) {
+        JexlNode anchor = null;
+        for (JexlNode child : children) {
+            long cost = costs.get(child);
+            if (child instanceof ASTEQNode && cost > 0 && cost < Long.MAX_VALUE) {
+                anchor = child;
+                break;
+            }
+        }
+        if (anchor == null) {
+            return;
+        }
+        
+        double maxCost = costs.get(anchor) * config.getCostBasedDelayRatio();
+        for (JexlNode child : children) {
+            long cost = costs.get(child);
+            if (child != anchor && child instanceof ASTEQNode && cost > maxCost && cost < Long.MAX_VALUE && isEventField(child)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Delaying " + JexlStringBuildingVisitor.buildQuery(child) + " with an estimated cost of " + cost + " against "
+                                    + JexlStringBuildingVisitor.buildQuery(anchor) + " with an estimated cost of " + costs.get(anchor));
+                }
+                ASTDelayedPredicate.create(child);
+            }
+        }
+    }
+    
+    /**
+     * Get the estimated cost of a subtree, where a subtree that could not be costed is the most costly
+     * 
+     * @param node
+     * @return the estimated cost
+     */
+    protected long getCost(JexlNode node) {
+        Cost cost = costAnalysis.computeCostForSubtree(node);
+        long total = cost.totalCost();
+        if (cost.isUnevaluated() || total < 0) {
+            return Long.MAX_VALUE;
+        }
+        return total;
+    }
+    
+    /**
+     * Only a term on a field that is in the event can be evaluated against the event
+     * 
+     * @param node
+     * @return true if the field of this node is in the event
+     */
+    protected boolean isEventField(JexlNode node) {
+        try {
+            return !nonEventFields.contains(JexlASTHelper.getIdentifier(node));
+        } catch (NoSuchElementException e) {
+            return false;
+        }
+    }
+}
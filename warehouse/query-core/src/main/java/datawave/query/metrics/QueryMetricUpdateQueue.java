@@ -0,0 +1,220 @@
+package datawave.query.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import datawave.security.authorization.DatawavePrincipal;
+import datawave.webservice.query.metric.BaseQueryMetric.Lifecycle;
+import datawave.webservice.query.metric.BaseQueryMetric.PageMetric;
+import datawave.webservice.query.metric.QueryMetric;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Coalesces query metric updates per query id until they are drained to a writer. An update for a query that already has a pending update is merged into it,
+ * such that only the latest state of the metric and the combined page metrics are written.
+ * <p>
+ * Once {@code maxPendingUpdates} queries have a pending update, updates for further queries are dropped, unless the update ends the query's lifecycle. Those
+ * are always queued, since dropping one would leave the stored metric of the query open forever. An update that fails to be written is queued again and
+ * retried on the next drain, until it has failed {@link #MAX_WRITE_ATTEMPTS} times.
+ */
+class QueryMetricUpdateQueue {
+    
+    private static final Logger log = Logger.getLogger(QueryMetricUpdateQueue.class);
+    
+    static final int MAX_WRITE_ATTEMPTS = 3;
+    
+    private static final Set<Lifecycle> TERMINAL_LIFECYCLES = Collections.unmodifiableSet(EnumSet.of(Lifecycle.CLOSED, Lifecycle.CANCELLED,
+                    Lifecycle.MAXRESULTS, Lifecycle.NEXTTIMEOUT, Lifecycle.TIMEOUT, Lifecycle.SHUTDOWN, Lifecycle.MAXWORK));
+    
+    private final ConcurrentMap<String,PendingUpdate> pendingUpdates = new ConcurrentHashMap<>();
+    private final Object drainLock = new Object();
+    private final int maxPendingUpdates;
+    private final AtomicLong mergedUpdates = new AtomicLong();
+    private final AtomicLong droppedUpdates = new AtomicLong();
+    private final AtomicLong writtenUpdates = new AtomicLong();
+    
+    QueryMetricUpdateQueue(int maxPendingUpdates) {
+        this.maxPendingUpdates = maxPendingUpdates;
+    }
+    
+    /**
+     * Writes a single query metric update
+     */
+    interface UpdateWriter {
+        void write(QueryMetric metric, DatawavePrincipal principal) throws Exception;
+    }
+    
+    /**
+     * @return true if the update was queued, false if it was dropped
+     */
+    boolean add(QueryMetric updatedQueryMetric, DatawavePrincipal datawavePrincipal) {
+        String queryId = updatedQueryMetric.getQueryId();
+        if (pendingUpdates.size() >= maxPendingUpdates && !pendingUpdates.containsKey(queryId) && !isTerminal(updatedQueryMetric)) {
+            droppedUpdates.incrementAndGet();
+            log.warn("Dropped " + updatedQueryMetric.getLifecycle() + " metric update for query " + queryId + ", " + maxPendingUpdates
+                            + " queries have pending updates");
+            return false;
+        }
+        pendingUpdates.compute(queryId, (id, pending) -> {
+            if (pending == null) {
+                return new PendingUpdate(updatedQueryMetric, datawavePrincipal);
+            }
+            mergedUpdates.incrementAndGet();
+            return pending.merge(updatedQueryMetric, datawavePrincipal);
+        });
+        return true;
+    }
+    
+    /**
+     * Writes every pending update. An update that fails is queued again, merged with any update of its query that arrived in the meantime, and the remaining
+     * updates are still written.
+     *
+     * @return the number of updates written
+     * @throws Exception
+     *             the first failure to write an update, after all other updates were written
+     */
+    int drain(UpdateWriter writer) throws Exception {
+        synchronized (drainLock) {
+            Exception failure = null;
+            int written = 0;
+            List<PendingUpdate> failed = new ArrayList<>();
+            for (String queryId : pendingUpdates.keySet()) {
+                PendingUpdate update = pendingUpdates.remove(queryId);
+                if (update == null) {
+                    continue;
+                }
+                try {
+                    writer.write(update.getMetric(), update.getPrincipal());
+                    written++;
+                } catch (Exception e) {
+                    log.error("query metric update failed for " + queryId + ": " + e.getMessage(), e);
+                    if (failure == null) {
+                        failure = e;
+                    }
+                    failed.add(update);
+                }
+            }
+            
+            // requeue after the loop so that a failed update is not retried by this drain
+            for (PendingUpdate update : failed) {
+                requeue(update);
+            }
+            
+            writtenUpdates.addAndGet(written);
+            if (log.isDebugEnabled()) {
+                log.debug("wrote " + written + " pending query metric updates, merged: " + mergedUpdates.get() + ", dropped: " + droppedUpdates.get()
+                                + ", failed: " + failed.size());
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return written;
+        }
+    }
+    
+    private void requeue(PendingUpdate update) {
+        String queryId = update.metric.getQueryId();
+        if (++update.failedWrites >= MAX_WRITE_ATTEMPTS) {
+            droppedUpdates.incrementAndGet();
+            log.error("Dropped " + update.metric.getLifecycle() + " metric update for query " + queryId + " after " + update.failedWrites + " failed writes");
+            return;
+        }
+        pendingUpdates.merge(queryId, update, PendingUpdate::merge);
+    }
+    
+    private static boolean isTerminal(QueryMetric queryMetric) {
+        return TERMINAL_LIFECYCLES.contains(queryMetric.getLifecycle());
+    }
+    
+    /**
+     * @return the number of queries with an update waiting to be written
+     */
+    int size() {
+        return pendingUpdates.size();
+    }
+    
+    /**
+     * @return the number of updates merged into the pending update of their query
+     */
+    long getMergedCount() {
+        return mergedUpdates.get();
+    }
+    
+    /**
+     * @return the number of updates dropped because too many queries had a pending update, or because they failed to be written too many times
+     */
+    long getDroppedCount() {
+        return droppedUpdates.get();
+    }
+    
+    /**
+     * @return the number of pending updates written
+     */
+    long getWrittenCount() {
+        return writtenUpdates.get();
+    }
+    
+    /**
+     * The latest update of a query's metric that has yet to be written, along with the page metrics of every update merged into it
+     */
+    static class PendingUpdate {
+        private final QueryMetric metric;
+        private final DatawavePrincipal principal;
+        private final Map<Long,PageMetric> pageMetrics = new TreeMap<>();
+        private int failedWrites = 0;
+        
+        PendingUpdate(QueryMetric metric, DatawavePrincipal principal) {
+            this.metric = metric;
+            this.principal = principal;
+            addPageMetrics(metric);
+        }
+        
+        private void addPageMetrics(QueryMetric queryMetric) {
+            if (queryMetric.getPageTimes() != null) {
+                for (PageMetric p : queryMetric.getPageTimes()) {
+                    pageMetrics.put(p.getPageNumber(), p);
+                }
+            }
+        }
+        
+        PendingUpdate merge(QueryMetric updatedQueryMetric, DatawavePrincipal datawavePrincipal) {
+            return merge(new PendingUpdate(updatedQueryMetric, datawavePrincipal));
+        }
+        
+        PendingUpdate merge(PendingUpdate other) {
+            Date lastUpdated = metric.getLastUpdated();
+            Date updated = other.metric.getLastUpdated();
+            // keep the later of the two metrics, whose page metrics take precedence
+            PendingUpdate earlier = other;
+            PendingUpdate later = this;
+            if (lastUpdated == null || updated == null || !lastUpdated.after(updated)) {
+                earlier = this;
+                later = other;
+            }
+            PendingUpdate merged = new PendingUpdate(later.metric, later.principal);
+            merged.pageMetrics.putAll(earlier.pageMetrics);
+            merged.pageMetrics.putAll(later.pageMetrics);
+            merged.failedWrites = Math.max(failedWrites, other.failedWrites);
+            return merged;
+        }
+        
+        QueryMetric getMetric() {
+            metric.setPageTimes(new ArrayList<>(pageMetrics.values()));
+            return metric;
+        }
+        
+        DatawavePrincipal getPrincipal() {
+            return principal;
+        }
+    }
+}
@@ -23,6 +23,8 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -85,7 +87,6 @@ import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.DateUtils;
 import org.apache.deltaspike.core.api.config.ConfigProperty;
@@ -140,10 +141,14 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
     @SuppressWarnings("FieldCanBeLocal")
     private static final String NULL_BYTE = "\0";
     public static final String CONTEXT_WRITER_MAX_CACHE_SIZE = "context.writer.max.cache.size";
+    public static final String MAX_PENDING_UPDATES = "querymetrics.max.pending.updates";
     
     // static to share the cache across instances of this class held by QueryExecutorBean, CachedResultsBean, QueryMetricsEnrichmentInterceptor, etc
-    @SuppressWarnings("unchecked")
-    private static Map metricsCache = Collections.synchronizedMap(new LRUMap(5000));
+    private static Cache<String,QueryMetric> metricsCache = CacheBuilder.newBuilder().maximumSize(5000).build();
+    
+    // updates are coalesced per query id and written in a batch when flushed
+    private final QueryMetricUpdateQueue pendingUpdates;
+    private final Object writeLock = new Object();
     
     private final Configuration conf = new Configuration();
     private final StatusReporter reporter = new MockStatusReporter();
@@ -161,6 +166,8 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
         String accumuloPassword = conf.get("AccumuloRecordWriter.password");
         byte[] encodedAccumuloPassword = Base64.encodeBase64(accumuloPassword.getBytes());
         conf.set("AccumuloRecordWriter.password", new String(encodedAccumuloPassword));
+        
+        pendingUpdates = new QueryMetricUpdateQueue(conf.getInt(MAX_PENDING_UPDATES, 10000));
     }
     
     @PostConstruct
@@ -194,11 +201,43 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
         this.recordWriter.close(null);
     }
     
+    /**
+     * Writes the pending metric updates, then flushes the record writer
+     */
     @Override
     public void flush() throws Exception {
+        writePendingUpdates();
         this.recordWriter.flush();
     }
     
+    /**
+     * @return the number of queries with an update waiting to be written
+     */
+    public int getPendingUpdateCount() {
+        return pendingUpdates.size();
+    }
+    
+    /**
+     * @return the number of updates merged into the pending update of their query
+     */
+    public long getMergedUpdateCount() {
+        return pendingUpdates.getMergedCount();
+    }
+    
+    /**
+     * @return the number of updates dropped because too many queries had a pending update, or because they failed to be written too many times
+     */
+    public long getDroppedUpdateCount() {
+        return pendingUpdates.getDroppedCount();
+    }
+    
+    /**
+     * @return the number of pending updates written
+     */
+    public long getWrittenUpdateCount() {
+        return pendingUpdates.getWrittenCount();
+    }
+    
     private void verifyTables() {
         Connector connector = null;
         
@@ -219,39 +258,24 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
         }
     }
     
-    private void writeMetrics(QueryMetric updatedQueryMetric, List<QueryMetric> storedQueryMetrics, Date lastUpdated, boolean delete) throws Exception {
-        LiveContextWriter contextWriter = null;
-        
-        MapContext<Text,RawRecordContainer,Text,Mutation> context = null;
-        
-        try {
-            contextWriter = new LiveContextWriter();
-            contextWriter.setup(conf, false);
+    private void writeMetrics(QueryMetric updatedQueryMetric, List<QueryMetric> storedQueryMetrics, Date lastUpdated, boolean delete,
+                    LiveContextWriter contextWriter, MapContext<Text,RawRecordContainer,Text,Mutation> context) throws Exception {
+        for (QueryMetric storedQueryMetric : storedQueryMetrics) {
+            AbstractColumnBasedHandler<Key> handler = new ContentQueryMetricsHandler<>();
+            handler.setup(context);
             
-            TaskAttemptID taskId = new TaskAttemptID(new TaskID(new JobID(JOB_ID, 1), TaskType.MAP, 1), 1);
-            context = new MapContextImpl<>(conf, taskId, null, recordWriter, null, reporter, null);
+            Multimap<BulkIngestKey,Value> r = getEntries(handler, updatedQueryMetric, storedQueryMetric, lastUpdated, delete);
             
-            for (QueryMetric storedQueryMetric : storedQueryMetrics) {
-                AbstractColumnBasedHandler<Key> handler = new ContentQueryMetricsHandler<>();
-                handler.setup(context);
-                
-                Multimap<BulkIngestKey,Value> r = getEntries(handler, updatedQueryMetric, storedQueryMetric, lastUpdated, delete);
+            try {
+                if (r != null) {
+                    contextWriter.write(r, context);
+                }
                 
-                try {
-                    if (r != null) {
-                        contextWriter.write(r, context);
-                    }
-                    
-                    if (handler.getMetadata() != null) {
-                        contextWriter.write(handler.getMetadata().getBulkMetadata(), context);
-                    }
-                } finally {
-                    contextWriter.commit(context);
+                if (handler.getMetadata() != null) {
+                    contextWriter.write(handler.getMetadata().getBulkMetadata(), context);
                 }
-            }
-        } finally {
-            if (contextWriter != null && context != null) {
-                contextWriter.cleanup(context);
+            } finally {
+                contextWriter.commit(context);
             }
         }
     }
@@ -350,99 +374,116 @@ public class ShardTableQueryMetricHandler extends BaseQueryMetricHandler<QueryMe
         return r;
     }
     
-    @SuppressWarnings("unchecked")
+    /**
+     * Queues the update to be written when this handler is next flushed. An update for a query that already has a pending update is merged into it, such that
+     * only the latest state of the metric and the combined page metrics are written. If too many queries have a pending update, then the update is dropped,
+     * unless it ends the query's lifecycle.
+     */
     @Override
     public void updateMetric(QueryMetric updatedQueryMetric, DatawavePrincipal datawavePrincipal) throws Exception {
-        Date lastUpdated = updatedQueryMetric.getLastUpdated();
-        
-        try {
-            enableLogs(false);
-            String sid = updatedQueryMetric.getUser();
-            if (sid == null) {
-                sid = datawavePrincipal.getShortName();
+        pendingUpdates.add(updatedQueryMetric, datawavePrincipal);
+    }
+    
+    private void writePendingUpdates() throws Exception {
+        synchronized (writeLock) {
+            if (pendingUpdates.size() == 0) {
+                return;
             }
             
-            // find and remove previous entries
-            BaseQueryMetricListResponse response = new QueryMetricListResponse();
-            Date end = new Date();
-            Date begin = DateUtils.setYears(end, 2000);
-            
-            // user's DatawavePrincipal must have the Administrator role to use the Metrics query logic
-            QueryMetric cachedQueryMetric;
-            QueryMetric newCachedQueryMetric;
-            synchronized (ShardTableQueryMetricHandler.class) {
-                cachedQueryMetric = (QueryMetric) metricsCache.get(updatedQueryMetric.getQueryId());
-                // duplicate updatedQueryMetric because we're counting on the cache to be a snapshot of the QueryMetric
-                // so that we can retrieve it next update call to create the delete Mutations for the values written to Accumulo
-                Map<Long,PageMetric> storedPageMetricMap = new TreeMap<>();
-                if (cachedQueryMetric != null) {
-                    List<PageMetric> cachedPageMetrics = cachedQueryMetric.getPageTimes();
-                    if (cachedPageMetrics != null) {
-                        for (PageMetric p : cachedPageMetrics) {
-                            storedPageMetricMap.put(p.getPageNumber(), p);
-                        }
-                    }
-                }
-                // combine all of the page metrics from the cached metric and the updated metric
-                for (PageMetric p : updatedQueryMetric.getPageTimes()) {
-                    storedPageMetricMap.put(p.getPageNumber(), p);
-                }
-                newCachedQueryMetric = (QueryMetric) updatedQueryMetric.duplicate();
-                ArrayList<PageMetric> newPageMetrics = new ArrayList<>();
-                newPageMetrics.addAll(storedPageMetricMap.values());
-                newCachedQueryMetric.setPageTimes(newPageMetrics);
-                metricsCache.put(updatedQueryMetric.getQueryId(), newCachedQueryMetric);
+            LiveContextWriter contextWriter = new LiveContextWriter();
+            contextWriter.setup(conf, false);
+            TaskAttemptID taskId = new TaskAttemptID(new TaskID(new JobID(JOB_ID, 1), TaskType.MAP, 1), 1);
+            MapContext<Text,RawRecordContainer,Text,Mutation> context = new MapContextImpl<>(conf, taskId, null, recordWriter, null, reporter, null);
+            try {
+                enableLogs(false);
+                pendingUpdates.drain((metric, principal) -> writeUpdate(metric, principal, contextWriter, context));
+            } finally {
+                enableLogs(true);
+                contextWriter.cleanup(context);
             }
-            
-            List<QueryMetric> queryMetrics = new ArrayList<>();
-            
-            if (cachedQueryMetric == null) {
-                // if numPages > 0 or Lifecycle > DEFINED, then we should have a metric cached already
-                // if we don't, then query for the current stored metric
-                if (updatedQueryMetric.getNumPages() > 0 || updatedQueryMetric.getLifecycle().compareTo(Lifecycle.DEFINED) > 0) {
-                    QueryImpl query = new QueryImpl();
-                    query.setBeginDate(begin);
-                    query.setEndDate(end);
-                    query.setQueryLogicName(QUERY_METRICS_LOGIC_NAME);
-                    query.setQuery("QUERY_ID == '" + updatedQueryMetric.getQueryId() + "'");
-                    query.setQueryName(QUERY_METRICS_LOGIC_NAME);
-                    query.setColumnVisibility(visibilityString);
-                    query.setQueryAuthorizations(connectorAuthorizations);
-                    query.setUserDN(sid);
-                    query.setExpirationDate(DateUtils.addDays(new Date(), 1));
-                    query.setPagesize(1000);
-                    query.setId(UUID.randomUUID());
-                    query.setParameters(ImmutableMap.of(QueryOptions.INCLUDE_GROUPING_CONTEXT, "true"));
-                    queryMetrics = getQueryMetrics(response, query, callerPrincipal);
+        }
+    }
+    
+    private void writeUpdate(QueryMetric updatedQueryMetric, DatawavePrincipal datawavePrincipal, LiveContextWriter contextWriter,
+                    MapContext<Text,RawRecordContainer,Text,Mutation> context) throws Exception {
+        Date lastUpdated = updatedQueryMetric.getLastUpdated();
+        
+        String sid = updatedQueryMetric.getUser();
+        if (sid == null) {
+            sid = datawavePrincipal.getShortName();
+        }
+        
+        // find and remove previous entries
+        BaseQueryMetricListResponse response = new QueryMetricListResponse();
+        Date end = new Date();
+        Date begin = DateUtils.setYears(end, 2000);
+        
+        // user's DatawavePrincipal must have the Administrator role to use the Metrics query logic
+        // updates are written by one thread at a time, so the cached metric does not change while it is being replaced
+        QueryMetric cachedQueryMetric = metricsCache.getIfPresent(updatedQueryMetric.getQueryId());
+        // duplicate updatedQueryMetric because we're counting on the cache to be a snapshot of the QueryMetric
+        // so that we can retrieve it next update call to create the delete Mutations for the values written to Accumulo
+        Map<Long,PageMetric> storedPageMetricMap = new TreeMap<>();
+        if (cachedQueryMetric != null) {
+            List<PageMetric> cachedPageMetrics = cachedQueryMetric.getPageTimes();
+            if (cachedPageMetrics != null) {
+                for (PageMetric p : cachedPageMetrics) {
+                    storedPageMetricMap.put(p.getPageNumber(), p);
                 }
-            } else {
-                queryMetrics = Collections.singletonList(cachedQueryMetric);
             }
-            
-            if (!queryMetrics.isEmpty()) {
-                writeMetrics(updatedQueryMetric, queryMetrics, lastUpdated, true);
-            }
-            
-            long nextUpdateNumber = 0;
-            
-            for (BaseQueryMetric m : queryMetrics) {
-                if ((m.getNumUpdates() + 1) > nextUpdateNumber) {
-                    nextUpdateNumber = m.getNumUpdates() + 1;
-                }
+        }
+        // combine all of the page metrics from the cached metric and the updated metric
+        for (PageMetric p : updatedQueryMetric.getPageTimes()) {
+            storedPageMetricMap.put(p.getPageNumber(), p);
+        }
+        QueryMetric newCachedQueryMetric = (QueryMetric) updatedQueryMetric.duplicate();
+        ArrayList<PageMetric> newPageMetrics = new ArrayList<>();
+        newPageMetrics.addAll(storedPageMetricMap.values());
+        newCachedQueryMetric.setPageTimes(newPageMetrics);
+        metricsCache.put(updatedQueryMetric.getQueryId(), newCachedQueryMetric);
+        
+        List<QueryMetric> queryMetrics = new ArrayList<>();
+        
+        if (cachedQueryMetric == null) {
+            // if numPages > 0 or Lifecycle > DEFINED, then we should have a metric cached already
+            // if we don't, then query for the current stored metric
+            if (updatedQueryMetric.getNumPages() > 0 || updatedQueryMetric.getLifecycle().compareTo(Lifecycle.DEFINED) > 0) {
+                QueryImpl query = new QueryImpl();
+                query.setBeginDate(begin);
+                query.setEndDate(end);
+                query.setQueryLogicName(QUERY_METRICS_LOGIC_NAME);
+                query.setQuery("QUERY_ID == '" + updatedQueryMetric.getQueryId() + "'");
+                query.setQueryName(QUERY_METRICS_LOGIC_NAME);
+                query.setColumnVisibility(visibilityString);
+                query.setQueryAuthorizations(connectorAuthorizations);
+                query.setUserDN(sid);
+                query.setExpirationDate(DateUtils.addDays(new Date(), 1));
+                query.setPagesize(1000);
+                query.setId(UUID.randomUUID());
+                query.setParameters(ImmutableMap.of(QueryOptions.INCLUDE_GROUPING_CONTEXT, "true"));
+                queryMetrics = getQueryMetrics(response, query, callerPrincipal);
             }
-            
-            updatedQueryMetric.setNumUpdates(nextUpdateNumber);
-            
-            synchronized (ShardTableQueryMetricHandler.class) {
-                newCachedQueryMetric.setNumUpdates(nextUpdateNumber);
-                metricsCache.put(updatedQueryMetric.getQueryId(), newCachedQueryMetric);
+        } else {
+            queryMetrics = Collections.singletonList(cachedQueryMetric);
+        }
+        
+        if (!queryMetrics.isEmpty()) {
+            writeMetrics(updatedQueryMetric, queryMetrics, lastUpdated, true, contextWriter, context);
+        }
+        
+        long nextUpdateNumber = 0;
+        
+        for (BaseQueryMetric m : queryMetrics) {
+            if ((m.getNumUpdates() + 1) > nextUpdateNumber) {
+                nextUpdateNumber = m.getNumUpdates() + 1;
             }
-            
-            // write new entry
-            writeMetrics(updatedQueryMetric, Collections.singletonList(updatedQueryMetric), lastUpdated, false);
-        } finally {
-            enableLogs(true);
         }
+        
+        updatedQueryMetric.setNumUpdates(nextUpdateNumber);
+        newCachedQueryMetric.setNumUpdates(nextUpdateNumber);
+        
+        // write new entry
+        writeMetrics(updatedQueryMetric, Collections.singletonList(updatedQueryMetric), lastUpdated, false, contextWriter, context);
     }
     
     private List<QueryMetric> getQueryMetrics(BaseResponse response, Query query, DatawavePrincipal datawavePrincipal) {
@@ -53,6 +53,7 @@ import datawave.query.jexl.visitors.FixUnindexedNumericTerms;
 import datawave.query.jexl.visitors.FunctionIndexQueryExpansionVisitor;
 import datawave.query.jexl.visitors.IsNotNullIntentVisitor;
 import datawave.query.jexl.visitors.JexlStringBuildingVisitor;
+import datawave.query.jexl.visitors.OrderByCostVisitor;
 import datawave.query.jexl.visitors.ParallelIndexExpansion;
 import datawave.query.jexl.visitors.PrintingVisitor;
 import datawave.query.jexl.visitors.PullupUnexecutableNodesVisitor;
@@ -1035,7 +1036,7 @@ public class DefaultQueryPlanner extends QueryPlanner {
         Set<String> indexedFields = null;
         Set<String> indexOnlyFields = null;
         Set<String> nonEventFields = null;
-        if (config.getMinSelectivity() > 0 || !disableBoundedLookup) {
+        if (config.getMinSelectivity() > 0 || !disableBoundedLookup || config.isCostBasedPlanning()) {
             try {
                 indexedFields = metadataHelper.getIndexedFields(config.getDatatypeFilter());
                 indexOnlyFields = metadataHelper.getIndexOnlyFields(config.getDatatypeFilter());
@@ -1184,6 +1185,18 @@ public class DefaultQueryPlanner extends QueryPlanner {
             }
         }
         
+        // order the conjunctions by the estimated cost of their terms, delaying the most costly terms
+        if (config.isCostBasedPlanning()) {
+            stopwatch = timers.newStartedStopwatch("DefaultQueryPlanner - Order terms by cost");
+            
+            queryTree = OrderByCostVisitor.order(queryTree, config, scannerFactory, metadataHelper, nonEventFields);
+            if (log.isDebugEnabled()) {
+                logQuery(queryTree, "Query after ordering terms by cost:");
+            }
+            
+            stopwatch.stop();
+        }
+        
         return queryTree;
     }
     
@@ -1584,7 +1597,16 @@ public class DefaultQueryPlanner extends QueryPlanner {
                         addOption(cfg, QueryOptions.MAX_IVARATOR_OPEN_FILES, Integer.toString(config.getIvaratorMaxOpenFiles()), false);
                         addOption(cfg, QueryOptions.MAX_EVALUATION_PIPELINES, Integer.toString(config.getMaxEvaluationPipelines()), false);
                         addOption(cfg, QueryOptions.MAX_PIPELINE_CACHED_RESULTS, Integer.toString(config.getMaxPipelineCachedResults()), false);
+                        if (config.isUnorderedEvaluationPipeline()) {
+                            addOption(cfg, QueryOptions.UNORDERED_EVALUATION_PIPELINE, Boolean.toString(true), false);
+                        }
                         addOption(cfg, QueryOptions.MAX_IVARATOR_SOURCES, Integer.toString(config.getMaxIvaratorSources()), false);
+                        if (config.isIvaratorResultCacheEnabled()) {
+                            addOption(cfg, QueryOptions.IVARATOR_RESULT_CACHE, Boolean.toString(true), false);
+                        }
+                        if (config.isIvaratorMappedSpillEnabled()) {
+                            addOption(cfg, QueryOptions.IVARATOR_MAPPED_SPILL, Boolean.toString(true), false);
+                        }
                         
                         if (config.getYieldThresholdMs() != Long.MAX_VALUE && config.getYieldThresholdMs() > 0) {
                             addOption(cfg, QueryOptions.YIELD_THRESHOLD_MS, Long.toString(config.getYieldThresholdMs()), false);
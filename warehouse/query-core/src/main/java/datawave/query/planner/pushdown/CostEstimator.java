@@ -3,9 +3,14 @@ package datawave.query.planner.pushdown;
 import static org.apache.commons.jexl2.parser.JexlNodes.children;
 import static org.apache.commons.jexl2.parser.JexlNodes.id;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
+import datawave.data.MetadataCardinalityCounts;
 import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.index.stats.IndexStatsClient;
 import datawave.query.jexl.JexlASTHelper;
 import datawave.query.jexl.lookups.RegexIndexLookup;
 import datawave.query.parser.JavaRegexAnalyzer;
@@ -28,6 +33,8 @@ public class CostEstimator {
     protected ShardQueryConfiguration config;
     protected MetadataHelper helper;
     protected ScannerFactory scannerFactory;
+    protected IndexStatsClient stats = null;
+    protected Map<String,Double> fieldSelectivities = new HashMap<>();
     
     public CostEstimator(PushDownVisitor visitor) {
         this.config = visitor.getConfiguration();
@@ -98,7 +105,12 @@ public class CostEstimator {
                         log.error("Could not find metadata table", e);
                     }
                     
-                    return new Cost(0l, helper.getCountsByFieldForDays(fieldName, config.getBeginDate(), config.getEndDate(), config.getDatatypeFilter()));
+                    long fieldCount = helper.getCountsByFieldForDays(fieldName, config.getBeginDate(), config.getEndDate(), config.getDatatypeFilter());
+                    if (config.isCostBasedPlanning()) {
+                        return new Cost(0l, estimateTermCount(node, fieldName, fieldCount));
+                    }
+                    
+                    return new Cost(0l, fieldCount);
                 } catch (NoSuchElementException e) {
                     log.trace("Could not find field name for EQ node, ignoring for cost");
                     return new Cost();
@@ -145,4 +157,60 @@ public class CostEstimator {
         }
     }
     
+    /**
+     * Narrow the count of a field over the date range down to the count of one of its values. The share of the field held by the value comes from the term
+     * counts in the metadata table if there are any for the value, otherwise from the selectivity of the field in the index stats table.
+     * 
+     * @param node
+     *            an EQ node
+     * @param fieldName
+     * @param fieldCount
+     *            the number of index entries for the field over the date range
+     * @return the estimated number of index entries for the term
+     */
+    protected long estimateTermCount(JexlNode node, String fieldName, long fieldCount) {
+        if (fieldCount <= 0) {
+            return fieldCount;
+        }
+        
+        try {
+            String value = String.valueOf(JexlASTHelper.getLiteralValue(node));
+            // We can get the term counts with root auths (ignoring user auths) because this information is not
+            // exposed to the user. It is only used to adjust the query planning.
+            Map<String,MetadataCardinalityCounts> valueCounts = helper.getTermCountsWithRootAuths().get(fieldName);
+            MetadataCardinalityCounts counts = (valueCounts == null ? null : valueCounts.get(value));
+            if (counts != null && counts.getFieldAllValueCount() > 0) {
+                double share = (double) counts.getFieldValueCount() / (double) counts.getFieldAllValueCount();
+                return Math.max(1l, Math.round(fieldCount * Math.min(share, 1.0d)));
+            }
+        } catch (NoSuchElementException e) {
+            log.trace("Could not find literal for EQ node, using field selectivity");
+        } catch (Exception e) {
+            log.warn("Could not retrieve term counts, using field selectivity", e);
+        }
+        
+        // the index stats selectivity is unique values over total values, i.e. the share of the field held by an average value
+        Double selectivity = getFieldSelectivity(fieldName);
+        if (!selectivity.equals(IndexStatsClient.DEFAULT_VALUE) && selectivity > 0) {
+            return Math.max(1l, Math.round(fieldCount * Math.min(selectivity, 1.0d)));
+        }
+        
+        return fieldCount;
+    }
+    
+    protected Double getFieldSelectivity(String fieldName) {
+        if (null == config.getIndexStatsTableName()) {
+            return IndexStatsClient.DEFAULT_VALUE;
+        }
+        Double selectivity = fieldSelectivities.get(fieldName);
+        if (selectivity == null) {
+            if (stats == null) {
+                stats = new IndexStatsClient(config.getConnector(), config.getIndexStatsTableName());
+            }
+            selectivity = JexlASTHelper.getNodeSelectivity(Collections.singleton(fieldName), config, stats);
+            fieldSelectivities.put(fieldName, selectivity);
+        }
+        return selectivity;
+    }
+    
 }
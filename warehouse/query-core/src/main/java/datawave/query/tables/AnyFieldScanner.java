@@ -40,6 +40,7 @@ public class AnyFieldScanner extends ScannerSession {
     
     public AnyFieldScanner(ScannerSession other) {
         this(other.tableName, other.auths, other.sessionDelegator, other.maxResults, other.settings, other.options, other.ranges);
+        this.executorFactory = other.executorFactory;
     }
     
     /**
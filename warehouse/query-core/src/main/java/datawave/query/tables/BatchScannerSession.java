@@ -11,9 +11,7 @@ import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -131,7 +129,7 @@ public class BatchScannerSession extends ScannerSession implements Iterator<Entr
     }
     
     public BatchScannerSession(ScannerSession other) {
-        this(other.tableName, other.auths, other.sessionDelegator, other.maxResults, other.settings, other.options, other.ranges);
+        this(other.tableName, other.auths, other.sessionDelegator, other.maxResults, other.settings, other.options, other.ranges, other.executorFactory);
         
     }
     
@@ -148,9 +146,30 @@ public class BatchScannerSession extends ScannerSession implements Iterator<Entr
      */
     public BatchScannerSession(String tableName, Set<Authorizations> auths, ResourceQueue delegator, int maxResults, Query settings, ScannerOptions options,
                     Collection<Range> ranges) {
+        this(tableName, auths, delegator, maxResults, settings, options, ranges, DefaultSessionExecutorFactory.INSTANCE);
+    }
+    
+    /**
+     * Constructor
+     * 
+     * @param tableName
+     *            incoming table name
+     * @param auths
+     *            set of authorizations.
+     * @param delegator
+     *            scanner queue
+     * @param maxResults
+     * @param executorFactory
+     *            supplies the threads this session and its scans run on
+     */
+    public BatchScannerSession(String tableName, Set<Authorizations> auths, ResourceQueue delegator, int maxResults, Query settings, ScannerOptions options,
+                    Collection<Range> ranges, SessionExecutorFactory executorFactory) {
         
         super(tableName, auths, delegator, maxResults, settings);
         Preconditions.checkNotNull(delegator);
+        Preconditions.checkNotNull(executorFactory);
+        
+        this.executorFactory = executorFactory;
         
         localTableName = tableName;
         
@@ -166,7 +185,7 @@ public class BatchScannerSession extends ScannerSession implements Iterator<Entr
         
         setThreads(1);
         
-        listenerService = Executors.newFixedThreadPool(1);
+        listenerService = executorFactory.newListenerExecutor();
         
         addListener(new BatchScannerListener(), listenerService);
         
@@ -191,7 +210,7 @@ public class BatchScannerSession extends ScannerSession implements Iterator<Entr
         if (service != null)
             service.shutdownNow();
         this.threadCount = threads;
-        service = new ThreadPoolExecutor(threads, threads, 120, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), new BatchReaderThreadFactory(threadId, this));
+        service = executorFactory.newScanExecutor(threads, new BatchReaderThreadFactory(threadId, this));
         service = MoreExecutors.listeningDecorator(service);
         return this;
     }
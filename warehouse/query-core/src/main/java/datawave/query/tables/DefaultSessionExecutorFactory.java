@@ -0,0 +1,47 @@
+package datawave.query.tables;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Gives each session its own platform threads: a thread for its service loop, a single thread pool for its listeners and a fixed thread pool for its scans.
+ */
+public class DefaultSessionExecutorFactory implements SessionExecutorFactory {
+    
+    public static final DefaultSessionExecutorFactory INSTANCE = new DefaultSessionExecutorFactory();
+    
+    @Override
+    public Executor newSessionExecutor(String name, UncaughtExceptionHandler handler) {
+        return command -> {
+            Preconditions.checkNotNull(name);
+            Preconditions.checkNotNull(command);
+            Thread result = MoreExecutors.platformThreadFactory().newThread(command);
+            try {
+                result.setName(name);
+                result.setUncaughtExceptionHandler(handler);
+            } catch (SecurityException e) {
+                // OK if we can't set the name in this environment.
+            }
+            result.start();
+        };
+    }
+    
+    @Override
+    public ExecutorService newScanExecutor(int threads, ThreadFactory threadFactory) {
+        return new ThreadPoolExecutor(threads, threads, 120, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), threadFactory);
+    }
+    
+    @Override
+    public ExecutorService newListenerExecutor() {
+        return Executors.newFixedThreadPool(1);
+    }
+}
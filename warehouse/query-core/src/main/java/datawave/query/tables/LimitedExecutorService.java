@@ -0,0 +1,178 @@
+package datawave.query.tables;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An executor service for one session over an executor shared by many. At most a given number of the tasks of the session run at once, and each running task
+ * may also have to hold a permit from a limiter shared by all of the sessions. Shutting this service down only affects the tasks of this session.
+ */
+class LimitedExecutorService extends AbstractExecutorService {
+    
+    private static final long PERMIT_WAIT_MILLIS = 100;
+    
+    private final Executor executor;
+    private final int maxRunning;
+    private final Semaphore limiter;
+    
+    private final Deque<Runnable> queue = new ArrayDeque<>();
+    private final Set<Thread> threads = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int running = 0;
+    private boolean shutdown = false;
+    private boolean stopped = false;
+    
+    /**
+     * @param executor
+     *            the shared executor, which must not queue tasks behind running ones
+     * @param maxRunning
+     *            the number of tasks of this service which may run at once
+     * @param limiter
+     *            the shared limiter a task must get a permit from before it runs, or null
+     */
+    LimitedExecutorService(Executor executor, int maxRunning, Semaphore limiter) {
+        this.executor = executor;
+        this.maxRunning = Math.max(1, maxRunning);
+        this.limiter = limiter;
+    }
+    
+    @Override
+    public synchronized void execute(Runnable command) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+        queue.add(command);
+        dispatch();
+    }
+    
+    private synchronized void dispatch() {
+        while (running < maxRunning && !queue.isEmpty()) {
+            Runnable task = queue.poll();
+            running++;
+            try {
+                executor.execute(() -> run(task));
+            } catch (RejectedExecutionException e) {
+                running--;
+                queue.addFirst(task);
+                throw e;
+            }
+        }
+    }
+    
+    private void run(Runnable task) {
+        synchronized (this) {
+            if (stopped) {
+                finished();
+                return;
+            }
+            threads.add(Thread.currentThread());
+        }
+        boolean permitted = false;
+        try {
+            permitted = acquire();
+            if (permitted) {
+                task.run();
+            } else if (task instanceof Future) {
+                ((Future<?>) task).cancel(false);
+            }
+        } finally {
+            if (permitted && limiter != null) {
+                limiter.release();
+            }
+            synchronized (this) {
+                threads.remove(Thread.currentThread());
+                // do not carry an interrupt meant for this task into the next user of the thread
+                Thread.interrupted();
+                finished();
+            }
+        }
+    }
+    
+    /**
+     * Wait for a permit from the shared limiter, giving up if this service is stopped
+     * 
+     * @return true if the task may run
+     */
+    private boolean acquire() {
+        if (limiter == null) {
+            return true;
+        }
+        while (!isStopped()) {
+            try {
+                if (limiter.tryAcquire(PERMIT_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (!isStopped()) {
+                        return true;
+                    }
+                    limiter.release();
+                }
+            } catch (InterruptedException e) {
+                // shutdownNow interrupts us, loop around to check
+            }
+        }
+        return false;
+    }
+    
+    private synchronized boolean isStopped() {
+        return stopped;
+    }
+    
+    private void finished() {
+        running--;
+        if (!stopped) {
+            dispatch();
+        }
+        notifyAll();
+    }
+    
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+        notifyAll();
+    }
+    
+    @Override
+    public synchronized List<Runnable> shutdownNow() {
+        shutdown = true;
+        stopped = true;
+        List<Runnable> pending = new ArrayList<>(queue);
+        queue.clear();
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        notifyAll();
+        return pending;
+    }
+    
+    @Override
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+    
+    @Override
+    public synchronized boolean isTerminated() {
+        return shutdown && running == 0 && queue.isEmpty();
+    }
+    
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!isTerminated()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+}
@@ -15,7 +15,9 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -56,6 +58,10 @@ import com.google.common.util.concurrent.MoreExecutors;
 public class RangeStreamScanner extends ScannerSession implements Callable<RangeStreamScanner> {
     
     private static final int MAX_MEDIAN = 20;
+    /**
+     * The result queue of a pipelined scanner holds this many of its initial batches, so the batch size may double twice before it is capped
+     */
+    private static final int PIPELINED_QUEUE_BATCHES = 4;
     private static final Logger log = Logger.getLogger(RangeStreamScanner.class);
     private int shardsPerDayThreshold = Integer.MAX_VALUE;
     // simply compare the strings. no need for a date formatter
@@ -76,6 +82,27 @@ public class RangeStreamScanner extends ScannerSession implements Callable<Range
     
     protected ScannerFactory scannerFactory;
     
+    /**
+     * When pipelined, scans are run on the executor ahead of the consumer instead of on demand from hasNext, so the scans for many terms can run concurrently.
+     */
+    protected boolean pipelined = false;
+    
+    /**
+     * Whether a pipelined scan is queued or running. At most one runs at a time as the scan state is not thread safe.
+     */
+    protected final AtomicBoolean producing = new AtomicBoolean(false);
+    
+    /**
+     * Whether a pipelined scan gave up its thread with entries it could not hand over to a full result queue. These are held in prevDay and currentQueue
+     * until the consumer makes room and the next scan is queued.
+     */
+    protected volatile boolean holding = false;
+    
+    /**
+     * The number of entries a pipelined scan may retrieve before handing back its thread. This grows for terms that keep using all of it.
+     */
+    protected int batchSize;
+    
     @Override
     protected String serviceName() {
         String id = "NoQueryId";
@@ -122,12 +149,63 @@ public class RangeStreamScanner extends ScannerSession implements Callable<Range
     
     public RangeStreamScanner(ScannerSession other) {
         this(other.tableName, other.auths, other.sessionDelegator, other.maxResults, other.settings, other.options, other.ranges);
+        this.executorFactory = other.executorFactory;
     }
     
     public void setExecutor(ExecutorService service) {
         myExecutor = service;
     }
     
+    /**
+     * Run the scans on the executor ahead of the consumer. Each scan may cover several days, retrieving up to a batch size which starts at the max results
+     * and doubles while the scans keep filling it, up to the capacity of the result queue.
+     * 
+     * @param pipelined
+     * @return this scanner
+     */
+    public RangeStreamScanner setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+        this.batchSize = maxResults;
+        sizeResultQueue();
+        return this;
+    }
+    
+    public boolean isPipelined() {
+        return pipelined;
+    }
+    
+    @Override
+    public void setMaxResults(int maxResults) {
+        super.setMaxResults(maxResults);
+        this.batchSize = maxResults;
+        sizeResultQueue();
+    }
+    
+    /**
+     * Size the result queue of a pipelined scanner from the max results rather than the scanner batch size, leaving room for the batch size to grow. This
+     * must happen before the first scan is queued.
+     */
+    private void sizeResultQueue() {
+        if (pipelined && maxResults > 0 && resultQueue.isEmpty()) {
+            int capacity = (int) Math.min((long) maxResults * PIPELINED_QUEUE_BATCHES, Integer.MAX_VALUE);
+            if (capacity != resultQueue.remainingCapacity()) {
+                resultQueue = Queues.newArrayBlockingQueue(capacity);
+            }
+        }
+    }
+    
+    /**
+     * Start scanning ahead of the consumer if this scanner is pipelined, rather than waiting for the first call to hasNext
+     * 
+     * @return this scanner
+     */
+    public RangeStreamScanner prefetch() {
+        if (pipelined) {
+            startProducer();
+        }
+        return this;
+    }
+    
     public RangeStreamScanner setScannerFactory(ScannerFactory factory) {
         this.scannerFactory = factory;
         return this;
@@ -173,7 +251,21 @@ public class RangeStreamScanner extends ScannerSession implements Callable<Range
             if (null != stats)
                 stats.getTimer(TIMERS.HASNEXT).resume();
             
-            while (null == currentEntry && (!finished || !resultQueue.isEmpty() || flushNeeded())) {
+            while (pipelined && null == currentEntry && !forceClose && (!finished || producing.get() || holding || !resultQueue.isEmpty())) {
+                // the producer holds the queue lock while it scans, so only the result queue is consulted here
+                startProducer();
+                try {
+                    currentEntry = resultQueue.poll(getPollTime(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    log.error(e);
+                    throw new RuntimeException(e);
+                }
+                if (uncaughtExceptionHandler.getThrowable() != null) {
+                    break;
+                }
+            }
+            
+            while (!pipelined && null == currentEntry && (!finished || !resultQueue.isEmpty() || flushNeeded())) {
                 
                 try {
                     /*
@@ -209,6 +301,72 @@ public class RangeStreamScanner extends ScannerSession implements Callable<Range
         return (null != currentEntry);
     }
     
+    /**
+     * Queue a pipelined scan on the executor, unless one is already queued or running, the scans are finished and nothing is held back, or the result queue
+     * is more than half full.
+     */
+    private void startProducer() {
+        if ((finished && !holding) || forceClose || resultQueue.remainingCapacity() < resultQueue.size()) {
+            return;
+        }
+        if (producing.compareAndSet(false, true)) {
+            try {
+                myExecutor.submit(this::produce);
+            } catch (RejectedExecutionException e) {
+                producing.set(false);
+                throw e;
+            }
+        }
+    }
+    
+    /**
+     * Scan until the result queue fills or the ranges are exhausted. Entries held back by an earlier scan are handed over first, and no new scan starts until
+     * they have been, so the thread is given up rather than waiting on the consumer.
+     */
+    private void produce() {
+        try {
+            while (!forceClose && uncaughtExceptionHandler.getThrowable() == null) {
+                if (!drain() || finished) {
+                    break;
+                }
+                findTop();
+            }
+        } catch (Exception e) {
+            if (forceClose) {
+                // if we force close, then we can ignore the exception
+                if (log.isTraceEnabled()) {
+                    log.trace("Ignoring exception because we have been closed", e);
+                }
+            } else {
+                log.error("Failed to scan ahead", e);
+                uncaughtExceptionHandler.uncaughtException(Thread.currentThread(), e);
+            }
+        } finally {
+            producing.set(false);
+        }
+    }
+    
+    /**
+     * Move the entries held back by the last scan into the result queue without waiting on the consumer
+     * 
+     * @return true if nothing is held back any longer
+     */
+    private boolean drain() {
+        writeLock.lock();
+        try {
+            if (null != prevDay && resultQueue.offer(prevDay)) {
+                prevDay = null;
+            }
+            while (null == prevDay && !currentQueue.isEmpty() && resultQueue.offer(currentQueue.peek())) {
+                currentQueue.poll();
+            }
+            holding = null != prevDay || !currentQueue.isEmpty();
+            return !holding;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
     private void submitTask() {
         // wait on results. submit the task if we can
         Future<RangeStreamScanner> future = myExecutor.submit(this);
@@ -334,9 +492,19 @@ public class RangeStreamScanner extends ScannerSession implements Callable<Range
                         int dequeueCount = dequeue();
                         retrievalCount += dequeueCount;
                         int queueSize = currentQueue.size();
-                        dequeue(true);
                         currentDay = null;
                         
+                        if (pipelined) {
+                            // what did not fit stays in the current queue for the next scan to hand over, so that days are never mixed within it.
+                            // otherwise move on to the next day while we have budget, rather than starting a new scanner for every day
+                            if (!currentQueue.isEmpty() || retrievalCount >= batchSize) {
+                                break;
+                            }
+                            continue;
+                        }
+                        
+                        dequeue(true);
+                        
                         if (dequeueCount != queueSize || retrievalCount <= Math.ceil(maxResults * 1.5)) {
                             break;
                         }
@@ -344,7 +512,7 @@ public class RangeStreamScanner extends ScannerSession implements Callable<Range
                 }
             }
             
-            if (currentQueue.size() >= shardsPerDayThreshold && stats.getPercentile(50) > MAX_MEDIAN) {
+            if (null != currentDay && currentQueue.size() >= shardsPerDayThreshold && stats.getPercentile(50) > MAX_MEDIAN) {
                 
                 Entry<Key,Value> top = currentQueue.poll();
                 
@@ -373,7 +541,8 @@ public class RangeStreamScanner extends ScannerSession implements Callable<Range
                 lastSeenKey = newKey;
                 
                 try {
-                    if (!resultQueue.offer(myEntry, 1, TimeUnit.SECONDS)) {
+                    // a pipelined scan must not wait on the consumer, so it holds the day back instead
+                    if (!(pipelined ? resultQueue.offer(myEntry) : resultQueue.offer(myEntry, 1, TimeUnit.SECONDS))) {
                         if (log.isTraceEnabled()) {
                             log.trace("could not add day! converting " + myEntry + " to " + prevDay);
                         }
@@ -391,6 +560,17 @@ public class RangeStreamScanner extends ScannerSession implements Callable<Range
         } finally {
             writeLock.unlock();
         }
+        
+        // this term has more data than a batch, so give it a bigger batch next time
+        if (pipelined && retrievalCount >= batchSize) {
+            int capacity = resultQueue.size() + resultQueue.remainingCapacity();
+            if (batchSize < capacity) {
+                batchSize = Math.min(batchSize * 2, capacity);
+                if (log.isDebugEnabled()) {
+                    log.debug("Growing batch size to " + batchSize + " for " + serviceName());
+                }
+            }
+        }
         return retrievalCount;
     }
     
@@ -40,6 +40,7 @@ public class ScannerFactory {
     protected boolean accrueStats = false;
     protected Query settings;
     protected ResourceQueue scanQueue = null;
+    protected SessionExecutorFactory executorFactory = DefaultSessionExecutorFactory.INSTANCE;
     ShardQueryConfiguration config = null;
     
     private static final Logger log = Logger.getLogger(ScannerFactory.class);
@@ -63,6 +64,9 @@ public class ScannerFactory {
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
+            if (config.isSharedSessionExecutors()) {
+                executorFactory = SharedSessionExecutorFactory.forInstance(this.cxn, config.getMaxConcurrentSessionScans());
+            }
         }
     }
     
@@ -169,10 +173,10 @@ public class ScannerFactory {
         
         T session = null;
         if (wrapper == ScannerSession.class) {
-            session = (T) new ScannerSession(tableName, auths, scanQueue, maxQueue, settings).applyStats(stats);
+            session = (T) new ScannerSession(tableName, auths, scanQueue, maxQueue, settings).setExecutorFactory(executorFactory).applyStats(stats);
         } else {
             session = wrapper.getConstructor(ScannerSession.class).newInstance(
-                            new ScannerSession(tableName, auths, scanQueue, maxQueue, settings).applyStats(stats));
+                            new ScannerSession(tableName, auths, scanQueue, maxQueue, settings).setExecutorFactory(executorFactory).applyStats(stats));
         }
         
         log.debug("Created session " + System.identityHashCode(session));
@@ -257,6 +261,20 @@ public class ScannerFactory {
         this.maxQueue = size;
     }
     
+    /**
+     * Sets the factory supplying the threads of the sessions created from here on
+     * 
+     * @param executorFactory
+     */
+    public void setExecutorFactory(SessionExecutorFactory executorFactory) {
+        Preconditions.checkNotNull(executorFactory);
+        this.executorFactory = executorFactory;
+    }
+    
+    public SessionExecutorFactory getExecutorFactory() {
+        return executorFactory;
+    }
+    
     public synchronized ScannerBase newRfileScanner(String tableName, Set<Authorizations> auths, Query setting) {
         Configuration conf = new Configuration();
         
@@ -10,7 +10,6 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import datawave.query.tables.AccumuloResource.ResourceFactory;
@@ -33,7 +32,6 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Queues;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
-import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * This will handles running a scan against a set of ranges. The actual scan is performed in a separate thread which places the results in a result queue. The
@@ -125,6 +123,11 @@ public class ScannerSession extends AbstractExecutionThreadService implements It
     
     protected QueryUncaughtExceptionHandler uncaughtExceptionHandler = null;
     
+    /**
+     * Supplies the threads this session runs on
+     */
+    protected SessionExecutorFactory executorFactory = DefaultSessionExecutorFactory.INSTANCE;
+    
     /**
      * Constructor
      * 
@@ -191,19 +194,25 @@ public class ScannerSession extends AbstractExecutionThreadService implements It
      */
     @Override
     protected Executor executor() {
-        return command -> {
-            String name = serviceName();
-            Preconditions.checkNotNull(name);
-            Preconditions.checkNotNull(command);
-            Thread result = MoreExecutors.platformThreadFactory().newThread(command);
-            try {
-                result.setName(name);
-                result.setUncaughtExceptionHandler(uncaughtExceptionHandler);
-            } catch (SecurityException e) {
-                // OK if we can't set the name in this environment.
-            }
-            result.start();
-        };
+        return executorFactory.newSessionExecutor(serviceName(), uncaughtExceptionHandler);
+    }
+    
+    /**
+     * Sets the factory supplying the threads this session runs on. This must be set before the session is started.
+     * 
+     * @param executorFactory
+     * @return
+     */
+    public ScannerSession setExecutorFactory(SessionExecutorFactory executorFactory) {
+        Preconditions.checkNotNull(executorFactory);
+        // ensure that we are not already running
+        Preconditions.checkArgument(!isRunning());
+        this.executorFactory = executorFactory;
+        return this;
+    }
+    
+    public SessionExecutorFactory getExecutorFactory() {
+        return executorFactory;
     }
     
     /**
@@ -656,7 +665,7 @@ public class ScannerSession extends AbstractExecutionThreadService implements It
         if (null != stats) {
             Preconditions.checkArgument(this.stats == null);
             this.stats = stats;
-            statsListener = Executors.newFixedThreadPool(1);
+            statsListener = executorFactory.newListenerExecutor();
             addListener(new StatsListener(stats, statsListener), statsListener);
         }
         
@@ -0,0 +1,42 @@
+package datawave.query.tables;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Supplies the threads on which scanner sessions run. A session uses one executor to run its own service loop, one to deliver its service listener callbacks
+ * and, for a {@link BatchScannerSession}, one to run its scans. The session shuts down the executor services it is given once it is done with them.
+ */
+public interface SessionExecutorFactory {
+    
+    /**
+     * Get the executor which runs the service loop of a session
+     * 
+     * @param name
+     *            the name of the session
+     * @param handler
+     *            the handler for anything thrown by the session
+     * @return the executor
+     */
+    Executor newSessionExecutor(String name, UncaughtExceptionHandler handler);
+    
+    /**
+     * Get an executor service which runs the scans of a batch scanner session
+     * 
+     * @param threads
+     *            the number of scans the session may run at once
+     * @param threadFactory
+     *            the factory for the threads of the session, for implementations that give each session its own threads
+     * @return the executor service
+     */
+    ExecutorService newScanExecutor(int threads, ThreadFactory threadFactory);
+    
+    /**
+     * Get a single threaded executor service which delivers the service listener callbacks of a session
+     * 
+     * @return the executor service
+     */
+    ExecutorService newListenerExecutor();
+}
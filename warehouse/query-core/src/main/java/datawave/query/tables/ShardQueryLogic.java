@@ -1667,6 +1667,46 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setMaxIvaratorSources(maxIvaratorSources);
     }
     
+    public boolean isIvaratorResultCacheEnabled() {
+        return getConfig().isIvaratorResultCacheEnabled();
+    }
+    
+    public void setIvaratorResultCacheEnabled(boolean ivaratorResultCacheEnabled) {
+        getConfig().setIvaratorResultCacheEnabled(ivaratorResultCacheEnabled);
+    }
+    
+    public boolean isIvaratorMappedSpillEnabled() {
+        return getConfig().isIvaratorMappedSpillEnabled();
+    }
+    
+    public void setIvaratorMappedSpillEnabled(boolean ivaratorMappedSpillEnabled) {
+        getConfig().setIvaratorMappedSpillEnabled(ivaratorMappedSpillEnabled);
+    }
+    
+    public boolean isPipelinedIndexLookup() {
+        return getConfig().isPipelinedIndexLookup();
+    }
+    
+    public void setPipelinedIndexLookup(boolean pipelinedIndexLookup) {
+        getConfig().setPipelinedIndexLookup(pipelinedIndexLookup);
+    }
+    
+    public boolean isSharedSessionExecutors() {
+        return getConfig().isSharedSessionExecutors();
+    }
+    
+    public void setSharedSessionExecutors(boolean sharedSessionExecutors) {
+        getConfig().setSharedSessionExecutors(sharedSessionExecutors);
+    }
+    
+    public int getMaxConcurrentSessionScans() {
+        return getConfig().getMaxConcurrentSessionScans();
+    }
+    
+    public void setMaxConcurrentSessionScans(int maxConcurrentSessionScans) {
+        getConfig().setMaxConcurrentSessionScans(maxConcurrentSessionScans);
+    }
+    
     public int getMaxEvaluationPipelines() {
         return getConfig().getMaxEvaluationPipelines();
     }
@@ -1683,6 +1723,14 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setMaxPipelineCachedResults(maxCachedResults);
     }
     
+    public boolean isUnorderedEvaluationPipeline() {
+        return getConfig().isUnorderedEvaluationPipeline();
+    }
+    
+    public void setUnorderedEvaluationPipeline(boolean unorderedEvaluationPipeline) {
+        getConfig().setUnorderedEvaluationPipeline(unorderedEvaluationPipeline);
+    }
+    
     public double getMinimumSelectivity() {
         return getConfig().getMinSelectivity();
     }
@@ -1691,6 +1739,22 @@ public class ShardQueryLogic extends BaseQueryLogic<Entry<Key,Value>> {
         getConfig().setMinSelectivity(d);
     }
     
+    public boolean isCostBasedPlanning() {
+        return getConfig().isCostBasedPlanning();
+    }
+    
+    public void setCostBasedPlanning(boolean costBasedPlanning) {
+        getConfig().setCostBasedPlanning(costBasedPlanning);
+    }
+    
+    public double getCostBasedDelayRatio() {
+        return getConfig().getCostBasedDelayRatio();
+    }
+    
+    public void setCostBasedDelayRatio(double costBasedDelayRatio) {
+        getConfig().setCostBasedDelayRatio(costBasedDelayRatio);
+    }
+    
     public Map<String,QueryParser> getQuerySyntaxParsers() {
         return querySyntaxParsers;
     }
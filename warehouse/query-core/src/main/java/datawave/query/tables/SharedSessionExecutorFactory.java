@@ -0,0 +1,138 @@
+package datawave.query.tables;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.accumulo.core.client.Connector;
+import org.apache.log4j.Logger;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Runs every session on threads from one pool shared by all of the queries in this JVM, instead of giving each session threads of its own. The threads are
+ * virtual threads when the JVM supports them, otherwise pooled daemon threads which are reused across queries and reclaimed once idle.
+ * <p>
+ * The scans of all of the sessions against an Accumulo instance share a limiter, so no more than a configured number of them run against the instance at once
+ * no matter how many queries are running. A scan holds its permit until it completes, including while it waits on a full result queue, as its scanner is open
+ * on the tablet servers for that long. Each session still runs no more than its own number of scans at once.
+ */
+public class SharedSessionExecutorFactory implements SessionExecutorFactory {
+    
+    private static final Logger log = Logger.getLogger(SharedSessionExecutorFactory.class);
+    
+    private static final ConcurrentMap<String,Semaphore> limiters = new ConcurrentHashMap<>();
+    
+    private static final ExecutorService sharedExecutor = Executors.newCachedThreadPool(createThreadFactory());
+    
+    private final Semaphore limiter;
+    
+    protected SharedSessionExecutorFactory(Semaphore limiter) {
+        this.limiter = limiter;
+    }
+    
+    /**
+     * Get a factory whose scans share a limiter with all other sessions against the same Accumulo instance. The limit is set by the first factory created for
+     * an instance.
+     * 
+     * @param connector
+     *            the connector to the instance
+     * @param maxConcurrentScans
+     *            the number of scans which may run against the instance at once
+     * @return the factory
+     */
+    public static SharedSessionExecutorFactory forInstance(Connector connector, int maxConcurrentScans) {
+        Preconditions.checkArgument(maxConcurrentScans > 0, "maxConcurrentScans must be positive");
+        String instanceName = connector.getInstance().getInstanceName();
+        Semaphore limiter = limiters.computeIfAbsent(instanceName, name -> {
+            if (log.isDebugEnabled()) {
+                log.debug("Limiting scan sessions against " + name + " to " + maxConcurrentScans + " concurrent scans");
+            }
+            return new Semaphore(maxConcurrentScans, true);
+        });
+        return new SharedSessionExecutorFactory(limiter);
+    }
+    
+    @Override
+    public Executor newSessionExecutor(String name, UncaughtExceptionHandler handler) {
+        return command -> {
+            Preconditions.checkNotNull(name);
+            Preconditions.checkNotNull(command);
+            sharedExecutor.execute(() -> {
+                Thread thread = Thread.currentThread();
+                String originalName = thread.getName();
+                try {
+                    thread.setName(name);
+                } catch (SecurityException e) {
+                    // OK if we can't set the name in this environment.
+                }
+                try {
+                    command.run();
+                } catch (Throwable t) {
+                    // like a thread without a handler of its own, fall back to the handler of the pooled thread
+                    UncaughtExceptionHandler h = (handler != null ? handler : thread.getUncaughtExceptionHandler());
+                    h.uncaughtException(thread, t);
+                } finally {
+                    try {
+                        thread.setName(originalName);
+                    } catch (SecurityException e) {
+                        // OK if we can't set the name in this environment.
+                    }
+                }
+            });
+        };
+    }
+    
+    @Override
+    public ExecutorService newScanExecutor(int threads, ThreadFactory threadFactory) {
+        return new LimitedExecutorService(sharedExecutor, threads, limiter);
+    }
+    
+    @Override
+    public ExecutorService newListenerExecutor() {
+        return new LimitedExecutorService(sharedExecutor, 1, null);
+    }
+    
+    /**
+     * @return the number of scans which may yet start against the instance of this factory
+     */
+    public int getAvailableScans() {
+        return limiter.availablePermits();
+    }
+    
+    /**
+     * Use virtual threads if this JVM has them (Java 21 and later), otherwise pooled daemon platform threads
+     * 
+     * @return the thread factory for the shared executor
+     */
+    private static ThreadFactory createThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "Datawave Shared Session ", 1L);
+            Method factory = builderClass.getMethod("factory");
+            log.info("Running shared scanner sessions on virtual threads");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Virtual threads are not available, running shared scanner sessions on pooled platform threads");
+            }
+        }
+        
+        AtomicInteger threadNum = new AtomicInteger(1);
+        ThreadFactory dtf = Executors.defaultThreadFactory();
+        return r -> {
+            Thread thread = dtf.newThread(r);
+            thread.setName("Datawave Shared Session " + threadNum.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -19,7 +19,7 @@ import org.apache.log4j.Logger;
  * 
  * @param <E>
  */
-public class BufferedFileBackedSortedSet<E extends Serializable> implements SortedSet<E> {
+public class BufferedFileBackedSortedSet<E extends Serializable> implements PersistableSortedSet<E> {
     private static final Logger log = Logger.getLogger(BufferedFileBackedSortedSet.class);
     protected static final int DEFAULT_BUFFER_PERSIST_THRESHOLD = 1000;
     protected static final int DEFAULT_MAX_OPEN_FILES = 100;
@@ -73,6 +73,7 @@ public class BufferedFileBackedSortedSet<E extends Serializable> implements Sort
         this.maxOpenFiles = maxOpenFiles;
     }
     
+    @Override
     public void persist() throws IOException {
         if (buffer != null) {
             buffer.persist();
@@ -92,6 +93,7 @@ public class BufferedFileBackedSortedSet<E extends Serializable> implements Sort
         set.addSet(subSet);
     }
     
+    @Override
     public boolean hasPersistedData() {
         for (SortedSet<E> subSet : set.getSets()) {
             if (((FileSortedSet<E>) subSet).isPersisted()) {
@@ -101,6 +103,7 @@ public class BufferedFileBackedSortedSet<E extends Serializable> implements Sort
         return false;
     }
     
+    @Override
     public boolean isPersisted() {
         // we are (completely) persisted iff the buffer is persisted
         return (buffer == null || buffer.isPersisted());
@@ -0,0 +1,36 @@
+package datawave.query.util.sortedset;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.accumulo.core.data.Key;
+
+/**
+ * Serializes a KeyValueSerializable as the Writable form of its key followed by the length prefixed value, avoiding java serialization.
+ */
+public class KeyValueRecordSerializer implements MappedSortedRun.RecordSerializer<KeyValueSerializable> {
+    
+    @Override
+    public byte[] serialize(KeyValueSerializable record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + record.value.length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        record.key.write(out);
+        out.writeInt(record.value.length);
+        out.write(record.value);
+        out.flush();
+        return bytes.toByteArray();
+    }
+    
+    @Override
+    public KeyValueSerializable deserialize(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        Key key = new Key();
+        key.readFields(in);
+        byte[] value = new byte[in.readInt()];
+        in.readFully(value);
+        return new KeyValueSerializable(key, value);
+    }
+}
@@ -0,0 +1,313 @@
+package datawave.query.util.sortedset;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.log4j.Logger;
+
+/**
+ * A sorted set for a local directory that holds up to a specified number of entries in memory before writing them out as a {@link MappedSortedRun}. Reads
+ * merge the in memory buffer with the runs, which are memory mapped rather than streamed, so lookups and the final merge sort do not go through an input
+ * stream and java deserialization per entry as the {@link HdfsBackedSortedSet} does.
+ * <p>
+ * Runs are written to a temporary name and renamed when complete, so any run found in the directory when this set is created is whole and is loaded. Once
+ * written, a run cannot be modified; removing a persisted entry is not supported. The runs are unmapped as soon as they are merged away or cleared, and
+ * {@link #close()} unmaps the rest while leaving their files in place; iterators and views obtained before then may no longer be used.
+ * 
+ * @param <E>
+ */
+public class MappedFileBackedSortedSet<E> extends AbstractSet<E> implements PersistableSortedSet<E>, Closeable {
+    private static final Logger log = Logger.getLogger(MappedFileBackedSortedSet.class);
+    private static final String FILENAME_PREFIX = "MappedSortedRun.";
+    private static final String TEMP_SUFFIX = ".tmp";
+    
+    protected final File uniqueDir;
+    protected final Comparator<? super E> comparator;
+    protected final MappedSortedRun.RecordSerializer<E> serializer;
+    protected final int bufferPersistThreshold;
+    protected final int maxOpenFiles;
+    protected int blockSize = MappedSortedRun.DEFAULT_BLOCK_SIZE;
+    
+    protected TreeSet<E> buffer;
+    protected List<MappedSortedRun<E>> runs = new ArrayList<>();
+    protected int fileCount = 0;
+    protected boolean sizeModified = false;
+    protected int size = 0;
+    
+    public MappedFileBackedSortedSet(Comparator<? super E> comparator, MappedSortedRun.RecordSerializer<E> serializer, int bufferPersistThreshold,
+                    File uniqueDir, int maxOpenFiles) throws IOException {
+        this.comparator = comparator;
+        this.serializer = serializer;
+        this.bufferPersistThreshold = bufferPersistThreshold;
+        this.uniqueDir = uniqueDir;
+        this.maxOpenFiles = maxOpenFiles;
+        this.buffer = new TreeSet<>(comparator);
+        
+        // now load up this sorted set with any existing runs
+        File[] files = uniqueDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile() && file.getName().startsWith(FILENAME_PREFIX) && !file.getName().endsWith(TEMP_SUFFIX)) {
+                    runs.add(new MappedSortedRun<>(file, comparator, serializer));
+                }
+            }
+        }
+        this.fileCount = runs.size();
+        this.sizeModified = !runs.isEmpty();
+    }
+    
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+    
+    @Override
+    public void persist() throws IOException {
+        if (!buffer.isEmpty()) {
+            runs.add(writeRun(buffer.iterator()));
+            buffer = new TreeSet<>(comparator);
+        }
+    }
+    
+    @Override
+    public boolean isPersisted() {
+        return buffer.isEmpty();
+    }
+    
+    @Override
+    public boolean hasPersistedData() {
+        return !runs.isEmpty();
+    }
+    
+    public int getBufferPersistThreshold() {
+        return bufferPersistThreshold;
+    }
+    
+    public int getBufferSize() {
+        return buffer.size();
+    }
+    
+    /**
+     * Merge the runs down until there are no more than maxFiles of them
+     * 
+     * @param maxFiles
+     * @throws IOException
+     */
+    public void compact(int maxFiles) throws IOException {
+        while (maxFiles > 0 && runs.size() > maxFiles) {
+            // merging n runs removes n - 1, but never merge more than we may have open at once
+            int count = Math.max(2, Math.min(runs.size() - maxFiles + 1, maxOpenFiles));
+            List<MappedSortedRun<E>> toMerge = new ArrayList<>(runs.subList(0, count));
+            long start = System.currentTimeMillis();
+            MappedSortedRun<E> merged = writeRun(new MergeSortIterator<>(toMerge));
+            if (log.isDebugEnabled()) {
+                log.debug("Compacted " + toMerge + " -> " + merged + " in " + (System.currentTimeMillis() - start) + "ms");
+            }
+            runs.subList(0, count).clear();
+            runs.add(merged);
+            for (MappedSortedRun<E> run : toMerge) {
+                run.close();
+                delete(run.getFile());
+            }
+        }
+    }
+    
+    private MappedSortedRun<E> writeRun(Iterator<E> records) throws IOException {
+        fileCount++;
+        File file = new File(uniqueDir, FILENAME_PREFIX + fileCount + '.' + System.currentTimeMillis());
+        File temp = new File(uniqueDir, file.getName() + TEMP_SUFFIX);
+        if (log.isDebugEnabled()) {
+            log.debug("Creating " + file);
+        }
+        MappedSortedRun.write(temp, records, serializer, blockSize);
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        return new MappedSortedRun<>(file, comparator, serializer);
+    }
+    
+    private void delete(File file) {
+        if (log.isDebugEnabled()) {
+            log.debug("Deleting " + file);
+        }
+        if (!file.delete() && file.exists()) {
+            log.error("Failed to delete file " + file);
+        }
+    }
+    
+    /**
+     * @return a view over the runs and the buffer
+     */
+    private MultiSetBackedSortedSet<E> sets() {
+        MultiSetBackedSortedSet<E> sets = new MultiSetBackedSortedSet<>();
+        for (MappedSortedRun<E> run : runs) {
+            sets.addSet(run);
+        }
+        if (!buffer.isEmpty()) {
+            sets.addSet(buffer);
+        }
+        return sets;
+    }
+    
+    @Override
+    public int size() {
+        if (sizeModified) {
+            this.size = (runs.isEmpty() ? buffer.size() : sets().size());
+            sizeModified = false;
+        }
+        return this.size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        if (!buffer.isEmpty()) {
+            return false;
+        }
+        for (MappedSortedRun<E> run : runs) {
+            if (!run.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    public boolean contains(Object o) {
+        // try the cheap operation first
+        if (buffer.contains(o)) {
+            return true;
+        }
+        for (MappedSortedRun<E> run : runs) {
+            if (run.contains(o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public Iterator<E> iterator() {
+        // first lets compact down the runs if needed
+        try {
+            // if we have any persisted runs, then ensure we are persisted
+            if (!runs.isEmpty()) {
+                persist();
+            }
+            compact(maxOpenFiles);
+        } catch (IOException ioe) {
+            throw new RuntimeException("Unable to compact mapped file backed sorted set", ioe);
+        }
+        if (runs.isEmpty()) {
+            return buffer.iterator();
+        }
+        return sets().iterator();
+    }
+    
+    @Override
+    public boolean add(E e) {
+        if (buffer.add(e)) {
+            sizeModified = true;
+            if (buffer.size() >= bufferPersistThreshold) {
+                try {
+                    persist();
+                } catch (IOException ex) {
+                    throw new IllegalStateException("Unable to persist MappedSortedRun", ex);
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        boolean modified = false;
+        for (E e : c) {
+            if (add(e)) {
+                modified = true;
+            }
+        }
+        return modified;
+    }
+    
+    @Override
+    public boolean remove(Object o) {
+        for (MappedSortedRun<E> run : runs) {
+            if (run.contains(o)) {
+                throw new UnsupportedOperationException("Cannot remove an entry that has been persisted to " + run);
+            }
+        }
+        if (buffer.remove(o)) {
+            sizeModified = true;
+            return true;
+        }
+        return false;
+    }
+    
+    @Override
+    public void clear() {
+        for (MappedSortedRun<E> run : runs) {
+            run.close();
+            delete(run.getFile());
+        }
+        runs.clear();
+        buffer.clear();
+        this.size = 0;
+        this.sizeModified = false;
+    }
+    
+    /**
+     * Unmap the runs, leaving their files for reuse. The in memory buffer is kept, so persist first if it is needed later.
+     */
+    @Override
+    public void close() {
+        for (MappedSortedRun<E> run : runs) {
+            run.close();
+        }
+        runs.clear();
+        this.sizeModified = true;
+    }
+    
+    @Override
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+    
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        return sets().subSet(fromElement, toElement);
+    }
+    
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return sets().headSet(toElement);
+    }
+    
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return sets().tailSet(fromElement);
+    }
+    
+    @Override
+    public E first() {
+        return sets().first();
+    }
+    
+    @Override
+    public E last() {
+        return sets().last();
+    }
+    
+    @Override
+    public String toString() {
+        return uniqueDir + " (runs=" + runs.size() + ", buffered=" + buffer.size() + ')';
+    }
+}
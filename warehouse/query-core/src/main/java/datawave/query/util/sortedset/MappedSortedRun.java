@@ -0,0 +1,489 @@
+package datawave.query.util.sortedset;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+import org.apache.log4j.Logger;
+
+/**
+ * An immutable sorted run of records in a local file that is read through memory mapped buffers. The file is laid out as a header, the records in sorted
+ * order each prefixed with its length, a block index holding the offset of every blockSize'th record, and a fixed size footer pointing at the index.
+ * <p>
+ * Lookups binary search the first record of each block and then scan within the block, so a contains or tailSet only decodes a handful of records. Files
+ * larger than 1GB are mapped as several regions and a record may straddle two of them. The mappings are released when the run is closed, or when it is
+ * garbage collected if the runtime does not allow unmapping a buffer. The file may be deleted before then. Closing a run closes its views, and reading a
+ * closed run throws an IllegalStateException rather than touching the released memory.
+ * 
+ * @param <E>
+ */
+public class MappedSortedRun<E> extends AbstractSet<E> implements SortedSet<E>, Closeable {
+    private static final Logger log = Logger.getLogger(MappedSortedRun.class);
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+    
+    private static final int MAGIC = 0x44574D52;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int FOOTER_SIZE = 24;
+    private static final int REGION_SIZE = 1 << 30;
+    private static final Unmapper UNMAPPER = createUnmapper();
+    
+    /**
+     * Converts records to and from the bytes stored in a run
+     * 
+     * @param <E>
+     */
+    public interface RecordSerializer<E> {
+        byte[] serialize(E record) throws IOException;
+        
+        E deserialize(byte[] bytes) throws IOException;
+    }
+    
+    private final File file;
+    private final Comparator<? super E> comparator;
+    private final RecordSerializer<E> serializer;
+    private final Mapping mapping;
+    private final long[] blockOffsets;
+    private final long recordCount;
+    private final int blockSize;
+    
+    // the bounds of this view, null if unbounded
+    private final E fromElement;
+    private final E toElement;
+    
+    /**
+     * Open an existing run
+     * 
+     * @param file
+     * @param comparator
+     *            the comparator the run was sorted with, null for natural ordering
+     * @param serializer
+     * @throws IOException
+     */
+    public MappedSortedRun(File file, Comparator<? super E> comparator, RecordSerializer<E> serializer) throws IOException {
+        this.file = file;
+        this.comparator = comparator;
+        this.serializer = serializer;
+        this.fromElement = null;
+        this.toElement = null;
+        
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            long length = channel.size();
+            if (length < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Truncated sorted run " + file);
+            }
+            ByteBuffer[] regions = new ByteBuffer[(int) ((length + REGION_SIZE - 1) / REGION_SIZE)];
+            for (int i = 0; i < regions.length; i++) {
+                long start = (long) i * REGION_SIZE;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, length - start));
+            }
+            this.mapping = new Mapping(file, regions);
+            
+            try {
+                if (readInt(0) != MAGIC || readInt(4) != VERSION) {
+                    throw new IOException("Unsupported sorted run " + file);
+                }
+                ByteBuffer footer = ByteBuffer.wrap(read(length - FOOTER_SIZE, FOOTER_SIZE));
+                long indexOffset = footer.getLong();
+                this.recordCount = footer.getLong();
+                this.blockSize = footer.getInt();
+                if (footer.getInt() != MAGIC) {
+                    throw new IOException("Incomplete sorted run " + file);
+                }
+                
+                int blockCount = (int) ((recordCount + blockSize - 1) / blockSize);
+                ByteBuffer index = ByteBuffer.wrap(read(indexOffset, blockCount * 8));
+                this.blockOffsets = new long[blockCount];
+                for (int i = 0; i < blockCount; i++) {
+                    blockOffsets[i] = index.getLong();
+                }
+            } catch (IOException | RuntimeException e) {
+                mapping.close();
+                throw e;
+            }
+        }
+    }
+    
+    private MappedSortedRun(MappedSortedRun<E> other, E fromElement, E toElement) {
+        this.file = other.file;
+        this.comparator = other.comparator;
+        this.serializer = other.serializer;
+        this.mapping = other.mapping;
+        this.blockOffsets = other.blockOffsets;
+        this.recordCount = other.recordCount;
+        this.blockSize = other.blockSize;
+        this.fromElement = fromElement;
+        this.toElement = toElement;
+    }
+    
+    /**
+     * Write a run from records that are already sorted and unique
+     * 
+     * @param file
+     * @param records
+     * @param serializer
+     * @param blockSize
+     *            the number of records per index block
+     * @throws IOException
+     */
+    public static <E> void write(File file, Iterator<E> records, RecordSerializer<E> serializer, int blockSize) throws IOException {
+        long[] offsets = new long[16];
+        int blockCount = 0;
+        long count = 0;
+        long offset = HEADER_SIZE;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            while (records.hasNext()) {
+                if (count % blockSize == 0) {
+                    if (blockCount == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, blockCount * 2);
+                    }
+                    offsets[blockCount++] = offset;
+                }
+                byte[] bytes = serializer.serialize(records.next());
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                offset += 4 + bytes.length;
+                count++;
+            }
+            for (int i = 0; i < blockCount; i++) {
+                out.writeLong(offsets[i]);
+            }
+            out.writeLong(offset);
+            out.writeLong(count);
+            out.writeInt(blockSize);
+            out.writeInt(MAGIC);
+        }
+    }
+    
+    public File getFile() {
+        return file;
+    }
+    
+    /**
+     * Release the memory mappings of this run and all of its views. The file is left in place.
+     */
+    @Override
+    public void close() {
+        mapping.close();
+    }
+    
+    @Override
+    public Iterator<E> iterator() {
+        return new RunIterator(fromElement == null ? 0 : floorBlock(fromElement));
+    }
+    
+    @Override
+    public int size() {
+        if (fromElement == null && toElement == null) {
+            return (int) Math.min(recordCount, Integer.MAX_VALUE);
+        }
+        int size = 0;
+        for (Iterator<E> it = iterator(); it.hasNext(); it.next()) {
+            size++;
+        }
+        return size;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return !iterator().hasNext();
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean contains(Object o) {
+        E e = (E) o;
+        if (!inRange(e) || blockOffsets.length == 0) {
+            return false;
+        }
+        int block = floorBlock(e);
+        long position = blockOffsets[block];
+        long remaining = Math.min(blockSize, recordCount - ((long) block * blockSize));
+        for (; remaining > 0; remaining--) {
+            int length = readInt(position);
+            int comparison = compare(decode(position + 4, length), e);
+            if (comparison == 0) {
+                return true;
+            } else if (comparison > 0) {
+                return false;
+            }
+            position += 4 + length;
+        }
+        return false;
+    }
+    
+    @Override
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+    
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        return new MappedSortedRun<>(this, max(this.fromElement, fromElement), min(this.toElement, toElement));
+    }
+    
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return new MappedSortedRun<>(this, this.fromElement, min(this.toElement, toElement));
+    }
+    
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return new MappedSortedRun<>(this, max(this.fromElement, fromElement), this.toElement);
+    }
+    
+    @Override
+    public E first() {
+        Iterator<E> it = iterator();
+        if (!it.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return it.next();
+    }
+    
+    @Override
+    public E last() {
+        // without an upper bound the last record is in the last block
+        int block = 0;
+        if (toElement == null && blockOffsets.length > 0) {
+            block = blockOffsets.length - 1;
+        }
+        if (fromElement != null) {
+            block = Math.max(block, floorBlock(fromElement));
+        }
+        Iterator<E> it = new RunIterator(block);
+        if (!it.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        E last = it.next();
+        while (it.hasNext()) {
+            last = it.next();
+        }
+        return last;
+    }
+    
+    @Override
+    public String toString() {
+        return file.toString();
+    }
+    
+    /**
+     * @return the last block whose first record is not greater than e, or 0 if there is none
+     */
+    private int floorBlock(E e) {
+        int low = 0;
+        int high = blockOffsets.length - 1;
+        int floor = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long position = blockOffsets[mid];
+            if (compare(decode(position + 4, readInt(position)), e) <= 0) {
+                floor = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return floor;
+    }
+    
+    private boolean inRange(E e) {
+        return (fromElement == null || compare(e, fromElement) >= 0) && (toElement == null || compare(e, toElement) < 0);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        return (comparator == null ? ((Comparable<? super E>) a).compareTo(b) : comparator.compare(a, b));
+    }
+    
+    private E max(E a, E b) {
+        return (a == null ? b : (b == null || compare(a, b) >= 0 ? a : b));
+    }
+    
+    private E min(E a, E b) {
+        return (a == null ? b : (b == null || compare(a, b) <= 0 ? a : b));
+    }
+    
+    private E decode(long position, int length) {
+        try {
+            return serializer.deserialize(read(position, length));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read record at " + position + " in " + file, e);
+        }
+    }
+    
+    private int readInt(long position) {
+        ByteBuffer region = mapping.region((int) (position / REGION_SIZE));
+        int offset = (int) (position % REGION_SIZE);
+        if (offset + 4 <= region.limit()) {
+            return region.getInt(offset);
+        }
+        return ByteBuffer.wrap(read(position, 4)).getInt();
+    }
+    
+    private byte[] read(long position, int length) {
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            ByteBuffer region = mapping.region((int) (position / REGION_SIZE)).duplicate();
+            int offset = (int) (position % REGION_SIZE);
+            int count = Math.min(length - copied, region.limit() - offset);
+            // cast so that this links against Buffer.position on a java 8 runtime
+            ((Buffer) region).position(offset);
+            region.get(bytes, copied, count);
+            copied += count;
+            position += count;
+        }
+        return bytes;
+    }
+    
+    /**
+     * The mapped regions of a run file, shared by the run and its views
+     */
+    private static class Mapping {
+        private final File file;
+        private final ByteBuffer[] regions;
+        private volatile boolean closed = false;
+        
+        Mapping(File file, ByteBuffer[] regions) {
+            this.file = file;
+            this.regions = regions;
+        }
+        
+        ByteBuffer region(int index) {
+            if (closed) {
+                throw new IllegalStateException("Sorted run " + file + " has been closed");
+            }
+            return regions[index];
+        }
+        
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (UNMAPPER != null) {
+                for (int i = 0; i < regions.length; i++) {
+                    try {
+                        UNMAPPER.unmap(regions[i]);
+                    } catch (Exception e) {
+                        log.warn("Unable to unmap " + file + ", leaving it to the garbage collector", e);
+                        break;
+                    }
+                    regions[i] = null;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Releases the memory of a mapped buffer immediately
+     */
+    private interface Unmapper {
+        void unmap(ByteBuffer buffer) throws Exception;
+    }
+    
+    /**
+     * @return an unmapper for the current runtime: Unsafe.invokeCleaner on java 9 and later, the buffer's cleaner on java 8, or null if neither is available
+     */
+    private static Unmapper createUnmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            final Object unsafe = theUnsafe.get(null);
+            return new Unmapper() {
+                @Override
+                public void unmap(ByteBuffer buffer) throws Exception {
+                    invokeCleaner.invoke(unsafe, buffer);
+                }
+            };
+        } catch (Exception e) {
+            // not java 9 or later, try the java 8 cleaner below
+        }
+        try {
+            final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return new Unmapper() {
+                @Override
+                public void unmap(ByteBuffer buffer) throws Exception {
+                    Object bufferCleaner = cleaner.invoke(buffer);
+                    if (bufferCleaner != null) {
+                        clean.invoke(bufferCleaner);
+                    }
+                }
+            };
+        } catch (Exception e) {
+            log.warn("Unable to unmap buffers on this runtime, mapped sorted runs will be released by the garbage collector", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Reads the records of this view sequentially starting at a block
+     */
+    private class RunIterator implements Iterator<E> {
+        private long position;
+        private long remaining;
+        private E next = null;
+        
+        RunIterator(int block) {
+            if (blockOffsets.length == 0) {
+                this.remaining = 0;
+            } else {
+                this.position = blockOffsets[block];
+                this.remaining = recordCount - ((long) block * blockSize);
+            }
+            advance();
+        }
+        
+        private void advance() {
+            next = null;
+            while (remaining > 0) {
+                int length = readInt(position);
+                E record = decode(position + 4, length);
+                position += 4 + length;
+                remaining--;
+                if (toElement != null && compare(record, toElement) >= 0) {
+                    remaining = 0;
+                } else if (fromElement == null || compare(record, fromElement) >= 0) {
+                    next = record;
+                    return;
+                }
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+        
+        @Override
+        public E next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            E record = next;
+            advance();
+            return record;
+        }
+    }
+}
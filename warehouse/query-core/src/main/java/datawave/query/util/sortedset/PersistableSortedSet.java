@@ -0,0 +1,29 @@
+package datawave.query.util.sortedset;
+
+import java.io.IOException;
+import java.util.SortedSet;
+
+/**
+ * A sorted set that buffers entries in memory and spills them to persistent storage, either when the buffer fills or when asked to.
+ * 
+ * @param <E>
+ */
+public interface PersistableSortedSet<E> extends SortedSet<E> {
+    
+    /**
+     * Force the in memory buffer out to persistent storage
+     * 
+     * @throws IOException
+     */
+    void persist() throws IOException;
+    
+    /**
+     * @return true if nothing is left in the in memory buffer
+     */
+    boolean isPersisted();
+    
+    /**
+     * @return true if any entries have been spilled to persistent storage
+     */
+    boolean hasPersistedData();
+}
@@ -0,0 +1,136 @@
+package datawave.core.iterators;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.accumulo.core.data.Key;
+import org.junit.Assert;
+import org.junit.Test;
+
+import datawave.query.util.sortedset.KeyValueSerializable;
+
+public class IvaratorResultCacheTest {
+    
+    private static final String SHARD = "20190101_0";
+    
+    private static List<KeyValueSerializable> results(int count, long timestamp) {
+        List<KeyValueSerializable> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(new KeyValueSerializable(new Key(SHARD, "datatype\0uid." + i, "", timestamp), new byte[0]));
+        }
+        return results;
+    }
+    
+    @Test
+    public void testHitAndMiss() {
+        IvaratorResultCache cache = new IvaratorResultCache(1024 * 1024, 60 * 1000);
+        List<KeyValueSerializable> results = results(10, 1000);
+        
+        Assert.assertNull(cache.get(SHARD, "FIELD == 'a'"));
+        cache.put(SHARD, "FIELD == 'a'", results, 1000);
+        
+        Assert.assertEquals(results, cache.get(SHARD, "FIELD == 'a'"));
+        Assert.assertNull(cache.get(SHARD, "FIELD == 'b'"));
+        Assert.assertNull(cache.get("20190101_1", "FIELD == 'a'"));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(3, cache.getMisses());
+    }
+    
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        List<KeyValueSerializable> results = results(10, 1000);
+        IvaratorResultCache sizing = new IvaratorResultCache(Long.MAX_VALUE, 60 * 1000);
+        sizing.put(SHARD, "a", results, 1000);
+        long entrySize = sizing.getBytes();
+        
+        // room for four entries
+        IvaratorResultCache cache = new IvaratorResultCache(entrySize * 4, 60 * 1000);
+        cache.put(SHARD, "a", results, 1000);
+        cache.put(SHARD, "b", results, 1000);
+        cache.put(SHARD, "c", results, 1000);
+        cache.put(SHARD, "d", results, 1000);
+        Assert.assertNotNull(cache.get(SHARD, "a"));
+        cache.put(SHARD, "e", results, 1000);
+        
+        Assert.assertEquals(4, cache.size());
+        Assert.assertEquals(entrySize * 4, cache.getBytes());
+        Assert.assertNotNull(cache.get(SHARD, "a"));
+        Assert.assertNull(cache.get(SHARD, "b"));
+        Assert.assertNotNull(cache.get(SHARD, "c"));
+        Assert.assertNotNull(cache.get(SHARD, "e"));
+    }
+    
+    @Test
+    public void testSkipsLargeResults() {
+        List<KeyValueSerializable> results = results(100, 1000);
+        IvaratorResultCache cache = new IvaratorResultCache(1024, 60 * 1000);
+        cache.put(SHARD, "a", results, 1000);
+        
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getBytes());
+    }
+    
+    @Test
+    public void testInvalidatedByNewerData() {
+        IvaratorResultCache cache = new IvaratorResultCache(1024 * 1024, 60 * 1000);
+        cache.put(SHARD, "a", results(10, 1000), 1000);
+        
+        cache.observe(SHARD, 500);
+        Assert.assertNotNull(cache.get(SHARD, "a"));
+        cache.observe("20190101_1", 2000);
+        Assert.assertNotNull(cache.get(SHARD, "a"));
+        
+        cache.observe(SHARD, 2000);
+        Assert.assertNull(cache.get(SHARD, "a"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getBytes());
+    }
+    
+    @Test
+    public void testForgetsShardsWithoutEntries() {
+        List<KeyValueSerializable> results = results(10, 1000);
+        IvaratorResultCache sizing = new IvaratorResultCache(Long.MAX_VALUE, 60 * 1000);
+        sizing.put(SHARD, "a", results, 1000);
+        long entrySize = sizing.getBytes();
+        
+        // room for two entries
+        IvaratorResultCache cache = new IvaratorResultCache(entrySize * 2, 60 * 1000);
+        
+        // fills that are not cached leave nothing behind
+        cache.observe(SHARD, 1000);
+        cache.observe("20190101_1", 1000);
+        cache.put("20190101_2", "a", results(100000, 1000), 1000);
+        Assert.assertEquals(0, cache.getShardCount());
+        
+        cache.put(SHARD, "a", results, 1000);
+        cache.put(SHARD, "b", results, 1000);
+        Assert.assertEquals(1, cache.getShardCount());
+        
+        // evicting the last entry of a shard forgets the shard
+        cache.put("20190101_1", "a", results, 1000);
+        cache.put("20190101_1", "b", results, 1000);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getShardCount());
+        
+        // as does invalidating it
+        cache.observe("20190101_1", 2000);
+        Assert.assertNull(cache.get("20190101_1", "a"));
+        Assert.assertEquals(1, cache.getShardCount());
+        Assert.assertNull(cache.get("20190101_1", "b"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getShardCount());
+        
+        // an entry filled after the shard was forgotten is valid again
+        cache.put("20190101_1", "a", results, 1500);
+        Assert.assertNotNull(cache.get("20190101_1", "a"));
+    }
+    
+    @Test
+    public void testExpires() throws InterruptedException {
+        IvaratorResultCache cache = new IvaratorResultCache(1024 * 1024, 10);
+        cache.put(SHARD, "a", results(10, 1000), 1000);
+        
+        Thread.sleep(50);
+        Assert.assertNull(cache.get(SHARD, "a"));
+    }
+}
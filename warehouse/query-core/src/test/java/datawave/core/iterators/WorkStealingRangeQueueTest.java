@@ -0,0 +1,75 @@
+package datawave.core.iterators;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WorkStealingRangeQueueTest {
+    
+    private static Key fiKey(String value) {
+        return new Key("20190101_0", "fi\0FIELD", value + "\0datatype\0uid");
+    }
+    
+    @Test
+    public void testTakesPendingRangesFirst() {
+        Range a = new Range(fiKey("a"), true, fiKey("f"), true);
+        Range b = new Range(fiKey("g"), true, fiKey("m"), true);
+        WorkStealingRangeQueue queue = new WorkStealingRangeQueue(Arrays.asList(a, b));
+        
+        Assert.assertEquals(a, queue.take().getRange());
+        Assert.assertEquals(b, queue.take().getRange());
+        Assert.assertEquals(0, queue.getSteals());
+    }
+    
+    @Test
+    public void testStealsRestOfBusiestSplit() {
+        Range range = new Range(fiKey("a"), true, fiKey("z"), true);
+        WorkStealingRangeQueue queue = new WorkStealingRangeQueue(Collections.singletonList(range));
+        
+        WorkStealingRangeQueue.Split owner = queue.take();
+        owner.scanned(fiKey("b"));
+        owner.scanned(fiKey("c"));
+        WorkStealingRangeQueue.Split thief = queue.take();
+        
+        Assert.assertNotNull(thief);
+        Assert.assertEquals(1, queue.getSteals());
+        Assert.assertEquals(2, owner.getScanned());
+        
+        // the owner stops where the thief starts, and the thief ends where the owner would have
+        Key mid = owner.getStopKey();
+        Assert.assertNotNull(mid);
+        Assert.assertTrue(mid.compareTo(fiKey("c")) > 0);
+        Assert.assertEquals(mid, thief.getRange().getStartKey());
+        Assert.assertTrue(thief.getRange().isStartKeyInclusive());
+        Assert.assertEquals(range.getEndKey(), thief.getRange().getEndKey());
+        Assert.assertTrue(thief.getRange().isEndKeyInclusive());
+        
+        Assert.assertFalse(owner.isPastEnd(fiKey("c")));
+        Assert.assertTrue(owner.isPastEnd(mid));
+        Assert.assertTrue(owner.isPastEnd(fiKey("y")));
+        Assert.assertFalse(thief.isPastEnd(fiKey("y")));
+    }
+    
+    @Test
+    public void testNothingLeftToTake() {
+        WorkStealingRangeQueue queue = new WorkStealingRangeQueue(Collections.singletonList(new Range(fiKey("a"), true, fiKey("z"), true)));
+        
+        WorkStealingRangeQueue.Split split = queue.take();
+        queue.done(split);
+        
+        Assert.assertNull(queue.take());
+    }
+    
+    @Test
+    public void testUnsplittableRange() {
+        WorkStealingRangeQueue queue = new WorkStealingRangeQueue(Collections.singletonList(new Range(fiKey("a"), true, fiKey("a"), true)));
+        
+        Assert.assertNotNull(queue.take());
+        Assert.assertNull(queue.take());
+        Assert.assertEquals(0, queue.getSteals());
+    }
+}
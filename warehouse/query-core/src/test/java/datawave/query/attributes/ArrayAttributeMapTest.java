@@ -0,0 +1,89 @@
+package datawave.query.attributes;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.data.Key;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ArrayAttributeMapTest {
+    
+    private static Attribute<? extends Comparable<?>> attr(String value) {
+        return new Content(value, new Key("row", "dt\0uid"), true);
+    }
+    
+    @Test
+    public void testSortedIteration() {
+        ArrayAttributeMap map = new ArrayAttributeMap(2);
+        map.put("C", attr("c"));
+        map.put("A", attr("a"));
+        map.put("D", attr("d"));
+        map.put("B", attr("b"));
+        
+        Assert.assertEquals(4, map.size());
+        Assert.assertEquals("[A, B, C, D]", new ArrayList<>(map.keySet()).toString());
+        Assert.assertEquals(attr("b"), map.get("B"));
+        Assert.assertNull(map.get("E"));
+        Assert.assertNull(map.get(1));
+    }
+    
+    @Test
+    public void testReplaceAndRemove() {
+        ArrayAttributeMap map = new ArrayAttributeMap();
+        Assert.assertNull(map.put("A", attr("1")));
+        Assert.assertEquals(attr("1"), map.put("A", attr("2")));
+        Assert.assertEquals(1, map.size());
+        
+        Assert.assertEquals(attr("2"), map.remove("A"));
+        Assert.assertNull(map.remove("A"));
+        Assert.assertTrue(map.isEmpty());
+    }
+    
+    @Test
+    public void testIteratorRemoveAndSetValue() {
+        ArrayAttributeMap map = new ArrayAttributeMap();
+        for (String field : new String[] {"A", "B", "C", "D"}) {
+            map.put(field, attr(field));
+        }
+        
+        Iterator<Map.Entry<String,Attribute<? extends Comparable<?>>>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String,Attribute<? extends Comparable<?>>> entry = it.next();
+            if (entry.getKey().equals("B")) {
+                it.remove();
+                Assert.assertEquals("B", entry.getKey());
+            } else if (entry.getKey().equals("C")) {
+                entry.setValue(attr("updated"));
+            }
+        }
+        
+        Assert.assertEquals("[A, C, D]", new ArrayList<>(map.keySet()).toString());
+        Assert.assertEquals(attr("updated"), map.get("C"));
+    }
+    
+    @Test
+    public void testMatchesTreeMap() {
+        Random random = new Random(42);
+        ArrayAttributeMap map = new ArrayAttributeMap();
+        TreeMap<String,Attribute<? extends Comparable<?>>> expected = new TreeMap<>();
+        
+        for (int i = 0; i < 5000; i++) {
+            String field = "FIELD_" + random.nextInt(100);
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(field), map.remove(field));
+            } else {
+                Attribute<? extends Comparable<?>> value = attr(Integer.toString(i));
+                Assert.assertEquals(expected.put(field, value), map.put(field, value));
+            }
+        }
+        
+        Assert.assertEquals(expected, map);
+        Assert.assertEquals(map, expected);
+        Assert.assertEquals(expected.hashCode(), map.hashCode());
+        Assert.assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+    }
+}
@@ -0,0 +1,102 @@
+package datawave.query.attributes;
+
+import java.util.Map;
+
+import datawave.data.type.LcNoDiacriticsType;
+import datawave.data.type.NumberType;
+import datawave.query.function.deserializer.CompactDocumentDeserializer;
+import datawave.query.function.deserializer.KryoDocumentDeserializer;
+import datawave.query.function.serializer.CompactDocumentSerializer;
+import datawave.query.function.serializer.KryoDocumentSerializer;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.ColumnVisibility;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.collect.Maps;
+
+public class CompactDocumentCodecTest {
+    
+    private static final Key DOC_KEY = new Key("20190101_0", "datatype\0uid.1", "", new ColumnVisibility("A&B"), 1000L);
+    private static final Key OTHER_KEY = new Key("20190101_0", "datatype\0uid.1", "", new ColumnVisibility("A|C"), 2000L);
+    
+    private Document createDocument() {
+        Document d = new Document(DOC_KEY, true);
+        d.put("NAME", new TypeAttribute<>(new LcNoDiacriticsType("alice"), DOC_KEY, true));
+        d.put("NAME", new TypeAttribute<>(new LcNoDiacriticsType("bob"), OTHER_KEY, true));
+        d.put("AGE", new TypeAttribute<>(new NumberType("42"), DOC_KEY, true));
+        d.put("HIT_TERM", new Content("NAME:alice", DOC_KEY, true));
+        d.put("COUNT", new Numeric(7, OTHER_KEY, true));
+        d.put(Document.DOCKEY_FIELD_NAME, new DocumentKey(DOC_KEY, true));
+        
+        Document child = new Document(DOC_KEY, true);
+        child.put("NAME", new TypeAttribute<>(new LcNoDiacriticsType("carol"), DOC_KEY, true));
+        d.put("CHILD", child);
+        return d;
+    }
+    
+    private Document roundTrip(Document d, boolean reducedResponse) {
+        CompactDocumentCodec codec = new CompactDocumentCodec();
+        Output output = new Output(1024, -1);
+        codec.write(d, output, reducedResponse);
+        return codec.read(new Input(output.toBytes()));
+    }
+    
+    @Test
+    public void testRoundTripMatchesKryo() {
+        Map.Entry<Key,Document> entry = Maps.immutableEntry(DOC_KEY, createDocument());
+        
+        Document fromKryo = new KryoDocumentDeserializer().apply(new KryoDocumentSerializer().apply(entry)).getValue();
+        Map.Entry<Key,Value> compact = new CompactDocumentSerializer().apply(entry);
+        Document fromCompact = new CompactDocumentDeserializer().apply(compact).getValue();
+        
+        Assert.assertEquals(fromKryo, fromCompact);
+        Assert.assertEquals(fromKryo.size(), fromCompact.size());
+    }
+    
+    @Test
+    public void testSmallerThanKryo() {
+        Map.Entry<Key,Document> entry = Maps.immutableEntry(DOC_KEY, createDocument());
+        
+        int kryoLength = new KryoDocumentSerializer().apply(entry).getValue().getSize();
+        int compactLength = new CompactDocumentSerializer().apply(entry).getValue().getSize();
+        
+        Assert.assertTrue("compact " + compactLength + " kryo " + kryoLength, compactLength < kryoLength);
+    }
+    
+    @Test
+    public void testReducedResponse() {
+        Document d = roundTrip(createDocument(), true);
+        
+        Assert.assertEquals(createDocument().getDictionary().keySet(), d.getDictionary().keySet());
+        Attribute<?> age = d.get("AGE");
+        Assert.assertTrue(age instanceof TypeAttribute);
+        Assert.assertFalse(age.isMetadataSet());
+        Assert.assertEquals("42", ((TypeAttribute<?>) age).getType().getDelegateAsString());
+    }
+    
+    @Test
+    public void testVisibilitiesAreShared() {
+        Document d = roundTrip(createDocument(), false);
+        
+        TypeAttribute<?> age = (TypeAttribute<?>) d.get("AGE");
+        TypeAttribute<?> child = (TypeAttribute<?>) ((Document) d.get("CHILD")).get("NAME");
+        Assert.assertEquals(new ColumnVisibility("A&B"), age.getColumnVisibility());
+        Assert.assertEquals(1000L, age.getTimestamp());
+        Assert.assertEquals(age.getColumnVisibility(), child.getColumnVisibility());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedVersion() {
+        Output output = new Output(1024, -1);
+        new CompactDocumentCodec().write(createDocument(), output, false);
+        byte[] bytes = output.toBytes();
+        bytes[0] = CompactDocumentCodec.VERSION + 1;
+        
+        new CompactDocumentCodec().read(new Input(bytes));
+    }
+}
@@ -128,6 +128,8 @@ public class ShardQueryConfigurationTest {
         Assert.assertTrue(config.isFailOutsideValidDateRange());
         Assert.assertFalse(config.isRawTypes());
         Assert.assertEquals(-1.0, config.getMinSelectivity(), 0);
+        Assert.assertFalse(config.isCostBasedPlanning());
+        Assert.assertEquals(1000.0, config.getCostBasedDelayRatio(), 0);
         Assert.assertFalse(config.getIncludeDataTypeAsField());
         Assert.assertTrue(config.getIncludeRecordId());
         Assert.assertFalse(config.getIncludeHierarchyFields());
@@ -168,8 +170,14 @@ public class ShardQueryConfigurationTest {
         Assert.assertEquals(11, config.getMaxFieldIndexRangeSplit());
         Assert.assertEquals(100, config.getIvaratorMaxOpenFiles());
         Assert.assertEquals(33, config.getMaxIvaratorSources());
+        Assert.assertFalse(config.isIvaratorResultCacheEnabled());
+        Assert.assertFalse(config.isIvaratorMappedSpillEnabled());
+        Assert.assertFalse(config.isPipelinedIndexLookup());
+        Assert.assertFalse(config.isSharedSessionExecutors());
+        Assert.assertEquals(1000, config.getMaxConcurrentSessionScans());
         Assert.assertEquals(25, config.getMaxEvaluationPipelines());
         Assert.assertEquals(25, config.getMaxPipelineCachedResults());
+        Assert.assertFalse(config.isUnorderedEvaluationPipeline());
         Assert.assertFalse(config.isExpandAllTerms());
         Assert.assertNull(config.getQueryModel());
         Assert.assertNull(config.getModelName());
@@ -2,6 +2,7 @@ package datawave.query.index.lookup;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
@@ -303,6 +304,14 @@ public class RangeStreamTest {
         m.put(new Text("FOO"), new Text("20190314_1\0" + "datatype1"), new Value(list.toByteArray()));
         bw.addMutation(m);
         
+        m = new Mutation("bark");
+        m.put(new Text("FOO"), new Text("20190314_1\0" + "datatype1"), new Value(list.toByteArray()));
+        bw.addMutation(m);
+        
+        m = new Mutation("barn");
+        m.put(new Text("FOO"), new Text("20190314_1\0" + "datatype1"), new Value(list.toByteArray()));
+        bw.addMutation(m);
+        
         // ---------------
         
         bw.flush();
@@ -473,6 +482,80 @@ public class RangeStreamTest {
         assertTrue("Expected ranges not found in query plan: " + expectedRanges.toString(), expectedRanges.isEmpty());
     }
     
+    @Test
+    public void testBothIndexedPrunePipelined() throws Exception {
+        String originalQuery = "(FOO == 'barter' || FOO == 'baggy')";
+        ASTJexlScript script = JexlASTHelper.parseJexlQuery(originalQuery);
+        
+        config.setBeginDate(new Date(0));
+        config.setEndDate(new Date(System.currentTimeMillis()));
+        config.setPipelinedIndexLookup(true);
+        
+        Multimap<String,Type<?>> dataTypes = HashMultimap.create();
+        dataTypes.putAll("FOO", Sets.newHashSet(new LcNoDiacriticsType()));
+        dataTypes.putAll("NUM", Sets.newHashSet(new NumberType()));
+        
+        config.setQueryFieldsDatatypes(dataTypes);
+        config.setIndexedFields(dataTypes);
+        
+        MockMetadataHelper helper = new MockMetadataHelper();
+        helper.setIndexedFields(dataTypes.keySet());
+        
+        Range range1 = makeTestRange("20190314_1", "datatype1\u0000123");
+        Range range2 = makeTestRange("20190314_1", "datatype1\u0000345");
+        Range range3 = makeTestRange("20190414_1", "datatype1\u0000123");
+        Range range4 = makeTestRange("20190414_1", "datatype1\u0000345");
+        Set<Range> expectedRanges = Sets.newHashSet(range1, range2, range3, range4);
+        
+        RangeStream rangeStream = new RangeStream(config, new ScannerFactory(config.getConnector(), 1), helper).setLimitScanners(true);
+        for (QueryPlan queryPlan : rangeStream.streamPlans(script)) {
+            for (Range range : queryPlan.getRanges()) {
+                assertTrue("Tried to remove unexpected range " + range.toString() + " from expected ranges: " + expectedRanges.toString(),
+                                expectedRanges.remove(range));
+            }
+        }
+        assertTrue("Expected ranges not found in query plan: " + expectedRanges.toString(), expectedRanges.isEmpty());
+    }
+    
+    /**
+     * An intersection of more terms than there are lookup threads, with batches small enough that every term fills its result queue before the intersection
+     * gets to it. The pipelined plans must match the plans built on demand.
+     */
+    @Test(timeout = 60000)
+    public void testIntersectionOfManyTermsPipelined() throws Exception {
+        String originalQuery = "FOO == 'barter' && FOO == 'oreo' && FOO == 'bark' && FOO == 'barn' && FOO == 'bardy' && FOO == 'boohoo'";
+        
+        config.setBeginDate(new Date(0));
+        config.setEndDate(new Date(System.currentTimeMillis()));
+        config.setNumIndexLookupThreads(2);
+        config.setMaxIndexBatchSize(1);
+        
+        Multimap<String,Type<?>> dataTypes = HashMultimap.create();
+        dataTypes.putAll("FOO", Sets.newHashSet(new LcNoDiacriticsType()));
+        
+        config.setQueryFieldsDatatypes(dataTypes);
+        config.setIndexedFields(dataTypes);
+        
+        MockMetadataHelper helper = new MockMetadataHelper();
+        helper.setIndexedFields(dataTypes.keySet());
+        
+        Set<Range> expectedRanges = Sets.newHashSet();
+        RangeStream rangeStream = new RangeStream(config, new ScannerFactory(config.getConnector(), 1), helper).setLimitScanners(true);
+        for (QueryPlan queryPlan : rangeStream.streamPlans(JexlASTHelper.parseJexlQuery(originalQuery))) {
+            Iterables.addAll(expectedRanges, queryPlan.getRanges());
+        }
+        assertFalse(expectedRanges.isEmpty());
+        
+        config.setPipelinedIndexLookup(true);
+        
+        Set<Range> ranges = Sets.newHashSet();
+        rangeStream = new RangeStream(config, new ScannerFactory(config.getConnector(), 1), helper).setLimitScanners(true);
+        for (QueryPlan queryPlan : rangeStream.streamPlans(JexlASTHelper.parseJexlQuery(originalQuery))) {
+            Iterables.addAll(ranges, queryPlan.getRanges());
+        }
+        assertEquals(expectedRanges, ranges);
+    }
+    
     @Test
     public void testOrOneFieldIndexed() throws Exception {
         String originalQuery = "(FOO == 'bag' || TACO == 'ba')";
@@ -0,0 +1,112 @@
+package datawave.query.iterator.pipeline;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class BoundedMpscQueueTest {
+    
+    @Test
+    public void testCapacityRoundedToPowerOfTwo() {
+        Assert.assertEquals(1, new BoundedMpscQueue<>(1).capacity());
+        Assert.assertEquals(2, new BoundedMpscQueue<>(2).capacity());
+        Assert.assertEquals(32, new BoundedMpscQueue<>(25).capacity());
+        Assert.assertEquals(32, new BoundedMpscQueue<>(32).capacity());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new BoundedMpscQueue<>(0);
+    }
+    
+    @Test
+    public void testFifoAndBounded() {
+        BoundedMpscQueue<Integer> queue = new BoundedMpscQueue<>(4);
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(queue.poll());
+        
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(queue.offer(i));
+        }
+        Assert.assertFalse(queue.offer(4));
+        Assert.assertEquals(4, queue.size());
+        
+        Assert.assertEquals(Integer.valueOf(0), queue.poll());
+        Assert.assertTrue(queue.offer(4));
+        for (int i = 1; i < 5; i++) {
+            Assert.assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        Assert.assertNull(queue.poll());
+        Assert.assertTrue(queue.isEmpty());
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void testNullRejected() {
+        new BoundedMpscQueue<>(4).offer(null);
+    }
+    
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        final int producers = 8;
+        final int perProducer = 10000;
+        final BoundedMpscQueue<Integer> queue = new BoundedMpscQueue<>(64);
+        final CountDownLatch start = new CountDownLatch(1);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                final int producer = p;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        Integer value = producer * perProducer + i;
+                        while (!queue.offer(value)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            
+            start.countDown();
+            
+            // every value must be seen exactly once, and each producer's values must be seen in the order they were offered
+            boolean[] seen = new boolean[producers * perProducer];
+            int[] lastPerProducer = new int[producers];
+            Arrays.fill(lastPerProducer, -1);
+            int received = 0;
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            while (received < seen.length) {
+                Assert.assertTrue("Timed out waiting for values", System.currentTimeMillis() < deadline);
+                Integer value = queue.poll();
+                if (value == null) {
+                    Thread.yield();
+                    continue;
+                }
+                Assert.assertFalse("Duplicate value " + value, seen[value]);
+                seen[value] = true;
+                int producer = value / perProducer;
+                int index = value % perProducer;
+                Assert.assertTrue("Out of order value for producer " + producer, index > lastPerProducer[producer]);
+                lastPerProducer[producer] = index;
+                received++;
+            }
+            
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            Assert.assertTrue(queue.isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package datawave.query.iterator.pipeline;
+
+import datawave.query.attributes.Document;
+import datawave.query.iterator.DocumentSpecificNestedIterator;
+import datawave.query.iterator.NestedIterator;
+import datawave.query.iterator.NestedQueryIterator;
+import datawave.query.iterator.QueryIterator;
+import datawave.query.iterator.profile.QuerySpanCollector;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class UnorderedPipelineIteratorTest {
+    
+    @Test(timeout = 30000)
+    public void testResultsReturnedInCompletionOrder() {
+        List<Key> docs = createDocs(5);
+        final Key slow = docs.get(0);
+        final CountDownLatch release = new CountDownLatch(1);
+        
+        UnorderedPipelineIterator iterator = createIterator(docs, 5, 5, new Evaluator() {
+            @Override
+            public boolean evaluate(Key doc) throws InterruptedException {
+                if (doc.equals(slow)) {
+                    release.await();
+                }
+                return true;
+            }
+        });
+        iterator.startPipeline();
+        
+        // the first document is still being evaluated, so every other document must come back ahead of it
+        Set<Key> returned = new HashSet<>();
+        for (int i = 1; i < docs.size(); i++) {
+            Assert.assertTrue(iterator.hasNext());
+            Key key = iterator.next().getKey();
+            Assert.assertNotEquals(slow, key);
+            returned.add(key);
+        }
+        Assert.assertEquals(new HashSet<>(docs.subList(1, docs.size())), returned);
+        
+        release.countDown();
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertEquals(slow, iterator.next().getKey());
+        Assert.assertFalse(iterator.hasNext());
+    }
+    
+    @Test(timeout = 30000)
+    public void testTerminatesAfterAllEvaluationsComplete() {
+        List<Key> docs = createDocs(200);
+        
+        // more documents than pipelines, with staggered evaluation times and every third document evaluating to nothing
+        UnorderedPipelineIterator iterator = createIterator(docs, 4, 2, new Evaluator() {
+            @Override
+            public boolean evaluate(Key doc) throws InterruptedException {
+                int id = Integer.parseInt(doc.getColumnFamily().toString().substring(3));
+                TimeUnit.MICROSECONDS.sleep((id * 7) % 500);
+                return id % 3 != 0;
+            }
+        });
+        iterator.startPipeline();
+        
+        Set<Key> expected = new HashSet<>();
+        for (Key doc : docs) {
+            if (Integer.parseInt(doc.getColumnFamily().toString().substring(3)) % 3 != 0) {
+                expected.add(doc);
+            }
+        }
+        
+        Set<Key> returned = new HashSet<>();
+        while (iterator.hasNext()) {
+            Assert.assertTrue("Duplicate result", returned.add(iterator.next().getKey()));
+        }
+        Assert.assertEquals(expected, returned);
+        
+        // once exhausted the iterator must stay exhausted
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertNull(iterator.next());
+    }
+    
+    @Test(timeout = 30000)
+    public void testTerminatesWhenNothingEvaluates() {
+        UnorderedPipelineIterator iterator = createIterator(createDocs(20), 4, 2, new Evaluator() {
+            @Override
+            public boolean evaluate(Key doc) {
+                return false;
+            }
+        });
+        iterator.startPipeline();
+        
+        Assert.assertFalse(iterator.hasNext());
+    }
+    
+    private static List<Key> createDocs(int count) {
+        List<Key> docs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            docs.add(new Key("20190101_0", "dt\0" + String.format("%05d", i)));
+        }
+        return docs;
+    }
+    
+    private static UnorderedPipelineIterator createIterator(List<Key> docs, int maxPipelines, int maxCachedResults, final Evaluator evaluator) {
+        QueryIterator sourceIterator = new QueryIterator() {
+            @Override
+            public Iterator<Entry<Key,Document>> createDocumentPipeline(SortedKeyValueIterator<Key,Value> deepSourceCopy,
+                            final NestedQueryIterator<Key> documentSpecificSource, QuerySpanCollector querySpanCollector) {
+                return new EvaluatingIterator((DocumentSpecificNestedIterator) documentSpecificSource, evaluator);
+            }
+        };
+        SortedKeyValueIterator<Key,Value> source = new SortedMapIterator(new TreeMap<Key,Value>());
+        return new UnorderedPipelineIterator(new DocumentIterator(docs), maxPipelines, maxCachedResults, null, null, sourceIterator, source, null, null,
+                        Long.MAX_VALUE);
+    }
+    
+    /**
+     * Decides whether a document evaluates to a result, possibly after delaying the evaluation
+     */
+    private interface Evaluator {
+        boolean evaluate(Key doc) throws InterruptedException;
+    }
+    
+    /**
+     * A stand in for the document evaluation pipeline that returns the document currently set on its pipeline if the evaluator accepts it
+     */
+    private static class EvaluatingIterator implements Iterator<Entry<Key,Document>> {
+        private final DocumentSpecificNestedIterator documentSpecificSource;
+        private final Evaluator evaluator;
+        
+        EvaluatingIterator(DocumentSpecificNestedIterator documentSpecificSource, Evaluator evaluator) {
+            this.documentSpecificSource = documentSpecificSource;
+            this.evaluator = evaluator;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            try {
+                return evaluator.evaluate(documentSpecificSource.getDocumentKey().getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+        
+        @Override
+        public Entry<Key,Document> next() {
+            return documentSpecificSource.getDocumentKey();
+        }
+    }
+    
+    /**
+     * Iterates over a fixed list of document keys
+     */
+    private static class DocumentIterator implements NestedIterator<Key> {
+        private final Iterator<Key> docs;
+        
+        DocumentIterator(List<Key> docs) {
+            this.docs = docs.iterator();
+        }
+        
+        @Override
+        public void initialize() {}
+        
+        @Override
+        public boolean hasNext() {
+            return docs.hasNext();
+        }
+        
+        @Override
+        public Key next() {
+            return docs.next();
+        }
+        
+        @Override
+        public Key move(Key minimum) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public Collection<NestedIterator<Key>> leaves() {
+            return Collections.emptySet();
+        }
+        
+        @Override
+        public Collection<NestedIterator<Key>> children() {
+            return Collections.emptySet();
+        }
+        
+        @Override
+        public Document document() {
+            return new Document();
+        }
+    }
+}
@@ -1,6 +1,22 @@
 package datawave.query.jexl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import datawave.core.iterators.DatawaveFieldIndexListIteratorJexl;
+import datawave.query.attributes.ValueTuple;
+import datawave.query.collections.FunctionalSet;
+
 import org.apache.commons.jexl2.Script;
+import org.apache.commons.jexl2.parser.ASTEQNode;
+import org.apache.commons.jexl2.parser.ASTERNode;
+import org.apache.commons.jexl2.parser.ASTFunctionNode;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.JexlNode;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -19,4 +35,124 @@ public class DatawaveInterpreterTest {
         
         Assert.assertTrue(DatawaveInterpreter.isMatched(script.execute(context)));
     }
+    
+    @Test
+    public void evaluationPlanTest() {
+        String query = "FOO == 'a' && (BAR == 'b' || FOO == 'a') && filter:includeRegex(BAR, 'b.*').size() > 0 && filter:includeRegex(BAR, 'c.*')";
+        
+        DatawaveJexlEngine engine = ArithmeticJexlEngines.getEngine(new DefaultArithmetic());
+        Script script = engine.createScript(query);
+        Assert.assertTrue(script instanceof DatawaveJexlScript);
+        
+        // the repeated FOO == 'a' shares a slot
+        JexlEvaluationPlan plan = ((DatawaveJexlScript) script).getPlan();
+        Assert.assertEquals(4, plan.size());
+        
+        DatawaveJexlContext context = new DatawaveJexlContext();
+        context.set("FOO", "a");
+        context.set("BAR", "b");
+        Assert.assertFalse(DatawaveInterpreter.isMatched(script.execute(context)));
+        
+        // the same results as interpreting the script without a plan
+        ASTJexlScript tree = engine.parse(query);
+        for (String bar : new String[] {"b", "c", "bc"}) {
+            context.set("BAR", bar);
+            DatawaveInterpreter interpreter = engine.createInterpreter(context, false, false);
+            Assert.assertEquals(DatawaveInterpreter.isMatched(interpreter.interpret(tree)), DatawaveInterpreter.isMatched(script.execute(context)));
+        }
+    }
+    
+    @Test
+    public void compiledTermsTest() {
+        String query = "FOO == 'a' && (BAR =~ 'b.*' || NUM == 1) && filter:includeRegex(BAR, 'c.*') && FOO == BAR";
+        
+        DatawaveJexlEngine engine = ArithmeticJexlEngines.getEngine(new DefaultArithmetic());
+        DatawaveJexlScript script = (DatawaveJexlScript) engine.createScript(query);
+        JexlEvaluationPlan plan = script.getPlan();
+        
+        // comparisons of a field with a literal are compiled, while the function and the comparison of two fields are interpreted
+        List<JexlNode> nodes = new ArrayList<>();
+        collect(script.getScript(), nodes);
+        Assert.assertEquals(5, nodes.size());
+        List<String> compiled = new ArrayList<>();
+        for (JexlNode node : nodes) {
+            TermEvaluator evaluator = plan.getEvaluator(node);
+            if (evaluator != null) {
+                compiled.add(evaluator.toString());
+            }
+        }
+        Collections.sort(compiled);
+        Assert.assertEquals(Arrays.asList("BAR =~ b.*", "FOO == a", "NUM == 1"), compiled);
+        
+        // the same results as interpreting the script without a plan, including when fields are missing
+        ASTJexlScript tree = engine.parse(query);
+        String[][] documents = { {"a", "c"}, {"a", "bc"}, {"a", null}, {null, "c"}, {"b", "c"}};
+        for (String[] document : documents) {
+            for (Integer num : new Integer[] {1, 2, null}) {
+                DatawaveJexlContext context = new DatawaveJexlContext();
+                if (document[0] != null) {
+                    context.set("FOO", document[0]);
+                }
+                if (document[1] != null) {
+                    context.set("BAR", document[1]);
+                }
+                if (num != null) {
+                    context.set("NUM", num);
+                }
+                DatawaveInterpreter interpreter = engine.createInterpreter(context, false, false);
+                Assert.assertEquals(DatawaveInterpreter.isMatched(interpreter.interpret(tree)), DatawaveInterpreter.isMatched(script.execute(context)));
+            }
+        }
+    }
+    
+    @Test
+    public void compiledTermsRecordHitsTest() {
+        String query = "FOO == 'a' && BAR =~ 'b.*'";
+        
+        HitListArithmetic arithmetic = new HitListArithmetic();
+        Script script = ArithmeticJexlEngines.getEngine(arithmetic).createScript(query);
+        
+        DatawaveJexlContext context = new DatawaveJexlContext();
+        FunctionalSet<ValueTuple> foo = new FunctionalSet<>();
+        foo.add(new ValueTuple("FOO", "a", "a", null));
+        foo.add(new ValueTuple("FOO", "z", "z", null));
+        context.set("FOO", foo);
+        FunctionalSet<ValueTuple> bar = new FunctionalSet<>();
+        bar.add(new ValueTuple("BAR", "bc", "bc", null));
+        context.set("BAR", bar);
+        
+        Assert.assertTrue(DatawaveInterpreter.isMatched(script.execute(context)));
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("FOO:a", "BAR:bc")), new TreeSet<>(arithmetic.getHitSet()));
+    }
+    
+    private static void collect(JexlNode node, List<JexlNode> nodes) {
+        if (node instanceof ASTEQNode || node instanceof ASTERNode || node instanceof ASTFunctionNode) {
+            nodes.add(node);
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            collect(node.jjtGetChild(i), nodes);
+        }
+    }
+    
+    @Test
+    public void exceededOrThresholdTest() throws Exception {
+        String query = "((ExceededOrThresholdMarkerJexlNode = true) && (((id = 'some-id') && (field = 'FOO') && (params = '{}'))))";
+        Script script = ArithmeticJexlEngines.getEngine(new DefaultArithmetic()).createScript(query);
+        
+        SortedSet<String> values = new TreeSet<>(Arrays.asList("a", "bb", "ccc"));
+        for (Object evalValues : new Object[] {values, DatawaveFieldIndexListIteratorJexl.getFST(values)}) {
+            DatawaveJexlContext context = new DatawaveJexlContext();
+            context.set("some-id", evalValues);
+            
+            context.set("FOO", "bb");
+            Assert.assertTrue(DatawaveInterpreter.isMatched(script.execute(context)));
+            
+            context.set("FOO", "b");
+            Assert.assertFalse(DatawaveInterpreter.isMatched(script.execute(context)));
+            
+            // the normalized values are matched
+            context.set("FOO", new FunctionalSet<>(Arrays.asList(new ValueTuple("FOO", "D", "d", null), new ValueTuple("FOO", "CCC", "ccc", null))));
+            Assert.assertTrue(DatawaveInterpreter.isMatched(script.execute(context)));
+        }
+    }
 }
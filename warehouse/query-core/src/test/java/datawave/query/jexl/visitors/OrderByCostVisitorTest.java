@@ -0,0 +1,115 @@
+package datawave.query.jexl.visitors;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import datawave.data.MetadataCardinalityCounts;
+import datawave.query.config.ShardQueryConfiguration;
+import datawave.query.jexl.JexlASTHelper;
+import datawave.query.util.MockMetadataHelper;
+import org.apache.commons.jexl2.parser.ASTDelayedPredicate;
+import org.apache.commons.jexl2.parser.ASTJexlScript;
+import org.apache.commons.jexl2.parser.JexlNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Assert that conjunctions are ordered by the estimated cost of their terms, and that the most costly terms are delayed
+ */
+public class OrderByCostVisitorTest {
+    
+    private ShardQueryConfiguration config;
+    private MockMetadataHelper helper;
+    
+    @Before
+    public void setup() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd");
+        config = new ShardQueryConfiguration();
+        config.setBeginDate(format.parse("20190101"));
+        config.setEndDate(format.parse("20190102"));
+        config.setDatatypeFilter(Sets.newHashSet("datatype"));
+        config.setCostBasedPlanning(true);
+        
+        helper = new MockMetadataHelper();
+        helper.setIndexedFields(Sets.newHashSet("FOO", "BAR"));
+        
+        Map<Map.Entry<String,String>,Map<String,Long>> cardinalities = new HashMap<>();
+        cardinalities.put(Maps.immutableEntry("FOO", "20190101"), Collections.singletonMap("datatype", 1000L));
+        cardinalities.put(Maps.immutableEntry("BAR", "20190101"), Collections.singletonMap("datatype", 1000L));
+        helper.setCardinalities(cardinalities);
+        
+        // FOO == 'common' holds half of FOO, BAR == 'rare' a thousandth of BAR
+        Map<String,Map<String,MetadataCardinalityCounts>> termCounts = new HashMap<>();
+        termCounts.put("FOO", Collections.singletonMap("common", new MetadataCardinalityCounts("FOO", "common", 500, 1000, 2, 2000, 4, 2)));
+        termCounts.put("BAR", Collections.singletonMap("rare", new MetadataCardinalityCounts("BAR", "rare", 1, 1000, 1000, 2000, 4, 2)));
+        helper.setTermCounts(termCounts);
+    }
+    
+    @Test
+    public void testOrderByTermCounts() throws Exception {
+        config.setCostBasedDelayRatio(0);
+        
+        assertOrdered("FOO == 'common' && BAR == 'rare'", "BAR == 'rare' && FOO == 'common'", Collections.emptySet());
+    }
+    
+    @Test
+    public void testUncostedTermsLast() throws Exception {
+        config.setCostBasedDelayRatio(0);
+        
+        assertOrdered("BAZ == 'unindexed' && FOO == 'common' && BAR == 'rare'", "BAR == 'rare' && FOO == 'common' && BAZ == 'unindexed'",
+                        Collections.emptySet());
+    }
+    
+    @Test
+    public void testNestedConjunctions() throws Exception {
+        config.setCostBasedDelayRatio(0);
+        
+        assertOrdered("BAZ == 'unindexed' || (FOO == 'common' && BAR == 'rare')", "BAZ == 'unindexed' || (BAR == 'rare' && FOO == 'common')",
+                        Collections.emptySet());
+    }
+    
+    @Test
+    public void testDelayCostlyTerms() throws Exception {
+        config.setCostBasedDelayRatio(100);
+        
+        ASTJexlScript script = JexlASTHelper.parseJexlQuery("FOO == 'common' && BAR == 'rare'");
+        script = OrderByCostVisitor.order(script, config, null, helper, Collections.emptySet());
+        
+        JexlNode and = script.jjtGetChild(0);
+        assertEquals("BAR == 'rare'", JexlStringBuildingVisitor.buildQuery(and.jjtGetChild(0)));
+        assertTrue(ASTDelayedPredicate.instanceOf(and.jjtGetChild(1)));
+        assertEquals("FOO == 'common'", JexlStringBuildingVisitor.buildQuery(ASTDelayedPredicate.getDelayedPredicateSource(and.jjtGetChild(1))));
+    }
+    
+    @Test
+    public void testDoNotDelayWithinRatio() throws Exception {
+        config.setCostBasedDelayRatio(1000);
+        
+        assertOrdered("FOO == 'common' && BAR == 'rare'", "BAR == 'rare' && FOO == 'common'", Collections.emptySet());
+    }
+    
+    @Test
+    public void testDoNotDelayNonEventFields() throws Exception {
+        config.setCostBasedDelayRatio(100);
+        
+        assertOrdered("FOO == 'common' && BAR == 'rare'", "BAR == 'rare' && FOO == 'common'", Collections.singleton("FOO"));
+    }
+    
+    private void assertOrdered(String original, String expected, Set<String> nonEventFields) throws Exception {
+        ASTJexlScript script = JexlASTHelper.parseJexlQuery(original);
+        script = OrderByCostVisitor.order(script, config, null, helper, nonEventFields);
+        
+        String query = JexlStringBuildingVisitor.buildQuery(script);
+        assertEquals("Expected " + expected + " but was " + query, expected, query);
+        assertFalse(query.contains(ASTDelayedPredicate.class.getSimpleName()));
+    }
+}
@@ -0,0 +1,200 @@
+package datawave.query.metrics;
+
+import datawave.security.authorization.DatawavePrincipal;
+import datawave.webservice.query.metric.BaseQueryMetric.Lifecycle;
+import datawave.webservice.query.metric.BaseQueryMetric.PageMetric;
+import datawave.webservice.query.metric.QueryMetric;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+public class QueryMetricUpdateQueueTest {
+    
+    @Test
+    public void testMergeKeepsLaterUpdate() {
+        QueryMetric first = createMetric("query1", Lifecycle.INITIALIZED, 1000);
+        QueryMetric second = createMetric("query1", Lifecycle.RESULTS, 2000);
+        
+        QueryMetric merged = new QueryMetricUpdateQueue.PendingUpdate(first, null).merge(second, null).getMetric();
+        Assert.assertSame(second, merged);
+        Assert.assertEquals(Lifecycle.RESULTS, merged.getLifecycle());
+    }
+    
+    @Test
+    public void testMergeUnionsPageMetrics() {
+        QueryMetric first = createMetric("query1", Lifecycle.RESULTS, 1000, createPage(1, 10), createPage(2, 20));
+        QueryMetric second = createMetric("query1", Lifecycle.RESULTS, 2000, createPage(2, 25), createPage(3, 30));
+        
+        QueryMetric merged = new QueryMetricUpdateQueue.PendingUpdate(first, null).merge(second, null).getMetric();
+        Map<Long,Long> pages = getPageSizes(merged);
+        Assert.assertEquals(3, pages.size());
+        Assert.assertEquals(10L, (long) pages.get(1L));
+        // the later update's page metric takes precedence
+        Assert.assertEquals(25L, (long) pages.get(2L));
+        Assert.assertEquals(30L, (long) pages.get(3L));
+    }
+    
+    @Test
+    public void testMergeOutOfOrderUpdate() {
+        QueryMetric later = createMetric("query1", Lifecycle.CLOSED, 2000, createPage(1, 10), createPage(2, 20));
+        QueryMetric earlier = createMetric("query1", Lifecycle.RESULTS, 1000, createPage(2, 15), createPage(3, 30));
+        
+        // the earlier update arrives last, but must not replace the later one
+        QueryMetric merged = new QueryMetricUpdateQueue.PendingUpdate(later, null).merge(earlier, null).getMetric();
+        Assert.assertSame(later, merged);
+        Assert.assertEquals(Lifecycle.CLOSED, merged.getLifecycle());
+        
+        Map<Long,Long> pages = getPageSizes(merged);
+        Assert.assertEquals(3, pages.size());
+        Assert.assertEquals(10L, (long) pages.get(1L));
+        Assert.assertEquals(20L, (long) pages.get(2L));
+        Assert.assertEquals(30L, (long) pages.get(3L));
+    }
+    
+    @Test
+    public void testCounters() throws Exception {
+        QueryMetricUpdateQueue queue = new QueryMetricUpdateQueue(2);
+        Assert.assertTrue(queue.add(createMetric("query1", Lifecycle.INITIALIZED, 1000), null));
+        Assert.assertTrue(queue.add(createMetric("query1", Lifecycle.RESULTS, 2000), null));
+        Assert.assertTrue(queue.add(createMetric("query2", Lifecycle.INITIALIZED, 1000), null));
+        // the queue is full, so an update for another query is dropped
+        Assert.assertFalse(queue.add(createMetric("query3", Lifecycle.INITIALIZED, 1000), null));
+        // but updates for queries with a pending update are still merged
+        Assert.assertTrue(queue.add(createMetric("query2", Lifecycle.RESULTS, 2000), null));
+        
+        Assert.assertEquals(2, queue.size());
+        Assert.assertEquals(2, queue.getMergedCount());
+        Assert.assertEquals(1, queue.getDroppedCount());
+        Assert.assertEquals(0, queue.getWrittenCount());
+        
+        RecordingWriter writer = new RecordingWriter();
+        Assert.assertEquals(2, queue.drain(writer));
+        Assert.assertEquals(0, queue.size());
+        Assert.assertEquals(2, queue.getWrittenCount());
+        Assert.assertEquals(Lifecycle.RESULTS, writer.written.get("query1").getLifecycle());
+        Assert.assertEquals(Lifecycle.RESULTS, writer.written.get("query2").getLifecycle());
+    }
+    
+    @Test
+    public void testTerminalUpdateAcceptedWhenFull() throws Exception {
+        QueryMetricUpdateQueue queue = new QueryMetricUpdateQueue(1);
+        Assert.assertTrue(queue.add(createMetric("query1", Lifecycle.RESULTS, 1000), null));
+        Assert.assertFalse(queue.add(createMetric("query2", Lifecycle.RESULTS, 1000), null));
+        Assert.assertTrue(queue.add(createMetric("query2", Lifecycle.CLOSED, 2000), null));
+        Assert.assertTrue(queue.add(createMetric("query3", Lifecycle.CANCELLED, 2000), null));
+        
+        Assert.assertEquals(3, queue.size());
+        Assert.assertEquals(1, queue.getDroppedCount());
+        
+        RecordingWriter writer = new RecordingWriter();
+        queue.drain(writer);
+        Assert.assertEquals(Lifecycle.CLOSED, writer.written.get("query2").getLifecycle());
+        Assert.assertEquals(Lifecycle.CANCELLED, writer.written.get("query3").getLifecycle());
+    }
+    
+    @Test
+    public void testFailedUpdateIsRequeued() throws Exception {
+        QueryMetricUpdateQueue queue = new QueryMetricUpdateQueue(10);
+        queue.add(createMetric("query1", Lifecycle.RESULTS, 1000, createPage(1, 10)), null);
+        queue.add(createMetric("query2", Lifecycle.RESULTS, 1000), null);
+        queue.add(createMetric("query3", Lifecycle.RESULTS, 1000), null);
+        
+        RecordingWriter writer = new RecordingWriter();
+        writer.failing = "query1";
+        try {
+            queue.drain(writer);
+            Assert.fail("Expected the write failure to be rethrown");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("query1", e.getMessage());
+        }
+        
+        // the other updates were still written, and the failed one is pending again
+        Assert.assertEquals(2, writer.written.size());
+        Assert.assertEquals(2, queue.getWrittenCount());
+        Assert.assertEquals(1, queue.size());
+        
+        // an update that arrives before the retry is merged with the failed one
+        queue.add(createMetric("query1", Lifecycle.CLOSED, 2000, createPage(2, 20)), null);
+        
+        writer.failing = null;
+        Assert.assertEquals(1, queue.drain(writer));
+        Assert.assertEquals(0, queue.size());
+        Assert.assertEquals(3, queue.getWrittenCount());
+        
+        QueryMetric written = writer.written.get("query1");
+        Assert.assertEquals(Lifecycle.CLOSED, written.getLifecycle());
+        Map<Long,Long> pages = getPageSizes(written);
+        Assert.assertEquals(2, pages.size());
+        Assert.assertEquals(10L, (long) pages.get(1L));
+        Assert.assertEquals(20L, (long) pages.get(2L));
+    }
+    
+    @Test
+    public void testFailedUpdateIsDroppedAfterMaxAttempts() throws Exception {
+        QueryMetricUpdateQueue queue = new QueryMetricUpdateQueue(10);
+        queue.add(createMetric("query1", Lifecycle.CLOSED, 1000), null);
+        
+        RecordingWriter writer = new RecordingWriter();
+        writer.failing = "query1";
+        for (int i = 0; i < QueryMetricUpdateQueue.MAX_WRITE_ATTEMPTS; i++) {
+            Assert.assertEquals(1, queue.size());
+            try {
+                queue.drain(writer);
+                Assert.fail("Expected the write failure to be rethrown");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+        
+        Assert.assertEquals(0, queue.size());
+        Assert.assertEquals(1, queue.getDroppedCount());
+        Assert.assertEquals(0, queue.getWrittenCount());
+    }
+    
+    private static QueryMetric createMetric(String queryId, Lifecycle lifecycle, long lastUpdated, PageMetric... pages) {
+        QueryMetric metric = new QueryMetric();
+        metric.setQueryId(queryId);
+        metric.setLifecycle(lifecycle);
+        metric.setLastUpdated(new Date(lastUpdated));
+        ArrayList<PageMetric> pageTimes = new ArrayList<>();
+        for (PageMetric page : pages) {
+            pageTimes.add(page);
+        }
+        metric.setPageTimes(pageTimes);
+        return metric;
+    }
+    
+    private static PageMetric createPage(long pageNumber, long pageSize) {
+        PageMetric page = new PageMetric(pageSize, 0, 0, 0);
+        page.setPageNumber(pageNumber);
+        return page;
+    }
+    
+    private static Map<Long,Long> getPageSizes(QueryMetric metric) {
+        Map<Long,Long> pages = new HashMap<>();
+        for (PageMetric page : metric.getPageTimes()) {
+            pages.put(page.getPageNumber(), page.getPagesize());
+        }
+        return pages;
+    }
+    
+    /**
+     * Records the written metrics by query id, failing the writes of one query
+     */
+    private static class RecordingWriter implements QueryMetricUpdateQueue.UpdateWriter {
+        private final Map<String,QueryMetric> written = new HashMap<>();
+        private String failing = null;
+        
+        @Override
+        public void write(QueryMetric metric, DatawavePrincipal principal) {
+            if (metric.getQueryId().equals(failing)) {
+                throw new IllegalStateException(failing);
+            }
+            written.put(metric.getQueryId(), metric);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package datawave.query.tables;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LimitedExecutorServiceTest {
+    
+    private ExecutorService shared;
+    
+    @Before
+    public void setup() {
+        shared = Executors.newCachedThreadPool();
+    }
+    
+    @After
+    public void teardown() {
+        shared.shutdownNow();
+    }
+    
+    @Test
+    public void testMaxRunning() throws Exception {
+        LimitedExecutorService service = new LimitedExecutorService(shared, 2, null);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(service.submit(() -> {
+                int now = running.incrementAndGet();
+                maxRunning.accumulateAndGet(now, Math::max);
+                sleep(5);
+                running.decrementAndGet();
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        assertTrue(maxRunning.get() <= 2);
+        
+        service.shutdown();
+        assertTrue(service.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(service.isTerminated());
+    }
+    
+    @Test
+    public void testSharedLimiter() throws Exception {
+        Semaphore limiter = new Semaphore(3);
+        LimitedExecutorService first = new LimitedExecutorService(shared, 3, limiter);
+        LimitedExecutorService second = new LimitedExecutorService(shared, 3, limiter);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            LimitedExecutorService service = (i % 2 == 0 ? first : second);
+            futures.add(service.submit(() -> {
+                int now = running.incrementAndGet();
+                maxRunning.accumulateAndGet(now, Math::max);
+                sleep(5);
+                running.decrementAndGet();
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        assertTrue(maxRunning.get() <= 3);
+        
+        first.shutdown();
+        second.shutdown();
+        assertTrue(first.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(second.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(3, limiter.availablePermits());
+    }
+    
+    @Test
+    public void testShutdownNow() throws Exception {
+        LimitedExecutorService service = new LimitedExecutorService(shared, 1, null);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        service.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        service.execute(() -> {});
+        service.execute(() -> {});
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        
+        assertEquals(2, service.shutdownNow().size());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertTrue(service.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(service.isShutdown());
+    }
+    
+    @Test
+    public void testShutdownNowWhileWaitingForPermit() throws Exception {
+        Semaphore limiter = new Semaphore(0);
+        LimitedExecutorService service = new LimitedExecutorService(shared, 1, limiter);
+        AtomicInteger ran = new AtomicInteger();
+        Future<?> future = service.submit(ran::incrementAndGet);
+        assertFalse(service.awaitTermination(200, TimeUnit.MILLISECONDS));
+        
+        service.shutdownNow();
+        assertTrue(service.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+        assertEquals(0, ran.get());
+        assertEquals(0, limiter.availablePermits());
+    }
+    
+    @Test(expected = RejectedExecutionException.class)
+    public void testRejectAfterShutdown() {
+        LimitedExecutorService service = new LimitedExecutorService(shared, 1, null);
+        service.shutdown();
+        service.execute(() -> {});
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
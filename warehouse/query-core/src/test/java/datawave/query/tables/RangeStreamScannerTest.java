@@ -44,6 +44,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -184,14 +185,19 @@ public class RangeStreamScannerTest {
      */
     private RangeStreamScanner buildRangeStreamScanner(String fieldName, String fieldValue) throws Exception {
         
-        String queryString = fieldName + "=='" + fieldValue + "'";
-        
         // Build the executors
         int maxLookup = (int) Math.max(Math.ceil(config.getNumIndexLookupThreads()), 1);
         BlockingQueue<Runnable> runnables = new LinkedBlockingDeque<>();
         int executeLookupMin = Math.max(maxLookup / 2, 1);
         ExecutorService streamExecutor = new ThreadPoolExecutor(executeLookupMin, maxLookup, 100, TimeUnit.MILLISECONDS, runnables);
         
+        return buildRangeStreamScanner(fieldName, fieldValue, streamExecutor);
+    }
+    
+    private RangeStreamScanner buildRangeStreamScanner(String fieldName, String fieldValue, ExecutorService streamExecutor) throws Exception {
+        
+        String queryString = fieldName + "=='" + fieldValue + "'";
+        
         int priority = 50; // Iterator priority
         
         // Build options for RangeStreamScanner
@@ -371,4 +377,42 @@ public class RangeStreamScannerTest {
         key = new Key("row".getBytes(), "cf".getBytes());
         assertNull(rangeStreamScanner.getDay(key));
     }
+    
+    /**
+     * A pipelined scanner whose consumer stops reading must give its thread back once its result queue is full, so the other scanners sharing the executor
+     * still get to scan. FOO == 'boo' hits 8 shards, twice what its result queue holds.
+     */
+    @Test(timeout = 30000)
+    public void testPipelinedScanWithStalledConsumer() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RangeStreamScanner stalled = buildRangeStreamScanner("FOO", "boo", executor);
+            stalled.setMaxResults(1);
+            stalled.setPipelined(true);
+            assertEquals(4, stalled.resultQueue.remainingCapacity());
+            stalled.prefetch();
+            
+            RangeStreamScanner other = buildRangeStreamScanner("FOO", "bar", executor);
+            other.setMaxResults(1);
+            other.setPipelined(true).prefetch();
+            
+            int count = 0;
+            while (other.hasNext()) {
+                assertTrue(other.next().getKey().getColumnQualifier().toString().startsWith("20190314"));
+                count++;
+            }
+            assertEquals(1, count);
+            
+            // the consumer picks up again, so everything held back is handed over
+            Set<String> shards = Sets.newHashSet();
+            while (stalled.hasNext()) {
+                String shard = stalled.next().getKey().getColumnQualifier().toString();
+                assertTrue("Expected shard to start with '20190319_' but was: " + shard, shard.startsWith("20190319_"));
+                shards.add(shard);
+            }
+            assertEquals(8, shards.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
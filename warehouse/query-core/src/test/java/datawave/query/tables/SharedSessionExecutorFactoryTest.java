@@ -0,0 +1,164 @@
+package datawave.query.tables;
+
+import datawave.accumulo.inmemory.InMemoryInstance;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.security.tokens.PasswordToken;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SharedSessionExecutorFactoryTest {
+    
+    @Test
+    public void testLimiterSharedAcrossSessions() throws Exception {
+        Connector connector = getConnector("testLimiterSharedAcrossSessions");
+        SharedSessionExecutorFactory first = SharedSessionExecutorFactory.forInstance(connector, 2);
+        // the limit is set by the first factory created for the instance
+        SharedSessionExecutorFactory second = SharedSessionExecutorFactory.forInstance(connector, 10);
+        assertNotSame(first, second);
+        assertEquals(2, second.getAvailableScans());
+        
+        ExecutorService firstScans = first.newScanExecutor(2, Executors.defaultThreadFactory());
+        ExecutorService secondScans = second.newScanExecutor(2, Executors.defaultThreadFactory());
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            firstScans.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(0, second.getAvailableScans());
+        
+        // the first session holds every scan of the instance, so the scan of the second session has to wait for them
+        Future<?> waiting = secondScans.submit(() -> {});
+        try {
+            waiting.get(200, TimeUnit.MILLISECONDS);
+            fail("Expected the scan to wait for a permit");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        
+        release.countDown();
+        waiting.get(10, TimeUnit.SECONDS);
+        
+        firstScans.shutdown();
+        secondScans.shutdown();
+        assertTrue(firstScans.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(secondScans.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(2, first.getAvailableScans());
+    }
+    
+    @Test
+    public void testShutdownOnlyAffectsItsSession() throws Exception {
+        Connector connector = getConnector("testShutdownOnlyAffectsItsSession");
+        SharedSessionExecutorFactory first = SharedSessionExecutorFactory.forInstance(connector, 4);
+        SharedSessionExecutorFactory second = SharedSessionExecutorFactory.forInstance(connector, 4);
+        
+        ExecutorService firstScans = first.newScanExecutor(2, Executors.defaultThreadFactory());
+        ExecutorService firstListener = first.newListenerExecutor();
+        ExecutorService secondScans = second.newScanExecutor(2, Executors.defaultThreadFactory());
+        
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        firstScans.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        
+        firstScans.shutdownNow();
+        firstListener.shutdown();
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertTrue(firstScans.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(firstListener.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(4, first.getAvailableScans());
+        
+        try {
+            firstScans.execute(() -> {});
+            fail("Expected a shut down session to reject scans");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        
+        // the shared pool and the other session are unaffected
+        assertFalse(secondScans.isShutdown());
+        secondScans.submit(() -> {}).get(10, TimeUnit.SECONDS);
+        ExecutorService thirdScans = second.newScanExecutor(1, Executors.defaultThreadFactory());
+        thirdScans.submit(() -> {}).get(10, TimeUnit.SECONDS);
+        
+        secondScans.shutdown();
+        thirdScans.shutdown();
+        assertTrue(secondScans.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(thirdScans.awaitTermination(10, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void testSessionExecutor() throws Exception {
+        SharedSessionExecutorFactory factory = SharedSessionExecutorFactory.forInstance(getConnector("testSessionExecutor"), 1);
+        AtomicReference<String> name = new AtomicReference<>();
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        CountDownLatch handled = new CountDownLatch(1);
+        RuntimeException failure = new RuntimeException("session failed");
+        
+        factory.newSessionExecutor("session 1", (thread, t) -> {
+            thrown.set(t);
+            handled.countDown();
+        }).execute(() -> {
+            name.set(Thread.currentThread().getName());
+            throw failure;
+        });
+        
+        assertTrue(handled.await(10, TimeUnit.SECONDS));
+        assertEquals("session 1", name.get());
+        assertSame(failure, thrown.get());
+    }
+    
+    @Test
+    public void testSessionExecutorWithoutHandler() throws Exception {
+        SharedSessionExecutorFactory factory = SharedSessionExecutorFactory.forInstance(getConnector("testSessionExecutorWithoutHandler"), 1);
+        CountDownLatch failed = new CountDownLatch(1);
+        factory.newSessionExecutor("session 1", null).execute(() -> {
+            failed.countDown();
+            throw new RuntimeException("session failed");
+        });
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        
+        // the failure is handled within the shared pool, which keeps running sessions
+        CountDownLatch ran = new CountDownLatch(1);
+        factory.newSessionExecutor("session 2", null).execute(ran::countDown);
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+    }
+    
+    private static Connector getConnector(String instanceName) throws Exception {
+        // the limiters are per instance and static, so each test uses an instance of its own
+        return new InMemoryInstance(SharedSessionExecutorFactoryTest.class.getName() + '.' + instanceName).getConnector("root", new PasswordToken(new byte[0]));
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package datawave.query.util.sortedset;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.apache.accumulo.core.data.Key;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedFileBackedSortedSetTest {
+    
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    private File dir;
+    private TreeSet<KeyValueSerializable> expected;
+    
+    @Before
+    public void setup() throws IOException {
+        dir = temporaryFolder.newFolder();
+        expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            String uid = "uid." + random.nextInt(2000);
+            expected.add(new KeyValueSerializable(new Key("20190101_0", "datatype\0" + uid, "FIELD\0value"), uid.getBytes()));
+        }
+    }
+    
+    private MappedFileBackedSortedSet<KeyValueSerializable> createSet(int bufferPersistThreshold, int maxOpenFiles) throws IOException {
+        MappedFileBackedSortedSet<KeyValueSerializable> set = new MappedFileBackedSortedSet<>(null, new KeyValueRecordSerializer(), bufferPersistThreshold,
+                        dir, maxOpenFiles);
+        set.setBlockSize(8);
+        return set;
+    }
+    
+    @Test
+    public void testSpillAndMerge() throws IOException {
+        MappedFileBackedSortedSet<KeyValueSerializable> set = createSet(50, 4);
+        set.addAll(expected);
+        
+        Assert.assertTrue(set.hasPersistedData());
+        Assert.assertEquals(expected.size(), set.size());
+        Assert.assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+        // the iterator compacts the runs down to the max open files
+        Assert.assertTrue(dir.listFiles().length <= 4);
+        Assert.assertEquals(expected.first(), set.first());
+        Assert.assertEquals(expected.last(), set.last());
+    }
+    
+    @Test
+    public void testLookups() throws IOException {
+        MappedFileBackedSortedSet<KeyValueSerializable> set = createSet(50, 100);
+        set.addAll(expected);
+        set.persist();
+        Assert.assertTrue(set.isPersisted());
+        
+        for (KeyValueSerializable kv : expected) {
+            Assert.assertTrue(set.contains(kv));
+        }
+        Assert.assertFalse(set.contains(new KeyValueSerializable(new Key("20190101_0", "datatype\0uid.x", "FIELD\0value"), new byte[0])));
+        
+        KeyValueSerializable from = new ArrayList<>(expected).get(expected.size() / 3);
+        KeyValueSerializable to = new ArrayList<>(expected).get(expected.size() / 2);
+        Assert.assertEquals(new ArrayList<>(expected.tailSet(from)), new ArrayList<>(set.tailSet(from)));
+        Assert.assertEquals(new ArrayList<>(expected.subSet(from, to)), new ArrayList<>(set.subSet(from, to)));
+    }
+    
+    @Test
+    public void testReloadAndClear() throws IOException {
+        MappedFileBackedSortedSet<KeyValueSerializable> set = createSet(50, 100);
+        set.addAll(expected);
+        set.persist();
+        
+        MappedFileBackedSortedSet<KeyValueSerializable> reloaded = createSet(50, 100);
+        Assert.assertEquals(new ArrayList<>(expected), new ArrayList<>(reloaded));
+        
+        reloaded.clear();
+        Assert.assertTrue(reloaded.isEmpty());
+        Assert.assertEquals(0, dir.listFiles().length);
+    }
+    
+    @Test
+    public void testClose() throws IOException {
+        MappedFileBackedSortedSet<KeyValueSerializable> set = createSet(50, 100);
+        set.addAll(expected);
+        set.persist();
+        int files = dir.listFiles().length;
+        
+        Iterable<KeyValueSerializable> view = set.tailSet(expected.first());
+        set.close();
+        try {
+            view.iterator();
+            Assert.fail("Expected a closed run to be unreadable");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        
+        // closing only releases the mappings, the runs can still be reloaded
+        Assert.assertEquals(files, dir.listFiles().length);
+        MappedFileBackedSortedSet<KeyValueSerializable> reloaded = createSet(50, 100);
+        Assert.assertEquals(new ArrayList<>(expected), new ArrayList<>(reloaded));
+        reloaded.close();
+    }
+}
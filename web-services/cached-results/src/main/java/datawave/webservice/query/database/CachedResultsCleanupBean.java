@@ -1,5 +1,6 @@
 package datawave.webservice.query.database;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -7,6 +8,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
@@ -26,11 +28,14 @@ import javax.sql.rowset.RowSetFactory;
 import javax.sql.rowset.RowSetProvider;
 
 import datawave.configuration.spring.SpringBean;
+import datawave.webservice.results.cached.CachedResultsConfiguration;
 import datawave.webservice.results.cached.CachedResultsParameters;
+import datawave.webservice.results.cached.ColumnarCachedResults;
 import org.apache.log4j.Logger;
 
 /**
- * Removes tables and views from the MySQL database that have been there for 24 hours so that we don't have to purge data from them.
+ * Removes tables and views from the MySQL database that have been there for 24 hours so that we don't have to purge data from them. Cached results stored as
+ * columnar files are removed after the same time.
  */
 @RunAs("InternalUser")
 @RolesAllowed({"AuthorizedUser", "AuthorizedQueryServer", "InternalUser", "Administrator"})
@@ -62,6 +67,11 @@ public class CachedResultsCleanupBean {
     @SpringBean(refreshable = true)
     protected CachedResultsCleanupConfiguration cachedResultsCleanupConfiguration;
     
+    // reference "datawave/query/CachedResults.xml"
+    @Inject
+    @SpringBean(required = false, refreshable = true)
+    private CachedResultsConfiguration cachedResultsConfiguration;
+    
     private RowSetFactory rowSetProvider;
     
     @PostConstruct
@@ -104,6 +114,30 @@ public class CachedResultsCleanupBean {
         } catch (SQLException e) {
             log.error("Error cleaning up cached result objects: " + e.getMessage());
         }
+        cleanupColumnar();
+    }
+    
+    private void cleanupColumnar() {
+        String columnarDir = (cachedResultsConfiguration == null ? null : cachedResultsConfiguration.getColumnarDir());
+        if (columnarDir == null) {
+            return;
+        }
+        try {
+            ColumnarCachedResults columnarResults = new ColumnarCachedResults(columnarDir);
+            long expiration = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(cachedResultsCleanupConfiguration.getDaysToLive());
+            // the columnar cached results are named for their view
+            for (String viewName : columnarResults.getModifiedBefore(expiration)) {
+                try {
+                    columnarResults.delete(viewName);
+                    removeCrqRow(viewName);
+                    removeCrqRow(viewName.replaceFirst("v", "t"));
+                } catch (IOException | RuntimeException e) {
+                    log.error("Error cleaning up columnar cached results " + viewName + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error cleaning up columnar cached results: " + e.getMessage());
+        }
     }
     
     private void removeCrqRow(String id) {
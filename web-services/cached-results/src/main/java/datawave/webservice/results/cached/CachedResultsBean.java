@@ -18,6 +18,7 @@ import java.sql.Statement;
 import java.sql.Types;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -246,6 +247,8 @@ public class CachedResultsBean {
     private static Map<String,RunningQuery> loadingQueryMap = Collections.synchronizedMap(new HashMap<>());
     private static Set<String> loadingQueries = Collections.synchronizedSet(new HashSet<>());
     private URL importFileUrl = null;
+    // the columnar storage of cached results, used instead of the datasource when configured
+    private ColumnarCachedResults columnarResults = null;
     private CachedResultsParameters cp = new CachedResultsParameters();
     
     @PostConstruct
@@ -265,6 +268,17 @@ public class CachedResultsBean {
             importFileUrl = null;
         }
         
+        String columnarDir = cachedResultsConfiguration.getColumnarDir();
+        if (columnarDir != null) {
+            try {
+                columnarResults = new ColumnarCachedResults(columnarDir);
+                log.info("Storing cached results as columnar files in " + columnarDir);
+            } catch (IOException e) {
+                throw new EJBException("Unable to access the columnar cached results directory " + columnarDir, e);
+            }
+        }
+        CachedRunningQuery.setColumnarResults(columnarResults);
+        
         CachedRunningQuery.setDatasource(ds);
         CachedRunningQuery.setQueryFactory(queryFactory);
         CachedRunningQuery.setResponseObjectFactory(responseObjectFactory);
@@ -339,6 +353,47 @@ public class CachedResultsBean {
         
     }
     
+    /**
+     * The columnar equivalent of {@link #loadBatch}, returning the values of a row by column number instead of setting the parameters of the insert statement.
+     * Values are not truncated.
+     */
+    protected String[] getColumnarRow(String owner, String queryId, String logicName, Map<String,Integer> fieldMap, CacheableQueryRow cqo) {
+        int fixedColumns = CacheableQueryRow.getFixedColumnSet().size();
+        for (String columnName : cqo.getColumnValues().keySet()) {
+            if (!fieldMap.containsKey(columnName)) {
+                fieldMap.put(columnName, fixedColumns + fieldMap.size() + 1);
+            }
+        }
+        String[] values = new String[fixedColumns + fieldMap.size()];
+        values[0] = owner;
+        values[1] = queryId;
+        values[2] = logicName;
+        values[3] = cqo.getDataType();
+        values[4] = cqo.getEventId();
+        values[5] = cqo.getRow();
+        values[6] = cqo.getColFam();
+        values[7] = MarkingFunctions.Encoding.toString(new TreeMap<>(cqo.getMarkings()));
+        values[8] = cqo.getColumnSecurityMarkingString(fieldMap);
+        values[9] = cqo.getColumnTimestampString(fieldMap);
+        for (Entry<String,String> e : cqo.getColumnValues().entrySet()) {
+            values[fieldMap.get(e.getKey()) - 1] = e.getValue();
+        }
+        return values;
+    }
+    
+    /**
+     * @return the names of the columns of a cached result by column number, the name of column number n at index n - 1
+     */
+    protected List<String> getColumnNames(Map<String,Integer> fieldMap) {
+        List<String> columnNames = new ArrayList<>(CacheableQueryRow.getFixedColumnSet());
+        String[] fieldNames = new String[fieldMap.size()];
+        for (Entry<String,Integer> e : fieldMap.entrySet()) {
+            fieldNames[e.getValue() - columnNames.size() - 1] = e.getKey();
+        }
+        columnNames.addAll(Arrays.asList(fieldNames));
+        return columnNames;
+    }
+    
     protected GenericResponse<String> load(@Required("queryId") String queryId, String alias, String nameBase) {
         
         GenericResponse<String> response = new GenericResponse<>();
@@ -364,8 +419,10 @@ public class CachedResultsBean {
         String viewName = "v" + nameBase;
         Connection con = null;
         PreparedStatement ps = null;
+        ColumnarResultsWriter columnarWriter = null;
         boolean tableCreated = false;
         boolean viewCreated = false;
+        boolean columnarCreated = false;
         CachedRunningQuery crq = null;
         Span span = null;
         boolean queryLockedException = false;
@@ -500,21 +557,31 @@ public class CachedResultsBean {
                 throw new IllegalArgumentException(logic.getLogicName() + " does not support CachedResults calls");
             }
             
-            try {
-                con = ds.getConnection();
-                // Create the result table for this query
-                Statement s = con.createStatement();
-                String createTable = cachedResultsConfiguration.getParameters().get("CREATE_TABLE");
-                createTable = createTable.replace(TABLE, tableName);
-                s.execute(createTable);
-                s.close();
-                tableCreated = true;
-                // Parse the PreparedStatement
-                String insert = cachedResultsConfiguration.getParameters().get("INSERT");
-                insert = insert.replace(TABLE, tableName);
-                ps = con.prepareStatement(insert);
-            } catch (SQLException sqle) {
-                throw new QueryException(DatawaveErrorCode.CACHED_RESULTS_TABLE_CREATE_ERROR, sqle);
+            if (columnarResults != null) {
+                // Write the results as columnar files named for the view, instead of inserting them into a table
+                try {
+                    columnarWriter = columnarResults.createWriter(viewName, cachedResultsConfiguration.getColumnarRowsPerPage());
+                    columnarCreated = true;
+                } catch (IOException e) {
+                    throw new QueryException(DatawaveErrorCode.CACHED_RESULTS_TABLE_CREATE_ERROR, e);
+                }
+            } else {
+                try {
+                    con = ds.getConnection();
+                    // Create the result table for this query
+                    Statement s = con.createStatement();
+                    String createTable = cachedResultsConfiguration.getParameters().get("CREATE_TABLE");
+                    createTable = createTable.replace(TABLE, tableName);
+                    s.execute(createTable);
+                    s.close();
+                    tableCreated = true;
+                    // Parse the PreparedStatement
+                    String insert = cachedResultsConfiguration.getParameters().get("INSERT");
+                    insert = insert.replace(TABLE, tableName);
+                    ps = con.prepareStatement(insert);
+                } catch (SQLException sqle) {
+                    throw new QueryException(DatawaveErrorCode.CACHED_RESULTS_TABLE_CREATE_ERROR, sqle);
+                }
             }
             
             // Object for keeping track of which fields are placed in which
@@ -560,6 +627,11 @@ public class CachedResultsBean {
                     
                     for (CacheableQueryRow cacheableQueryObject : cacheableQueryRowList) {
                         
+                        if (columnarWriter != null) {
+                            columnarWriter.write(getColumnarRow(owner, queryId, logic.getLogicName(), fieldMap, cacheableQueryObject));
+                            continue;
+                        }
+                        
                         Collection<String> values = ((CacheableQueryRow) cacheableQueryObject).getColumnValues().values();
                         int maxValueLength = 0;
                         for (String s : values) {
@@ -610,6 +682,12 @@ public class CachedResultsBean {
                 }
             } // End of inserts into table
             
+            if (columnarWriter != null) {
+                // write the last page and the index, which makes the cached result available
+                columnarWriter.finish(getColumnNames(fieldMap));
+                columnarWriter.close();
+            }
+            
             // commit the last batch
             if (rowsWritten > 0) {
                 persistBatch(ps);
@@ -625,7 +703,9 @@ public class CachedResultsBean {
             }
             
             // Create the view of the table
-            viewCreated = createView(tableName, viewName, con, viewCreated, fieldMap);
+            if (columnarWriter == null) {
+                viewCreated = createView(tableName, viewName, con, viewCreated, fieldMap);
+            }
             
             // create the CachedRunningQuery and store it under the originalQueryName, but do not activate it
             crq = new CachedRunningQuery(q, logic, viewName, alias, owner, viewName, cachedResultsConfiguration.getDefaultPageSize(), queryId,
@@ -692,6 +772,15 @@ public class CachedResultsBean {
             } else {
                 log.error(t.getMessage(), t);
             }
+            if (columnarCreated) {
+                try {
+                    columnarWriter.close();
+                    columnarResults.delete(viewName);
+                } catch (Exception e1) {
+                    log.error(e1.getMessage(), e1);
+                    response.addException(new QueryException(DatawaveErrorCode.FAILURE_CLEANUP_ERROR, e1).getBottomQueryException());
+                }
+            }
             if (con != null) {
                 Statement s = null;
                 try {
@@ -731,6 +820,13 @@ public class CachedResultsBean {
             throw new DatawaveWebApplicationException(t, response, statusCode);
         } finally {
             DbUtils.closeQuietly(con, ps, null);
+            if (columnarWriter != null) {
+                try {
+                    columnarWriter.close();
+                } catch (IOException e) {
+                    log.error(e.getMessage(), e);
+                }
+            }
             if (queryLockedException == false) {
                 CachedResultsBean.loadingQueryMap.remove(queryId);
                 CachedResultsBean.loadingQueries.remove(queryId);
@@ -1174,27 +1270,40 @@ public class CachedResultsBean {
             
             List<String> columns = new ArrayList<>();
             Integer numRows = null;
-            try (Connection con = ds.getConnection(); Statement s = con.createStatement()) {
-                try (ResultSet rs = s.executeQuery("select count(*) from " + view)) {
-                    if (rs.next()) {
-                        numRows = rs.getInt(1);
+            if (isColumnar(view)) {
+                try (ColumnarResultsReader reader = columnarResults.openReader(view)) {
+                    numRows = reader.getRowCount();
+                    for (String column : reader.getColumnNames()) {
+                        if (!CacheableQueryRow.getFixedColumnSet().contains(column)) {
+                            columns.add(column);
+                        }
                     }
+                } catch (IOException e) {
+                    throw new QueryException(DatawaveErrorCode.CACHED_QUERY_DESCRIPTION_ERROR, e);
                 }
-                
-                try (ResultSet rs = s.executeQuery("show columns from " + view)) {
-                    Set<String> fixedColumns = CacheableQueryRow.getFixedColumnSet();
-                    while (rs.next()) {
-                        String column = rs.getString(1);
-                        if (!fixedColumns.contains(column)) {
-                            columns.add(column);
+            } else {
+                try (Connection con = ds.getConnection(); Statement s = con.createStatement()) {
+                    try (ResultSet rs = s.executeQuery("select count(*) from " + view)) {
+                        if (rs.next()) {
+                            numRows = rs.getInt(1);
+                        }
+                    }
+                    
+                    try (ResultSet rs = s.executeQuery("show columns from " + view)) {
+                        Set<String> fixedColumns = CacheableQueryRow.getFixedColumnSet();
+                        while (rs.next()) {
+                            String column = rs.getString(1);
+                            if (!fixedColumns.contains(column)) {
+                                columns.add(column);
+                            }
                         }
                     }
+                    
+                } catch (SQLSyntaxErrorException e) {
+                    throw new NotFoundQueryException(DatawaveErrorCode.VIEW_NOT_FOUND);
+                } catch (SQLException e) {
+                    throw new QueryException(DatawaveErrorCode.CACHED_QUERY_SQL_ERROR);
                 }
-                
-            } catch (SQLSyntaxErrorException e) {
-                throw new NotFoundQueryException(DatawaveErrorCode.VIEW_NOT_FOUND);
-            } catch (SQLException e) {
-                throw new QueryException(DatawaveErrorCode.CACHED_QUERY_SQL_ERROR);
             }
             
             response.setColumns(columns);
@@ -2510,6 +2619,17 @@ public class CachedResultsBean {
         return viewCreated;
     }
     
+    /**
+     * @return true if the cached result of the given view is stored as columnar files rather than in the datasource
+     */
+    private boolean isColumnar(String view) throws QueryException {
+        try {
+            return columnarResults != null && columnarResults.exists(view);
+        } catch (IOException e) {
+            throw new QueryException(DatawaveErrorCode.CACHED_RESULTS_LOAD_ERROR, e);
+        }
+    }
+    
     private void addQueryToTrackingMap(Map<String,String> trackingMap, Query q) {
         
         if (trackingMap == null || q == null) {
@@ -50,6 +50,9 @@ public class CachedRunningQuery extends AbstractRunningQuery {
     
     private static DataSource datasource = null;
     
+    // the columnar storage of cached results, or null if the cached results are only stored in the datasource
+    private static ColumnarCachedResults columnarResults = null;
+    
     private static final long serialVersionUID = 1L;
     
     private static ResponseObjectFactory responseObjectFactory;
@@ -57,6 +60,13 @@ public class CachedRunningQuery extends AbstractRunningQuery {
     private transient CachedRowSet crs = null;
     private transient Statement statement = null;
     
+    // the reader of a cached result stored as columnar files, and the rows selected by the query in order
+    private transient ColumnarResultsReader columnarReader = null;
+    private transient ColumnarResultsQuery columnarQuery = null;
+    private transient int[] selectedRows = null;
+    // the index of the last page of selected rows returned by next or previous
+    private transient int columnarPage = -1;
+    
     private transient CacheableLogic cacheableLogic = null;
     private transient QueryLogic<?> queryLogic = null;
     private transient QueryLogicTransformer transformer = null;
@@ -542,7 +552,7 @@ public class CachedRunningQuery extends AbstractRunningQuery {
     }
     
     public boolean isActivated() {
-        if (this.connection != null && this.statement != null && this.crs != null) {
+        if (this.connection != null && this.statement != null && (this.crs != null || this.selectedRows != null)) {
             return true;
         } else {
             return false;
@@ -552,6 +562,14 @@ public class CachedRunningQuery extends AbstractRunningQuery {
     private List<String> getViewColumnNames(Connection connection, String view) throws SQLException {
         CachedResultsParameters.validate(view);
         List<String> columns = new ArrayList<>();
+        if (isColumnar()) {
+            for (String column : getColumnarReader().getColumnNames()) {
+                if (!CacheableQueryRow.getFixedColumnSet().contains(column)) {
+                    columns.add(column);
+                }
+            }
+            return columns;
+        }
         Statement s = connection.createStatement();
         ResultSet rs = s.executeQuery("show columns from " + view);
         Set<String> fixedColumns = CacheableQueryRow.getFixedColumnSet();
@@ -604,6 +622,11 @@ public class CachedRunningQuery extends AbstractRunningQuery {
         this.sqlQuery = this.generateSql(this.view, this.fields, this.conditions, this.grouping, this.order, this.user, this.connection);
         this.getMetric().setQuery(sqlQuery);
         
+        if (isColumnar()) {
+            initializeColumnar();
+            return;
+        }
+        
         this.crs = RowSetProvider.newFactory().createCachedRowSet();
         this.crs.setCommand(this.sqlQuery);
         
@@ -633,6 +656,50 @@ public class CachedRunningQuery extends AbstractRunningQuery {
         this.currentRow = position.BEFORE_FIRST;
     }
     
+    /**
+     * Selects the rows of a cached result stored as columnar files, instead of executing the SQL query
+     */
+    private void initializeColumnar() throws SQLException {
+        this.columnarQuery = ColumnarResultsQuery.parse(this.fields, this.conditions, this.grouping, this.order, this.user);
+        try {
+            this.selectedRows = getColumnarReader().select(this.columnarQuery.getConditions(), this.columnarQuery.getOrder());
+        } catch (IOException e) {
+            throw new SQLException("Unable to read cached results " + this.view, e);
+        }
+        this.totalRows = this.selectedRows.length;
+        this.columnarPage = -1;
+        this.currentRow = position.BEFORE_FIRST;
+        
+        if (log.isTraceEnabled()) {
+            log.trace("Selected " + this.totalRows + " rows of columnar cached results " + this.view);
+        }
+    }
+    
+    /**
+     * @return true if this query's cached result is stored as columnar files rather than in the datasource
+     */
+    private boolean isColumnar() throws SQLException {
+        if (this.columnarReader != null) {
+            return true;
+        }
+        try {
+            return columnarResults != null && this.view != null && columnarResults.exists(this.view);
+        } catch (IOException e) {
+            throw new SQLException("Unable to find cached results " + this.view, e);
+        }
+    }
+    
+    private ColumnarResultsReader getColumnarReader() throws SQLException {
+        if (this.columnarReader == null) {
+            try {
+                this.columnarReader = columnarResults.openReader(this.view);
+            } catch (IOException e) {
+                throw new SQLException("Unable to read cached results " + this.view, e);
+            }
+        }
+        return this.columnarReader;
+    }
+    
     public String getUser() {
         return this.user;
     }
@@ -650,6 +717,15 @@ public class CachedRunningQuery extends AbstractRunningQuery {
         updateTimestamp();
         long pageStartTime = System.currentTimeMillis();
         
+        if (this.selectedRows != null) {
+            // the selected rows are in a stable order, which does not need a default one
+            ResultsPage resultList = convert(getColumnarRows(rowBegin - 1, rowEnd), pageByteTrigger);
+            long now = System.currentTimeMillis();
+            this.getMetric().addPageTime(resultList.getResults().size(), (now - pageStartTime), pageStartTime, now);
+            updateTimestamp();
+            return resultList;
+        }
+        
         // We need to apply a default ORDER BY clause if one does not EXIST in the query
         StringBuilder query = new StringBuilder(this.sqlQuery);
         if (!this.sqlQuery.toUpperCase().contains(" ORDER BY ")) {
@@ -735,7 +811,16 @@ public class CachedRunningQuery extends AbstractRunningQuery {
         }
         
         ResultsPage resultList = new ResultsPage();
-        if (nextPageOfResults()) {
+        if (this.selectedRows != null) {
+            if (currentRow == position.BEFORE_FIRST) {
+                this.columnarPage = -1;
+            }
+            int page = this.columnarPage + 1;
+            if ((long) page * this.pagesize < this.totalRows) {
+                resultList = convert(getColumnarRows(page * this.pagesize, (page + 1) * this.pagesize), pageByteTrigger);
+            }
+            this.columnarPage = page;
+        } else if (nextPageOfResults()) {
             resultList = convert(this.crs, pageByteTrigger);
         }
         
@@ -773,7 +858,16 @@ public class CachedRunningQuery extends AbstractRunningQuery {
         }
         
         ResultsPage resultList = new ResultsPage();
-        if (previousPageOfResults()) {
+        if (this.selectedRows != null) {
+            if (currentRow == position.AFTER_LAST) {
+                this.columnarPage = (this.totalRows + this.pagesize - 1) / this.pagesize;
+            }
+            int page = this.columnarPage - 1;
+            if (page >= 0) {
+                resultList = convert(getColumnarRows(page * this.pagesize, (page + 1) * this.pagesize), pageByteTrigger);
+            }
+            this.columnarPage = Math.max(page, -1);
+        } else if (previousPageOfResults()) {
             resultList = convert(this.crs, pageByteTrigger);
         }
         
@@ -833,6 +927,48 @@ public class CachedRunningQuery extends AbstractRunningQuery {
         }
     }
     
+    private List<List<String>> getColumnarRows(int begin, int end) throws SQLException {
+        try {
+            return this.columnarReader.getRows(this.selectedRows, begin, end, this.columnarQuery.getSelectedColumns());
+        } catch (IOException e) {
+            throw new SQLException("Unable to read cached results " + this.view, e);
+        }
+    }
+    
+    /**
+     * Convert rows of a columnar cached result into a result list.
+     * 
+     * @param rows
+     * @param pageByteTrigger
+     * @return
+     */
+    private ResultsPage convert(List<List<String>> rows, long pageByteTrigger) {
+        boolean hitPageByteTrigger = false;
+        List<CacheableQueryRow> cacheableQueryRowList = new ArrayList<>();
+        long resultBytes = 0;
+        for (List<String> values : rows) {
+            if (hitPageByteTrigger) {
+                break;
+            }
+            CacheableQueryRow row = CacheableQueryRowReader.createRow(this.columnarReader.getColumnNames(), values, this.columnarQuery.getSelectedColumns(),
+                            this.fixedFieldsInEvent);
+            cacheableQueryRowList.add(row);
+            if (pageByteTrigger != 0) {
+                resultBytes += ObjectSizeOf.Sizer.getObjectSize(row);
+                if (resultBytes >= pageByteTrigger) {
+                    hitPageByteTrigger = true;
+                }
+            }
+        }
+        
+        if (this.cacheableLogic == null) {
+            return new ResultsPage();
+        } else {
+            return new ResultsPage(this.cacheableLogic.readFromCache(cacheableQueryRowList), (hitPageByteTrigger ? ResultsPage.Status.PARTIAL
+                            : ResultsPage.Status.COMPLETE));
+        }
+    }
+    
     private ResultsPage convert(CachedRowSet cachedRowSet, Integer rowBegin, Integer rowEnd, long pageByteTrigger) {
         boolean hitPageByteTrigger = false;
         List<CacheableQueryRow> cacheableQueryRowList = new ArrayList<>();
@@ -867,6 +1003,16 @@ public class CachedRunningQuery extends AbstractRunningQuery {
         this.connection = null;
         this.statement = null;
         this.crs = null;
+        if (this.columnarReader != null) {
+            try {
+                this.columnarReader.close();
+            } catch (IOException e) {
+                log.warn("Unable to close cached results " + this.view, e);
+            }
+        }
+        this.columnarReader = null;
+        this.columnarQuery = null;
+        this.selectedRows = null;
     }
     
     public Connection getConnection() {
@@ -1216,6 +1362,10 @@ public class CachedRunningQuery extends AbstractRunningQuery {
         return crq;
     }
     
+    public static void setColumnarResults(ColumnarCachedResults columnarResults) {
+        CachedRunningQuery.columnarResults = columnarResults;
+    }
+    
     public static void setDatasource(DataSource datasource) {
         CachedRunningQuery.datasource = datasource;
     }
@@ -0,0 +1,141 @@
+package datawave.webservice.results.cached;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * The storage of cached results as columnar files, an alternative to the cached results tables of the SQL datasource. Each cached result is a directory,
+ * named for the table the result would otherwise have been loaded into, under a base directory on any Hadoop file system, such as a local directory or HDFS.
+ * The directory holds the data file and the index written by the {@link ColumnarResultsWriter}. The index is written to a temporary file and renamed once the
+ * writer is finished, so a cached result only exists, and is only read, once it has been completely written.
+ */
+public class ColumnarCachedResults {
+    
+    static final String DATA_FILE = "data";
+    static final String INDEX_FILE = "index";
+    static final String TEMP_INDEX_FILE = "index.tmp";
+    
+    private final Path baseDir;
+    private final FileSystem fs;
+    
+    /**
+     * @param baseDir
+     *            the URI of the directory in which the cached results are stored, e.g. file:///srv/cachedresults or hdfs://namenode/CachedResults
+     * @throws IOException
+     *             if the file system could not be accessed
+     */
+    public ColumnarCachedResults(String baseDir) throws IOException {
+        this.baseDir = new Path(baseDir);
+        this.fs = this.baseDir.getFileSystem(new Configuration());
+    }
+    
+    /**
+     * Creates a writer for a new cached result, replacing any existing cached result of the same name. The cached result does not exist until the writer has
+     * been finished.
+     *
+     * @param tableName
+     *            the name of the cached result
+     * @param rowsPerPage
+     *            the number of rows per page
+     * @return the writer
+     * @throws IOException
+     *             if the files could not be created
+     */
+    public ColumnarResultsWriter createWriter(String tableName, int rowsPerPage) throws IOException {
+        Path dir = getDirectory(tableName);
+        fs.delete(dir, true);
+        final Path tempIndex = new Path(dir, TEMP_INDEX_FILE);
+        final Path index = new Path(dir, INDEX_FILE);
+        FSDataOutputStream data = fs.create(new Path(dir, DATA_FILE), false);
+        try {
+            return new ColumnarResultsWriter(data, fs.create(tempIndex, false), rowsPerPage) {
+                @Override
+                public void finish(List<String> columnNames) throws IOException {
+                    super.finish(columnNames);
+                    // the files must be complete before the index appears under its final name
+                    close();
+                    if (!fs.rename(tempIndex, index)) {
+                        throw new IOException("Unable to rename " + tempIndex + " to " + index);
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * @param tableName
+     *            the name of the cached result
+     * @return true if the cached result has been completely written
+     * @throws IOException
+     *             if the file system could not be accessed
+     */
+    public boolean exists(String tableName) throws IOException {
+        return fs.exists(new Path(getDirectory(tableName), INDEX_FILE));
+    }
+    
+    /**
+     * Opens a cached result for reading.
+     *
+     * @param tableName
+     *            the name of the cached result
+     * @return the reader, which must be closed
+     * @throws IOException
+     *             if the cached result could not be read
+     */
+    public ColumnarResultsReader openReader(String tableName) throws IOException {
+        Path dir = getDirectory(tableName);
+        FSDataInputStream data = fs.open(new Path(dir, DATA_FILE));
+        try {
+            return new ColumnarResultsReader(fs.open(new Path(dir, INDEX_FILE)), data);
+        } catch (IOException | RuntimeException e) {
+            data.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Deletes a cached result, if it exists.
+     *
+     * @param tableName
+     *            the name of the cached result
+     * @throws IOException
+     *             if the cached result could not be deleted
+     */
+    public void delete(String tableName) throws IOException {
+        fs.delete(getDirectory(tableName), true);
+    }
+    
+    /**
+     * @param time
+     *            a time in milliseconds since the epoch
+     * @return the names of the cached results last modified before the given time
+     * @throws IOException
+     *             if the base directory could not be listed
+     */
+    public List<String> getModifiedBefore(long time) throws IOException {
+        List<String> tableNames = new ArrayList<>();
+        if (fs.exists(baseDir)) {
+            for (FileStatus status : fs.listStatus(baseDir)) {
+                if (status.isDirectory() && status.getModificationTime() < time) {
+                    tableNames.add(status.getPath().getName());
+                }
+            }
+        }
+        return tableNames;
+    }
+    
+    private Path getDirectory(String tableName) {
+        return new Path(baseDir, CachedResultsParameters.validate(tableName));
+    }
+}
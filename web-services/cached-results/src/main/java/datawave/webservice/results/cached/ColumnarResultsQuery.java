@@ -0,0 +1,265 @@
+package datawave.webservice.results.cached;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import datawave.webservice.query.cachedresults.CacheableQueryRow;
+import datawave.webservice.results.cached.ColumnarResultsReader.Condition;
+import datawave.webservice.results.cached.ColumnarResultsReader.Operator;
+import datawave.webservice.results.cached.ColumnarResultsReader.SortColumn;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * The fields, conditions and order of a cached results query, as given to {@link CachedRunningQuery}, translated for a {@link ColumnarResultsReader}. The
+ * columnar cached results support the subset of SQL that selects, filters and sorts by columns: a list of fields, a conjunction of comparisons of a field
+ * with a value or with null, and a list of fields to order by. Functions, grouping, disjunctions and parentheses are rejected.
+ */
+public class ColumnarResultsQuery {
+    
+    private final Set<String> selectedColumns;
+    private final List<Condition> conditions;
+    private final List<SortColumn> order;
+    
+    private ColumnarResultsQuery(Set<String> selectedColumns, List<Condition> conditions, List<SortColumn> order) {
+        this.selectedColumns = selectedColumns;
+        this.conditions = conditions;
+        this.order = order;
+    }
+    
+    /**
+     * @return the columns to return, or null for all of them
+     */
+    public Set<String> getSelectedColumns() {
+        return selectedColumns;
+    }
+    
+    public List<Condition> getConditions() {
+        return conditions;
+    }
+    
+    public List<SortColumn> getOrder() {
+        return order;
+    }
+    
+    /**
+     * Translates a cached results query.
+     *
+     * @param fields
+     *            comma separated list of fields, or null or * for all of them
+     * @param conditions
+     *            the conditions, analogous to a SQL where clause, or null
+     * @param grouping
+     *            the grouping, which must be null or empty
+     * @param order
+     *            comma separated list of fields to order by, each optionally followed by ASC or DESC, or null
+     * @param user
+     *            the user whose rows are selected
+     * @return the query
+     * @throws IllegalArgumentException
+     *             if the query is not supported
+     */
+    public static ColumnarResultsQuery parse(String fields, String conditions, String grouping, String order, String user) {
+        if (StringUtils.isNotBlank(grouping)) {
+            throw unsupported("grouping");
+        }
+        
+        Set<String> selectedColumns = null;
+        if (StringUtils.isNotBlank(fields)) {
+            Set<String> requested = new LinkedHashSet<>();
+            for (String field : CachedRunningQuery.tokenizeOutsideParens(fields, ',')) {
+                requested.add(toColumn(field.trim()));
+            }
+            if (!requested.contains("*")) {
+                selectedColumns = new LinkedHashSet<>(CacheableQueryRow.getFixedColumnSet());
+                selectedColumns.addAll(requested);
+            }
+        }
+        
+        List<Condition> conditionList = new ArrayList<>();
+        conditionList.add(new Condition("_user_", Operator.EQUALS, user, false));
+        if (StringUtils.isNotBlank(conditions)) {
+            parseConditions(conditions, conditionList);
+        }
+        
+        List<SortColumn> sortColumns = new ArrayList<>();
+        if (StringUtils.isNotBlank(order)) {
+            for (String s : CachedRunningQuery.tokenizeOutsideParens(order, ',')) {
+                String[] parts = StringUtils.split(s.trim());
+                if (parts.length == 0) {
+                    continue;
+                }
+                boolean ascending = true;
+                if (parts.length == 2 && (parts[1].equalsIgnoreCase("ASC") || parts[1].equalsIgnoreCase("DESC"))) {
+                    ascending = parts[1].equalsIgnoreCase("ASC");
+                } else if (parts.length != 1) {
+                    throw unsupported("the order " + s.trim());
+                }
+                sortColumns.add(new SortColumn(toColumn(parts[0]), ascending));
+            }
+        }
+        
+        return new ColumnarResultsQuery(selectedColumns == null ? null : Collections.unmodifiableSet(selectedColumns),
+                        Collections.unmodifiableList(conditionList), Collections.unmodifiableList(sortColumns));
+    }
+    
+    private static String toColumn(String field) {
+        String column = field.replace("`", "").trim();
+        if (column.isEmpty() || column.contains("(")) {
+            throw unsupported("the field " + field);
+        }
+        return column;
+    }
+    
+    private static void parseConditions(String conditions, List<Condition> conditionList) {
+        List<Token> tokens = tokenize(conditions);
+        int i = 0;
+        while (i < tokens.size()) {
+            Token field = tokens.get(i++);
+            if (field.type != TokenType.IDENTIFIER || i >= tokens.size()) {
+                throw unsupported("the condition at " + field.text);
+            }
+            Token next = tokens.get(i++);
+            if (next.isWord("IS")) {
+                boolean not = (i < tokens.size() && tokens.get(i).isWord("NOT"));
+                if (not) {
+                    i++;
+                }
+                if (i >= tokens.size() || !tokens.get(i++).isWord("NULL")) {
+                    throw unsupported("the condition at " + field.text + " IS");
+                }
+                conditionList.add(new Condition(field.text, not ? Operator.IS_NOT_NULL : Operator.IS_NULL, null, false));
+            } else if (next.type == TokenType.OPERATOR && i < tokens.size()) {
+                Token value = tokens.get(i++);
+                if (value.type == TokenType.STRING) {
+                    conditionList.add(new Condition(field.text, toOperator(next.text), value.text, false));
+                } else if (value.type == TokenType.IDENTIFIER && !value.quoted && isNumber(value.text)) {
+                    conditionList.add(new Condition(field.text, toOperator(next.text), value.text, true));
+                } else {
+                    throw unsupported("the comparison of " + field.text + " with " + value.text);
+                }
+            } else {
+                throw unsupported("the condition at " + field.text + " " + next.text);
+            }
+            
+            if (i < tokens.size()) {
+                if (!tokens.get(i++).isWord("AND") || i >= tokens.size()) {
+                    throw unsupported("conditions other than a conjunction");
+                }
+            }
+        }
+    }
+    
+    private static Operator toOperator(String operator) {
+        switch (operator) {
+            case "=":
+                return Operator.EQUALS;
+            case "!=":
+            case "<>":
+                return Operator.NOT_EQUALS;
+            case "<":
+                return Operator.LESS_THAN;
+            case "<=":
+                return Operator.LESS_THAN_OR_EQUAL;
+            case ">":
+                return Operator.GREATER_THAN;
+            case ">=":
+                return Operator.GREATER_THAN_OR_EQUAL;
+            default:
+                throw unsupported("the operator " + operator);
+        }
+    }
+    
+    private static boolean isNumber(String value) {
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
+    private static IllegalArgumentException unsupported(String what) {
+        return new IllegalArgumentException("Columnar cached results do not support " + what);
+    }
+    
+    private enum TokenType {
+        IDENTIFIER, STRING, OPERATOR
+    }
+    
+    private static class Token {
+        private final TokenType type;
+        private final String text;
+        // true for a back-ticked identifier
+        private final boolean quoted;
+        
+        Token(TokenType type, String text, boolean quoted) {
+            this.type = type;
+            this.text = text;
+            this.quoted = quoted;
+        }
+        
+        boolean isWord(String word) {
+            return type == TokenType.IDENTIFIER && !quoted && text.equalsIgnoreCase(word);
+        }
+    }
+    
+    private static List<Token> tokenize(String s) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'' || c == '"') {
+                // a string literal, in which a quote is escaped by doubling it or with a backslash
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= s.length()) {
+                        throw new IllegalArgumentException("Unterminated string in conditions: " + s);
+                    }
+                    char d = s.charAt(i++);
+                    if (d == '\\' && i < s.length()) {
+                        value.append(s.charAt(i++));
+                    } else if (d == c && i < s.length() && s.charAt(i) == c) {
+                        value.append(c);
+                        i++;
+                    } else if (d == c) {
+                        break;
+                    } else {
+                        value.append(d);
+                    }
+                }
+                tokens.add(new Token(TokenType.STRING, value.toString(), false));
+            } else if (c == '`') {
+                int end = s.indexOf('`', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated identifier in conditions: " + s);
+                }
+                tokens.add(new Token(TokenType.IDENTIFIER, s.substring(i + 1, end), true));
+                i = end + 1;
+            } else if (c == '=' || c == '<' || c == '>' || c == '!') {
+                int end = i + 1;
+                if (end < s.length() && (s.charAt(end) == '=' || (c == '<' && s.charAt(end) == '>'))) {
+                    end++;
+                }
+                tokens.add(new Token(TokenType.OPERATOR, s.substring(i, end), false));
+                i = end;
+            } else if (c == '(' || c == ')') {
+                throw unsupported("parentheses in conditions");
+            } else {
+                int end = i;
+                while (end < s.length() && !Character.isWhitespace(s.charAt(end)) && "'\"`=<>!()".indexOf(s.charAt(end)) < 0) {
+                    end++;
+                }
+                tokens.add(new Token(TokenType.IDENTIFIER, s.substring(i, end), false));
+                i = end;
+            }
+        }
+        return tokens;
+    }
+}
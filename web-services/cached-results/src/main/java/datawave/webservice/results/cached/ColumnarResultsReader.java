@@ -0,0 +1,511 @@
+package datawave.webservice.results.cached;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.log4j.Logger;
+
+/**
+ * Reads a cached result written by the {@link ColumnarResultsWriter}. A selection filters the rows with a conjunction of conditions and sorts them, and the
+ * selected rows are then read a page of results at a time. Only the columns of the conditions and sort are decompressed to select the rows, and the pages
+ * whose minimum and maximum values show they cannot match a condition are not read at all. Reading the selected rows only decompresses the columns that are
+ * returned.
+ * <p>
+ * Values are compared as strings, or as numbers for a condition on a numeric value, and a null value matches no comparison, as in SQL. Nulls sort first in
+ * ascending order and last in descending order.
+ * <p>
+ * A reader is not thread safe.
+ */
+public class ColumnarResultsReader implements Closeable {
+    
+    private static Logger log = Logger.getLogger(ColumnarResultsReader.class);
+    
+    public enum Operator {
+        EQUALS, NOT_EQUALS, LESS_THAN, LESS_THAN_OR_EQUAL, GREATER_THAN, GREATER_THAN_OR_EQUAL, IS_NULL, IS_NOT_NULL
+    }
+    
+    /**
+     * A comparison of a column with a value
+     */
+    public static class Condition {
+        private final String column;
+        private final Operator operator;
+        private final String value;
+        private final Double number;
+        
+        /**
+         * @param column
+         *            the column name
+         * @param operator
+         *            the comparison
+         * @param value
+         *            the value compared with, ignored for {@link Operator#IS_NULL} and {@link Operator#IS_NOT_NULL}
+         * @param numeric
+         *            true to compare the values of the column as numbers, in which case values that are not numbers match no comparison
+         */
+        public Condition(String column, Operator operator, String value, boolean numeric) {
+            this.column = column;
+            this.operator = operator;
+            this.value = value;
+            this.number = (numeric && value != null ? Double.valueOf(value) : null);
+        }
+        
+        public String getColumn() {
+            return column;
+        }
+        
+        public Operator getOperator() {
+            return operator;
+        }
+        
+        public String getValue() {
+            return value;
+        }
+        
+        public boolean isNumeric() {
+            return number != null;
+        }
+        
+        boolean matches(String columnValue) {
+            if (operator == Operator.IS_NULL) {
+                return columnValue == null;
+            } else if (operator == Operator.IS_NOT_NULL || columnValue == null) {
+                return columnValue != null;
+            }
+            int comparison;
+            if (number != null) {
+                try {
+                    comparison = Double.compare(Double.parseDouble(columnValue), number);
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            } else {
+                comparison = columnValue.compareTo(value);
+            }
+            switch (operator) {
+                case EQUALS:
+                    return comparison == 0;
+                case NOT_EQUALS:
+                    return comparison != 0;
+                case LESS_THAN:
+                    return comparison < 0;
+                case LESS_THAN_OR_EQUAL:
+                    return comparison <= 0;
+                case GREATER_THAN:
+                    return comparison > 0;
+                default:
+                    return comparison >= 0;
+            }
+        }
+        
+        /**
+         * @return false if no value of a column block with the given statistics can match this condition
+         */
+        boolean mayMatch(int rows, int nulls, String min, String max) {
+            if (operator == Operator.IS_NULL) {
+                return nulls > 0;
+            } else if (nulls == rows) {
+                return false;
+            } else if (operator == Operator.IS_NOT_NULL || number != null) {
+                // the minimum and maximum are in string order, which does not bound the numbers
+                return true;
+            }
+            switch (operator) {
+                case EQUALS:
+                    return value.compareTo(min) >= 0 && (max == null || value.compareTo(max) <= 0);
+                case NOT_EQUALS:
+                    return !(min.equals(max) && min.equals(value));
+                case LESS_THAN:
+                    return min.compareTo(value) < 0;
+                case LESS_THAN_OR_EQUAL:
+                    return min.compareTo(value) <= 0;
+                case GREATER_THAN:
+                    return max == null || max.compareTo(value) > 0;
+                default:
+                    return max == null || max.compareTo(value) >= 0;
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return column + " " + operator + (operator == Operator.IS_NULL || operator == Operator.IS_NOT_NULL ? "" : " " + value);
+        }
+    }
+    
+    /**
+     * A column to sort by
+     */
+    public static class SortColumn {
+        private final String column;
+        private final boolean ascending;
+        
+        public SortColumn(String column, boolean ascending) {
+            this.column = column;
+            this.ascending = ascending;
+        }
+        
+        public String getColumn() {
+            return column;
+        }
+        
+        public boolean isAscending() {
+            return ascending;
+        }
+    }
+    
+    private final PositionedReadable data;
+    private final List<String> columnNames;
+    private final Map<String,Integer> columnIndices = new HashMap<>();
+    private final int rowCount;
+    
+    // per page, the first row number and the number of rows
+    private final int[] pageStarts;
+    private final int[] pageRows;
+    
+    // per page and column, the block location and statistics
+    private final long[][] offsets;
+    private final int[][] lengths;
+    private final int[][] nulls;
+    private final String[][] mins;
+    private final String[][] maxs;
+    
+    // the columns of the page last read by getRows, which a following page of results is likely to read as well. A column is null until it has been read.
+    private int lastPage = -1;
+    private String[][] lastPageColumns = null;
+    
+    private int pagesSkipped = 0;
+    
+    /**
+     * @param index
+     *            the stream from which the index is read, which is closed
+     * @param data
+     *            the data from which the column blocks are read, which is closed with this reader if it is {@link Closeable}
+     * @throws IOException
+     *             if the index could not be read
+     */
+    public ColumnarResultsReader(InputStream index, PositionedReadable data) throws IOException {
+        this.data = data;
+        try (DataInputStream in = new DataInputStream(index)) {
+            if (in.readInt() != ColumnarResultsWriter.MAGIC) {
+                throw new IOException("Not a columnar cached result");
+            }
+            int version = in.readInt();
+            if (version != ColumnarResultsWriter.VERSION) {
+                throw new IOException("Unsupported columnar cached result version " + version);
+            }
+            int columns = in.readInt();
+            List<String> names = new ArrayList<>(columns);
+            for (int i = 0; i < columns; i++) {
+                String name = readString(in);
+                names.add(name);
+                columnIndices.put(name, i);
+            }
+            this.columnNames = Collections.unmodifiableList(names);
+            
+            int pages = in.readInt();
+            pageStarts = new int[pages];
+            pageRows = new int[pages];
+            offsets = new long[pages][];
+            lengths = new int[pages][];
+            nulls = new int[pages][];
+            mins = new String[pages][];
+            maxs = new String[pages][];
+            int rows = 0;
+            for (int page = 0; page < pages; page++) {
+                pageStarts[page] = rows;
+                pageRows[page] = in.readInt();
+                rows += pageRows[page];
+                int pageColumns = in.readInt();
+                offsets[page] = new long[pageColumns];
+                lengths[page] = new int[pageColumns];
+                nulls[page] = new int[pageColumns];
+                mins[page] = new String[pageColumns];
+                maxs[page] = new String[pageColumns];
+                for (int column = 0; column < pageColumns; column++) {
+                    offsets[page][column] = in.readLong();
+                    lengths[page][column] = in.readInt();
+                    nulls[page][column] = in.readInt();
+                    mins[page][column] = readString(in);
+                    maxs[page][column] = readString(in);
+                }
+            }
+            this.rowCount = rows;
+        }
+    }
+    
+    /**
+     * @return the names of the columns, the name of column number n at index n - 1
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+    
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    /**
+     * @return the number of pages the selections have skipped using the index
+     */
+    public int getPagesSkipped() {
+        return pagesSkipped;
+    }
+    
+    /**
+     * Selects the rows matching all of the conditions, in the given order.
+     *
+     * @param conditions
+     *            the conditions, all of which a selected row matches
+     * @param order
+     *            the columns to sort by, or an empty list for the order in which the rows were written
+     * @return the selected row numbers, in order
+     * @throws IOException
+     *             if the columns could not be read
+     * @throws IllegalArgumentException
+     *             if a condition or sort column is not a column of the cached result
+     */
+    public int[] select(List<Condition> conditions, List<SortColumn> order) throws IOException {
+        int[] conditionColumns = new int[conditions.size()];
+        for (int i = 0; i < conditions.size(); i++) {
+            conditionColumns[i] = getColumnIndex(conditions.get(i).getColumn());
+        }
+        int[] sortColumns = new int[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            sortColumns[i] = getColumnIndex(order.get(i).getColumn());
+        }
+        
+        int[] selected = new int[16];
+        int count = 0;
+        int skipped = 0;
+        for (int page = 0; page < pageRows.length; page++) {
+            if (!mayMatch(page, conditions, conditionColumns)) {
+                skipped++;
+                continue;
+            }
+            String[][] values = new String[conditions.size()][];
+            for (int i = 0; i < conditions.size(); i++) {
+                values[i] = readColumn(page, conditionColumns[i]);
+            }
+            for (int row = 0; row < pageRows[page]; row++) {
+                boolean matches = true;
+                for (int i = 0; matches && i < conditions.size(); i++) {
+                    matches = conditions.get(i).matches(values[i][row]);
+                }
+                if (matches) {
+                    if (count == selected.length) {
+                        selected = Arrays.copyOf(selected, count * 2);
+                    }
+                    selected[count++] = pageStarts[page] + row;
+                }
+            }
+        }
+        selected = Arrays.copyOf(selected, count);
+        pagesSkipped += skipped;
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Selected " + count + " of " + rowCount + " rows matching " + conditions + ", skipping " + skipped + " of " + pageRows.length
+                            + " pages");
+        }
+        return (order.isEmpty() ? selected : sort(selected, order, sortColumns));
+    }
+    
+    private boolean mayMatch(int page, List<Condition> conditions, int[] conditionColumns) {
+        for (int i = 0; i < conditions.size(); i++) {
+            int column = conditionColumns[i];
+            boolean mayMatch;
+            if (column < offsets[page].length) {
+                mayMatch = conditions.get(i).mayMatch(pageRows[page], nulls[page][column], mins[page][column], maxs[page][column]);
+            } else {
+                // the column was first seen after this page was written
+                mayMatch = conditions.get(i).mayMatch(pageRows[page], pageRows[page], null, null);
+            }
+            if (!mayMatch) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private int[] sort(int[] selected, List<SortColumn> order, int[] sortColumns) throws IOException {
+        // gather the sort values of the selected rows, which are in row order
+        String[][] keys = new String[sortColumns.length][selected.length];
+        int page = -1;
+        String[][] pageValues = new String[sortColumns.length][];
+        for (int i = 0; i < selected.length; i++) {
+            if (page < 0 || selected[i] >= pageStarts[page] + pageRows[page]) {
+                page = getPage(selected[i]);
+                for (int j = 0; j < sortColumns.length; j++) {
+                    pageValues[j] = readColumn(page, sortColumns[j]);
+                }
+            }
+            for (int j = 0; j < sortColumns.length; j++) {
+                keys[j][i] = pageValues[j][selected[i] - pageStarts[page]];
+            }
+        }
+        
+        Comparator<Integer> comparator = (a, b) -> {
+            for (int j = 0; j < keys.length; j++) {
+                String x = keys[j][a];
+                String y = keys[j][b];
+                int comparison;
+                if (x == null || y == null) {
+                    comparison = (x == null ? (y == null ? 0 : -1) : 1);
+                } else {
+                    comparison = x.compareTo(y);
+                }
+                if (comparison != 0) {
+                    return order.get(j).isAscending() ? comparison : -comparison;
+                }
+            }
+            return 0;
+        };
+        Integer[] positions = new Integer[selected.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        // a stable sort, leaving equal rows in the order in which they were written
+        Arrays.sort(positions, comparator);
+        int[] sorted = new int[selected.length];
+        for (int i = 0; i < positions.length; i++) {
+            sorted[i] = selected[positions[i]];
+        }
+        return sorted;
+    }
+    
+    /**
+     * Reads a range of the selected rows.
+     *
+     * @param selected
+     *            the selected row numbers, as returned by {@link #select(List, List)}
+     * @param begin
+     *            the index of the first selected row to read
+     * @param end
+     *            the index after the last selected row to read
+     * @return the values of the rows, the value of column number n at index n - 1
+     * @throws IOException
+     *             if the rows could not be read
+     */
+    public List<List<String>> getRows(int[] selected, int begin, int end) throws IOException {
+        return getRows(selected, begin, end, null);
+    }
+    
+    /**
+     * Reads a range of the selected rows, only reading the given columns.
+     *
+     * @param selected
+     *            the selected row numbers, as returned by {@link #select(List, List)}
+     * @param begin
+     *            the index of the first selected row to read
+     * @param end
+     *            the index after the last selected row to read
+     * @param columns
+     *            the names of the columns to read, or null for all of them. Names that are not columns of the cached result are ignored.
+     * @return the values of the rows, the value of column number n at index n - 1, null for the columns that were not read
+     * @throws IOException
+     *             if the rows could not be read
+     */
+    public List<List<String>> getRows(int[] selected, int begin, int end, Set<String> columns) throws IOException {
+        boolean[] read = new boolean[columnNames.size()];
+        if (columns == null) {
+            Arrays.fill(read, true);
+        } else {
+            for (String column : columns) {
+                Integer index = columnIndices.get(column);
+                if (index != null) {
+                    read[index] = true;
+                }
+            }
+        }
+        
+        end = Math.min(end, selected.length);
+        Map<Integer,String[][]> pages = new HashMap<>();
+        if (lastPageColumns != null) {
+            pages.put(lastPage, lastPageColumns);
+        }
+        List<List<String>> rows = new ArrayList<>(Math.max(0, end - begin));
+        for (int i = begin; i < end; i++) {
+            int page = getPage(selected[i]);
+            String[][] pageColumns = pages.get(page);
+            if (pageColumns == null) {
+                pageColumns = new String[columnNames.size()][];
+                pages.put(page, pageColumns);
+            }
+            for (int column = 0; column < pageColumns.length; column++) {
+                if (read[column] && pageColumns[column] == null) {
+                    pageColumns[column] = readColumn(page, column);
+                }
+            }
+            lastPage = page;
+            lastPageColumns = pageColumns;
+            
+            int row = selected[i] - pageStarts[page];
+            List<String> values = new ArrayList<>(pageColumns.length);
+            for (int column = 0; column < pageColumns.length; column++) {
+                values.add(read[column] ? pageColumns[column][row] : null);
+            }
+            rows.add(values);
+        }
+        return rows;
+    }
+    
+    private int getColumnIndex(String column) {
+        Integer index = columnIndices.get(column);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown column " + column);
+        }
+        return index;
+    }
+    
+    private int getPage(int row) {
+        int page = Arrays.binarySearch(pageStarts, row);
+        return (page >= 0 ? page : -page - 2);
+    }
+    
+    private String[] readColumn(int page, int column) throws IOException {
+        String[] values = new String[pageRows[page]];
+        if (column >= offsets[page].length || nulls[page][column] == pageRows[page]) {
+            return values;
+        }
+        byte[] block = new byte[lengths[page][column]];
+        data.readFully(offsets[page][column], block);
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(block)))) {
+            for (int row = 0; row < values.length; row++) {
+                values[row] = readString(in);
+            }
+        }
+        return values;
+    }
+    
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        lastPageColumns = null;
+        if (data instanceof Closeable) {
+            ((Closeable) data).close();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package datawave.webservice.results.cached;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the rows of a cached result as compressed columnar pages, the file based alternative to inserting each row into a cached results table. The rows are
+ * buffered a page at a time, and each column of a page is written to the data file as its own gzip compressed block, such that a reader only decompresses
+ * the columns it needs. The index, written once all of the rows have been, holds the column names and, per page, the number of rows and the offset, length,
+ * null count and minimum and maximum value of each column's block, with which a reader skips the pages that cannot match a condition.
+ * <p>
+ * The values of a row are given by column number, starting at 1, as in the cached results table. A row may have fewer columns than a later one, the missing
+ * columns are null.
+ */
+public class ColumnarResultsWriter implements Closeable {
+    
+    static final int MAGIC = 0x44574352;
+    static final int VERSION = 1;
+    
+    // the longest minimum or maximum value stored in the index. A longer minimum is stored truncated, which still bounds the values from below, and a longer
+    // maximum is not stored at all, leaving the values unbounded from above.
+    static final int MAX_INDEXED_LENGTH = 256;
+    
+    private final OutputStream data;
+    private final OutputStream index;
+    private final int rowsPerPage;
+    
+    private final List<String[]> page = new ArrayList<>();
+    private final ByteArrayOutputStream pageIndexBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pageIndex = new DataOutputStream(pageIndexBytes);
+    private int pageCount = 0;
+    private long offset = 0;
+    private long rowCount = 0;
+    private boolean finished = false;
+    private boolean closed = false;
+    
+    /**
+     * @param data
+     *            the stream to which the column blocks are written
+     * @param index
+     *            the stream to which the index is written
+     * @param rowsPerPage
+     *            the number of rows per page
+     */
+    public ColumnarResultsWriter(OutputStream data, OutputStream index, int rowsPerPage) {
+        if (rowsPerPage <= 0) {
+            throw new IllegalArgumentException("The rows per page must be positive: " + rowsPerPage);
+        }
+        this.data = data;
+        this.index = index;
+        this.rowsPerPage = rowsPerPage;
+    }
+    
+    /**
+     * Adds a row
+     *
+     * @param values
+     *            the values of the row, the value of column number n at index n - 1, null for a column without a value
+     * @throws IOException
+     *             if the page could not be written
+     */
+    public void write(String[] values) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("The cached result has already been finished");
+        }
+        page.add(values);
+        rowCount++;
+        if (page.size() >= rowsPerPage) {
+            writePage();
+        }
+    }
+    
+    public long getRowCount() {
+        return rowCount;
+    }
+    
+    /**
+     * Writes the last page and the index.
+     *
+     * @param columnNames
+     *            the names of the columns, the name of column number n at index n - 1
+     * @throws IOException
+     *             if the page or index could not be written
+     */
+    public void finish(List<String> columnNames) throws IOException {
+        if (!page.isEmpty()) {
+            writePage();
+        }
+        DataOutputStream out = new DataOutputStream(index);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(columnNames.size());
+        for (String columnName : columnNames) {
+            writeString(out, columnName);
+        }
+        out.writeInt(pageCount);
+        pageIndex.flush();
+        pageIndexBytes.writeTo(out);
+        out.flush();
+        data.flush();
+        finished = true;
+    }
+    
+    private void writePage() throws IOException {
+        int columns = 0;
+        for (String[] values : page) {
+            columns = Math.max(columns, values.length);
+        }
+        pageIndex.writeInt(page.size());
+        pageIndex.writeInt(columns);
+        
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        for (int column = 0; column < columns; column++) {
+            String min = null;
+            String max = null;
+            int nulls = 0;
+            block.reset();
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(block))) {
+                for (String[] values : page) {
+                    String value = (column < values.length ? values[column] : null);
+                    writeString(out, value);
+                    if (value == null) {
+                        nulls++;
+                    } else {
+                        if (min == null || value.compareTo(min) < 0) {
+                            min = value;
+                        }
+                        if (max == null || value.compareTo(max) > 0) {
+                            max = value;
+                        }
+                    }
+                }
+            }
+            block.writeTo(data);
+            
+            pageIndex.writeLong(offset);
+            pageIndex.writeInt(block.size());
+            pageIndex.writeInt(nulls);
+            writeString(pageIndex, (min == null || min.length() <= MAX_INDEXED_LENGTH) ? min : min.substring(0, MAX_INDEXED_LENGTH));
+            writeString(pageIndex, (max == null || max.length() <= MAX_INDEXED_LENGTH) ? max : null);
+            offset += block.size();
+        }
+        pageCount++;
+        page.clear();
+    }
+    
+    /**
+     * Writes a string as its UTF-8 length and bytes, or a length of -1 for null. Unlike {@link DataOutput#writeUTF(String)} the length of the string is not
+     * limited.
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+}
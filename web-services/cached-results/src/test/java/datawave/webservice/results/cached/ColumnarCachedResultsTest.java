@@ -0,0 +1,161 @@
+package datawave.webservice.results.cached;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import datawave.webservice.query.cachedresults.CacheableQueryRow;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ColumnarCachedResultsTest {
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private ColumnarCachedResults columnarResults;
+    
+    @Before
+    public void setup() throws Exception {
+        columnarResults = new ColumnarCachedResults(folder.getRoot().toURI().toString());
+        
+        // 10 rows in pages of 3, where the NUM column is first seen on the sixth row and NAME is only set on odd rows
+        try (ColumnarResultsWriter writer = columnarResults.createWriter("v1", 3)) {
+            for (int i = 0; i < 10; i++) {
+                String[] values = new String[i < 5 ? 11 : 12];
+                values[0] = "me";
+                values[4] = "event" + i;
+                values[10] = (i % 2 == 0 ? null : "name" + (9 - i));
+                if (values.length > 11) {
+                    values[11] = Integer.toString(i * 10);
+                }
+                writer.write(values);
+            }
+            List<String> columnNames = new ArrayList<>(CacheableQueryRow.getFixedColumnSet());
+            columnNames.add("NAME");
+            columnNames.add("NUM");
+            writer.finish(columnNames);
+        }
+    }
+    
+    @Test
+    public void testExistsAndDelete() throws Exception {
+        Assert.assertTrue(columnarResults.exists("v1"));
+        Assert.assertFalse(columnarResults.exists("v2"));
+        Assert.assertEquals(Arrays.asList("v1"), columnarResults.getModifiedBefore(System.currentTimeMillis() + 1000));
+        columnarResults.delete("v1");
+        Assert.assertFalse(columnarResults.exists("v1"));
+    }
+    
+    @Test
+    public void testNotVisibleUntilFinished() throws Exception {
+        try (ColumnarResultsWriter writer = columnarResults.createWriter("v2", 3)) {
+            writer.write(new String[] {"me"});
+            Assert.assertFalse(columnarResults.exists("v2"));
+            writer.finish(new ArrayList<>(CacheableQueryRow.getFixedColumnSet()));
+            Assert.assertTrue(columnarResults.exists("v2"));
+        }
+        try (ColumnarResultsReader reader = columnarResults.openReader("v2")) {
+            Assert.assertEquals(1, reader.getRowCount());
+        }
+        
+        // an unfinished rewrite replaces the previous cached result
+        columnarResults.createWriter("v1", 3).close();
+        Assert.assertFalse(columnarResults.exists("v1"));
+    }
+    
+    @Test
+    public void testSelectAll() throws Exception {
+        try (ColumnarResultsReader reader = columnarResults.openReader("v1")) {
+            Assert.assertEquals(10, reader.getRowCount());
+            Assert.assertEquals(12, reader.getColumnNames().size());
+            Assert.assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, select(reader, null, null, "me"));
+            Assert.assertArrayEquals(new int[0], select(reader, null, null, "someoneElse"));
+            
+            List<List<String>> rows = reader.getRows(reader.select(new ArrayList<>(), new ArrayList<>()), 4, 7);
+            Assert.assertEquals(3, rows.size());
+            Assert.assertEquals(Arrays.asList("event4", null, null), Arrays.asList(rows.get(0).get(4), rows.get(0).get(10), rows.get(0).get(11)));
+            Assert.assertEquals(Arrays.asList("event5", "name4", "50"), Arrays.asList(rows.get(1).get(4), rows.get(1).get(10), rows.get(1).get(11)));
+        }
+    }
+    
+    @Test
+    public void testSelectWithConditions() throws Exception {
+        try (ColumnarResultsReader reader = columnarResults.openReader("v1")) {
+            Assert.assertArrayEquals(new int[] {1}, select(reader, "NAME = 'name8'", null, "me"));
+            // only the page of rows 0 to 2 can hold name8
+            Assert.assertEquals(3, reader.getPagesSkipped());
+            
+            Assert.assertArrayEquals(new int[] {7, 8, 9}, select(reader, "NUM >= 70", null, "me"));
+            Assert.assertArrayEquals(new int[] {0, 2, 4, 6, 8}, select(reader, "NAME IS NULL", null, "me"));
+            Assert.assertArrayEquals(new int[] {5, 7, 9}, select(reader, "`NAME` IS NOT NULL AND NAME < 'name5'", null, "me"));
+            Assert.assertArrayEquals(new int[] {3}, select(reader, "NAME != 'name8' AND NUM IS NULL AND NAME<>'name4'", null, "me"));
+        }
+    }
+    
+    @Test
+    public void testSelectWithOrder() throws Exception {
+        try (ColumnarResultsReader reader = columnarResults.openReader("v1")) {
+            Assert.assertArrayEquals(new int[] {9, 8, 7}, select(reader, "NUM >= 70", "NUM DESC", "me"));
+            // nulls first, equal values in the order written
+            Assert.assertArrayEquals(new int[] {0, 2, 4, 6, 8, 9, 7, 5, 3, 1}, select(reader, null, "NAME", "me"));
+            Assert.assertArrayEquals(new int[] {1, 3, 5, 7, 9, 0, 2, 4, 6, 8}, select(reader, null, "NAME desc, _eventId_", "me"));
+            
+            int[] selected = select(reader, null, "NAME DESC", "me");
+            List<List<String>> rows = reader.getRows(selected, 0, 2);
+            Assert.assertEquals("name8", rows.get(0).get(10));
+            Assert.assertEquals("name6", rows.get(1).get(10));
+            
+            // only the requested columns are read
+            rows = reader.getRows(selected, 0, 2, new HashSet<>(Arrays.asList("NAME", "NOT_A_COLUMN")));
+            Assert.assertEquals(12, rows.get(0).size());
+            Assert.assertEquals("name8", rows.get(0).get(10));
+            Assert.assertNull(rows.get(0).get(4));
+            Assert.assertNull(rows.get(1).get(0));
+            
+            rows = reader.getRows(selected, 0, 1, new HashSet<>(Arrays.asList("_eventId_")));
+            Assert.assertEquals(Arrays.asList("event1", null), Arrays.asList(rows.get(0).get(4), rows.get(0).get(10)));
+        }
+    }
+    
+    @Test
+    public void testParse() throws Exception {
+        ColumnarResultsQuery query = ColumnarResultsQuery.parse("NAME, `NUM`", "NAME = 'it''s' AND NUM < -1.5", null, "NUM desc", "me");
+        Assert.assertTrue(query.getSelectedColumns().containsAll(CacheableQueryRow.getFixedColumnSet()));
+        Assert.assertTrue(query.getSelectedColumns().containsAll(Arrays.asList("NAME", "NUM")));
+        Assert.assertEquals(3, query.getConditions().size());
+        Assert.assertEquals("_user_", query.getConditions().get(0).getColumn());
+        Assert.assertEquals("it's", query.getConditions().get(1).getValue());
+        Assert.assertFalse(query.getConditions().get(1).isNumeric());
+        Assert.assertEquals(ColumnarResultsReader.Operator.LESS_THAN, query.getConditions().get(2).getOperator());
+        Assert.assertTrue(query.getConditions().get(2).isNumeric());
+        Assert.assertFalse(query.getOrder().get(0).isAscending());
+        
+        Assert.assertNull(ColumnarResultsQuery.parse("*", null, null, null, "me").getSelectedColumns());
+        
+        for (String unsupported : new String[] {"A = 1 OR B = 2", "( A = 1 )", "A = B", "A LIKE 'x%'", "A = 1 AND"}) {
+            try {
+                ColumnarResultsQuery.parse(null, unsupported, null, null, "me");
+                Assert.fail("Expected " + unsupported + " to be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        try {
+            ColumnarResultsQuery.parse(null, null, "NAME", null, "me");
+            Assert.fail("Expected grouping to be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+    
+    private static int[] select(ColumnarResultsReader reader, String conditions, String order, String user) throws Exception {
+        ColumnarResultsQuery query = ColumnarResultsQuery.parse(null, conditions, null, order, user);
+        return reader.select(query.getConditions(), query.getOrder());
+    }
+}
@@ -5,6 +5,8 @@ import java.util.Map;
 
 public class CachedResultsConfiguration {
     
+    public static final int DEFAULT_COLUMNAR_ROWS_PER_PAGE = 10000;
+    
     private int defaultPageSize = 20;
     private int maxPageSize = 0;
     private long pageByteTrigger = 0;
@@ -45,4 +47,21 @@ public class CachedResultsConfiguration {
     public int getRowsPerBatch() {
         return Integer.parseInt(getParameters().get("ROWS_PER_BATCH"));
     }
+    
+    /**
+     * @return the URI of the directory in which cached results are stored as columnar files instead of being loaded into the datasource, or null if cached
+     *         results are loaded into the datasource
+     */
+    public String getColumnarDir() {
+        String dir = getParameters().get("COLUMNAR_DIR");
+        return (dir == null || dir.trim().isEmpty()) ? null : dir.trim();
+    }
+    
+    /**
+     * @return the number of rows per page of the columnar files
+     */
+    public int getColumnarRowsPerPage() {
+        String rows = getParameters().get("COLUMNAR_ROWS_PER_PAGE");
+        return (rows == null || rows.trim().isEmpty()) ? DEFAULT_COLUMNAR_ROWS_PER_PAGE : Integer.parseInt(rows.trim());
+    }
 }
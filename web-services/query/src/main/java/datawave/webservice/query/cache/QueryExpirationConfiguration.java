@@ -15,6 +15,7 @@ public class QueryExpirationConfiguration {
     private long callTimeMinutes = PAGE_TIMEOUT_MIN_DEFAULT;
     private long pageSizeShortCircuitCheckTimeMinutes = PAGE_TIMEOUT_MIN_DEFAULT / 2;
     private long pageShortCircuitTimeoutMinutes = Math.round(0.97 * PAGE_TIMEOUT_MIN_DEFAULT);
+    private int prefetchPages = 0;
     
     public long getIdleTimeMinutes() {
         return idleTimeMinutes;
@@ -80,4 +81,12 @@ public class QueryExpirationConfiguration {
         this.pageShortCircuitTimeoutMinutes = pageShortCircuitTimeoutMinutes;
     }
     
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+    
+    public void setPrefetchPages(int prefetchPages) {
+        this.prefetchPages = prefetchPages;
+    }
+    
 }
@@ -2,8 +2,10 @@ package datawave.webservice.query.cachedresults;
 
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
@@ -20,97 +22,125 @@ public class CacheableQueryRowReader {
     
     public static CacheableQueryRow createRow(CachedRowSet cachedRowSet, Set<String> fixedFieldsInEvent) {
         
-        CacheableQueryRowImpl cqfc = new CacheableQueryRowImpl();
-        
-        ResultSetMetaData metadata;
+        List<String> columnLabels = new ArrayList<>();
+        List<String> columnValues = new ArrayList<>();
         try {
-            metadata = cachedRowSet.getMetaData();
-            
+            ResultSetMetaData metadata = cachedRowSet.getMetaData();
             int numColumns = metadata.getColumnCount();
-            Map<String,Integer> columnToIndexMap = new HashMap<>();
-            Map<String,Set<String>> columnValues = new HashMap<>();
-            Set<String> variableColumnNames = new TreeSet<>();
-            Set<String> fixedColumnNames = CacheableQueryRowImpl.getFixedColumnSet();
-            // lets do a quick size estimate
-            long characters = 0;
             for (int x = 1; x <= numColumns; x++) {
-                String columnLabel = metadata.getColumnLabel(x);
-                columnToIndexMap.put(columnLabel, x);
-                String s = cachedRowSet.getString(x);
-                if (s != null) {
-                    characters += s.length();
-                }
-                if (fixedColumnNames.contains(columnLabel) == false || fixedFieldsInEvent.contains(columnLabel)) {
-                    characters += columnLabel.length();
-                    variableColumnNames.add(columnLabel);
-                    if (s == null) {
-                        columnValues.put(columnLabel, new LinkedHashSet<>());
-                    } else {
-                        Set<String> columnValuesSet = new LinkedHashSet<>();
-                        columnValuesSet.add(s);
-                        columnValues.put(columnLabel, columnValuesSet);
-                    }
-                }
-            }
-            
-            // set the the size of the values in characters...internally converted to approximate bytes
-            cqfc.setSizeInStoredCharacters(characters);
-            
-            cqfc.setVariableColumnNames(variableColumnNames);
-            cqfc.setColumnValues(columnValues);
-            
-            if (columnToIndexMap.get("_user_") != null) {
-                cqfc.setUser(cachedRowSet.getString(columnToIndexMap.get("_user_")));
-            }
-            if (columnToIndexMap.get("_queryId_") != null) {
-                cqfc.setQueryId(cachedRowSet.getString(columnToIndexMap.get("_queryId_")));
-            }
-            if (columnToIndexMap.get("_logicName_") != null) {
-                cqfc.setLogicName(cachedRowSet.getString(columnToIndexMap.get("_logicName_")));
-            }
-            if (columnToIndexMap.get("_datatype_") != null) {
-                cqfc.setDataType(cachedRowSet.getString(columnToIndexMap.get("_datatype_")));
-            }
-            if (columnToIndexMap.get("_eventId_") != null) {
-                cqfc.setEventId(cachedRowSet.getString(columnToIndexMap.get("_eventId_")));
+                columnLabels.add(metadata.getColumnLabel(x));
+                columnValues.add(cachedRowSet.getString(x));
             }
-            if (columnToIndexMap.get("_row_") != null) {
-                cqfc.setRow(cachedRowSet.getString(columnToIndexMap.get("_row_")));
-            }
-            if (columnToIndexMap.get("_colf_") != null) {
-                cqfc.setColFam(cachedRowSet.getString(columnToIndexMap.get("_colf_")));
+        } catch (SQLException e) {
+            log.error(e.getMessage(), e);
+            return new CacheableQueryRowImpl();
+        }
+        return createRow(columnLabels, columnValues, null, fixedFieldsInEvent);
+    }
+    
+    /**
+     * Creates a row from the values of the columns of a cached result, in the order of the columns of the cached results table. The column numbers referenced
+     * by the column markings and column timestamps are the positions of the columns, starting at 1.
+     *
+     * @param columnLabels
+     *            the column names
+     * @param values
+     *            the column values, null for a column without a value
+     * @param selectedColumns
+     *            the columns to return as fields of the row, or null for all of them
+     * @param fixedFieldsInEvent
+     *            the fixed columns to return as fields of the row
+     * @return the row
+     */
+    public static CacheableQueryRow createRow(List<String> columnLabels, List<String> values, Set<String> selectedColumns,
+                    Set<String> fixedFieldsInEvent) {
+        
+        CacheableQueryRowImpl cqfc = new CacheableQueryRowImpl();
+        
+        int numColumns = columnLabels.size();
+        Map<String,Integer> columnToIndexMap = new HashMap<>();
+        Map<String,Set<String>> columnValues = new HashMap<>();
+        Set<String> variableColumnNames = new TreeSet<>();
+        Set<String> fixedColumnNames = CacheableQueryRowImpl.getFixedColumnSet();
+        // lets do a quick size estimate
+        long characters = 0;
+        for (int x = 1; x <= numColumns; x++) {
+            String columnLabel = columnLabels.get(x - 1);
+            columnToIndexMap.put(columnLabel, x);
+            if (selectedColumns != null && selectedColumns.contains(columnLabel) == false) {
+                continue;
             }
-            if (columnToIndexMap.get("_markings_") != null) {
-                String mStr = cachedRowSet.getString(columnToIndexMap.get("_markings_"));
-                cqfc.setMarkings(MarkingFunctions.Encoding.fromString(mStr));
+            String s = values.get(x - 1);
+            if (s != null) {
+                characters += s.length();
             }
-            if (columnToIndexMap.get("_column_markings_") != null) {
-                String columnMarkings = cachedRowSet.getString(columnToIndexMap.get("_column_markings_"));
-                Map<String,String> combinedColumnMarkings = parseColumnMarkings(columnMarkings, columnToIndexMap);
-                Map<String,Map<String,String>> columnMarkingsMap = new HashMap<>();
-                Map<String,String> columnVisibilityMap = new HashMap<>();
-                for (Map.Entry<String,String> entry : combinedColumnMarkings.entrySet()) {
-                    String columnName = entry.getKey();
-                    String combinedString = entry.getValue();
-                    int x = combinedString.lastIndexOf(":");
-                    if (x >= 0) {
-                        columnMarkingsMap.put(columnName, MarkingFunctions.Encoding.fromString(combinedString.substring(0, x)));
-                        columnVisibilityMap.put(columnName, combinedString.substring(x + 1));
-                    } else {
-                        columnMarkingsMap.put(columnName, MarkingFunctions.Encoding.fromString(combinedString));
-                        columnVisibilityMap.put(columnName, "");
-                    }
+            if (fixedColumnNames.contains(columnLabel) == false || fixedFieldsInEvent.contains(columnLabel)) {
+                characters += columnLabel.length();
+                variableColumnNames.add(columnLabel);
+                if (s == null) {
+                    columnValues.put(columnLabel, new LinkedHashSet<>());
+                } else {
+                    Set<String> columnValuesSet = new LinkedHashSet<>();
+                    columnValuesSet.add(s);
+                    columnValues.put(columnLabel, columnValuesSet);
                 }
-                cqfc.setColumnMarkingsMap(columnMarkingsMap);
-                cqfc.setColumnColumnVisibilityMap(columnVisibilityMap);
             }
-            if (columnToIndexMap.get("_column_timestamps_") != null) {
-                String columnTimestamps = cachedRowSet.getString(columnToIndexMap.get("_column_timestamps_"));
-                cqfc.setColumnTimestampMap(parseColumnTimestamps(columnTimestamps, columnToIndexMap));
+        }
+        
+        // set the the size of the values in characters...internally converted to approximate bytes
+        cqfc.setSizeInStoredCharacters(characters);
+        
+        cqfc.setVariableColumnNames(variableColumnNames);
+        cqfc.setColumnValues(columnValues);
+        
+        if (columnToIndexMap.get("_user_") != null) {
+            cqfc.setUser(values.get(columnToIndexMap.get("_user_") - 1));
+        }
+        if (columnToIndexMap.get("_queryId_") != null) {
+            cqfc.setQueryId(values.get(columnToIndexMap.get("_queryId_") - 1));
+        }
+        if (columnToIndexMap.get("_logicName_") != null) {
+            cqfc.setLogicName(values.get(columnToIndexMap.get("_logicName_") - 1));
+        }
+        if (columnToIndexMap.get("_datatype_") != null) {
+            cqfc.setDataType(values.get(columnToIndexMap.get("_datatype_") - 1));
+        }
+        if (columnToIndexMap.get("_eventId_") != null) {
+            cqfc.setEventId(values.get(columnToIndexMap.get("_eventId_") - 1));
+        }
+        if (columnToIndexMap.get("_row_") != null) {
+            cqfc.setRow(values.get(columnToIndexMap.get("_row_") - 1));
+        }
+        if (columnToIndexMap.get("_colf_") != null) {
+            cqfc.setColFam(values.get(columnToIndexMap.get("_colf_") - 1));
+        }
+        if (columnToIndexMap.get("_markings_") != null) {
+            String mStr = values.get(columnToIndexMap.get("_markings_") - 1);
+            cqfc.setMarkings(MarkingFunctions.Encoding.fromString(mStr));
+        }
+        if (columnToIndexMap.get("_column_markings_") != null) {
+            String columnMarkings = values.get(columnToIndexMap.get("_column_markings_") - 1);
+            Map<String,String> combinedColumnMarkings = parseColumnMarkings(columnMarkings, columnToIndexMap);
+            Map<String,Map<String,String>> columnMarkingsMap = new HashMap<>();
+            Map<String,String> columnVisibilityMap = new HashMap<>();
+            for (Map.Entry<String,String> entry : combinedColumnMarkings.entrySet()) {
+                String columnName = entry.getKey();
+                String combinedString = entry.getValue();
+                int x = combinedString.lastIndexOf(":");
+                if (x >= 0) {
+                    columnMarkingsMap.put(columnName, MarkingFunctions.Encoding.fromString(combinedString.substring(0, x)));
+                    columnVisibilityMap.put(columnName, combinedString.substring(x + 1));
+                } else {
+                    columnMarkingsMap.put(columnName, MarkingFunctions.Encoding.fromString(combinedString));
+                    columnVisibilityMap.put(columnName, "");
+                }
             }
-            
-        } catch (SQLException e) {
-            log.error(e.getMessage(), e);
+            cqfc.setColumnMarkingsMap(columnMarkingsMap);
+            cqfc.setColumnColumnVisibilityMap(columnVisibilityMap);
+        }
+        if (columnToIndexMap.get("_column_timestamps_") != null) {
+            String columnTimestamps = values.get(columnToIndexMap.get("_column_timestamps_") - 1);
+            cqfc.setColumnTimestampMap(parseColumnTimestamps(columnTimestamps, columnToIndexMap));
         }
         
         return cqfc;
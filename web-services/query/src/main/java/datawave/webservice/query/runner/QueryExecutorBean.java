@@ -568,6 +568,7 @@ public class QueryExecutorBean implements QueryExecutor {
             
             rq = new RunningQuery(metrics, null, priority, qd.logic, q, qp.getAuths(), qd.p, new RunningQueryTimingImpl(queryExpirationConf,
                             qp.getPageTimeout()), this.executor, this.predictor, this.metricFactory);
+            rq.setPrefetchPages(queryExpirationConf.getPrefetchPages());
             rq.setActiveCall(true);
             rq.getMetric().setProxyServers(qd.proxyServers);
             rq.setTraceInfo(traceInfo);
@@ -706,6 +707,7 @@ public class QueryExecutorBean implements QueryExecutor {
             qlCache.add(q.getId().toString(), qd.userid, qd.logic, connection);
             rq = new RunningQuery(metrics, null, priority, qd.logic, q, qp.getAuths(), qd.p, new RunningQueryTimingImpl(queryExpirationConf,
                             qp.getPageTimeout()), this.executor, this.predictor, this.metricFactory);
+            rq.setPrefetchPages(queryExpirationConf.getPrefetchPages());
             rq.setActiveCall(true);
             rq.setTraceInfo(traceInfo);
             rq.getMetric().setProxyServers(qd.proxyServers);
@@ -1035,6 +1037,7 @@ public class QueryExecutorBean implements QueryExecutor {
             AccumuloConnectionFactory.Priority priority = logic.getConnectionPriority();
             RunningQuery query = new RunningQuery(metrics, null, priority, logic, q, q.getQueryAuthorizations(), p, new RunningQueryTimingImpl(
                             queryExpirationConf, qp.getPageTimeout()), this.executor, this.predictor, this.metricFactory);
+            query.setPrefetchPages(queryExpirationConf.getPrefetchPages());
             results.add(query);
             // Put in the cache by id if its not already in the cache.
             if (!queryCache.containsKey(q.getId().toString()))
@@ -1072,6 +1075,7 @@ public class QueryExecutorBean implements QueryExecutor {
                 AccumuloConnectionFactory.Priority priority = logic.getConnectionPriority();
                 query = new RunningQuery(metrics, null, priority, logic, q, q.getQueryAuthorizations(), principal, new RunningQueryTimingImpl(
                                 queryExpirationConf, qp.getPageTimeout()), this.executor, this.predictor, this.metricFactory);
+                query.setPrefetchPages(queryExpirationConf.getPrefetchPages());
                 // Put in the cache by id and name, we will have two copies that reference the same object
                 queryCache.put(q.getId().toString(), query);
             }
@@ -1106,6 +1110,7 @@ public class QueryExecutorBean implements QueryExecutor {
             final AccumuloConnectionFactory.Priority priority = logic.getConnectionPriority();
             query = RunningQuery.createQueryWithAuthorizations(metrics, null, priority, logic, q, auths,
                             new RunningQueryTimingImpl(queryExpirationConf, qp.getPageTimeout()), this.executor, this.predictor, this.metricFactory);
+            query.setPrefetchPages(queryExpirationConf.getPrefetchPages());
             
             // Put in the cache by id and name, we will have two copies that reference the same object
             queryCache.put(q.getId().toString(), query);
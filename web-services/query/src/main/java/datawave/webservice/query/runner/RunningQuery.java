@@ -6,9 +6,12 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -65,6 +68,12 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
     private ExecutorService executor = null;
     private volatile Future<Object> future = null;
     private QueryPredictor predictor = null;
+    // the number of pages to prefetch on the executor after returning a page, 0 to disable prefetching
+    private int prefetchPages = 0;
+    private final ConcurrentLinkedQueue<Object> prefetched = new ConcurrentLinkedQueue<>();
+    private volatile Future<Object> prefetch = null;
+    private volatile boolean stopPrefetch = false;
+    private volatile boolean prefetchedAll = false;
     
     public RunningQuery() {
         super(new QueryMetricFactoryImpl());
@@ -155,6 +164,10 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
             addNDC();
             applyPrediction(null);
             this.connection = connection;
+            // anything prefetched from a previous iterator no longer applies
+            cancelPrefetch();
+            this.prefetched.clear();
+            this.prefetchedAll = false;
             long start = System.currentTimeMillis();
             GenericQueryConfiguration configuration = this.logic.initialize(this.connection, this.settings, this.calculatedAuths);
             this.lastPageNumber = 0;
@@ -191,6 +204,8 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
         List<Object> resultList = new ArrayList<>();
         boolean hitPageByteTrigger = false;
         boolean hitPageTimeTrigger = false;
+        // results prefetched since the last call are used first, so tell the prefetch to stop before it takes the iterator any further
+        this.stopPrefetch = true;
         try {
             addNDC();
             int currentPageCount = 0;
@@ -199,7 +214,7 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
             // test for any exceptions prior to loop as hasNext() would likely be false;
             testForUncaughtException(resultList.size());
             
-            while (!this.finished && ((future != null) || this.iter.hasNext())) {
+            while (!this.finished && ((future != null) || hasPrefetchedResults() || this.iter.hasNext())) {
                 // if we are canceled, then break out
                 if (this.canceled) {
                     log.info("Query has been cancelled, aborting query.next call");
@@ -254,7 +269,16 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
                 }
                 
                 Object o = null;
-                if (executor != null) {
+                if (!prefetched.isEmpty()) {
+                    o = prefetched.poll();
+                } else if (prefetch != null) {
+                    // wait for the prefetch to stop before using the iterator
+                    awaitPrefetch();
+                    continue;
+                } else if (prefetchedAll) {
+                    // the prefetch reached the end of the results, fall through to the null result below
+                    o = null;
+                } else if (executor != null) {
                     if (future == null) {
                         future = executor.submit(() -> iter.next());
                     }
@@ -328,6 +352,7 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
         if (resultList.isEmpty()) {
             return new ResultsPage();
         } else {
+            startPrefetch();
             return new ResultsPage(resultList, ((hitPageByteTrigger || hitPageTimeTrigger) ? ResultsPage.Status.PARTIAL : ResultsPage.Status.COMPLETE));
         }
     }
@@ -340,6 +365,7 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
         if (future != null) {
             future.cancel(true);
         }
+        cancelPrefetch();
         
         // change status to cancelled
         this.getMetric().setLifecycle(QueryMetric.Lifecycle.CANCELLED);
@@ -377,6 +403,23 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
         return calculatedAuths;
     }
     
+    public int getPrefetchPages() {
+        return prefetchPages;
+    }
+    
+    /**
+     * Sets the number of pages to prefetch. When greater than 0 and an executor is available, after a page is returned by {@link #next()} the following
+     * results are pulled from the transform iterator on the executor, up to the given number of pages (and page byte triggers), such that the next call
+     * returns without waiting on them. The prefetch stops at the end of the results, when the query is canceled or closed, and when the query timing would
+     * have returned a partial page.
+     *
+     * @param prefetchPages
+     *            the number of pages to prefetch, 0 to disable prefetching
+     */
+    public void setPrefetchPages(int prefetchPages) {
+        this.prefetchPages = prefetchPages;
+    }
+    
     protected QueryPredictor getPredictor() {
         return this.predictor;
     }
@@ -407,6 +450,9 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
     public void closeConnection(AccumuloConnectionFactory factory) throws Exception {
         this.getMetric().setLifecycle(BaseQueryMetric.Lifecycle.CLOSED);
         
+        cancelPrefetch();
+        prefetched.clear();
+        
         if (iter != null && iter.getTransformer() instanceof WritesResultCardinalities) {
             ((WritesResultCardinalities) iter.getTransformer()).writeResultCardinalities();
         }
@@ -516,6 +562,118 @@ public class RunningQuery extends AbstractRunningQuery implements Runnable {
         
     }
     
+    private boolean hasPrefetchedResults() {
+        return prefetch != null || prefetchedAll || !prefetched.isEmpty();
+    }
+    
+    /**
+     * Starts prefetching the results of the following pages on the executor, if enabled and not already running.
+     */
+    private void startPrefetch() {
+        if (prefetchPages <= 0 || executor == null || finished || canceled || future != null || prefetch != null || prefetchedAll) {
+            return;
+        }
+        
+        int pageSize = this.settings.getPagesize();
+        if (this.logic.getMaxPageSize() > 0) {
+            pageSize = Math.min(pageSize, this.logic.getMaxPageSize());
+        }
+        long maxResults = (long) prefetchPages * pageSize;
+        // do not prefetch beyond the max results of the query
+        long queryMaxResults = (this.settings.isMaxResultsOverridden() ? this.settings.getMaxResultsOverride() : this.logic.getMaxResults());
+        if (queryMaxResults >= 0) {
+            maxResults = Math.min(maxResults, queryMaxResults - numResults);
+        }
+        long maxBytes = (this.logic.getPageByteTrigger() > 0 ? prefetchPages * this.logic.getPageByteTrigger() : 0);
+        if (maxResults <= 0) {
+            return;
+        }
+        
+        this.stopPrefetch = false;
+        final long prefetchMaxResults = maxResults;
+        try {
+            prefetch = executor.submit(() -> prefetch(prefetchMaxResults, maxBytes));
+        } catch (RejectedExecutionException e) {
+            log.debug("Prefetch rejected by executor, the next page will be retrieved in the next call", e);
+        }
+    }
+    
+    /**
+     * Pulls results from the transform iterator into the prefetched results until the given number of results or bytes has been reached, the end of the
+     * results, or until asked to stop.
+     */
+    private Object prefetch(long maxResults, long maxBytes) {
+        long startTime = System.currentTimeMillis();
+        int maxPageSize = (int) Math.min(maxResults, Integer.MAX_VALUE);
+        int count = 0;
+        long bytes = 0;
+        try {
+            addNDC();
+            while (!this.stopPrefetch && !this.canceled && count < maxResults && (maxBytes <= 0 || bytes < maxBytes)) {
+                // stop once the query has been expired
+                QueryUncaughtExceptionHandler handler = settings.getUncaughtExceptionHandler();
+                if (handler != null && handler.getThrowable() != null) {
+                    break;
+                }
+                // stop where a call would have returned partial results, rather than tying up the executor any longer than a call may
+                if (timing != null && count > 0 && timing.shouldReturnPartialResults(count, maxPageSize, System.currentTimeMillis() - startTime)) {
+                    log.debug("Prefetch stopped after " + count + " results " + timing);
+                    break;
+                }
+                if (!this.iter.hasNext()) {
+                    break;
+                }
+                Object o = this.iter.next();
+                if (o == null) {
+                    this.prefetchedAll = true;
+                    break;
+                }
+                prefetched.add(o);
+                if (maxBytes > 0) {
+                    bytes += ObjectSizeOf.Sizer.getObjectSize(o);
+                }
+                count++;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Prefetched " + count + " results in " + (System.currentTimeMillis() - startTime) + "ms");
+            }
+        } finally {
+            removeNDC();
+        }
+        return null;
+    }
+    
+    /**
+     * Waits up to a minute for the prefetch to stop, leaving it in place if still running so that the caller can check for cancellation and timing.
+     */
+    private void awaitPrefetch() throws ExecutionException {
+        Future<Object> prefetch = this.prefetch;
+        if (prefetch == null) {
+            return;
+        }
+        try {
+            prefetch.get(1, TimeUnit.MINUTES);
+            this.prefetch = null;
+        } catch (InterruptedException | CancellationException e) {
+            // in this case we were most likely cancelled, no longer waiting
+            this.prefetch = null;
+        } catch (ExecutionException ee) {
+            // in this case we need to pass up the exception
+            this.prefetch = null;
+            throw ee;
+        } catch (TimeoutException te) {
+            // in this case we are still waiting on the prefetch....simply continue
+        }
+    }
+    
+    private void cancelPrefetch() {
+        this.stopPrefetch = true;
+        Future<Object> prefetch = this.prefetch;
+        if (prefetch != null) {
+            prefetch.cancel(true);
+        }
+    }
+    
     private void testForUncaughtException(int numResults) throws QueryException {
         QueryUncaughtExceptionHandler handler = settings.getUncaughtExceptionHandler();
         if (handler != null) {
@@ -2,6 +2,7 @@ package datawave.webservice.query.runner;
 
 import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
@@ -16,9 +17,13 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import datawave.security.authorization.DatawavePrincipal;
 import datawave.security.authorization.DatawaveUser;
@@ -28,6 +33,7 @@ import datawave.security.util.DnUtils.NpeUtils;
 import datawave.webservice.common.connection.AccumuloConnectionFactory;
 import datawave.webservice.query.QueryImpl;
 import datawave.webservice.query.cache.QueryMetricFactoryImpl;
+import datawave.webservice.query.cache.ResultsPage;
 import datawave.webservice.query.configuration.GenericQueryConfiguration;
 import datawave.webservice.query.logic.BaseQueryLogic;
 import datawave.webservice.query.logic.DatawaveRoleManager;
@@ -40,6 +46,7 @@ import org.apache.accumulo.core.client.Connector;
 import datawave.accumulo.inmemory.InMemoryInstance;
 import org.apache.accumulo.core.client.security.tokens.PasswordToken;
 import org.apache.accumulo.core.security.Authorizations;
+import org.apache.commons.collections4.functors.NOPTransformer;
 import org.apache.commons.collections4.iterators.TransformIterator;
 import org.junit.Assert;
 import org.junit.Before;
@@ -185,4 +192,66 @@ public class RunningQueryTest {
             Assert.fail("NullPointer encountered. This could be caused by configuration being null. Check logic.initialize() ");
         }
     }
+    
+    @Test
+    public void testNextWithPrefetch() throws Exception {
+        DatawaveUser user = new DatawaveUser(userDN, UserType.USER, null, null, null, 0L);
+        DatawavePrincipal principal = new DatawavePrincipal(Collections.singletonList(user));
+        InMemoryInstance instance = new InMemoryInstance("test instance");
+        Connector connector = instance.getConnector("root", new PasswordToken(""));
+        
+        // 25 results, counting the results taken from the iterator
+        AtomicInteger taken = new AtomicInteger();
+        Iterator<Object> results = new Iterator<Object>() {
+            @Override
+            public boolean hasNext() {
+                return taken.get() < 25;
+            }
+            
+            @Override
+            public Object next() {
+                return "result" + taken.getAndIncrement();
+            }
+        };
+        
+        QueryLogic<?> prefetchLogic = createNiceMock(QueryLogic.class);
+        SampleGenericQueryConfiguration config = new SampleGenericQueryConfiguration();
+        expect(prefetchLogic.initialize(anyObject(), anyObject(), anyObject())).andReturn(config);
+        expect(prefetchLogic.getTransformIterator(settings)).andReturn(new TransformIterator(results, NOPTransformer.nopTransformer()));
+        expect(prefetchLogic.getMaxResults()).andReturn(-1L).anyTimes();
+        expect(prefetchLogic.getMaxWork()).andReturn(-1L).anyTimes();
+        replay(prefetchLogic);
+        
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RunningQuery query = new RunningQuery(null, connector, connectionPriority, prefetchLogic, settings, methodAuths, principal,
+                            new RunningQuery.RunningQueryTimingNoOp(), executor, new QueryMetricFactoryImpl());
+            query.setPrefetchPages(1);
+            
+            ResultsPage page = query.next();
+            assertEquals(10, page.getResults().size());
+            assertEquals("result0", page.getResults().get(0));
+            
+            // the second page is retrieved in the background
+            long stop = System.currentTimeMillis() + 10000;
+            while (taken.get() < 20 && System.currentTimeMillis() < stop) {
+                Thread.sleep(10);
+            }
+            assertEquals(20, taken.get());
+            
+            page = query.next();
+            assertEquals(10, page.getResults().size());
+            assertEquals("result10", page.getResults().get(0));
+            assertEquals("result19", page.getResults().get(9));
+            
+            page = query.next();
+            assertEquals(5, page.getResults().size());
+            assertEquals("result24", page.getResults().get(4));
+            
+            assertEquals(0, query.next().getResults().size());
+            assertEquals(25, taken.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }